@@ -0,0 +1,70 @@
+package com.qcloud.cos.response;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 解析199项的目录列表并读取每一项的文件名, orgJson为构建org.json对象树的方式, listResult为按需解码的方式
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ListResultBenchmark {
+
+    private String rawResult;
+
+    @Setup
+    public void setUp() {
+        JSONArray infos = new JSONArray();
+        for (int i = 0; i < 199; ++i) {
+            JSONObject info = new JSONObject();
+            info.put("name", "sample_file_" + i + ".txt");
+            info.put("biz_attr", "");
+            info.put("filesize", 1048576 + i);
+            info.put("filelen", 1048576 + i);
+            info.put("sha", "681805d9f7c6ab988a00c02f1096b1b68a77aaed");
+            info.put("ctime", 1476700000 + i);
+            info.put("mtime", 1476700000 + i);
+            info.put("access_url", "http://chengwu-10022105.file.myqcloud.com/folder/sample_file_" + i + ".txt");
+            info.put("source_url", "http://chengwu-10022105.cos.myqcloud.com/folder/sample_file_" + i + ".txt");
+            info.put("authority", "eInvalid");
+            infos.put(info);
+        }
+        JSONObject data = new JSONObject().put("context", "/10022105/chengwu/folder/sample_file_198.txt")
+                .put("listover", false).put("infos", infos);
+        rawResult = new JSONObject().put("code", 0).put("message", "SUCCESS").put("data", data).toString();
+    }
+
+    @Benchmark
+    public void orgJson(Blackhole blackhole) {
+        JSONObject result = new JSONObject(rawResult);
+        JSONArray infos = result.getJSONObject("data").getJSONArray("infos");
+        for (int i = 0; i < infos.length(); ++i) {
+            blackhole.consume(infos.getJSONObject(i).getString("name"));
+        }
+    }
+
+    @Benchmark
+    public void listResult(Blackhole blackhole) {
+        ListResult result = new ListResult(rawResult);
+        for (ObjectInfo info : result.getInfos()) {
+            blackhole.consume(info.getName());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.qcloud.cos.sign;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.qcloud.cos.common_utils.CommonPathUtils;
+
+/**
+ * 多次签名的性能测试, legacySign为逐次创建Mac和Random的原实现, sign为复用线程内Mac和缓冲区的实现,
+ * cachedSign为签名缓存命中时的开销. 加上-prof gc参数可以比较每次签名产生的临时对象大小
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SignBenchmark {
+
+    private static final String BUCKET_NAME = "chengwu";
+    private static final String COS_PATH = "/folder/sample_file.txt";
+
+    private Credentials cred = new Credentials(10022105, "AKIDxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx", "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx");
+    private SignCache signCache = new SignCache(1000);
+
+    @Benchmark
+    public String legacySign() throws Exception {
+        long expired = System.currentTimeMillis() / 1000 + 300;
+        long now = System.currentTimeMillis() / 1000;
+        int rdm = Math.abs(new Random().nextInt());
+        String fileId = String.format("/%s/%s%s", cred.getAppId(), BUCKET_NAME, COS_PATH);
+        fileId = CommonPathUtils.encodeRemotePath(fileId);
+        String plainText = String.format("a=%s&k=%s&e=%d&t=%d&r=%d&f=%s&b=%s", cred.getAppId(), cred.getSecretId(),
+                expired, now, rdm, fileId, BUCKET_NAME);
+
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(cred.getSecretKey().getBytes(), "HmacSHA1"));
+        byte[] hmacDigest = mac.doFinal(plainText.getBytes());
+        byte[] signContent = new byte[hmacDigest.length + plainText.getBytes().length];
+        System.arraycopy(hmacDigest, 0, signContent, 0, hmacDigest.length);
+        System.arraycopy(plainText.getBytes(), 0, signContent, hmacDigest.length, plainText.getBytes().length);
+        return Base64.encodeBase64String(signContent);
+    }
+
+    @Benchmark
+    public String sign() throws Exception {
+        long expired = System.currentTimeMillis() / 1000 + 300;
+        return Sign.getPeriodEffectiveSign(BUCKET_NAME, COS_PATH, cred, expired);
+    }
+
+    @Benchmark
+    public String cachedSign() throws Exception {
+        return signCache.getPeriodEffectiveSign(BUCKET_NAME, COS_PATH, cred, 300);
+    }
+}
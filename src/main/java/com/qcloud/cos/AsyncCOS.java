@@ -0,0 +1,316 @@
+package com.qcloud.cos;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+
+import com.qcloud.cos.http.EndpointMetrics;
+import com.qcloud.cos.request.CreateFolderRequest;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.request.MoveFileRequest;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.StatFolderRequest;
+import com.qcloud.cos.request.UpdateFileRequest;
+import com.qcloud.cos.request.UpdateFolderRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+import com.qcloud.cos.request.UploadSliceFileRequest;
+
+/**
+ * @author chengwu
+ * COS提供给用户使用的异步API接口, 与COS接口一一对应, 调用线程不等待请求完成.
+ * 返回的Future的结果与COS接口的返回值相同, 即JSON格式的字符串, 请求失败时结果为描述失败原因的JSON字符串,
+ * 而不会以异常的形式抛出
+ */
+
+public interface AsyncCOS {
+
+	/**
+	 * 上传文件请求, 对小文件(8MB以下)使用单文件上传接口, 大文件使用分片上传接口, 推荐使用
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> uploadFile(UploadFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 上传文件请求, 对小文件(8MB以下)使用单文件上传接口, 大文件使用分片上传接口, 推荐使用, 等同于uploadFile(request, null)
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> uploadFile(UploadFileRequest request);
+
+	/**
+	 * 上传单文件请求, 不分片,优先推荐使用uploadFile接口
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> uploadSingleFile(UploadFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 上传单文件请求, 不分片,优先推荐使用uploadFile接口, 等同于uploadSingleFile(request, null)
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> uploadSingleFile(UploadFileRequest request);
+
+	/**
+	 * 分片上传文件
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> uploadSliceFile(UploadSliceFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 分片上传文件, 等同于uploadSliceFile(request, null)
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> uploadSliceFile(UploadSliceFileRequest request);
+
+	/**
+	 * 下载文件, 按分块并发下载到本地文件, 中断后再次下载时跳过已完成的分块
+	 * 
+	 * @param request
+	 *            下载文件请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> downloadFile(DownloadFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 下载文件, 等同于downloadFile(request, null)
+	 * 
+	 * @param request
+	 *            下载文件请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> downloadFile(DownloadFileRequest request);
+
+	/**
+	 * 获取文件属性
+	 * 
+	 * @param request
+	 *            获取文件属性请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> statFile(StatFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 获取文件属性, 等同于statFile(request, null)
+	 * 
+	 * @param request
+	 *            获取文件属性请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> statFile(StatFileRequest request);
+
+	/**
+	 * 更新文件属性
+	 * 
+	 * @param request
+	 *            更新文件属性请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> updateFile(UpdateFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 更新文件属性, 等同于updateFile(request, null)
+	 * 
+	 * @param request
+	 *            更新文件属性请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> updateFile(UpdateFileRequest request);
+
+	/**
+	 * 移动文件
+	 * 
+	 * @param request
+	 *            移动文件请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> moveFile(MoveFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 移动文件, 等同于moveFile(request, null)
+	 * 
+	 * @param request
+	 *            移动文件请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> moveFile(MoveFileRequest request);
+
+	/**
+	 * 删除文件
+	 * 
+	 * @param request
+	 *            删除文件请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> delFile(DelFileRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 删除文件, 等同于delFile(request, null)
+	 * 
+	 * @param request
+	 *            删除文件请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> delFile(DelFileRequest request);
+
+	/**
+	 * 创建目录
+	 * 
+	 * @param request
+	 *            创建目录属性请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> createFolder(CreateFolderRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 创建目录, 等同于createFolder(request, null)
+	 * 
+	 * @param request
+	 *            创建目录属性请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> createFolder(CreateFolderRequest request);
+
+	/**
+	 * 更新目录属性
+	 * 
+	 * @param request
+	 *            更新目录属性请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> updateFolder(UpdateFolderRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 更新目录属性, 等同于updateFolder(request, null)
+	 * 
+	 * @param request
+	 *            更新目录属性请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> updateFolder(UpdateFolderRequest request);
+
+	/**
+	 * 获取目录属性请求
+	 * 
+	 * @param request
+	 *            获取目录属性请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> statFolder(StatFolderRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 获取目录属性请求, 等同于statFolder(request, null)
+	 * 
+	 * @param request
+	 *            获取目录属性请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> statFolder(StatFolderRequest request);
+
+	/**
+	 * 获取目录列表请求
+	 * 
+	 * @param request
+	 *            获取目录列表请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> listFolder(ListFolderRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 获取目录列表请求, 等同于listFolder(request, null)
+	 * 
+	 * @param request
+	 *            获取目录列表请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> listFolder(ListFolderRequest request);
+
+	/**
+	 * 删除目录请求
+	 * 
+	 * @param request
+	 *            删除目录请求
+	 * @param callback
+	 *            请求完成时在SDK的线程中执行的回调, 不能有阻塞操作, 可以为null
+	 * @return 请求结果的Future, 结果为JSON格式的字符串, 格式为{"code":$code, "message":"$mess"},
+	 *         code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    Future<String> delFolder(DelFolderRequest request, FutureCallback<String> callback);
+
+	/**
+	 * 删除目录请求, 等同于delFolder(request, null)
+	 * 
+	 * @param request
+	 *            删除目录请求
+	 * @return 请求结果的Future
+	 */
+    Future<String> delFolder(DelFolderRequest request);
+
+    /**
+     * 获取各个服务端地址的熔断器和自适应并发限制的状态, 用于监控
+     * 
+     * @return 已发送过请求的服务端地址的状态快照
+     */
+    List<EndpointMetrics> getEndpointMetrics();
+
+    /**
+     * 关闭COS客户端连接池和线程池，释放涉及的资源，尚未完成的请求会失败，释放后，不能再使用AsyncCOS的接口，必须重新生成一个新对象
+     */
+    void shutdown();
+
+}
@@ -0,0 +1,409 @@
+package com.qcloud.cos;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.http.AbstractCosHttpClient;
+import com.qcloud.cos.http.DefaultCosHttpClient;
+import com.qcloud.cos.http.EndpointMetrics;
+import com.qcloud.cos.op.FileOp;
+import com.qcloud.cos.op.FolderOp;
+import com.qcloud.cos.request.AbstractBaseRequest;
+import com.qcloud.cos.request.CreateFolderRequest;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.request.MoveFileRequest;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.StatFolderRequest;
+import com.qcloud.cos.request.UpdateFileRequest;
+import com.qcloud.cos.request.UpdateFolderRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.sign.Credentials;
+import com.qcloud.cos.sign.SignCache;
+
+/**
+ * @author chengwu 封装Cos JAVA SDK暴露给用户的异步接口函数.
+ * 目录和文件的属性操作通过非阻塞的HTTP客户端发送, 大量并发请求只占用ClientConfig中设置的少量IO线程;
+ * 上传和下载由多个请求组成且需要读写本地文件, 在固定大小的线程池中执行, 开启虚拟线程时每个上传或下载使用一个虚拟线程
+ */
+public class AsyncCOSClient implements AsyncCOS {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncCOSClient.class);
+
+	private ClientConfig config;
+	private Credentials cred;
+	private AbstractCosHttpClient client;
+
+	private FileOp fileOp;
+	private FolderOp folderOp;
+	private SignCache signCache;
+
+	private ExecutorService taskExecutor;
+
+	public AsyncCOSClient(int appId, String secretId, String secretKey) {
+		this(new Credentials(appId, secretId, secretKey));
+	}
+
+	public AsyncCOSClient(Credentials cred) {
+		this(new ClientConfig(), cred);
+	}
+
+	public AsyncCOSClient(ClientConfig config, Credentials cred) {
+		this.config = config;
+		this.cred = cred;
+		this.client = new DefaultCosHttpClient(config);
+		fileOp = new FileOp(this.config, this.cred, this.client);
+		folderOp = new FolderOp(this.config, this.cred, this.client);
+		initSignCache();
+		if (config.isEnableVirtualThread()) {
+			this.taskExecutor = CommonExecutorUtils.newVirtualThreadExecutor();
+			if (this.taskExecutor == null) {
+				LOG.warn("virtual thread is not supported by current jdk, use platform thread pool");
+			}
+		}
+		if (this.taskExecutor != null) {
+			// 虚拟线程执行器不限制任务数, 上传下载中的分片任务也可以共享, 不会因等待分片而占满线程
+			fileOp.setTaskExecutor(this.taskExecutor);
+		} else {
+			this.taskExecutor = CommonExecutorUtils.newDaemonThreadPool(config.getAsyncUploadThreadCount(),
+					"cos-async-task-");
+		}
+	}
+
+	public void setCred(Credentials cred) {
+		this.cred = cred;
+		this.fileOp.setCred(cred);
+		this.folderOp.setCred(cred);
+		this.signCache.clear();
+	}
+
+	// FileOp和FolderOp共享同一个签名缓存
+	private void initSignCache() {
+		this.signCache = new SignCache(this.config.getSignCacheSize());
+		this.fileOp.setSignCache(this.signCache);
+		this.folderOp.setSignCache(this.signCache);
+	}
+
+	private void recordException(String methodName, AbstractBaseRequest request, String message) {
+		LOG.error(methodName + " occur a exception, request:{}, message:{}", request, message);
+	}
+
+	/**
+	 * 异步操作的回调, 与COSClient一样把异常转换为JSON格式的字符串作为操作结果
+	 */
+	private class ResultCallback implements FutureCallback<String> {
+		private final String methodName;
+		private final AbstractBaseRequest request;
+		private final BasicFuture<String> future;
+
+		ResultCallback(String methodName, AbstractBaseRequest request, BasicFuture<String> future) {
+			this.methodName = methodName;
+			this.request = request;
+			this.future = future;
+		}
+
+		@Override
+		public void completed(String result) {
+			future.completed(result);
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			AbstractCosException e = null;
+			if (ex instanceof AbstractCosException) {
+				e = (AbstractCosException) ex;
+			} else {
+				e = new UnknownException(ex.toString());
+			}
+			recordException(methodName, request, e.toString());
+			future.completed(e.toString());
+		}
+
+		@Override
+		public void cancelled() {
+			future.cancel();
+		}
+	}
+
+	@Override
+	public Future<String> updateFolder(UpdateFolderRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("updateFolder", request, future);
+		try {
+			folderOp.updateFolderAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> updateFolder(UpdateFolderRequest request) {
+		return updateFolder(request, null);
+	}
+
+	@Override
+	public Future<String> updateFile(UpdateFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("updateFile", request, future);
+		try {
+			fileOp.updateFileAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> updateFile(UpdateFileRequest request) {
+		return updateFile(request, null);
+	}
+
+	@Override
+	public Future<String> moveFile(MoveFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("moveFile", request, future);
+		try {
+			fileOp.moveFileAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> moveFile(MoveFileRequest request) {
+		return moveFile(request, null);
+	}
+
+	@Override
+	public Future<String> delFolder(DelFolderRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("deleteFolder", request, future);
+		try {
+			folderOp.delFolderAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> delFolder(DelFolderRequest request) {
+		return delFolder(request, null);
+	}
+
+	@Override
+	public Future<String> delFile(DelFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("deleteFile", request, future);
+		try {
+			fileOp.delFileAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> delFile(DelFileRequest request) {
+		return delFile(request, null);
+	}
+
+	@Override
+	public Future<String> statFolder(StatFolderRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("getFolderStat", request, future);
+		try {
+			folderOp.statFolderAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> statFolder(StatFolderRequest request) {
+		return statFolder(request, null);
+	}
+
+	@Override
+	public Future<String> statFile(StatFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("getFileStat", request, future);
+		try {
+			fileOp.statFileAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> statFile(StatFileRequest request) {
+		return statFile(request, null);
+	}
+
+	@Override
+	public Future<String> createFolder(CreateFolderRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("createFolder", request, future);
+		try {
+			folderOp.createFolderAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> createFolder(CreateFolderRequest request) {
+		return createFolder(request, null);
+	}
+
+	@Override
+	public Future<String> listFolder(ListFolderRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		ResultCallback resultCallback = new ResultCallback("getFolderList", request, future);
+		try {
+			folderOp.listFolderAsync(request, resultCallback);
+		} catch (Exception e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> listFolder(ListFolderRequest request) {
+		return listFolder(request, null);
+	}
+
+	@Override
+	public Future<String> uploadFile(final UploadFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		final ResultCallback resultCallback = new ResultCallback("uploadFile", request, future);
+		try {
+			taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						resultCallback.completed(fileOp.uploadFile(request));
+					} catch (Exception e) {
+						resultCallback.failed(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> uploadFile(UploadFileRequest request) {
+		return uploadFile(request, null);
+	}
+
+	@Override
+	public Future<String> uploadSingleFile(final UploadFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		final ResultCallback resultCallback = new ResultCallback("uploadSingleFile", request, future);
+		try {
+			taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						resultCallback.completed(fileOp.uploadSingleFile(request));
+					} catch (Exception e) {
+						resultCallback.failed(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> uploadSingleFile(UploadFileRequest request) {
+		return uploadSingleFile(request, null);
+	}
+
+	@Override
+	public Future<String> uploadSliceFile(final UploadSliceFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		final ResultCallback resultCallback = new ResultCallback("uploadSliceFile", request, future);
+		try {
+			taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						resultCallback.completed(fileOp.uploadSliceFile(request));
+					} catch (Exception e) {
+						resultCallback.failed(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> uploadSliceFile(UploadSliceFileRequest request) {
+		return uploadSliceFile(request, null);
+	}
+
+	@Override
+	public Future<String> downloadFile(final DownloadFileRequest request, FutureCallback<String> callback) {
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		final ResultCallback resultCallback = new ResultCallback("downloadFile", request, future);
+		try {
+			taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						resultCallback.completed(fileOp.downloadFile(request));
+					} catch (Exception e) {
+						resultCallback.failed(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			resultCallback.failed(e);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<String> downloadFile(DownloadFileRequest request) {
+		return downloadFile(request, null);
+	}
+
+	@Override
+	public List<EndpointMetrics> getEndpointMetrics() {
+		return this.client.getEndpointMetrics();
+	}
+
+	@Override
+	public void shutdown() {
+		this.taskExecutor.shutdown();
+		this.client.shutdown();
+	}
+
+}
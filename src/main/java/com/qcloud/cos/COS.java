@@ -1,16 +1,34 @@
 package com.qcloud.cos;
 
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import com.qcloud.cos.op.ListFolderIterator;
+import com.qcloud.cos.http.EndpointMetrics;
+import com.qcloud.cos.request.BatchRequest;
+import com.qcloud.cos.request.BulkUploadRequest;
 import com.qcloud.cos.request.CreateFolderRequest;
 import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRecursiveRequest;
 import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.DownloadFileStreamRequest;
 import com.qcloud.cos.request.ListFolderRequest;
 import com.qcloud.cos.request.MoveFileRequest;
 import com.qcloud.cos.request.StatFileRequest;
 import com.qcloud.cos.request.StatFolderRequest;
+import com.qcloud.cos.request.SyncFolderRequest;
 import com.qcloud.cos.request.UpdateFileRequest;
 import com.qcloud.cos.request.UpdateFolderRequest;
 import com.qcloud.cos.request.UploadFileRequest;
 import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.DelProgressListener;
+import com.qcloud.cos.response.ListResult;
+import com.qcloud.cos.response.ObjectInfoConsumer;
+import com.qcloud.cos.response.StatResult;
+import com.qcloud.cos.response.UploadResult;
 
 /**
  * @author chengwu
@@ -48,7 +66,58 @@ public interface COS {
 	 *         其他为失败, message为success或者失败原因
 	 */         
     String uploadSliceFile(UploadSliceFileRequest request);
+
+	/**
+	 * 上传文件, 与uploadFile相同, 结果为按需解码的类型化结果, getRawResult()为原始的JSON字符串
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @return 上传文件的结果
+	 */
+    UploadResult uploadFileResult(UploadFileRequest request);
+
+	/**
+	 * 分片上传文件, 与uploadSliceFile相同, 结果为按需解码的类型化结果
+	 * 
+	 * @param request
+	 *            分片上传文件请求
+	 * @return 上传文件的结果
+	 */
+    UploadResult uploadSliceFileResult(UploadSliceFileRequest request);
     
+	/**
+	 * 下载文件, 按分块并发下载到本地文件, 中断后再次下载时跳过已完成的分块
+	 * 
+	 * @param request
+	 *            下载文件请求
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess"}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 */
+    String downloadFile(DownloadFileRequest request);
+
+	/**
+	 * 流式下载文件, 文件内容(或request指定的范围)边接收边写入outputStream, 内存占用与文件大小无关
+	 * 
+	 * @param request
+	 *            流式下载请求
+	 * @param outputStream
+	 *            文件内容写入的流, 由调用者关闭
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"filesize":$filesize,
+	 *         "length":$length}}, code为0表示成功, filesize为文件大小, length为写入的字节数
+	 */
+    String downloadFileStream(DownloadFileStreamRequest request, OutputStream outputStream);
+
+	/**
+	 * 流式下载文件, 文件内容(或request指定的范围)边接收边写入channel, 内存占用与文件大小无关
+	 * 
+	 * @param request
+	 *            流式下载请求
+	 * @param channel
+	 *            文件内容写入的channel, 由调用者关闭
+	 * @return JSON格式的字符串, 格式同downloadFileStream(request, outputStream)
+	 */
+    String downloadFileStream(DownloadFileStreamRequest request, WritableByteChannel channel);
+
 	/**
 	 * 获取文件属性
 	 * 
@@ -58,6 +127,15 @@ public interface COS {
 	 *         其他为失败, message为success或者失败原因
      */
     String statFile(StatFileRequest request);
+
+	/**
+	 * 获取文件属性, 与statFile相同, 结果为按需解码的类型化结果
+	 * 
+	 * @param request
+	 *            获取文件属性请求
+	 * @return 获取属性的结果
+	 */
+    StatResult statFileResult(StatFileRequest request);
     
 	/**
 	 * 更新文件属性
@@ -119,6 +197,15 @@ public interface COS {
      */
     String statFolder(StatFolderRequest request);
 
+	/**
+	 * 获取目录属性, 与statFolder相同, 结果为按需解码的类型化结果
+	 * 
+	 * @param request
+	 *            获取目录属性请求
+	 * @return 获取属性的结果
+	 */
+    StatResult statFolderResult(StatFolderRequest request);
+
 	/**
 	 * 获取目录列表请求
 	 * 
@@ -128,6 +215,36 @@ public interface COS {
 	 *         其他为失败, message为success或者失败原因
      */
     String listFolder(ListFolderRequest request);
+
+	/**
+	 * 获取目录列表, 与listFolder相同, 结果为按需解码的类型化结果, 列表项的字段在访问时才解码
+	 * 
+	 * @param request
+	 *            获取目录列表请求
+	 * @return 目录列表的结果
+	 */
+    ListResult listFolderResult(ListFolderRequest request);
+
+	/**
+	 * 遍历目录下的全部成员, 按context自动翻页, 处理当前页时预取下一页, 最多同时持有两页数据
+	 * 
+	 * @param request
+	 *            获取目录列表请求, 从request的context开始遍历, num为每页的成员数
+	 * @return 目录成员的迭代器, 请求失败时迭代结束, 失败原因通过迭代器的getFailedResult获取
+	 */
+    ListFolderIterator listFolderAll(ListFolderRequest request);
+
+	/**
+	 * 递归遍历目录树, 多个目录同时列出, 遍历到的文件和目录交给consumer
+	 * 
+	 * @param request
+	 *            遍历目录树请求, 可以指定最大深度, 返回的成员类型以及同时进行的列表请求数
+	 * @param consumer
+	 *            接收遍历到的文件和目录, 在多个线程中同时被调用, 实现需要线程安全
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"folder_count":$folder_count,
+	 *         "file_count":$file_count}}, code为0表示成功, 其他为失败, message为success或者失败原因
+	 */
+    String walkFolder(WalkFolderRequest request, ObjectInfoConsumer consumer);
     
 	/**
 	 * 删除目录请求
@@ -138,7 +255,62 @@ public interface COS {
 	 *         其他为失败, message为success或者失败原因
      */
     String delFolder(DelFolderRequest request);   
+
+	/**
+	 * 递归删除目录, 删除目录下的全部文件和子目录, 最后删除目录本身. 文件同时删除, 目录按深度从深到浅删除
+	 * 
+	 * @param request
+	 *            递归删除目录请求, 可以指定同时进行的删除请求数和每秒的删除请求数
+	 * @param listener
+	 *            接收每个文件和目录的删除结果, 可以为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"deleted_file_count":$count,
+	 *         "deleted_folder_count":$count, "failed_count":$count, "failed_list":[{"cos_path":$path,
+	 *         "code":$code, "message":$mess}]}}, 全部删除时code为0, 否则为第一个失败的请求的结果,
+	 *         failed_list最多列出100个失败的路径
+	 */
+    String delFolderRecursive(DelFolderRecursiveRequest request, DelProgressListener listener);
+
+	/**
+	 * 批量执行文件和目录的属性查询, 更新, 移动, 删除和创建目录请求, 多个请求同时执行, 所有请求完成后返回
+	 * 
+	 * @param request
+	 *            批量请求, 可以指定同时进行的请求数
+	 * @return 每个请求的结果, 顺序与请求相同, 格式与对应的单个接口的返回值相同.
+	 *         批量请求本身的参数有误时每个请求的结果都是该错误
+	 */
+    List<String> batch(BatchRequest request);
+
+	/**
+	 * 把本地目录同步到cos目录, 多个文件同时上传. 大小和修改时间与上次同步相同的文件不读取内容直接跳过,
+	 * 上传成功的文件记录到request指定的清单文件中, cos上已有相同内容的大文件直接秒传
+	 * 
+	 * @param request
+	 *            同步目录请求, 包括本地目录, 清单文件路径以及同时上传的文件数
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"uploaded_count":$count,
+	 *         "skipped_count":$count, "failed_count":$count, "failed_list":[{"cos_path":$path,
+	 *         "code":$code, "message":$mess}]}}, 全部同步成功时code为0, 否则为第一个失败的结果,
+	 *         failed_list最多列出100个失败的路径
+	 */
+    String syncFolder(SyncFolderRequest request);
+
+	/**
+	 * 批量上传文件, 适合大量小文件. 8MB以下的文件一次读入内存并计算sha, 通过异步客户端上传,
+	 * 同时进行的上传请求数和已读入内存的文件总大小受request限制, 所有文件上传完成后返回
+	 * 
+	 * @param request
+	 *            批量上传请求
+	 * @return 每个文件的上传结果, 顺序与请求相同, 格式与uploadFile的返回值相同.
+	 *         批量上传请求本身的参数有误时每个文件的结果都是该错误
+	 */
+    List<String> uploadFiles(BulkUploadRequest request);
     
+    /**
+     * 获取各个服务端地址的熔断器和自适应并发限制的状态, 用于监控
+     * 
+     * @return 已发送过请求的服务端地址的状态快照
+     */
+    List<EndpointMetrics> getEndpointMetrics();
+
     /**
      * 关闭COS客户端连接池，释放涉及的资源，释放后，不能再使用COS的接口，必须重新生成一个新对象
      */
@@ -4,25 +4,49 @@ import com.qcloud.cos.request.UpdateFileRequest;
 import com.qcloud.cos.request.UpdateFolderRequest;
 import com.qcloud.cos.request.UploadFileRequest;
 import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.DelProgressListener;
+import com.qcloud.cos.response.ListResult;
+import com.qcloud.cos.response.ObjectInfoConsumer;
+import com.qcloud.cos.response.StatResult;
+import com.qcloud.cos.response.UploadResult;
 import com.qcloud.cos.sign.Credentials;
+import com.qcloud.cos.sign.SignCache;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
 import com.qcloud.cos.exception.AbstractCosException;
 import com.qcloud.cos.exception.UnknownException;
 import com.qcloud.cos.http.AbstractCosHttpClient;
 import com.qcloud.cos.http.DefaultCosHttpClient;
+import com.qcloud.cos.http.EndpointMetrics;
+import com.qcloud.cos.op.BatchExecutor;
 import com.qcloud.cos.op.FileOp;
 import com.qcloud.cos.op.FolderOp;
+import com.qcloud.cos.op.ListFolderIterator;
 import com.qcloud.cos.request.AbstractBaseRequest;
+import com.qcloud.cos.request.BatchRequest;
+import com.qcloud.cos.request.BulkUploadRequest;
 import com.qcloud.cos.request.CreateFolderRequest;
 import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRecursiveRequest;
 import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.DownloadFileStreamRequest;
 import com.qcloud.cos.request.ListFolderRequest;
 import com.qcloud.cos.request.MoveFileRequest;
 import com.qcloud.cos.request.StatFileRequest;
 import com.qcloud.cos.request.StatFolderRequest;
+import com.qcloud.cos.request.SyncFolderRequest;
 
 /**
  * @author chengwu 封装Cos JAVA SDK暴露给用户的接口函数
@@ -37,6 +61,10 @@ public class COSClient implements COS {
 
 	private FileOp fileOp;
 	private FolderOp folderOp;
+	private SignCache signCache;
+
+	// 开启虚拟线程时执行内部任务的虚拟线程执行器, 未开启或者JDK不支持时为null
+	private ExecutorService taskExecutor;
 
 	public COSClient(int appId, String secretId, String secretKey) {
 		this(new Credentials(appId, secretId, secretKey));
@@ -50,16 +78,29 @@ public class COSClient implements COS {
 		this.config = config;
 		this.fileOp.setConfig(config);
 		this.folderOp.setConfig(config);
+		initSignCache();
 		this.client.shutdown();
 		this.client = new DefaultCosHttpClient(config);
 		this.fileOp.setHttpClient(this.client);
 		this.folderOp.setHttpClient(this.client);
+		if (this.taskExecutor != null) {
+			this.taskExecutor.shutdown();
+		}
+		initTaskExecutor();
 	}
 
 	public void setCred(Credentials cred) {
 		this.cred = cred;
 		this.fileOp.setCred(cred);
 		this.folderOp.setCred(cred);
+		this.signCache.clear();
+	}
+
+	// FileOp和FolderOp共享同一个签名缓存
+	private void initSignCache() {
+		this.signCache = new SignCache(this.config.getSignCacheSize());
+		this.fileOp.setSignCache(this.signCache);
+		this.folderOp.setSignCache(this.signCache);
 	}
 
 	public COSClient(ClientConfig config, Credentials cred) {
@@ -68,6 +109,19 @@ public class COSClient implements COS {
 		this.client = new DefaultCosHttpClient(config);
 		fileOp = new FileOp(this.config, this.cred, this.client);
 		folderOp = new FolderOp(this.config, this.cred, this.client);
+		initSignCache();
+		initTaskExecutor();
+	}
+
+	private void initTaskExecutor() {
+		this.taskExecutor = null;
+		if (this.config.isEnableVirtualThread()) {
+			this.taskExecutor = CommonExecutorUtils.newVirtualThreadExecutor();
+			if (this.taskExecutor == null) {
+				LOG.warn("virtual thread is not supported by current jdk, use platform thread pool");
+			}
+		}
+		this.fileOp.setTaskExecutor(this.taskExecutor);
 	}
 
 	private void recordException(String methodName, AbstractBaseRequest request, String message) {
@@ -242,9 +296,158 @@ public class COSClient implements COS {
 		}
 	}
 
+	@Override
+	public String downloadFile(DownloadFileRequest request) {
+		try {
+			return fileOp.downloadFile(request);
+		} catch (AbstractCosException e) {
+			recordException("downloadFile", request, e.toString());
+			return e.toString();
+		} catch (Exception e) {
+			UnknownException e1 = new UnknownException(e.toString());
+			recordException("downloadFile", request, e1.toString());
+			return e1.toString();
+		}
+	}
+
+	@Override
+	public UploadResult uploadFileResult(UploadFileRequest request) {
+		return new UploadResult(uploadFile(request));
+	}
+
+	@Override
+	public UploadResult uploadSliceFileResult(UploadSliceFileRequest request) {
+		return new UploadResult(uploadSliceFile(request));
+	}
+
+	@Override
+	public StatResult statFileResult(StatFileRequest request) {
+		return new StatResult(statFile(request));
+	}
+
+	@Override
+	public StatResult statFolderResult(StatFolderRequest request) {
+		return new StatResult(statFolder(request));
+	}
+
+	@Override
+	public ListResult listFolderResult(ListFolderRequest request) {
+		return new ListResult(listFolder(request));
+	}
+
+	@Override
+	public ListFolderIterator listFolderAll(ListFolderRequest request) {
+		return folderOp.listFolderAll(request);
+	}
+
+	@Override
+	public String walkFolder(WalkFolderRequest request, ObjectInfoConsumer consumer) {
+		try {
+			return folderOp.walkFolder(request, consumer);
+		} catch (AbstractCosException e) {
+			recordException("walkFolder", request, e.toString());
+			return e.toString();
+		} catch (Exception e) {
+			UnknownException e1 = new UnknownException(e.toString());
+			recordException("walkFolder", request, e1.toString());
+			return e1.toString();
+		}
+	}
+
+	@Override
+	public String delFolderRecursive(DelFolderRecursiveRequest request, DelProgressListener listener) {
+		try {
+			return folderOp.delFolderRecursive(request, listener);
+		} catch (AbstractCosException e) {
+			recordException("delFolderRecursive", request, e.toString());
+			return e.toString();
+		} catch (Exception e) {
+			UnknownException e1 = new UnknownException(e.toString());
+			recordException("delFolderRecursive", request, e1.toString());
+			return e1.toString();
+		}
+	}
+
+	@Override
+	public List<String> batch(BatchRequest request) {
+		String errorResult = null;
+		try {
+			return new BatchExecutor(fileOp, folderOp).execute(request);
+		} catch (AbstractCosException e) {
+			errorResult = e.toString();
+		} catch (Exception e) {
+			errorResult = new UnknownException(e.toString()).toString();
+		}
+		LOG.error("batch occur a exception, request:{}, message:{}", request, errorResult);
+		List<String> results = new ArrayList<String>();
+		for (int i = 0; i < request.getRequests().size(); ++i) {
+			results.add(errorResult);
+		}
+		return results;
+	}
+
+	@Override
+	public String syncFolder(SyncFolderRequest request) {
+		try {
+			return fileOp.syncFolder(request);
+		} catch (AbstractCosException e) {
+			recordException("syncFolder", request, e.toString());
+			return e.toString();
+		} catch (Exception e) {
+			UnknownException e1 = new UnknownException(e.toString());
+			recordException("syncFolder", request, e1.toString());
+			return e1.toString();
+		}
+	}
+
+	@Override
+	public List<String> uploadFiles(BulkUploadRequest request) {
+		String errorResult = null;
+		try {
+			return fileOp.uploadFiles(request);
+		} catch (AbstractCosException e) {
+			errorResult = e.toString();
+		} catch (Exception e) {
+			errorResult = new UnknownException(e.toString()).toString();
+		}
+		LOG.error("uploadFiles occur a exception, request:{}, message:{}", request, errorResult);
+		List<String> results = new ArrayList<String>();
+		for (int i = 0; i < request.getRequests().size(); ++i) {
+			results.add(errorResult);
+		}
+		return results;
+	}
+
+	@Override
+	public String downloadFileStream(DownloadFileStreamRequest request, OutputStream outputStream) {
+		return downloadFileStream(request, Channels.newChannel(outputStream));
+	}
+
+	@Override
+	public String downloadFileStream(DownloadFileStreamRequest request, WritableByteChannel channel) {
+		try {
+			return fileOp.downloadFileStream(request, channel);
+		} catch (AbstractCosException e) {
+			recordException("downloadFileStream", request, e.toString());
+			return e.toString();
+		} catch (Exception e) {
+			UnknownException e1 = new UnknownException(e.toString());
+			recordException("downloadFileStream", request, e1.toString());
+			return e1.toString();
+		}
+	}
+
+	@Override
+	public List<EndpointMetrics> getEndpointMetrics() {
+		return this.client.getEndpointMetrics();
+	}
+
 	@Override
 	public void shutdown() {
 		this.client.shutdown();
+		if (this.taskExecutor != null) {
+			this.taskExecutor.shutdown();
+		}
 	}
 
 }
@@ -1,5 +1,12 @@
 package com.qcloud.cos;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.qcloud.cos.http.DefaultRetryPolicy;
+import com.qcloud.cos.http.RetryPolicy;
+
 public class ClientConfig {
 	// cos server的域名地址
     private static final String COS_ENDPOINT = "http://web.file.myqcloud.com/files/v1";
@@ -17,9 +24,35 @@ public class ClientConfig {
     private static final int DEFAULT_MAX_CONNECTIONS_COUNT = 100;
     // 默认的user_agent标识
     private static final String DEFAULT_USER_AGENT = "cos-java-sdk-v3.3";
+    // 默认的异步客户端IO线程数
+    private static final int DEFAULT_ASYNC_IO_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    // 默认的异步客户端上传线程数
+    private static final int DEFAULT_ASYNC_UPLOAD_THREAD_COUNT = 16;
+    // 默认缓存的最大签名数
+    private static final int DEFAULT_SIGN_CACHE_SIZE = 1000;
+    // 默认的重试预算容量, 即最多连续重试的次数
+    private static final int DEFAULT_RETRY_BUDGET_CAPACITY = 100;
+    // 默认的重试预算比例, 持续失败时重试数不超过请求数的10%
+    private static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+    // 默认打开熔断器的失败率
+    private static final double DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 0.5;
+    // 默认计算失败率需要的最少请求数
+    private static final int DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS = 20;
+    // 默认熔断器打开后拒绝请求的时间, 单位ms
+    private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_TIME = 5 * 1000;
+    // 默认的对冲阈值, 读请求超过近期耗时的95分位仍未返回时发送对冲请求
+    private static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    // 默认的对冲比例, 对冲请求数不超过读请求数的5%
+    private static final double DEFAULT_HEDGE_RATIO = 0.05;
+    // 默认的域名解析缓存时间, 单位ms
+    private static final int DEFAULT_DNS_CACHE_TTL = 60 * 1000;
+    // 默认的未知长度流的最大缓存大小, 单位字节
+    private static final long DEFAULT_MAX_STREAM_BUFFER_SIZE = 64L * 1024 * 1024;
 
     
     private String cosEndPoint = COS_ENDPOINT;
+    // 多个服务端地址, 为null时只使用cosEndPoint
+    private List<String> cosEndPoints = null;
     private int signExpired = DEFAULT_SIGN_EXPIRED;
     private int maxFailedRetry = DEFAULT_MAX_RETRIES;
     private int connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
@@ -27,6 +60,28 @@ public class ClientConfig {
     private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
     private int maxConnectionsCount = DEFAULT_MAX_CONNECTIONS_COUNT;
     private String userAgent = DEFAULT_USER_AGENT;
+    // 分片上传的断点记录目录, 为null时不记录断点
+    private String uploadCheckpointDir = null;
+    private int asyncIoThreadCount = DEFAULT_ASYNC_IO_THREAD_COUNT;
+    private int asyncUploadThreadCount = DEFAULT_ASYNC_UPLOAD_THREAD_COUNT;
+    // 是否在虚拟线程中执行SDK内部的任务
+    private boolean enableVirtualThread = false;
+    private int signCacheSize = DEFAULT_SIGN_CACHE_SIZE;
+    private RetryPolicy retryPolicy = new DefaultRetryPolicy();
+    private int retryBudgetCapacity = DEFAULT_RETRY_BUDGET_CAPACITY;
+    private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+    private boolean enableCircuitBreaker = false;
+    private double circuitBreakerFailureRate = DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+    private int circuitBreakerMinRequests = DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS;
+    private int circuitBreakerOpenTime = DEFAULT_CIRCUIT_BREAKER_OPEN_TIME;
+    private boolean enableConcurrencyLimit = false;
+    private boolean enableHedgedRead = false;
+    private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    private double hedgeRatio = DEFAULT_HEDGE_RATIO;
+    private int dnsCacheTtl = DEFAULT_DNS_CACHE_TTL;
+    // 创建客户端时为每个服务端地址预先建立的连接数
+    private int warmUpConnections = 0;
+    private long maxStreamBufferSize = DEFAULT_MAX_STREAM_BUFFER_SIZE;
  
 
     public int getMaxFailedRetry() {
@@ -92,6 +147,278 @@ public class ClientConfig {
 
     public void setCosEndPoint(String cosEndpoint) {
         this.cosEndPoint = cosEndpoint;
+        this.cosEndPoints = null;
+    }
+
+    /**
+     * @return 请求使用的全部服务端地址, 没有设置多个地址时只有cosEndPoint
+     */
+    public List<String> getCosEndPoints() {
+        if (cosEndPoints == null) {
+            return Collections.singletonList(cosEndPoint);
+        }
+        return cosEndPoints;
+    }
+
+    /**
+     * 设置多个服务端地址, 如多个地域的域名, 加速域名或者解析出的IP, 格式与cosEndPoint相同.
+     * 每次请求选择在途请求最少的地址, 熔断的地址不再被选择, 重试时优先选择其他地址. 每个地址使用独立的连接池
+     * 
+     * @param cosEndPoints 服务端地址, 第一个地址同时作为cosEndPoint, 为null或者空时只使用cosEndPoint
+     */
+    public void setCosEndPoints(List<String> cosEndPoints) {
+        if (cosEndPoints == null || cosEndPoints.isEmpty()) {
+            this.cosEndPoints = null;
+            return;
+        }
+        this.cosEndPoints = Collections.unmodifiableList(new ArrayList<String>(cosEndPoints));
+        this.cosEndPoint = cosEndPoints.get(0);
     }
     
+    public String getUploadCheckpointDir() {
+        return uploadCheckpointDir;
+    }
+
+    /**
+     * 设置分片上传的断点记录目录, 开启断点续传. 进程重启后再次上传同一文件时, 跳过已经上传成功的分片
+     * 
+     * @param uploadCheckpointDir 断点记录目录, 为null时关闭断点续传
+     */
+    public void setUploadCheckpointDir(String uploadCheckpointDir) {
+        this.uploadCheckpointDir = uploadCheckpointDir;
+    }
+
+    public int getAsyncIoThreadCount() {
+        return asyncIoThreadCount;
+    }
+
+    /**
+     * 设置异步客户端(AsyncCOSClient)的IO线程数, 所有异步请求共享这些线程收发数据
+     * 
+     * @param asyncIoThreadCount IO线程数, 默认为CPU核数
+     */
+    public void setAsyncIoThreadCount(int asyncIoThreadCount) {
+        this.asyncIoThreadCount = asyncIoThreadCount;
+    }
+
+    public int getAsyncUploadThreadCount() {
+        return asyncUploadThreadCount;
+    }
+
+    /**
+     * 设置异步客户端(AsyncCOSClient)的上传线程数, 即同时进行的上传和下载任务数上限.
+     * 上传和下载由多个请求组成且需要读写本地文件, 在单独的线程池中执行, 超出上限的任务排队等待
+     * 
+     * @param asyncUploadThreadCount 上传线程数
+     */
+    public void setAsyncUploadThreadCount(int asyncUploadThreadCount) {
+        this.asyncUploadThreadCount = asyncUploadThreadCount;
+    }
+
+    public boolean isEnableVirtualThread() {
+        return enableVirtualThread;
+    }
+
+    /**
+     * 设置是否在虚拟线程中执行SDK内部的阻塞任务, 包括并发上传下载的分片以及异步客户端的上传下载任务.
+     * 虚拟线程需要JDK 21及以上版本, 低版本JDK上仍使用有界的线程池. 开启后同时进行的请求数受最大连接数限制,
+     * 需要大量并发请求时应同时调大maxConnectionsCount
+     * 
+     * @param enableVirtualThread 是否开启虚拟线程, 默认关闭
+     */
+    public void setEnableVirtualThread(boolean enableVirtualThread) {
+        this.enableVirtualThread = enableVirtualThread;
+    }
+
+    public int getSignCacheSize() {
+        return signCacheSize;
+    }
+
+    /**
+     * 设置缓存的最大签名数. 同一路径的多次签名和下载签名在有效期内复用, 剩余有效期不足一半时重新生成
+     * 
+     * @param signCacheSize 缓存的最大签名数, 默认1000, 为0时不缓存
+     */
+    public void setSignCacheSize(int signCacheSize) {
+        this.signCacheSize = signCacheSize;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * 设置请求失败后的重试策略, 最大尝试次数仍由maxFailedRetry限制
+     * 
+     * @param retryPolicy 重试策略, 默认为指数退避加随机抖动, 只重试连接失败, 限流以及幂等请求的超时和5xx
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public int getRetryBudgetCapacity() {
+        return retryBudgetCapacity;
+    }
+
+    /**
+     * 设置客户端重试预算的容量, 即预算耗尽前最多进行的重试次数
+     * 
+     * @param retryBudgetCapacity 重试预算的容量, 默认100, 小于等于0时不限制重试
+     */
+    public void setRetryBudgetCapacity(int retryBudgetCapacity) {
+        this.retryBudgetCapacity = retryBudgetCapacity;
+    }
+
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    /**
+     * 设置客户端重试预算的比例, 每个新请求为预算增加的重试次数. 预算耗尽后重试数不超过新请求数的该比例
+     * 
+     * @param retryBudgetRatio 重试预算的比例, 默认0.1
+     */
+    public void setRetryBudgetRatio(double retryBudgetRatio) {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public boolean isEnableCircuitBreaker() {
+        return enableCircuitBreaker;
+    }
+
+    /**
+     * 设置是否开启熔断. 开启后每个服务端地址统计请求的失败率, 失败率过高时一段时间内直接拒绝请求, 然后放行探测请求.
+     * 被拒绝的请求立即失败, 抛出NetworkException且不重试; 配置了多个服务端地址时, 请求优先发往熔断器未打开的地址
+     * 
+     * @param enableCircuitBreaker 是否开启熔断, 默认关闭
+     */
+    public void setEnableCircuitBreaker(boolean enableCircuitBreaker) {
+        this.enableCircuitBreaker = enableCircuitBreaker;
+    }
+
+    public double getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    /**
+     * @param circuitBreakerFailureRate 打开熔断器的失败率, 默认0.5. 连接失败, 超时, 5xx和429计为失败
+     */
+    public void setCircuitBreakerFailureRate(double circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    public int getCircuitBreakerMinRequests() {
+        return circuitBreakerMinRequests;
+    }
+
+    /**
+     * @param circuitBreakerMinRequests 10秒的统计窗口内至少有这么多请求时才计算失败率, 默认20
+     */
+    public void setCircuitBreakerMinRequests(int circuitBreakerMinRequests) {
+        this.circuitBreakerMinRequests = circuitBreakerMinRequests;
+    }
+
+    public int getCircuitBreakerOpenTime() {
+        return circuitBreakerOpenTime;
+    }
+
+    /**
+     * @param circuitBreakerOpenTime 熔断器打开后拒绝请求的时间, 单位ms, 默认5000
+     */
+    public void setCircuitBreakerOpenTime(int circuitBreakerOpenTime) {
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    public boolean isEnableConcurrencyLimit() {
+        return enableConcurrencyLimit;
+    }
+
+    /**
+     * 设置是否开启自适应并发限制. 开启后每个服务端地址的在途请求数不超过一个动态的限制, 超出时直接抛出NetworkException,
+     * 不重试也不等待连接池, 调用方需要自行处理被拒绝的请求. 限制初始为maxConnectionsCount, 请求失败或者耗时超过
+     * socketTimeout的一半时减少, 正常后逐渐恢复. 上传文件内容的请求耗时与文件大小有关, 只按成功失败调整限制
+     * 
+     * @param enableConcurrencyLimit 是否开启并发限制, 默认关闭
+     */
+    public void setEnableConcurrencyLimit(boolean enableConcurrencyLimit) {
+        this.enableConcurrencyLimit = enableConcurrencyLimit;
+    }
+
+    public boolean isEnableHedgedRead() {
+        return enableHedgedRead;
+    }
+
+    /**
+     * 设置是否开启读请求的对冲. 开启后查询和列目录等GET请求超过近期耗时的分位数仍未返回时,
+     * 通过另一个连接再发送一次相同的请求, 先返回的结果生效, 另一个请求被取消. 开启后同步的GET请求也通过异步客户端发送
+     * 
+     * @param enableHedgedRead 是否开启对冲, 默认关闭
+     */
+    public void setEnableHedgedRead(boolean enableHedgedRead) {
+        this.enableHedgedRead = enableHedgedRead;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * @param hedgePercentile 发送对冲请求的耗时分位数, 取值(0, 1), 默认0.95
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public double getHedgeRatio() {
+        return hedgeRatio;
+    }
+
+    /**
+     * @param hedgeRatio 对冲请求数占读请求数的最大比例, 默认0.05
+     */
+    public void setHedgeRatio(double hedgeRatio) {
+        this.hedgeRatio = hedgeRatio;
+    }
+
+    public int getDnsCacheTtl() {
+        return dnsCacheTtl;
+    }
+
+    /**
+     * 设置域名解析的缓存时间. 超过缓存时间后仍使用缓存的地址, 同时在后台重新解析, 解析耗时不会出现在请求中
+     * 
+     * @param dnsCacheTtl 缓存时间, 单位ms, 默认60000, 小于等于0时不缓存, 每次建立连接时解析
+     */
+    public void setDnsCacheTtl(int dnsCacheTtl) {
+        this.dnsCacheTtl = dnsCacheTtl;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    /**
+     * 设置创建客户端时为每个服务端地址预先建立的长连接数, 避免刚启动时的请求都需要解析域名和建立连接.
+     * 连接空闲超过5秒后会被关闭, 因此应在开始发送请求前创建客户端
+     * 
+     * @param warmUpConnections 每个地址的连接数, 不超过maxConnectionsCount, 默认0表示不预先建立
+     */
+    public void setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public long getMaxStreamBufferSize() {
+        return maxStreamBufferSize;
+    }
+
+    /**
+     * 设置上传未知长度的流时在内存中缓存的最大字节数. 长度未知的流需要读完才能确定文件大小, 
+     * 因此整个流都缓存在内存中, 超过该大小时上传失败, 此时应在请求中指定流的长度
+     * 
+     * @param maxStreamBufferSize 最大缓存字节数, 默认64MB
+     */
+    public void setMaxStreamBufferSize(long maxStreamBufferSize) {
+        this.maxStreamBufferSize = maxStreamBufferSize;
+    }
+
 }
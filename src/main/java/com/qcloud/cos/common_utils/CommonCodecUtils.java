@@ -5,7 +5,9 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FileInputStream;
 import java.io.InputStream;
+import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 
@@ -20,6 +22,10 @@ public class CommonCodecUtils {
 	private static final Logger LOG = LoggerFactory.getLogger(CommonCodecUtils.class);
 
 	private static final String HMAC_SHA1 = "HmacSHA1";
+	/**
+	 * SHA1的块大小, 分片清单要求分片大小是它的整数倍
+	 */
+	public static final int SHA1_BLOCK_SIZE = 64;
 
 	/**
 	 * 对二进制数据进行BASE64编码
@@ -60,6 +66,50 @@ public class CommonCodecUtils {
 		}
 	}
 
+	/**
+	 * 顺序读取一遍文件, 计算分片清单中各个分片的SHA1. 每个分片的值为从文件开头到该分片末尾的SHA1中间状态,
+	 * 最后一个分片的值为整个文件的SHA1, 格式见IncrementalSha1.
+	 * 每个中间状态都依赖前一个分片的状态, 无法按分片分给多个线程计算, 因此只能在一个线程中完成,
+	 * 耗时与getEntireFileSha1相当
+	 * 
+	 * @param filePath
+	 *            文件路径
+	 * @param sliceSize
+	 *            分片大小, 单位为字节, 必须是64的整数倍
+	 * @return 各个分片的SHA1值, 下标为分片序号, 空文件返回空数组
+	 * @throws Exception
+	 */
+	public static String[] getSliceSha1(String filePath, int sliceSize) throws Exception {
+		FileInputStream fileInputStream = null;
+		try {
+			if (sliceSize <= 0 || sliceSize % SHA1_BLOCK_SIZE != 0) {
+				throw new IllegalArgumentException(
+						"slice size " + sliceSize + " is not a multiple of " + SHA1_BLOCK_SIZE);
+			}
+			fileInputStream = CommonFileUtils.getFileInputStream(filePath);
+			long fileSize = fileInputStream.getChannel().size();
+			int sliceCount = (int) ((fileSize + sliceSize - 1) / sliceSize);
+			String[] sliceSha1 = new String[sliceCount];
+			IncrementalSha1 sha1 = new IncrementalSha1();
+			byte[] buffer = new byte[sliceSize];
+			for (int sliceIndex = 0; sliceIndex < sliceCount; ++sliceIndex) {
+				int sliceLength = (int) Math.min(sliceSize, fileSize - (long) sliceIndex * sliceSize);
+				if (CommonFileUtils.readFully(fileInputStream, buffer, 0, sliceLength) < sliceLength) {
+					throw new IOException("file is truncated, slice:" + sliceIndex);
+				}
+				sha1.update(buffer, 0, sliceLength);
+				sliceSha1[sliceIndex] = sliceIndex < sliceCount - 1 ? sha1.getStateHex() : sha1.digestHex();
+			}
+			return sliceSha1;
+		} catch (Exception e) {
+			String errMsg = "getSliceSha1 occur a exception, file:" + filePath + ", exception:" + e.toString();
+			LOG.error(errMsg);
+			throw new Exception(errMsg);
+		} finally {
+			CommonFileUtils.closeFileStream(fileInputStream, filePath);
+		}
+	}
+
 	/**
 	 * 计算数据的Hmac值
 	 * 
@@ -72,7 +122,7 @@ public class CommonCodecUtils {
 	public static byte[] HmacSha1(byte[] binaryData, String key) throws Exception {
 		try {
 			Mac mac = Mac.getInstance(HMAC_SHA1);
-			SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(), HMAC_SHA1);
+			SecretKeySpec secretKey = new SecretKeySpec(key.getBytes("UTF-8"), HMAC_SHA1);
 			mac.init(secretKey);
 			byte[] HmacSha1Digest = mac.doFinal(binaryData);
 			return HmacSha1Digest;
@@ -99,6 +149,6 @@ public class CommonCodecUtils {
 	 * @return 加密后的hmacsha1值
 	 */
 	public static byte[] HmacSha1(String plainText, String key) throws Exception {
-		return HmacSha1(plainText.getBytes(), key);
+		return HmacSha1(plainText.getBytes("UTF-8"), key);
 	}
 }
@@ -0,0 +1,97 @@
+package com.qcloud.cos.common_utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author chengwu 封装了SDK内部任务使用的线程池的创建函数.
+ * SDK以JAVA 7编译, 虚拟线程执行器(JDK 21开始提供)通过反射获取, 在低版本JDK上返回null, 由调用者退回到有界的线程池
+ */
+public class CommonExecutorUtils {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CommonExecutorUtils.class);
+
+	// Executors.newVirtualThreadPerTaskExecutor, JDK不支持虚拟线程时为null
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = getVirtualThreadExecutorFactory();
+
+	private static Method getVirtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 当前JDK是否支持虚拟线程
+	 *
+	 * @return 支持返回true, 否则返回false
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * 创建每个任务使用一个虚拟线程的执行器, 任务数不受线程数限制, 阻塞的任务不占用系统线程
+	 *
+	 * @return 虚拟线程执行器, JDK不支持虚拟线程时返回null
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+		} catch (Exception e) {
+			LOG.warn("create virtual thread executor occur a exception {}", e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * 创建固定线程数的线程池, 线程为守护线程, 不阻止进程退出
+	 *
+	 * @param threadCount
+	 *            线程数
+	 * @param threadNamePrefix
+	 *            线程名前缀, 线程名为前缀加上序号
+	 * @return 线程池
+	 */
+	public static ExecutorService newDaemonThreadPool(int threadCount, final String threadNamePrefix) {
+		return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, threadNamePrefix + threadIndex.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * 创建单线程的定时执行器, 线程为守护线程, 不阻止进程退出
+	 *
+	 * @param threadName
+	 *            线程名
+	 * @return 定时执行器
+	 */
+	public static ScheduledExecutorService newDaemonScheduledExecutor(final String threadName) {
+		return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, threadName);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
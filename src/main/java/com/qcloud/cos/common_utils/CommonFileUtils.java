@@ -142,6 +142,59 @@ public class CommonFileUtils {
         return fileContent;
     }
 
+    /**
+     * 读取文件指定块的内容到字节数组中
+     * 
+     * @param filePath 文件路径
+     * @param offset 偏移量，即从哪里开始读取，单位为字节
+     * @param length 读取的长度,单位为字节
+     * @return 读取的内容，实际读取的长度小于等于length
+     * @throws Exception
+     */
+    public static byte[] getFileContentByte(String filePath, long offset, int length) throws Exception {
+        if (offset < 0 || length < 0) {
+            throw new Exception("getFileContent param error");
+        }
+        FileInputStream fileInputStream = null;
+        try {
+            fileInputStream = getFileInputStream(filePath);
+            fileInputStream.getChannel().position(offset);
+            byte[] fileContent = new byte[length];
+            int readLen = readFully(fileInputStream, fileContent, 0, length);
+            if (readLen < length) {
+                byte[] tempBuf = new byte[readLen];
+                System.arraycopy(fileContent, 0, tempBuf, 0, readLen);
+                fileContent = tempBuf;
+            }
+            return fileContent;
+        } finally {
+            closeFileStream(fileInputStream, filePath);
+        }
+    }
+
+    /**
+     * 从流中读取数据到buffer中, 直到读满length字节或者到达流的末尾
+     * 
+     * @param inputStream 输入流
+     * @param buffer 存放数据的缓冲区, 可以被多次复用
+     * @param offset 写入缓冲区的开始位置
+     * @param length 期望读取的长度
+     * @return 实际读取的长度, 小于length说明已经到达流的末尾
+     * @throws IOException
+     */
+    public static int readFully(InputStream inputStream, byte[] buffer, int offset, int length)
+            throws IOException {
+        int totalRead = 0;
+        while (totalRead < length) {
+            int readLen = inputStream.read(buffer, offset + totalRead, length - totalRead);
+            if (readLen < 0) {
+                break;
+            }
+            totalRead += readLen;
+        }
+        return totalRead;
+    }
+
     /**
      * 删除文件
      * @param filePath   文件路径
@@ -158,4 +158,53 @@ public class CommonParamCheckUtils {
         }
     }
 
+    /**
+     * 判断用户指定的sha1摘要是否合法, 即40位16进制小写字符串
+     * 
+     * @param shaDigest sha1摘要
+     * @throws ParamException
+     */
+    public static void AssertLegalSha1Digest(String shaDigest) throws ParamException {
+        if (shaDigest == null || !shaDigest.matches("[0-9a-f]{40}")) {
+            throw new ParamException(shaDigest + " is not legal sha1 digest! Tips: 40 lowercase hex letters");
+        }
+    }
+
+    /**
+     * 判断分片上传的并发数是否在规定的范围内, 目前的有效值为1 ~ 100
+     * 
+     * @param taskNum 同时上传的分片数
+     * @throws ParamException
+     */
+    public static void AssertLegalTaskNum(int taskNum) throws ParamException {
+        if (taskNum < 1 || taskNum > 100) {
+            throw new ParamException("taskNum legal value is [1, 100]");
+        }
+    }
+
+    /**
+     * 判断分块下载的分块大小是否在规定的范围内, 目前的有效值为64KB ~ 1GB
+     * 
+     * @param rangeSize 分块大小
+     * @throws ParamException
+     */
+    public static void AssertLegalRangeSize(int rangeSize) throws ParamException {
+        if (rangeSize < 64 * 1024 || rangeSize > 1024 * 1024 * 1024) {
+            throw new ParamException("rangeSize legal value is [64KB, 1GB]");
+        }
+    }
+
+    /**
+     * 判断下载范围是否合法, 起始偏移不小于0, 结束偏移为-1(到文件结尾)或者不小于起始偏移
+     * 
+     * @param rangeStart 起始偏移
+     * @param rangeEnd 结束偏移(包含)
+     * @throws ParamException
+     */
+    public static void AssertLegalRange(long rangeStart, long rangeEnd) throws ParamException {
+        if (rangeStart < 0 || (rangeEnd != -1 && rangeEnd < rangeStart)) {
+            throw new ParamException("illegal range [" + rangeStart + ", " + rangeEnd + "]");
+        }
+    }
+
 }
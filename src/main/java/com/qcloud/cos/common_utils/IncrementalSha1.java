@@ -0,0 +1,124 @@
+package com.qcloud.cos.common_utils;
+
+/**
+ * @author chengwu
+ * 可以取出中间状态的SHA1计算. 分片上传的分片清单中, 每个分片的datasha为从文件开头到该分片末尾的数据经过SHA1压缩后的
+ * 中间状态(不做最后的填充), 即5个32位状态字按大端序拼接的16进制字符串, 最后一个分片为整个文件的SHA1.
+ * MessageDigest不提供中间状态, 因此在这里实现SHA1的压缩函数
+ */
+class IncrementalSha1 {
+
+	private static final int BLOCK_SIZE = CommonCodecUtils.SHA1_BLOCK_SIZE;
+
+	private final int[] state = { 0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476, 0xC3D2E1F0 };
+	private final int[] words = new int[80];
+	// 不足一个块的数据, 等待后续数据凑满一个块
+	private final byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength = 0;
+	private long totalLength = 0;
+
+	void update(byte[] data, int offset, int length) {
+		totalLength += length;
+		if (blockLength > 0) {
+			int copyLength = Math.min(length, BLOCK_SIZE - blockLength);
+			System.arraycopy(data, offset, block, blockLength, copyLength);
+			blockLength += copyLength;
+			offset += copyLength;
+			length -= copyLength;
+			if (blockLength < BLOCK_SIZE) {
+				return;
+			}
+			compress(block, 0);
+			blockLength = 0;
+		}
+		while (length >= BLOCK_SIZE) {
+			compress(data, offset);
+			offset += BLOCK_SIZE;
+			length -= BLOCK_SIZE;
+		}
+		System.arraycopy(data, offset, block, 0, length);
+		blockLength = length;
+	}
+
+	/**
+	 * @return 当前的中间状态, 已处理的数据长度必须是64字节的整数倍
+	 */
+	String getStateHex() {
+		if (blockLength != 0) {
+			throw new IllegalStateException("sha1 state of length " + totalLength + " is not block aligned");
+		}
+		return toHex(state);
+	}
+
+	/**
+	 * 填充后得到全部数据的SHA1, 之后不能再使用
+	 *
+	 * @return 16进制小写的SHA1
+	 */
+	String digestHex() {
+		long bitLength = totalLength * 8;
+		byte[] padding = new byte[(blockLength < 56 ? BLOCK_SIZE : BLOCK_SIZE * 2) - blockLength];
+		padding[0] = (byte) 0x80;
+		for (int i = 0; i < 8; ++i) {
+			padding[padding.length - 1 - i] = (byte) (bitLength >>> (8 * i));
+		}
+		update(padding, 0, padding.length);
+		return toHex(state);
+	}
+
+	private void compress(byte[] data, int offset) {
+		for (int i = 0; i < 16; ++i) {
+			int pos = offset + i * 4;
+			words[i] = (data[pos] << 24) | ((data[pos + 1] & 0xff) << 16) | ((data[pos + 2] & 0xff) << 8)
+					| (data[pos + 3] & 0xff);
+		}
+		for (int i = 16; i < 80; ++i) {
+			words[i] = Integer.rotateLeft(words[i - 3] ^ words[i - 8] ^ words[i - 14] ^ words[i - 16], 1);
+		}
+		int a = state[0];
+		int b = state[1];
+		int c = state[2];
+		int d = state[3];
+		int e = state[4];
+		for (int i = 0; i < 80; ++i) {
+			int f;
+			int k;
+			if (i < 20) {
+				f = (b & c) | (~b & d);
+				k = 0x5A827999;
+			} else if (i < 40) {
+				f = b ^ c ^ d;
+				k = 0x6ED9EBA1;
+			} else if (i < 60) {
+				f = (b & c) | (b & d) | (c & d);
+				k = 0x8F1BBCDC;
+			} else {
+				f = b ^ c ^ d;
+				k = 0xCA62C1D6;
+			}
+			int temp = Integer.rotateLeft(a, 5) + f + e + k + words[i];
+			e = d;
+			d = c;
+			c = Integer.rotateLeft(b, 30);
+			b = a;
+			a = temp;
+		}
+		state[0] += a;
+		state[1] += b;
+		state[2] += c;
+		state[3] += d;
+		state[4] += e;
+	}
+
+	private static String toHex(int[] stateWords) {
+		StringBuilder sb = new StringBuilder(40);
+		for (int word : stateWords) {
+			String hex = Integer.toHexString(word);
+			for (int i = hex.length(); i < 8; ++i) {
+				sb.append('0');
+			}
+			sb.append(hex);
+		}
+		return sb.toString();
+	}
+}
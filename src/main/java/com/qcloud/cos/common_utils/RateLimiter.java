@@ -0,0 +1,46 @@
+package com.qcloud.cos.common_utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author chengwu 限制请求速率, 相邻两次许可之间至少间隔1/permitsPerSecond秒, 不允许突发.
+ * 多个线程同时获取许可时按调用顺序排队, 每个线程只等待自己的间隔
+ */
+public class RateLimiter {
+
+	// 相邻许可的间隔, 0表示不限速
+	private final long intervalNanos;
+	// 下一个许可可用的时间
+	private long nextFreeNanos = System.nanoTime();
+
+	/**
+	 * @param permitsPerSecond
+	 *            每秒的许可数, 小于等于0表示不限速
+	 */
+	public RateLimiter(double permitsPerSecond) {
+		this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+	}
+
+	/**
+	 * 获取一个许可, 需要时阻塞到许可可用
+	 *
+	 * @throws InterruptedException
+	 */
+	public void acquire() throws InterruptedException {
+		if (intervalNanos == 0) {
+			return;
+		}
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (nextFreeNanos - now < 0) {
+				nextFreeNanos = now;
+			}
+			waitNanos = nextFreeNanos - now;
+			nextFreeNanos += intervalNanos;
+		}
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+}
@@ -1,9 +1,21 @@
 package com.qcloud.cos.http;
 
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.exception.AbstractCosException;
@@ -14,6 +26,8 @@ public abstract class AbstractCosHttpClient {
     protected HttpClient httpClient;
     
     protected PoolingHttpClientConnectionManager connectionManager;
+    // 同步和异步客户端共享的域名解析
+    protected DnsResolver dnsResolver;
     protected IdleConnectionMonitorThread idleConnectionMonitor;
     
     protected RequestConfig requestConfig;
@@ -21,8 +35,15 @@ public abstract class AbstractCosHttpClient {
     public AbstractCosHttpClient(ClientConfig config) {
         super();
         this.config = config;
-        this.connectionManager = new PoolingHttpClientConnectionManager();
-        this.connectionManager.setMaxTotal(config.getMaxConnectionsCount());
+        this.dnsResolver = config.getDnsCacheTtl() > 0 ? new CachingDnsResolver(config.getDnsCacheTtl())
+                : SystemDefaultDnsResolver.INSTANCE;
+        this.connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory> create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory()).build(),
+                this.dnsResolver);
+        // 每个服务端地址(route)最多maxConnectionsCount个连接, 互不占用
+        this.connectionManager.setMaxTotal(config.getMaxConnectionsCount() * config.getCosEndPoints().size());
         this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsCount());
         this.httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
         this.requestConfig = RequestConfig.custom()
@@ -32,12 +53,26 @@ public abstract class AbstractCosHttpClient {
                                           .build();
         this.idleConnectionMonitor = new IdleConnectionMonitorThread(this.connectionManager);
         this.idleConnectionMonitor.start();
+        if (config.getWarmUpConnections() > 0) {
+            ConnectionWarmer.warmUp(this.connectionManager, config.getCosEndPoints(),
+                    Math.min(config.getWarmUpConnections(), config.getMaxConnectionsCount()),
+                    config.getConnectionTimeout());
+        }
     }
 
     protected abstract String sendPostRequest(HttpRequest httpRequest) throws AbstractCosException;
 
     protected abstract String sendGetRequest(HttpRequest httpRequest) throws AbstractCosException;
 
+    protected abstract long sendDownloadGetRequest(HttpRequest httpRequest, WritableByteChannel target)
+            throws AbstractCosException;
+
+    protected abstract Future<String> sendPostRequestAsync(HttpRequest httpRequest, FutureCallback<String> callback)
+            throws AbstractCosException;
+
+    protected abstract Future<String> sendGetRequestAsync(HttpRequest httpRequest, FutureCallback<String> callback)
+            throws AbstractCosException;
+
     public String sendHttpRequest(HttpRequest httpRequest) throws AbstractCosException {
 
         HttpMethod method = httpRequest.getMethod();
@@ -50,7 +85,63 @@ public abstract class AbstractCosHttpClient {
         }
     }
     
+    /**
+     * 发送下载请求, 返回的包体直接写入target, 不在内存中缓存整个包体.
+     * 已经写入target的数据无法撤回, 因此下载请求不重试, 由调用者决定如何重试(如重新下载对应的分块)
+     * 
+     * @param httpRequest
+     *            http请求, 只支持GET
+     * @param target
+     *            包体写入的目标
+     * @return 写入target的字节数
+     * @throws AbstractCosException
+     */
+    public long sendDownloadRequest(HttpRequest httpRequest, WritableByteChannel target)
+            throws AbstractCosException {
+        if (httpRequest.getMethod() != HttpMethod.GET) {
+            throw new ParamException("Unsupported Http Method");
+        }
+        return sendDownloadGetRequest(httpRequest, target);
+    }
+
+    /**
+     * 异步发送请求, 调用线程不等待请求完成. 返回的Future完成时的值与sendHttpRequest的返回值相同,
+     * 失败时Future抛出的ExecutionException中包含对应的AbstractCosException
+     * 
+     * @param httpRequest
+     *            http请求
+     * @param callback
+     *            请求完成时的回调, 可以为null
+     * @return 请求结果的Future
+     * @throws AbstractCosException
+     *             请求参数有误时直接抛出
+     */
+    public Future<String> sendHttpRequestAsync(HttpRequest httpRequest, FutureCallback<String> callback)
+            throws AbstractCosException {
+
+        HttpMethod method = httpRequest.getMethod();
+        if (method == HttpMethod.POST) {
+            return sendPostRequestAsync(httpRequest, callback);
+        } else if (method == HttpMethod.GET) {
+            return sendGetRequestAsync(httpRequest, callback);
+        } else {
+            throw new ParamException("Unsupported Http Method");
+        }
+    }
+
+    /**
+     * 获取各个服务端地址的熔断器和并发限制的状态
+     * 
+     * @return 已发送过请求的服务端地址的状态快照, 不支持时为空列表
+     */
+    public List<EndpointMetrics> getEndpointMetrics() {
+        return Collections.emptyList();
+    }
+
     public void shutdown() {
         this.idleConnectionMonitor.shutdown();
+        if (this.dnsResolver instanceof CachingDnsResolver) {
+            ((CachingDnsResolver) this.dnsResolver).shutdown();
+        }
     }
 }
@@ -0,0 +1,57 @@
+package com.qcloud.cos.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * @author chengwu
+ * 字节数组中的一段数据作为multipart的二进制包体, 直接写入连接, 不做字符转换和数据拷贝
+ */
+public class ByteArrayRangeBody extends AbstractContentBody {
+
+	private final byte[] data;
+	private final int offset;
+	private final int length;
+
+	public ByteArrayRangeBody(byte[] data, int offset, int length) {
+		super(ContentType.DEFAULT_BINARY);
+		if (data == null) {
+			throw new IllegalArgumentException("data is null");
+		}
+		if (offset < 0 || length < 0 || offset + length > data.length) {
+			throw new IndexOutOfBoundsException("offset:" + offset + ", length:" + length);
+		}
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public ByteArrayRangeBody(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	// 不设置filename, 与原先addBinaryBody(name, bytes)生成的包体保持一致
+	@Override
+	public String getFilename() {
+		return null;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(this.data, this.offset, this.length);
+	}
+
+	@Override
+	public String getTransferEncoding() {
+		return MIME.ENC_BINARY;
+	}
+
+	@Override
+	public long getContentLength() {
+		return this.length;
+	}
+}
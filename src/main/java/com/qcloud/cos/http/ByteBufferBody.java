@@ -0,0 +1,58 @@
+package com.qcloud.cos.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * @author chengwu
+ * ByteBuffer中position到limit之间的数据作为multipart的二进制包体, 支持堆内和直接内存的ByteBuffer.
+ * 每次写入使用ByteBuffer的副本, 不修改原ByteBuffer的position, 包体可以重复写入
+ */
+public class ByteBufferBody extends AbstractContentBody {
+
+	private final ByteBuffer data;
+
+	public ByteBufferBody(ByteBuffer data) {
+		super(ContentType.DEFAULT_BINARY);
+		if (data == null) {
+			throw new IllegalArgumentException("data is null");
+		}
+		this.data = data.duplicate();
+	}
+
+	// 不设置filename, 与ByteArrayRangeBody生成的包体保持一致
+	@Override
+	public String getFilename() {
+		return null;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		ByteBuffer content = this.data.duplicate();
+		if (content.hasArray()) {
+			out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+			return;
+		}
+		WritableByteChannel channel = Channels.newChannel(out);
+		while (content.hasRemaining()) {
+			channel.write(content);
+		}
+	}
+
+	@Override
+	public String getTransferEncoding() {
+		return MIME.ENC_BINARY;
+	}
+
+	@Override
+	public long getContentLength() {
+		return this.data.remaining();
+	}
+}
@@ -0,0 +1,108 @@
+package com.qcloud.cos.http;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
+
+/**
+ * @author chengwu 带缓存的域名解析, 同步和异步客户端建立连接时共享.
+ * 域名第一次解析时同步解析, 之后直接返回缓存的地址. 缓存超过ttl后仍然返回旧的地址, 同时在后台线程重新解析,
+ * 解析失败时继续使用旧的地址, 因此只有第一次连接某个域名时解析耗时在请求路径上
+ */
+class CachingDnsResolver implements DnsResolver {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CachingDnsResolver.class);
+
+	private final long ttlNanos;
+	private final ConcurrentHashMap<String, DnsEntry> cache = new ConcurrentHashMap<String, DnsEntry>();
+	// 后台重新解析的线程, 第一次需要重新解析时创建
+	private ExecutorService refresher;
+	private boolean closed = false;
+
+	private static class DnsEntry {
+		private final InetAddress[] addresses;
+		private final long resolvedNanos;
+		// 是否正在后台重新解析, 同一域名同时只有一个解析任务
+		private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+		DnsEntry(InetAddress[] addresses, long resolvedNanos) {
+			this.addresses = addresses;
+			this.resolvedNanos = resolvedNanos;
+		}
+	}
+
+	/**
+	 * @param ttl
+	 *            缓存的有效期, 单位ms
+	 */
+	CachingDnsResolver(long ttl) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		DnsEntry entry = cache.get(host);
+		if (entry == null) {
+			return lookup(host).addresses.clone();
+		}
+		if (System.nanoTime() - entry.resolvedNanos >= ttlNanos && entry.refreshing.compareAndSet(false, true)) {
+			refreshInBackground(host, entry);
+		}
+		return entry.addresses.clone();
+	}
+
+	private DnsEntry lookup(String host) throws UnknownHostException {
+		DnsEntry entry = new DnsEntry(SystemDefaultDnsResolver.INSTANCE.resolve(host), System.nanoTime());
+		cache.put(host, entry);
+		return entry;
+	}
+
+	private void refreshInBackground(final String host, final DnsEntry staleEntry) {
+		try {
+			getRefresher().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						lookup(host);
+					} catch (UnknownHostException e) {
+						// 继续使用旧的地址, 下次访问时再重新解析
+						LOG.warn("refresh dns of {} failed, keep the cached address, exception: {}", host,
+								e.toString());
+						staleEntry.refreshing.set(false);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 客户端已经关闭
+			staleEntry.refreshing.set(false);
+		}
+	}
+
+	private synchronized ExecutorService getRefresher() {
+		if (closed) {
+			throw new RejectedExecutionException("dns resolver is closed");
+		}
+		if (refresher == null) {
+			refresher = CommonExecutorUtils.newDaemonThreadPool(1, "cos-dns-refresher-");
+		}
+		return refresher;
+	}
+
+	synchronized void shutdown() {
+		closed = true;
+		if (refresher != null) {
+			refresher.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.qcloud.cos.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author chengwu 按失败率熔断的熔断器. 统计固定时间窗口内的请求结果, 请求数达到minRequests且失败率达到failureRate时打开,
+ * 打开期间直接拒绝请求; 经过openTime后放行一个探测请求, 探测成功则关闭, 失败则重新打开
+ */
+class CircuitBreaker {
+
+	// 统计失败率的时间窗口
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final double failureRate;
+	private final int minRequests;
+	private final long openNanos;
+
+	private CircuitState state = CircuitState.CLOSED;
+	private long windowStartNanos = System.nanoTime();
+	private int windowSuccess = 0;
+	private int windowFailure = 0;
+	private long openedNanos;
+	// HALF_OPEN状态下是否有探测请求正在进行
+	private boolean probing = false;
+	// 累计打开的次数
+	private long openCount = 0;
+
+	/**
+	 * @param failureRate
+	 *            打开熔断器的失败率
+	 * @param minRequests
+	 *            时间窗口内至少有这么多请求时才计算失败率
+	 * @param openTime
+	 *            打开后拒绝请求的时间, 单位ms
+	 */
+	CircuitBreaker(double failureRate, int minRequests, long openTime) {
+		this.failureRate = failureRate;
+		this.minRequests = minRequests;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openTime);
+	}
+
+	/**
+	 * 判断是否放行请求, 放行后必须调用onSuccess, onFailure或者onIgnored中的一个
+	 * 
+	 * @return 放行返回true, 否则返回false
+	 */
+	synchronized boolean allowRequest() {
+		if (state == CircuitState.OPEN && System.nanoTime() - openedNanos >= openNanos) {
+			state = CircuitState.HALF_OPEN;
+			probing = false;
+		}
+		if (state == CircuitState.CLOSED) {
+			return true;
+		}
+		if (state == CircuitState.HALF_OPEN && !probing) {
+			probing = true;
+			return true;
+		}
+		return false;
+	}
+
+	synchronized void onSuccess() {
+		if (state == CircuitState.HALF_OPEN) {
+			state = CircuitState.CLOSED;
+			probing = false;
+			resetWindow(System.nanoTime());
+			return;
+		}
+		rollWindow();
+		++windowSuccess;
+	}
+
+	synchronized void onFailure() {
+		long now = System.nanoTime();
+		if (state == CircuitState.HALF_OPEN) {
+			open(now);
+			return;
+		}
+		if (state == CircuitState.OPEN) {
+			return;
+		}
+		rollWindow();
+		++windowFailure;
+		int total = windowSuccess + windowFailure;
+		if (total >= minRequests && windowFailure >= total * failureRate) {
+			open(now);
+		}
+	}
+
+	// 放行的请求没有产生可以判断服务端状态的结果, 如被并发限制拒绝或者被取消
+	synchronized void onIgnored() {
+		if (state == CircuitState.HALF_OPEN) {
+			probing = false;
+		}
+	}
+
+	synchronized CircuitState getState() {
+		if (state == CircuitState.OPEN && System.nanoTime() - openedNanos >= openNanos) {
+			return CircuitState.HALF_OPEN;
+		}
+		return state;
+	}
+
+	synchronized long getOpenCount() {
+		return openCount;
+	}
+
+	private void open(long now) {
+		state = CircuitState.OPEN;
+		openedNanos = now;
+		probing = false;
+		++openCount;
+	}
+
+	private void rollWindow() {
+		long now = System.nanoTime();
+		if (now - windowStartNanos >= WINDOW_NANOS) {
+			resetWindow(now);
+		}
+	}
+
+	private void resetWindow(long now) {
+		windowStartNanos = now;
+		windowSuccess = 0;
+		windowFailure = 0;
+	}
+}
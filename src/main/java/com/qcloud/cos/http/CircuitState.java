@@ -0,0 +1,16 @@
+package com.qcloud.cos.http;
+
+/**
+ * @author chengwu 熔断器的状态
+ */
+public enum CircuitState {
+
+	// 正常放行请求
+	CLOSED,
+
+	// 失败率过高, 直接拒绝请求, 等待一段时间后进入HALF_OPEN
+	OPEN,
+
+	// 放行一个探测请求, 成功后恢复CLOSED, 失败后重新OPEN
+	HALF_OPEN
+}
@@ -0,0 +1,88 @@
+package com.qcloud.cos.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author chengwu AIMD自适应并发限制. 同时进行的请求数达到限制时直接拒绝新请求.
+ * 请求成功且被充分使用时限制加性增长(每个成功的请求增加1/limit, 约每轮增加1), 请求失败或者耗时超过慢请求阈值时
+ * 限制乘性减少为原来的3/4, 同一时刻集中返回的失败只减少一次. 服务端变慢时在途请求数随之收缩, 不会占满连接池
+ */
+class ConcurrencyLimiter {
+
+	private static final double DECREASE_FACTOR = 0.75;
+	// 两次减少之间的最小间隔, 同一批在途请求的失败只减少一次
+	private static final long DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long slowNanos;
+
+	private double limit;
+	private int inFlight = 0;
+	private long lastDecreaseNanos = System.nanoTime() - DECREASE_INTERVAL_NANOS;
+
+	/**
+	 * @param minLimit
+	 *            并发限制的下限
+	 * @param maxLimit
+	 *            并发限制的上限, 也是初始值
+	 * @param slowThreshold
+	 *            慢请求阈值, 单位ms, 超过阈值的成功请求同样视为拥塞
+	 */
+	ConcurrencyLimiter(int minLimit, int maxLimit, long slowThreshold) {
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+		this.limit = this.maxLimit;
+	}
+
+	/**
+	 * 尝试占用一个并发名额, 成功后必须调用release
+	 * 
+	 * @return 成功返回true, 达到限制时返回false
+	 */
+	synchronized boolean tryAcquire() {
+		if (inFlight >= (int) limit) {
+			return false;
+		}
+		++inFlight;
+		return true;
+	}
+
+	/**
+	 * 释放并发名额并根据请求结果调整限制
+	 * 
+	 * @param success
+	 *            请求是否成功
+	 * @param latencyNanos
+	 *            请求耗时, 小于0表示耗时不反映服务端状态(如下载), 不参与判断
+	 */
+	synchronized void release(boolean success, long latencyNanos) {
+		--inFlight;
+		if (!success || latencyNanos > slowNanos) {
+			long now = System.nanoTime();
+			if (now - lastDecreaseNanos >= DECREASE_INTERVAL_NANOS) {
+				limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+				lastDecreaseNanos = now;
+			}
+			return;
+		}
+		// 只有限制被充分使用时才增长, 避免空闲时限制虚高
+		if (inFlight + 1 >= limit / 2) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	// 释放并发名额, 不调整限制
+	synchronized void releaseIgnored() {
+		--inFlight;
+	}
+
+	synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	synchronized int getInFlight() {
+		return inFlight;
+	}
+}
@@ -0,0 +1,118 @@
+package com.qcloud.cos.http;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
+
+/**
+ * @author chengwu 在发送请求前为服务端地址建立长连接并放回连接池, 建立连接时同时完成域名解析.
+ * 同一地址的连接同时从连接池取出, 保证建立的是不同的连接, 各连接并行建立
+ */
+class ConnectionWarmer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+	// 并行建立连接的最大线程数
+	private static final int MAX_WARM_UP_THREADS = 16;
+
+	private ConnectionWarmer() {
+	}
+
+	/**
+	 * 为每个服务端地址建立连接, 失败的连接被忽略
+	 *
+	 * @param connectionManager
+	 *            连接池
+	 * @param endpoints
+	 *            服务端地址, 格式与cosEndPoint相同
+	 * @param connectionCount
+	 *            每个地址建立的连接数
+	 * @param connectTimeout
+	 *            建立连接的超时时间, 单位ms
+	 * @return 成功建立的连接数
+	 */
+	static int warmUp(final HttpClientConnectionManager connectionManager, List<String> endpoints,
+			int connectionCount, final int connectTimeout) {
+		final List<HttpClientConnection> connections = new ArrayList<HttpClientConnection>();
+		final List<HttpRoute> routes = new ArrayList<HttpRoute>();
+		try {
+			for (String endpoint : endpoints) {
+				HttpRoute route = toRoute(endpoint);
+				for (int i = 0; i < connectionCount; ++i) {
+					connections.add(connectionManager.requestConnection(route, null).get(connectTimeout,
+							TimeUnit.MILLISECONDS));
+					routes.add(route);
+				}
+			}
+		} catch (Exception e) {
+			LOG.warn("warm up connections failed to lease connection, exception: {}", e.toString());
+		}
+
+		int connected = 0;
+		int threadCount = Math.max(1, Math.min(connections.size(), MAX_WARM_UP_THREADS));
+		ExecutorService executor = CommonExecutorUtils.newDaemonThreadPool(threadCount, "cos-warm-up-");
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < connections.size(); ++i) {
+				final HttpClientConnection connection = connections.get(i);
+				final HttpRoute route = routes.get(i);
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						if (!connection.isOpen()) {
+							HttpClientContext context = HttpClientContext.create();
+							connectionManager.connect(connection, route, connectTimeout, context);
+							connectionManager.routeComplete(connection, route, context);
+						}
+						return true;
+					}
+				}));
+			}
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout) * 2;
+			for (Future<Boolean> result : results) {
+				try {
+					result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					++connected;
+				} catch (ExecutionException e) {
+					LOG.warn("warm up connection failed, exception: {}", e.getCause().toString());
+				} catch (TimeoutException e) {
+					result.cancel(true);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			// 建立成功的连接放回连接池, 失败的连接未打开, 放回时被丢弃
+			for (HttpClientConnection connection : connections) {
+				connectionManager.releaseConnection(connection, null, -1, TimeUnit.MILLISECONDS);
+			}
+		}
+		LOG.info("warm up {} connections to {}", connected, endpoints);
+		return connected;
+	}
+
+	private static HttpRoute toRoute(String endpoint) {
+		URI uri = URI.create(endpoint);
+		boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+		// 与发送请求时的route一致, 省略端口时使用协议的默认端口
+		int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+		return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+	}
+}
@@ -1,27 +1,55 @@
 package com.qcloud.cos.http;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.Consts;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpMessage;
 import org.apache.http.HttpResponse;
 import org.apache.http.ParseException;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
 import com.qcloud.cos.exception.AbstractCosException;
 import com.qcloud.cos.exception.NetworkException;
 import com.qcloud.cos.exception.ParamException;
@@ -35,8 +63,158 @@ public class DefaultCosHttpClient extends AbstractCosHttpClient {
 
 	private static final Logger LOG = LoggerFactory.getLogger(DefaultCosHttpClient.class);
 
+	// 下载时从连接读取包体使用的缓冲区大小
+	private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+	// 对冲预算最多积累的令牌数, 即最多连续对冲的请求数
+	private static final int HEDGE_BUDGET_CAPACITY = 10;
+
+	// 异步请求使用的非阻塞客户端, 第一次发送异步请求时创建
+	private CloseableHttpAsyncClient asyncHttpClient;
+	// 异步请求退避后重试和发送对冲请求使用的定时器, 第一次需要时创建
+	private ScheduledExecutorService scheduler;
+	// 同步和异步请求共享的重试预算
+	private final RetryBudget retryBudget;
+	// 对冲请求的预算, 与重试预算相同的令牌桶, 限制对冲请求占读请求的比例
+	private final RetryBudget hedgeBudget;
+	// 读请求的耗时分位数, 作为对冲的阈值
+	private final LatencyTracker readLatency;
+	// 每个服务端地址的熔断器和并发限制, key为host:port
+	private final ConcurrentHashMap<String, EndpointGuard> endpointGuards = new ConcurrentHashMap<String, EndpointGuard>();
+	// 构造url使用的服务端地址
+	private final String primaryEndpoint;
+	// 有多个服务端地址时选择每次请求的地址, 只有一个地址时为null
+	private final EndpointSelector endpointSelector;
+
 	public DefaultCosHttpClient(ClientConfig config) {
 		super(config);
+		this.retryBudget = new RetryBudget(config.getRetryBudgetCapacity(), config.getRetryBudgetRatio());
+		this.hedgeBudget = new RetryBudget(HEDGE_BUDGET_CAPACITY, config.getHedgeRatio());
+		this.readLatency = new LatencyTracker(config.getHedgePercentile());
+		this.primaryEndpoint = config.getCosEndPoint();
+		List<String> endpoints = config.getCosEndPoints();
+		if (endpoints.size() > 1) {
+			List<EndpointGuard> guards = new ArrayList<EndpointGuard>();
+			for (String endpoint : endpoints) {
+				guards.add(getEndpointGuard(endpoint));
+			}
+			this.endpointSelector = new EndpointSelector(endpoints, guards);
+		} else {
+			this.endpointSelector = null;
+		}
+	}
+
+	/**
+	 * 有多个服务端地址时, 把发往cosEndPoint的请求改为发往选中的地址
+	 * 
+	 * @param httpRequestBase
+	 *            要发送的请求
+	 * @param originalUri
+	 *            按cosEndPoint构造的url
+	 * @param avoidEndpoint
+	 *            尽量避开的地址, 如上一次失败的地址
+	 * @return 选中的地址, 只有一个地址或者请求不是发往cosEndPoint(如下载)时返回null
+	 */
+	private String route(HttpRequestBase httpRequestBase, URI originalUri, String avoidEndpoint) {
+		if (endpointSelector == null) {
+			return null;
+		}
+		String uri = originalUri.toString();
+		if (!uri.startsWith(primaryEndpoint)) {
+			return null;
+		}
+		String endpoint = endpointSelector.select(avoidEndpoint);
+		httpRequestBase.setURI(URI.create(endpoint + uri.substring(primaryEndpoint.length())));
+		return endpoint;
+	}
+
+	/**
+	 * 获取服务端地址的熔断器和并发限制, 同一host:port的请求共享
+	 * 
+	 * @param url
+	 *            请求的url
+	 * @return 服务端地址对应的EndpointGuard
+	 */
+	private EndpointGuard getEndpointGuard(String url) {
+		String endpoint = url;
+		try {
+			URI uri = new URI(url);
+			if (uri.getHost() != null) {
+				endpoint = uri.getHost() + ":" + uri.getPort();
+			}
+		} catch (URISyntaxException e) {
+			// 构造请求时会报告url错误, 这里按整个url区分
+		}
+		EndpointGuard guard = endpointGuards.get(endpoint);
+		if (guard == null) {
+			EndpointGuard newGuard = new EndpointGuard(endpoint, this.config);
+			guard = endpointGuards.putIfAbsent(endpoint, newGuard);
+			if (guard == null) {
+				guard = newGuard;
+			}
+		}
+		return guard;
+	}
+
+	/**
+	 * 计算交给EndpointGuard的请求耗时. 上传文件内容的multipart POST请求耗时主要取决于包体大小, 不反映服务端是否拥塞
+	 * 
+	 * @return 请求耗时, 单位ns, 不参与拥塞判断时返回-1
+	 */
+	private static long getGuardLatency(HttpRequest httpRequest, long startNanos) {
+		if (httpRequest.getMethod() == HttpMethod.POST
+				&& httpRequest.getContentType() == HttpContentType.MULTIPART_FORM_DATA) {
+			return -1;
+		}
+		return System.nanoTime() - startNanos;
+	}
+
+	@Override
+	public List<EndpointMetrics> getEndpointMetrics() {
+		List<EndpointMetrics> metrics = new ArrayList<EndpointMetrics>();
+		for (EndpointGuard guard : endpointGuards.values()) {
+			metrics.add(guard.getMetrics());
+		}
+		return metrics;
+	}
+
+	private synchronized ScheduledExecutorService getScheduler() {
+		if (this.scheduler == null) {
+			this.scheduler = CommonExecutorUtils.newDaemonScheduledExecutor("cos-http-scheduler");
+		}
+		return this.scheduler;
+	}
+
+	/**
+	 * 获取异步请求使用的客户端, 所有异步请求共享固定数量的IO线程和连接池
+	 * 
+	 * @return 已经启动的异步客户端
+	 * @throws AbstractCosException
+	 */
+	private synchronized CloseableHttpAsyncClient getAsyncHttpClient() throws AbstractCosException {
+		if (this.asyncHttpClient != null) {
+			return this.asyncHttpClient;
+		}
+		IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+				.setIoThreadCount(this.config.getAsyncIoThreadCount())
+				.setConnectTimeout(this.config.getConnectionTimeout())
+				.setSoTimeout(this.config.getSocketTimeout())
+				.build();
+		PoolingNHttpClientConnectionManager asyncConnectionManager = null;
+		try {
+			// 与同步客户端共享域名解析的缓存
+			asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+					new DefaultConnectingIOReactor(ioReactorConfig), null, this.dnsResolver);
+		} catch (IOReactorException e) {
+			throw new UnknownException(e.toString());
+		}
+		// 每个服务端地址一个连接池
+		asyncConnectionManager
+				.setMaxTotal(this.config.getMaxConnectionsCount() * this.config.getCosEndPoints().size());
+		asyncConnectionManager.setDefaultMaxPerRoute(this.config.getMaxConnectionsCount());
+		this.asyncHttpClient = HttpAsyncClients.custom().setConnectionManager(asyncConnectionManager)
+				.setDefaultRequestConfig(requestConfig).build();
+		this.asyncHttpClient.start();
+		return this.asyncHttpClient;
 	}
 
 	// 打印HTTP返回码非200的时候的错误信息
@@ -66,106 +244,582 @@ public class DefaultCosHttpClient extends AbstractCosHttpClient {
 	/**
 	 * Get请求函数
 	 * 
-	 * @param url
-	 * @param headers
-	 *            额外添加的Http头部
-	 * @param params
-	 *            GET请求的参数
+	 * @param httpRequest
+	 *            http请求
 	 * @return Cos服务器返回的字符串
-	 * @throws Exception
+	 * @throws AbstractCosException
 	 */
 	@Override
 	protected String sendGetRequest(HttpRequest httpRequest) throws AbstractCosException {
-		String url = httpRequest.getUrl();
-		HttpGet httpGet = null;
-		String responseStr = "";
-		int retry = 0;
-		int maxRetryCount = this.config.getMaxFailedRetry();
-		while (retry < maxRetryCount) {
-			try {
-				URIBuilder urlBuilder = new URIBuilder(url);
-				for (String paramKey : httpRequest.getParams().keySet()) {
-					urlBuilder.addParameter(paramKey, httpRequest.getParams().get(paramKey));
-				}
-				httpGet = new HttpGet(urlBuilder.build());
-			} catch (URISyntaxException e) {
-				String errMsg = "Invalid url:" + url;
-				LOG.error(errMsg);
-				throw new ParamException(errMsg);
+		if (isHedged(httpRequest)) {
+			// 对冲需要同时等待两个请求, 通过异步客户端发送
+			return waitHedgedResult(sendGetRequestAsync(httpRequest, null));
+		}
+		return sendWithRetry(httpRequest, buildHttpGet(httpRequest));
+	}
+
+	// 开启对冲时, 幂等的GET请求使用对冲
+	private boolean isHedged(HttpRequest httpRequest) {
+		return this.config.isEnableHedgedRead() && httpRequest.getMethod() == HttpMethod.GET
+				&& httpRequest.isIdempotent();
+	}
+
+	private String waitHedgedResult(Future<String> future) throws AbstractCosException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new UnknownException(e.toString());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof AbstractCosException) {
+				throw (AbstractCosException) cause;
 			}
+			throw new UnknownException(cause.toString());
+		}
+	}
 
-			httpGet.setConfig(requestConfig);
-			setHeaders(httpGet, httpRequest.getHeaders());
+	@Override
+	protected String sendPostRequest(HttpRequest httpRequest) throws AbstractCosException {
+		// 包体只构造一次, 重试时复用. 文件内容的包体按位置读取文件, 可以重复发送
+		return sendWithRetry(httpRequest, buildHttpPost(httpRequest));
+	}
 
+	/**
+	 * 发送请求, 失败时按重试策略退避后重试, 直到成功, 策略不再重试, 达到最大尝试次数或者重试预算耗尽.
+	 * 每次尝试前选择服务端地址并获取它的熔断和并发许可, 被拒绝时直接失败, 不再重试
+	 * 
+	 * @param httpRequest
+	 *            http请求
+	 * @param httpRequestBase
+	 *            由httpRequest构造的请求, 每次尝试后重置, 重试时复用
+	 * @return Cos服务器返回的字符串
+	 * @throws AbstractCosException
+	 *             最后一次尝试的失败, 状态码非200/400时为NetworkException, IO错误时为ServerException,
+	 *             被熔断或者并发限制拒绝时为NetworkException
+	 */
+	private String sendWithRetry(HttpRequest httpRequest, HttpRequestBase httpRequestBase)
+			throws AbstractCosException {
+		URI originalUri = httpRequestBase.getURI();
+		String endpoint = null;
+		retryBudget.onRequest();
+		int retry = 0;
+		while (true) {
+			// 重试时尽量换一个服务端地址
+			endpoint = route(httpRequestBase, originalUri, endpoint);
+			EndpointGuard guard = getEndpointGuard(httpRequestBase.getURI().toString());
+			guard.acquire();
+			long startNanos = System.nanoTime();
+			StatusLine failedStatus = null;
+			Exception failedException = null;
 			try {
-				HttpResponse httpResponse = httpClient.execute(httpGet);
-				;
+				HttpResponse httpResponse = httpClient.execute(httpRequestBase);
 				int responseStatusCode = httpResponse.getStatusLine().getStatusCode();
 				if (responseStatusCode == 200 || responseStatusCode == 400) {
-					responseStr = EntityUtils.toString(httpResponse.getEntity(), "UTF-8");
+					String responseStr = EntityUtils.toString(httpResponse.getEntity(), "UTF-8");
+					guard.release(null, getGuardLatency(httpRequest, startNanos));
 					return responseStr;
-				} else {
-					String errMsg = getErrorHttpResponseMsg(httpRequest, httpResponse.getStatusLine());
-					throw new NetworkException(errMsg);
 				}
+				EntityUtils.consumeQuietly(httpResponse.getEntity());
+				failedStatus = httpResponse.getStatusLine();
 			} catch (ParseException | IOException e) {
-				++retry;
-				if (retry == maxRetryCount) {
-					String errMsg = getExceptionMsg(httpRequest, e.toString());
-					throw new ServerException(errMsg);
-				}
+				failedException = e;
+			} catch (RuntimeException e) {
+				guard.releaseIgnored();
+				throw e;
 			} finally {
-				httpGet.releaseConnection();
+				httpRequestBase.releaseConnection();
+			}
+
+			RetryCause cause = failedStatus != null ? RetryCause.fromStatusCode(failedStatus.getStatusCode())
+					: RetryCause.fromException(failedException);
+			guard.release(cause, getGuardLatency(httpRequest, startNanos));
+			long retryDelay = getRetryDelay(httpRequest, cause, retry);
+			if (retryDelay < 0) {
+				throw buildFailure(httpRequest, failedStatus, failedException);
+			}
+			++retry;
+			if (retryDelay > 0) {
+				try {
+					Thread.sleep(retryDelay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw buildFailure(httpRequest, failedStatus, failedException);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 计算下一次重试前等待的时间, 达到最大尝试次数, 重试策略不允许或者重试预算耗尽时不重试
+	 * 
+	 * @param httpRequest
+	 *            失败的请求
+	 * @param cause
+	 *            失败原因
+	 * @param retryCount
+	 *            已经重试的次数
+	 * @return 重试前等待的毫秒数, 小于0表示不重试
+	 */
+	private long getRetryDelay(HttpRequest httpRequest, RetryCause cause, int retryCount) {
+		if (retryCount + 1 >= this.config.getMaxFailedRetry()) {
+			return -1;
+		}
+		long retryDelay = this.config.getRetryPolicy().getRetryDelay(httpRequest, cause, retryCount);
+		if (retryDelay < 0) {
+			return -1;
+		}
+		if (!retryBudget.tryRetry()) {
+			LOG.warn("retry budget exhausted, give up retry, url:{}, cause:{}", httpRequest.getUrl(), cause);
+			return -1;
+		}
+		LOG.debug("retry request after {}ms, url:{}, cause:{}, retry:{}", retryDelay, httpRequest.getUrl(), cause,
+				retryCount + 1);
+		return retryDelay;
+	}
+
+	// 不再重试时, 根据最后一次失败构造异常, 状态码非200/400时为NetworkException, IO错误时为ServerException
+	private AbstractCosException buildFailure(HttpRequest httpRequest, StatusLine failedStatus,
+			Exception failedException) {
+		if (failedStatus != null) {
+			return new NetworkException(getErrorHttpResponseMsg(httpRequest, failedStatus));
+		}
+		return new ServerException(getExceptionMsg(httpRequest, failedException.toString()));
+	}
+
+	@Override
+	protected long sendDownloadGetRequest(HttpRequest httpRequest, WritableByteChannel target)
+			throws AbstractCosException {
+		HttpGet httpGet = buildHttpGet(httpRequest);
+		route(httpGet, httpGet.getURI(), null);
+		EndpointGuard guard = getEndpointGuard(httpGet.getURI().toString());
+		guard.acquire();
+		// 下载的耗时与数据量有关, 不参与判断服务端状态; 读写包体时的IO错误可能来自target, 不计为服务端失败
+		RetryCause cause = null;
+		boolean ignored = false;
+		try {
+			HttpResponse httpResponse = httpClient.execute(httpGet);
+			int responseStatusCode = httpResponse.getStatusLine().getStatusCode();
+			HttpEntity entity = httpResponse.getEntity();
+			if (responseStatusCode != 200 && responseStatusCode != 206) {
+				cause = RetryCause.fromStatusCode(responseStatusCode);
+				EntityUtils.consumeQuietly(entity);
+				String errMsg = getErrorHttpResponseMsg(httpRequest, httpResponse.getStatusLine());
+				throw new NetworkException(errMsg);
+			}
+			// 服务端忽略了Range头时返回的是整个文件, 不能写入目标
+			if (responseStatusCode == 200 && httpRequest.getHeaders().containsKey(RequestHeaderKey.RANGE)) {
+				EntityUtils.consumeQuietly(entity);
+				String errMsg = getErrorHttpResponseMsg(httpRequest, httpResponse.getStatusLine());
+				throw new NetworkException("range not satisfied, " + errMsg);
+			}
+			if (entity == null) {
+				return 0;
+			}
+			return transferEntityContent(entity.getContent(), target);
+		} catch (IOException e) {
+			cause = RetryCause.fromException(e);
+			ignored = cause == RetryCause.IO_ERROR;
+			String errMsg = getExceptionMsg(httpRequest, e.toString());
+			throw new ServerException(errMsg);
+		} catch (RuntimeException e) {
+			ignored = true;
+			throw e;
+		} finally {
+			httpGet.releaseConnection();
+			if (ignored) {
+				guard.releaseIgnored();
+			} else {
+				guard.release(cause, -1);
+			}
+		}
+	}
+
+	// 通过固定大小的缓冲区把包体写入target, 返回写入的字节数.
+	// 读到包体结尾时连接自动归还连接池; 中途异常时不关闭包体流(关闭会读完剩余的包体), 由releaseConnection断开连接
+	private long transferEntityContent(InputStream content, WritableByteChannel target) throws IOException {
+		ReadableByteChannel source = Channels.newChannel(content);
+		ByteBuffer buffer = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+		long transferred = 0;
+		while (source.read(buffer) >= 0) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				transferred += target.write(buffer);
 			}
+			buffer.clear();
 		}
-		return responseStr;
+		return transferred;
+	}
 
+	@Override
+	protected Future<String> sendGetRequestAsync(HttpRequest httpRequest, FutureCallback<String> callback)
+			throws AbstractCosException {
+		// 先构造一次请求, url有误时直接抛出异常
+		buildHttpGet(httpRequest);
+		retryBudget.onRequest();
+		if (isHedged(httpRequest)) {
+			hedgeBudget.onRequest();
+		}
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		new AsyncResponseCallback(httpRequest, future).execute();
+		return future;
 	}
 
 	@Override
-	protected String sendPostRequest(HttpRequest httpRequest) throws AbstractCosException {
+	protected Future<String> sendPostRequestAsync(HttpRequest httpRequest, FutureCallback<String> callback)
+			throws AbstractCosException {
+		retryBudget.onRequest();
+		BasicFuture<String> future = new BasicFuture<String>(callback);
+		new AsyncResponseCallback(httpRequest, future).execute();
+		return future;
+	}
+
+	private HttpGet buildHttpGet(HttpRequest httpRequest) throws AbstractCosException {
 		String url = httpRequest.getUrl();
-		String responseStr = "";
-		int retry = 0;
-		int maxRetryCount = this.config.getMaxFailedRetry();
-		while (retry < maxRetryCount) {
-			HttpPost httpPost = new HttpPost(url);
-			httpPost.setConfig(requestConfig);
+		HttpGet httpGet = null;
+		try {
+			URIBuilder urlBuilder = new URIBuilder(url);
+			for (String paramKey : httpRequest.getParams().keySet()) {
+				urlBuilder.addParameter(paramKey, httpRequest.getParams().get(paramKey));
+			}
+			httpGet = new HttpGet(urlBuilder.build());
+		} catch (URISyntaxException e) {
+			String errMsg = "Invalid url:" + url;
+			LOG.error(errMsg);
+			throw new ParamException(errMsg);
+		}
 
-			Map<String, String> params = httpRequest.getParams();
-			setHeaders(httpPost, httpRequest.getHeaders());
+		httpGet.setConfig(requestConfig);
+		setHeaders(httpGet, httpRequest.getHeaders());
+		return httpGet;
+	}
 
-			if (httpRequest.getContentType() == HttpContentType.APPLICATION_JSON) {
-				setJsonEntity(httpPost, params);
-			} else if (httpRequest.getContentType() == HttpContentType.MULTIPART_FORM_DATA) {
-				try {
-					setMultiPartEntity(httpPost, params);
-				} catch (Exception e) {
-					throw new UnknownException(e.toString());
+	private HttpPost buildHttpPost(HttpRequest httpRequest) throws AbstractCosException {
+		HttpPost httpPost = new HttpPost(httpRequest.getUrl());
+		httpPost.setConfig(requestConfig);
+
+		Map<String, String> params = httpRequest.getParams();
+		setHeaders(httpPost, httpRequest.getHeaders());
+
+		if (httpRequest.getContentType() == HttpContentType.APPLICATION_JSON) {
+			setJsonEntity(httpPost, params);
+		} else if (httpRequest.getContentType() == HttpContentType.MULTIPART_FORM_DATA) {
+			try {
+				setMultiPartEntity(httpPost, params, httpRequest.getBinaryParams());
+			} catch (Exception e) {
+				throw new UnknownException(e.toString());
+			}
+		}
+		return httpPost;
+	}
+
+	/**
+	 * 异步请求的执行过程, 处理返回结果并在失败时重新发送请求, 重试策略与同步请求相同.
+	 * 回调在IO线程中执行, 不能有阻塞操作, 需要退避的重试和对冲请求由定时器发送.
+	 * 对冲时一次尝试包含原请求和对冲请求, 先成功的结果生效并取消另一个请求, 都失败时才按最后的失败重试
+	 */
+	private class AsyncResponseCallback {
+		private final HttpRequest httpRequest;
+		private final BasicFuture<String> future;
+		private final boolean hedged;
+		private int retry = 0;
+		// 写入内存的multipart包体, 重试时复用
+		private HttpEntity bufferedEntity;
+		// 当前尝试的序号, 之前尝试的回调和对冲定时器被忽略
+		private int attempt = 0;
+		// 当前尝试是否已经结束
+		private boolean attemptDone = false;
+		// 当前尝试中已发送尚未结束的请求数
+		private int outstanding = 0;
+		// 当前尝试中已发送的请求, 一个成功后取消其他请求
+		private final List<Future<HttpResponse>> inFlightRequests = new ArrayList<Future<HttpResponse>>(2);
+		// 最近一次请求使用的服务端地址, 重试和对冲时尽量避开
+		private String lastEndpoint;
+
+		AsyncResponseCallback(HttpRequest httpRequest, BasicFuture<String> future) {
+			this.httpRequest = httpRequest;
+			this.future = future;
+			this.hedged = isHedged(httpRequest);
+		}
+
+		void execute() {
+			if (future.isDone()) {
+				return;
+			}
+			final int currentAttempt;
+			synchronized (this) {
+				currentAttempt = ++attempt;
+				attemptDone = false;
+				outstanding = 0;
+				inFlightRequests.clear();
+			}
+			AbstractCosException e = send(currentAttempt);
+			if (e != null) {
+				synchronized (this) {
+					attemptDone = true;
+				}
+				future.failed(e);
+				return;
+			}
+			if (hedged) {
+				scheduleHedge(currentAttempt);
+			}
+		}
+
+		/**
+		 * 发送当前尝试的一个请求
+		 * 
+		 * @param attemptNo
+		 *            请求所属的尝试
+		 * @return 请求没有发出时的异常, 发出或者尝试已经结束时返回null
+		 */
+		private AbstractCosException send(int attemptNo) {
+			HttpRequestBase httpRequestBase = null;
+			try {
+				if (httpRequest.getMethod() == HttpMethod.GET) {
+					httpRequestBase = buildHttpGet(httpRequest);
+				} else {
+					HttpPost httpPost = buildHttpPost(httpRequest);
+					if (httpRequest.getContentType() == HttpContentType.MULTIPART_FORM_DATA) {
+						if (bufferedEntity == null) {
+							bufferedEntity = bufferEntity(httpPost.getEntity());
+						}
+						httpPost.setEntity(bufferedEntity);
+					}
+					httpRequestBase = httpPost;
+				}
+			} catch (AbstractCosException e) {
+				return e;
+			} catch (Exception e) {
+				return new UnknownException(e.toString());
+			}
+			synchronized (this) {
+				lastEndpoint = route(httpRequestBase, httpRequestBase.getURI(), lastEndpoint);
+			}
+			EndpointGuard guard = getEndpointGuard(httpRequestBase.getURI().toString());
+			try {
+				guard.acquire();
+			} catch (AbstractCosException e) {
+				return e;
+			}
+			synchronized (this) {
+				if (attemptNo != attempt || attemptDone) {
+					guard.releaseIgnored();
+					return null;
+				}
+				++outstanding;
+			}
+			Future<HttpResponse> requestFuture = null;
+			try {
+				requestFuture = getAsyncHttpClient().execute(httpRequestBase,
+						new RequestCallback(attemptNo, guard));
+			} catch (Exception e) {
+				// 客户端已经关闭等情况
+				guard.releaseIgnored();
+				synchronized (this) {
+					--outstanding;
+				}
+				return e instanceof AbstractCosException ? (AbstractCosException) e
+						: new UnknownException(e.toString());
+			}
+			boolean done;
+			synchronized (this) {
+				done = attemptNo != attempt || attemptDone;
+				if (!done) {
+					inFlightRequests.add(requestFuture);
+				}
+			}
+			if (done) {
+				requestFuture.cancel(true);
+			}
+			return null;
+		}
+
+		// 原请求超过耗时分位数仍未结束时发送对冲请求, 样本不足时不对冲
+		private void scheduleHedge(final int attemptNo) {
+			long hedgeDelay = readLatency.getThresholdMillis();
+			if (hedgeDelay < 0) {
+				return;
+			}
+			try {
+				getScheduler().schedule(new Runnable() {
+					@Override
+					public void run() {
+						hedge(attemptNo);
+					}
+				}, hedgeDelay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				// 客户端已经关闭, 不再对冲
+			}
+		}
+
+		private void hedge(int attemptNo) {
+			synchronized (this) {
+				if (attemptNo != attempt || attemptDone || future.isDone()) {
+					return;
+				}
+			}
+			if (!hedgeBudget.tryRetry()) {
+				return;
+			}
+			LOG.debug("send hedged request, url:{}", httpRequest.getUrl());
+			AbstractCosException e = send(attemptNo);
+			if (e != null) {
+				// 被熔断或者并发限制拒绝时不对冲, 继续等待原请求
+				LOG.debug("hedged request not sent, url:{}, exception:{}", httpRequest.getUrl(), e.toString());
+			}
+		}
+
+		private void onSuccess(int attemptNo, String responseStr) {
+			List<Future<HttpResponse>> losers;
+			synchronized (this) {
+				if (attemptNo != attempt || attemptDone) {
+					return;
+				}
+				attemptDone = true;
+				losers = new ArrayList<Future<HttpResponse>>(inFlightRequests);
+				inFlightRequests.clear();
+			}
+			for (Future<HttpResponse> loser : losers) {
+				loser.cancel(true);
+			}
+			future.completed(responseStr);
+		}
+
+		private void onFailure(int attemptNo, RetryCause cause, StatusLine failedStatus, Exception failedException) {
+			synchronized (this) {
+				if (attemptNo != attempt || attemptDone) {
+					return;
 				}
+				// 对冲中的另一个请求仍可能成功
+				if (--outstanding > 0) {
+					return;
+				}
+				attemptDone = true;
 			}
+			retryOrFail(cause, failedStatus, failedException);
+		}
 
+		private void onCancelled(int attemptNo) {
+			synchronized (this) {
+				if (attemptNo != attempt || attemptDone) {
+					return;
+				}
+				if (--outstanding > 0) {
+					return;
+				}
+				attemptDone = true;
+			}
+			future.cancel();
+		}
+
+		private void retryOrFail(RetryCause cause, StatusLine failedStatus, Exception failedException) {
+			long retryDelay = getRetryDelay(httpRequest, cause, retry);
+			if (retryDelay < 0) {
+				future.failed(buildFailure(httpRequest, failedStatus, failedException));
+				return;
+			}
+			++retry;
+			if (retryDelay == 0) {
+				execute();
+				return;
+			}
 			try {
-				HttpResponse httpResponse = httpClient.execute(httpPost);
+				getScheduler().schedule(new Runnable() {
+					@Override
+					public void run() {
+						execute();
+					}
+				}, retryDelay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				// 客户端已经关闭
+				future.failed(buildFailure(httpRequest, failedStatus, failedException));
+			}
+		}
+
+		/**
+		 * 一个请求的回调, 原请求和对冲请求各有一个
+		 */
+		private class RequestCallback implements FutureCallback<HttpResponse> {
+			private final int attemptNo;
+			private final EndpointGuard guard;
+			private final long startNanos = System.nanoTime();
+
+			RequestCallback(int attemptNo, EndpointGuard guard) {
+				this.attemptNo = attemptNo;
+				this.guard = guard;
+			}
+
+			@Override
+			public void completed(HttpResponse httpResponse) {
 				int responseStatusCode = httpResponse.getStatusLine().getStatusCode();
-				if (responseStatusCode == 200 || responseStatusCode == 400) {
+				if (responseStatusCode != 200 && responseStatusCode != 400) {
+					EntityUtils.consumeQuietly(httpResponse.getEntity());
+					RetryCause cause = RetryCause.fromStatusCode(responseStatusCode);
+					guard.release(cause, getGuardLatency(httpRequest, startNanos));
+					onFailure(attemptNo, cause, httpResponse.getStatusLine(), null);
+					return;
+				}
+				String responseStr = null;
+				try {
 					responseStr = EntityUtils.toString(httpResponse.getEntity(), "UTF-8");
-					return responseStr;
-				} else {
-					String errMsg = getErrorHttpResponseMsg(httpRequest, httpResponse.getStatusLine());
-					throw new NetworkException(errMsg);
+				} catch (ParseException | IOException e) {
+					failed(e);
+					return;
 				}
-			} catch (ParseException | IOException e) {
-				++retry;
-				if (retry == maxRetryCount) {
-					String errMsg = getExceptionMsg(httpRequest, e.toString());
-					throw new ServerException(errMsg);
+				guard.release(null, getGuardLatency(httpRequest, startNanos));
+				if (hedged) {
+					readLatency.record(System.nanoTime() - startNanos);
 				}
-			} finally {
-				httpPost.releaseConnection();
+				onSuccess(attemptNo, responseStr);
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				RetryCause cause = RetryCause.fromException(ex);
+				guard.release(cause, getGuardLatency(httpRequest, startNanos));
+				onFailure(attemptNo, cause, null, ex);
 			}
+
+			@Override
+			public void cancelled() {
+				guard.releaseIgnored();
+				onCancelled(attemptNo);
+			}
+		}
+	}
+
+	/**
+	 * 非阻塞客户端通过getContent读取包体, 而multipart包体不支持getContent, 发送前整体写入内存,
+	 * 因此异步发送multipart请求只适合小文件
+	 * 
+	 * @param entity
+	 *            multipart包体
+	 * @return 内容相同的字节数组包体
+	 * @throws IOException
+	 */
+	private HttpEntity bufferEntity(HttpEntity entity) throws IOException {
+		long contentLength = entity.getContentLength();
+		EntityBuffer outputStream = new EntityBuffer(
+				contentLength > 0 && contentLength <= Integer.MAX_VALUE ? (int) contentLength : 4096);
+		entity.writeTo(outputStream);
+		ByteArrayEntity byteArrayEntity = outputStream.toEntity();
+		byteArrayEntity.setContentType(entity.getContentType());
+		return byteArrayEntity;
+	}
+
+	/**
+	 * 按包体长度预先分配的缓冲区, 包体直接使用内部数组, 不再通过toByteArray复制一次
+	 */
+	private static class EntityBuffer extends ByteArrayOutputStream {
+		EntityBuffer(int size) {
+			super(size);
+		}
+
+		ByteArrayEntity toEntity() {
+			return new ByteArrayEntity(buf, 0, count);
 		}
-		return responseStr;
 	}
 
 	private void setJsonEntity(HttpPost httpPost, Map<String, String> params) {
@@ -175,20 +829,41 @@ public class DefaultCosHttpClient extends AbstractCosHttpClient {
 		httpPost.setEntity(stringEntity);
 	}
 
-	private void setMultiPartEntity(HttpPost httpPost, Map<String, String> params) throws Exception {
+	private void setMultiPartEntity(HttpPost httpPost, Map<String, String> params,
+			Map<String, ContentBody> binaryParams) throws Exception {
 		ContentType utf8TextPlain = ContentType.create("text/plain", Consts.UTF_8);
 		MultipartEntityBuilder entityBuilder = MultipartEntityBuilder.create();
 		for (String paramKey : params.keySet()) {
-			if (paramKey.equals(RequestBodyKey.FILE_CONTENT)) {
-				entityBuilder.addBinaryBody(RequestBodyKey.FILE_CONTENT,
-						params.get(RequestBodyKey.FILE_CONTENT).getBytes(Charset.forName("ISO-8859-1")));
-			} else {
-				entityBuilder.addTextBody(paramKey, params.get(paramKey), utf8TextPlain);
-			}
+			entityBuilder.addTextBody(paramKey, params.get(paramKey), utf8TextPlain);
+		}
+		for (Map.Entry<String, ContentBody> binaryParam : binaryParams.entrySet()) {
+			entityBuilder.addPart(binaryParam.getKey(), binaryParam.getValue());
 		}
 		httpPost.setEntity(entityBuilder.build());
 	}
 
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		List<Runnable> pendingRetries = Collections.emptyList();
+		synchronized (this) {
+			if (this.scheduler != null) {
+				pendingRetries = this.scheduler.shutdownNow();
+			}
+			if (this.asyncHttpClient != null) {
+				try {
+					this.asyncHttpClient.close();
+				} catch (IOException e) {
+					LOG.error("close async http client occur an IOException {}", e);
+				}
+			}
+		}
+		// 等待中的重试在客户端关闭后立即执行, 发送失败, 使对应的Future结束
+		for (Runnable pendingRetry : pendingRetries) {
+			pendingRetry.run();
+		}
+	}
+
 	/**
 	 * 设置Http头部，同时添加上公共的类型，长连接，COS SDK标识
 	 * 
@@ -0,0 +1,54 @@
+package com.qcloud.cos.http;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author chengwu 默认的重试策略, 指数退避加全随机抖动: 第n次重试前等待[0, min(maxDelay, baseDelay * 2^n))内的随机时间,
+ * 避免大量客户端在服务端故障时同时重试. 连接失败和限流时服务端没有处理请求, 总是重试; 其他失败只重试幂等的请求;
+ * 4xx(429除外)和连接池超时不重试, 连接池已满时重试只会加重排队. 限流时退避的基数加倍
+ */
+public class DefaultRetryPolicy implements RetryPolicy {
+
+	// 默认的退避基数, 单位ms
+	private static final long DEFAULT_BASE_DELAY = 100;
+	// 默认的最大退避时间, 单位ms
+	private static final long DEFAULT_MAX_DELAY = 10 * 1000;
+
+	private final long baseDelay;
+	private final long maxDelay;
+
+	public DefaultRetryPolicy() {
+		this(DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+	}
+
+	/**
+	 * @param baseDelay
+	 *            退避基数, 单位ms
+	 * @param maxDelay
+	 *            最大退避时间, 单位ms
+	 */
+	public DefaultRetryPolicy(long baseDelay, long maxDelay) {
+		if (baseDelay < 0 || maxDelay < baseDelay) {
+			throw new IllegalArgumentException("baseDelay:" + baseDelay + ", maxDelay:" + maxDelay);
+		}
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+	}
+
+	@Override
+	public long getRetryDelay(HttpRequest httpRequest, RetryCause cause, int retryCount) {
+		if (cause == RetryCause.CLIENT_ERROR || cause == RetryCause.POOL_TIMEOUT) {
+			return -1;
+		}
+		if (!cause.isNotProcessed() && !httpRequest.isIdempotent()) {
+			return -1;
+		}
+		long base = cause == RetryCause.THROTTLED ? baseDelay * 2 : baseDelay;
+		// 避免移位溢出, 超过上限后都按上限计算
+		long ceiling = retryCount >= 30 ? maxDelay : Math.min(maxDelay, base << retryCount);
+		if (ceiling <= 0) {
+			return 0;
+		}
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+}
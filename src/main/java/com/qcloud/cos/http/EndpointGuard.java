@@ -0,0 +1,114 @@
+package com.qcloud.cos.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.exception.NetworkException;
+
+/**
+ * @author chengwu 一个服务端地址的熔断器和自适应并发限制. 每次发送请求前调用acquire, 请求结束后调用release,
+ * 熔断器打开或者在途请求数达到限制时acquire直接抛出NetworkException, 不等待连接池.
+ * 熔断和并发限制默认都不开启, 未开启时只统计请求结果
+ */
+class EndpointGuard {
+
+	private final String endpoint;
+	// 未开启时为null
+	private final CircuitBreaker circuitBreaker;
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	private final AtomicLong successCount = new AtomicLong(0);
+	private final AtomicLong failureCount = new AtomicLong(0);
+	private final AtomicLong rejectedCount = new AtomicLong(0);
+	// 已获取许可尚未释放的请求数, 用于选择服务端地址
+	private final AtomicInteger outstanding = new AtomicInteger(0);
+
+	EndpointGuard(String endpoint, ClientConfig config) {
+		this.endpoint = endpoint;
+		this.circuitBreaker = config.isEnableCircuitBreaker() ? new CircuitBreaker(
+				config.getCircuitBreakerFailureRate(), config.getCircuitBreakerMinRequests(),
+				config.getCircuitBreakerOpenTime()) : null;
+		// 超过读取超时一半的请求视为慢请求
+		this.concurrencyLimiter = config.isEnableConcurrencyLimit()
+				? new ConcurrencyLimiter(1, config.getMaxConnectionsCount(), config.getSocketTimeout() / 2) : null;
+	}
+
+	/**
+	 * 获取发送请求的许可
+	 * 
+	 * @throws NetworkException
+	 *             熔断器打开或者在途请求数达到限制
+	 */
+	void acquire() throws NetworkException {
+		if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+			rejectedCount.incrementAndGet();
+			throw new NetworkException("circuit breaker is open, endpoint:" + endpoint);
+		}
+		if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+			if (circuitBreaker != null) {
+				circuitBreaker.onIgnored();
+			}
+			rejectedCount.incrementAndGet();
+			throw new NetworkException("too many requests in flight, endpoint:" + endpoint + ", limit:"
+					+ concurrencyLimiter.getLimit());
+		}
+		outstanding.incrementAndGet();
+	}
+
+	/**
+	 * 释放许可并记录请求结果
+	 * 
+	 * @param cause
+	 *            失败原因, 成功时为null. 4xx说明服务端正常, 按成功记录; 连接池超时与服务端无关, 不记录
+	 * @param latencyNanos
+	 *            请求耗时, 小于0表示耗时不反映服务端状态
+	 */
+	void release(RetryCause cause, long latencyNanos) {
+		if (cause == RetryCause.POOL_TIMEOUT) {
+			releaseIgnored();
+			return;
+		}
+		outstanding.decrementAndGet();
+		boolean success = cause == null || cause == RetryCause.CLIENT_ERROR;
+		(success ? successCount : failureCount).incrementAndGet();
+		if (circuitBreaker != null) {
+			if (success) {
+				circuitBreaker.onSuccess();
+			} else {
+				circuitBreaker.onFailure();
+			}
+		}
+		if (concurrencyLimiter != null) {
+			concurrencyLimiter.release(success, latencyNanos);
+		}
+	}
+
+	// 请求没有产生可以判断服务端状态的结果, 如发送前失败或者被取消
+	void releaseIgnored() {
+		outstanding.decrementAndGet();
+		if (circuitBreaker != null) {
+			circuitBreaker.onIgnored();
+		}
+		if (concurrencyLimiter != null) {
+			concurrencyLimiter.releaseIgnored();
+		}
+	}
+
+	int getOutstanding() {
+		return outstanding.get();
+	}
+
+	CircuitState getCircuitState() {
+		return circuitBreaker != null ? circuitBreaker.getState() : CircuitState.CLOSED;
+	}
+
+	EndpointMetrics getMetrics() {
+		return new EndpointMetrics(endpoint,
+				circuitBreaker != null ? circuitBreaker.getState() : CircuitState.CLOSED,
+				circuitBreaker != null ? circuitBreaker.getOpenCount() : 0,
+				concurrencyLimiter != null ? concurrencyLimiter.getLimit() : -1,
+				concurrencyLimiter != null ? concurrencyLimiter.getInFlight() : -1, successCount.get(),
+				failureCount.get(), rejectedCount.get());
+	}
+}
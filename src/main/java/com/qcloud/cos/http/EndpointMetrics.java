@@ -0,0 +1,82 @@
+package com.qcloud.cos.http;
+
+/**
+ * @author chengwu 一个服务端地址的熔断器和并发限制的状态快照
+ */
+public class EndpointMetrics {
+
+	private final String endpoint;
+	private final CircuitState circuitState;
+	private final long circuitOpenCount;
+	private final int concurrencyLimit;
+	private final int inFlight;
+	private final long successCount;
+	private final long failureCount;
+	private final long rejectedCount;
+
+	EndpointMetrics(String endpoint, CircuitState circuitState, long circuitOpenCount, int concurrencyLimit,
+			int inFlight, long successCount, long failureCount, long rejectedCount) {
+		this.endpoint = endpoint;
+		this.circuitState = circuitState;
+		this.circuitOpenCount = circuitOpenCount;
+		this.concurrencyLimit = concurrencyLimit;
+		this.inFlight = inFlight;
+		this.successCount = successCount;
+		this.failureCount = failureCount;
+		this.rejectedCount = rejectedCount;
+	}
+
+	// 服务端地址, 格式为host:port
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	// 熔断器的状态, 未开启熔断时总是CLOSED
+	public CircuitState getCircuitState() {
+		return circuitState;
+	}
+
+	// 熔断器累计打开的次数
+	public long getCircuitOpenCount() {
+		return circuitOpenCount;
+	}
+
+	// 当前的并发限制, 未开启并发限制时为-1
+	public int getConcurrencyLimit() {
+		return concurrencyLimit;
+	}
+
+	// 在途请求数, 未开启并发限制时为-1
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	// 累计成功的请求数(包括服务端返回4xx)
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	// 累计失败的请求数(连接失败, 超时, 5xx, 429)
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	// 累计被熔断器或者并发限制拒绝的请求数
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("endpoint:").append(endpoint);
+		sb.append(", circuitState:").append(circuitState);
+		sb.append(", circuitOpenCount:").append(circuitOpenCount);
+		sb.append(", concurrencyLimit:").append(concurrencyLimit);
+		sb.append(", inFlight:").append(inFlight);
+		sb.append(", successCount:").append(successCount);
+		sb.append(", failureCount:").append(failureCount);
+		sb.append(", rejectedCount:").append(rejectedCount);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,69 @@
+package com.qcloud.cos.http;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author chengwu 在多个服务端地址之间选择请求的地址. 优先选择熔断器关闭的地址, 都不可用时选择可以探测的地址,
+ * 其中选择在途请求最少的地址, 相同时随机选择. 重试和对冲时尽量避开上一次使用的地址
+ */
+class EndpointSelector {
+
+	private final String[] endpoints;
+	private final EndpointGuard[] guards;
+
+	/**
+	 * @param endpoints
+	 *            服务端地址
+	 * @param guards
+	 *            与endpoints一一对应的熔断器和并发限制
+	 */
+	EndpointSelector(List<String> endpoints, List<EndpointGuard> guards) {
+		this.endpoints = endpoints.toArray(new String[endpoints.size()]);
+		this.guards = guards.toArray(new EndpointGuard[guards.size()]);
+	}
+
+	/**
+	 * 选择一个服务端地址
+	 * 
+	 * @param avoidEndpoint
+	 *            尽量避开的地址, 如上一次失败的地址, 为null时不避开
+	 * @return 选中的地址
+	 */
+	String select(String avoidEndpoint) {
+		int best = -1;
+		int bestRank = Integer.MAX_VALUE;
+		int bestOutstanding = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int i = 0; i < endpoints.length; ++i) {
+			int rank = rank(guards[i].getCircuitState());
+			if (endpoints[i].equals(avoidEndpoint)) {
+				rank += 3;
+			}
+			int outstanding = guards[i].getOutstanding();
+			if (rank < bestRank || (rank == bestRank && outstanding < bestOutstanding)) {
+				best = i;
+				bestRank = rank;
+				bestOutstanding = outstanding;
+				ties = 1;
+			} else if (rank == bestRank && outstanding == bestOutstanding
+					&& ThreadLocalRandom.current().nextInt(++ties) == 0) {
+				// 蓄水池抽样, 相同的地址中等概率选择
+				best = i;
+			}
+		}
+		return endpoints[best];
+	}
+
+	// 熔断器关闭的地址最优先, 打开的地址最后选择
+	private static int rank(CircuitState state) {
+		switch (state) {
+		case CLOSED:
+			return 0;
+		case HALF_OPEN:
+			return 1;
+		default:
+			return 2;
+		}
+	}
+}
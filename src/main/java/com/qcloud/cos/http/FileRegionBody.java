@@ -0,0 +1,67 @@
+package com.qcloud.cos.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/**
+ * @author chengwu
+ * 文件中的一段区域作为multipart的二进制包体, 发送时通过FileChannel.transferTo写入连接,
+ * 文件内容不会整体读入JAVA堆中. 使用的是带位置参数的transferTo, 不改变channel的position,
+ * 因此多个包体可以共享同一个FileChannel并发发送, 且包体可以在重试时重复发送
+ */
+public class FileRegionBody extends AbstractContentBody {
+
+	private final FileChannel fileChannel;
+	private final long position;
+	private final long length;
+
+	public FileRegionBody(FileChannel fileChannel, long position, long length) {
+		super(ContentType.DEFAULT_BINARY);
+		if (fileChannel == null) {
+			throw new IllegalArgumentException("fileChannel is null");
+		}
+		if (position < 0 || length < 0) {
+			throw new IllegalArgumentException("position:" + position + ", length:" + length);
+		}
+		this.fileChannel = fileChannel;
+		this.position = position;
+		this.length = length;
+	}
+
+	// 不设置filename, 与原先addBinaryBody(name, bytes)生成的包体保持一致
+	@Override
+	public String getFilename() {
+		return null;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		WritableByteChannel target = Channels.newChannel(out);
+		long transferred = 0;
+		while (transferred < this.length) {
+			long count = this.fileChannel.transferTo(this.position + transferred, this.length - transferred, target);
+			if (count <= 0) {
+				throw new IOException("file region is truncated, position:" + (this.position + transferred)
+						+ ", file size:" + this.fileChannel.size());
+			}
+			transferred += count;
+		}
+	}
+
+	@Override
+	public String getTransferEncoding() {
+		return MIME.ENC_BINARY;
+	}
+
+	@Override
+	public long getContentLength() {
+		return this.length;
+	}
+}
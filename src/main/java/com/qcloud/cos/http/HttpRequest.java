@@ -4,12 +4,18 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.http.entity.mime.content.ContentBody;
+
 public class HttpRequest {
 	private String url = "";
 	private HttpMethod method = HttpMethod.POST;
 	private HttpContentType contentType = HttpContentType.MULTIPART_FORM_DATA;
 	private Map<String, String> headers = new LinkedHashMap<>();
 	private Map<String, String> params = new LinkedHashMap<>();
+	// multipart请求中的二进制包体(如文件内容), 直接写入连接, 不经过字符串转换
+	private Map<String, ContentBody> binaryParams = new LinkedHashMap<>();
+	// 请求能否重复执行, 为null时GET请求是幂等的, POST请求不是
+	private Boolean idempotent;
 
 	public HttpRequest() {
 		super();
@@ -47,19 +53,40 @@ public class HttpRequest {
 		return params;
 	}
 
+	public Map<String, ContentBody> getBinaryParams() {
+		return binaryParams;
+	}
+
+	public boolean isIdempotent() {
+		if (idempotent != null) {
+			return idempotent;
+		}
+		return method == HttpMethod.GET;
+	}
+
+	// 设置请求能否重复执行, 服务端可能已经处理了请求时, 只有幂等的请求会重试
+	public void setIdempotent(boolean idempotent) {
+		this.idempotent = idempotent;
+	}
+
 	public void addHeader(String key, String value) {
 		this.headers.put(key, value);
 	}
 
+	// 添加文本参数, 按UTF-8发送. 文件内容等二进制数据通过addBinaryParam添加
 	public void addParam(String key, String value) {
 		this.params.put(key, value);
 	}
 
+	public void addBinaryParam(String key, ContentBody body) {
+		this.binaryParams.put(key, body);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("url:").append(url).append(", method:").append(method).append(", ConentType:")
-				.append(contentType.toString()).append("\n");
+				.append(contentType.toString()).append(", idempotent:").append(isIdempotent()).append("\n");
 
 		sb.append("Headers:\n");
 		for (Entry<String, String> entry : headers.entrySet()) {
@@ -75,6 +102,12 @@ public class HttpRequest {
 			sb.append("\n");
 		}
 
+		for (Entry<String, ContentBody> entry : binaryParams.entrySet()) {
+			sb.append("key:").append(entry.getKey());
+			sb.append(", value:[binary, length:").append(entry.getValue().getContentLength()).append("]");
+			sb.append("\n");
+		}
+
 		return sb.toString();
 	}
 }
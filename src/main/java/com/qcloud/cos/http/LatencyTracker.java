@@ -0,0 +1,54 @@
+package com.qcloud.cos.http;
+
+import java.util.Arrays;
+
+/**
+ * @author chengwu 统计最近一段请求的耗时分位数, 作为发送对冲请求的阈值.
+ * 保留最近SAMPLE_SIZE个耗时, 每记录UPDATE_INTERVAL个耗时重新排序计算一次分位数, 样本不足时没有阈值
+ */
+class LatencyTracker {
+
+	private static final int SAMPLE_SIZE = 512;
+	private static final int MIN_SAMPLES = 20;
+	private static final int UPDATE_INTERVAL = 16;
+
+	private final double percentile;
+	// 环形缓冲区, 单位ns
+	private final long[] samples = new long[SAMPLE_SIZE];
+	private int count = 0;
+	private int next = 0;
+	private int sinceUpdate = 0;
+	// 当前阈值, 单位ms, 小于0表示样本不足
+	private long thresholdMillis = -1;
+
+	/**
+	 * @param percentile
+	 *            阈值使用的分位数, 取值(0, 1)
+	 */
+	LatencyTracker(double percentile) {
+		this.percentile = Math.min(Math.max(percentile, 0), 1);
+	}
+
+	synchronized void record(long latencyNanos) {
+		samples[next] = latencyNanos;
+		next = (next + 1) % SAMPLE_SIZE;
+		if (count < SAMPLE_SIZE) {
+			++count;
+		}
+		if (++sinceUpdate >= UPDATE_INTERVAL && count >= MIN_SAMPLES) {
+			sinceUpdate = 0;
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+			long nanos = sorted[Math.max(index, 0)];
+			thresholdMillis = Math.max(1, nanos / 1000000);
+		}
+	}
+
+	/**
+	 * @return 耗时分位数, 单位ms, 样本不足时返回-1
+	 */
+	synchronized long getThresholdMillis() {
+		return thresholdMillis;
+	}
+}
@@ -24,6 +24,7 @@ public class RequestBodyKey {
 	public static final String SESSION = "session";
 	public static final String OFFSET = "offset";
 	public static final String UPLOAD_PARTS = "uploadparts";
+	public static final String SIGN = "sign";
 
 	public class UploadParts {
 		public static final String OFFSET = "offset";
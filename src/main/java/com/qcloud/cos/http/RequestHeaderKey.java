@@ -9,4 +9,5 @@ public class RequestHeaderKey {
     public static final String ACCEPT = "Accept";
     public static final String CONNECTION = "Connection";
     public static final String USER_AGENT = "User-Agent";
+    public static final String RANGE = "Range";
 }
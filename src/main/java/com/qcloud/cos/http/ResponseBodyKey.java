@@ -22,5 +22,19 @@ public class ResponseBodyKey {
         public static final String SHA = "sha";
         public static final String CTIME = "ctime";
         public static final String MTIME = "mtime";
+        public static final String LENGTH = "length";
+        public static final String SOURCE_URL = "source_url";
+        public static final String CONTEXT = "context";
+        public static final String LISTOVER = "listover";
+        public static final String INFOS = "infos";
+        public static final String FOLDER_COUNT = "folder_count";
+        public static final String FILE_COUNT = "file_count";
+        public static final String DELETED_FILE_COUNT = "deleted_file_count";
+        public static final String DELETED_FOLDER_COUNT = "deleted_folder_count";
+        public static final String FAILED_COUNT = "failed_count";
+        public static final String FAILED_LIST = "failed_list";
+        public static final String COS_PATH = "cos_path";
+        public static final String UPLOADED_COUNT = "uploaded_count";
+        public static final String SKIPPED_COUNT = "skipped_count";
     }
 }
@@ -0,0 +1,49 @@
+package com.qcloud.cos.http;
+
+/**
+ * @author chengwu 客户端的重试预算, 限制重试请求占全部请求的比例.
+ * 每个新请求向预算中存入ratio个令牌, 每次重试取出一个令牌, 令牌不足时不再重试. 预算初始为满,
+ * 容量允许偶发的失败正常重试; 服务端大面积故障时重试数被限制在新请求数的ratio倍, 避免重试放大故障
+ */
+class RetryBudget {
+
+	// 令牌按千分之一计数
+	private static final long SCALE = 1000;
+
+	private final long capacity;
+	private final long deposit;
+	private long tokens;
+
+	/**
+	 * @param capacity
+	 *            最多积累的令牌数, 小于等于0表示不限制重试
+	 * @param ratio
+	 *            每个新请求存入的令牌数
+	 */
+	RetryBudget(int capacity, double ratio) {
+		this.capacity = capacity * SCALE;
+		this.deposit = (long) (Math.max(0, ratio) * SCALE);
+		this.tokens = this.capacity;
+	}
+
+	// 发送新请求时调用
+	synchronized void onRequest() {
+		tokens = Math.min(capacity, tokens + deposit);
+	}
+
+	/**
+	 * 尝试取出一次重试的令牌
+	 * 
+	 * @return 可以重试返回true, 否则返回false
+	 */
+	synchronized boolean tryRetry() {
+		if (capacity <= 0) {
+			return true;
+		}
+		if (tokens < SCALE) {
+			return false;
+		}
+		tokens -= SCALE;
+		return true;
+	}
+}
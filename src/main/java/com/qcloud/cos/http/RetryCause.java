@@ -0,0 +1,95 @@
+package com.qcloud.cos.http;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+/**
+ * @author chengwu 请求失败的原因, 重试策略据此判断能否重试.
+ * 连接阶段的失败说明请求没有到达服务端, 任何请求都可以重试; 其他失败时服务端可能已经处理了请求, 只有幂等的请求可以重试
+ */
+public enum RetryCause {
+
+	// 等待连接池分配连接超时, 请求没有发出, 与服务端状态无关
+	POOL_TIMEOUT(true),
+
+	// 建立连接超时
+	CONNECT_TIMEOUT(true),
+
+	// 建立连接失败, 如连接被拒绝, 域名解析失败
+	CONNECT_FAILED(true),
+
+	// 等待返回超时
+	READ_TIMEOUT(false),
+
+	// 发送请求或读取返回时的其他IO错误, 如连接被重置
+	IO_ERROR(false),
+
+	// 服务端返回5xx
+	SERVER_ERROR(false),
+
+	// 服务端返回429, 请求被限流, 没有被处理
+	THROTTLED(true),
+
+	// 服务端返回其他非200/400的状态码, 重试不会改变结果
+	CLIENT_ERROR(false);
+
+	// 服务端是否一定没有处理请求
+	private final boolean notProcessed;
+
+	private RetryCause(boolean notProcessed) {
+		this.notProcessed = notProcessed;
+	}
+
+	public boolean isNotProcessed() {
+		return notProcessed;
+	}
+
+	/**
+	 * 根据发送请求时发生的异常判断失败原因
+	 * 
+	 * @param e
+	 *            发送请求或者读取返回时的异常
+	 * @return 失败原因
+	 */
+	public static RetryCause fromException(Exception e) {
+		// 同步客户端的ConnectionPoolTimeoutException是ConnectTimeoutException的子类, 异步客户端抛出TimeoutException
+		if (e instanceof ConnectionPoolTimeoutException || e instanceof TimeoutException) {
+			return POOL_TIMEOUT;
+		}
+		// ConnectTimeoutException是SocketTimeoutException的子类, 需要先判断
+		if (e instanceof ConnectTimeoutException) {
+			return CONNECT_TIMEOUT;
+		}
+		if (e instanceof ConnectException || e instanceof UnknownHostException
+				|| e instanceof NoRouteToHostException) {
+			return CONNECT_FAILED;
+		}
+		if (e instanceof SocketTimeoutException) {
+			return READ_TIMEOUT;
+		}
+		return IO_ERROR;
+	}
+
+	/**
+	 * 根据返回的状态码判断失败原因
+	 * 
+	 * @param statusCode
+	 *            非200/400的HTTP状态码
+	 * @return 失败原因
+	 */
+	public static RetryCause fromStatusCode(int statusCode) {
+		if (statusCode == 429) {
+			return THROTTLED;
+		}
+		if (statusCode >= 500) {
+			return SERVER_ERROR;
+		}
+		return CLIENT_ERROR;
+	}
+}
@@ -0,0 +1,22 @@
+package com.qcloud.cos.http;
+
+/**
+ * @author chengwu 请求失败后的重试策略, 决定是否重试以及重试前等待的时间.
+ * 最大尝试次数由ClientConfig的maxFailedRetry限制, 所有请求的重试还受客户端的重试预算限制, 策略不需要处理.
+ * 同一客户端的请求共享一个策略实例, 实现必须是线程安全的
+ */
+public interface RetryPolicy {
+
+	/**
+	 * 计算下一次重试前等待的时间
+	 * 
+	 * @param httpRequest
+	 *            失败的请求, 通过isIdempotent判断请求能否重复执行
+	 * @param cause
+	 *            失败原因
+	 * @param retryCount
+	 *            已经重试的次数, 第一次失败时为0
+	 * @return 重试前等待的毫秒数, 小于0表示不重试
+	 */
+	long getRetryDelay(HttpRequest httpRequest, RetryCause cause, int retryCount);
+}
@@ -1,5 +1,9 @@
 package com.qcloud.cos.op;
 
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.common_utils.CommonPathUtils;
 import com.qcloud.cos.exception.AbstractCosException;
@@ -16,6 +20,7 @@ import com.qcloud.cos.request.AbstractDelRequest;
 import com.qcloud.cos.request.AbstractStatRequest;
 import com.qcloud.cos.sign.Credentials;
 import com.qcloud.cos.sign.Sign;
+import com.qcloud.cos.sign.SignCache;
 
 /**
  * @author chengwu 
@@ -28,12 +33,15 @@ public abstract class BaseOp {
 	protected Credentials cred;
 	// http请求发送对象
 	protected AbstractCosHttpClient httpClient;
+	// 签名缓存, 由同一客户端的FileOp和FolderOp共享
+	protected SignCache signCache;
 
 	public BaseOp(ClientConfig config, Credentials cred, AbstractCosHttpClient httpClient) {
 		super();
 		this.config = config;
 		this.cred = cred;
 		this.httpClient = httpClient;
+		this.signCache = new SignCache(config.getSignCacheSize());
 	}
 	
 	public void setConfig(ClientConfig config) {
@@ -48,6 +56,36 @@ public abstract class BaseOp {
 		this.httpClient = httpClient;
 	}
 
+	public void setSignCache(SignCache signCache) {
+		this.signCache = signCache;
+	}
+
+	/**
+	 * 获取请求路径的多次签名, 有效期内复用缓存的签名
+	 * 
+	 * @param request
+	 *            基本类型的请求
+	 * @return base64编码的签名
+	 * @throws AbstractCosException
+	 */
+	protected String getPeriodEffectiveSign(AbstractBaseRequest request) throws AbstractCosException {
+		return this.signCache.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred,
+				this.config.getSignExpired());
+	}
+
+	/**
+	 * 获取请求路径的下载签名, 有效期内复用缓存的签名
+	 * 
+	 * @param request
+	 *            基本类型的请求
+	 * @return base64编码的签名
+	 * @throws AbstractCosException
+	 */
+	protected String getDownLoadSign(AbstractBaseRequest request) throws AbstractCosException {
+		return this.signCache.getDownLoadSign(request.getBucketName(), request.getCosPath(), this.cred,
+				this.config.getSignExpired());
+	}
+
 	/**
 	 * 根据APPID, BUCKET, COS_PATH生成经过URL编码的URL
 	 * 
@@ -76,6 +114,26 @@ public abstract class BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
 	protected String delBase(final AbstractDelRequest request) throws AbstractCosException {
+		return httpClient.sendHttpRequest(buildDelHttpRequest(request));
+	}
+
+	/**
+	 * 异步删除文件或者目录
+	 * 
+	 * @param request
+	 *            删除文件或者目录的请求, 类型为DelFileRequest或者DelFolderRequest
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与delBase的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	protected Future<String> delBaseAsync(final AbstractDelRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return httpClient.sendHttpRequestAsync(buildDelHttpRequest(request), callback);
+	}
+
+	private HttpRequest buildDelHttpRequest(final AbstractDelRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
@@ -89,7 +147,7 @@ public abstract class BaseOp {
 		httpRequest.addParam(RequestBodyKey.OP, RequestBodyValue.OP.DELETE);
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.APPLICATION_JSON);
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
 	}
 
 	/**
@@ -103,11 +161,30 @@ public abstract class BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
 	protected String statBase(final AbstractStatRequest request) throws AbstractCosException {
+		return httpClient.sendHttpRequest(buildStatHttpRequest(request));
+	}
+
+	/**
+	 * 异步获取文件或者目录的属性
+	 * 
+	 * @param request
+	 *            文件或者目录的属性请求, 类型为StatFileRequest或者StatFolderRequest
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与statBase的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	protected Future<String> statBaseAsync(final AbstractStatRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return httpClient.sendHttpRequestAsync(buildStatHttpRequest(request), callback);
+	}
+
+	private HttpRequest buildStatHttpRequest(final AbstractStatRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(),request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -115,7 +192,6 @@ public abstract class BaseOp {
 		httpRequest.addHeader(RequestHeaderKey.USER_AGENT, this.config.getUserAgent());
 		httpRequest.addParam(RequestBodyKey.OP, RequestBodyValue.OP.STAT);
 		httpRequest.setMethod(HttpMethod.GET);
-
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
 	}
 }
@@ -0,0 +1,126 @@
+package com.qcloud.cos.op;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.ParamException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.request.AbstractBaseRequest;
+import com.qcloud.cos.request.BatchRequest;
+import com.qcloud.cos.request.CreateFolderRequest;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.MoveFileRequest;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.StatFolderRequest;
+import com.qcloud.cos.request.UpdateFileRequest;
+import com.qcloud.cos.request.UpdateFolderRequest;
+
+/**
+ * @author chengwu
+ * 执行批量请求. 请求通过异步客户端发出, 共享异步客户端的连接池, 调用线程只负责签名和发出请求,
+ * 同时进行的请求数达到taskNum时等待已发出的请求完成. 结果按请求的顺序返回
+ */
+public class BatchExecutor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BatchExecutor.class);
+
+	private final FileOp fileOp;
+	private final FolderOp folderOp;
+
+	public BatchExecutor(FileOp fileOp, FolderOp folderOp) {
+		this.fileOp = fileOp;
+		this.folderOp = folderOp;
+	}
+
+	/**
+	 * 执行批量请求, 所有请求完成后返回
+	 *
+	 * @param request
+	 *            批量请求
+	 * @return 每个请求的结果, 顺序与请求相同, 格式与对应的单个接口的返回值相同
+	 * @throws AbstractCosException
+	 *             批量请求本身的参数有误
+	 */
+	public List<String> execute(BatchRequest request) throws AbstractCosException {
+		request.check_param();
+		List<AbstractBaseRequest> requests = request.getRequests();
+		final String[] results = new String[requests.size()];
+		final int taskNum = request.getTaskNum();
+		final Semaphore inFlight = new Semaphore(taskNum);
+
+		for (int i = 0; i < requests.size(); ++i) {
+			try {
+				inFlight.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				String interrupted = new UnknownException(e.toString()).toString();
+				for (int j = i; j < requests.size(); ++j) {
+					results[j] = interrupted;
+				}
+				break;
+			}
+			final int index = i;
+			FutureCallback<String> callback = new FutureCallback<String>() {
+				@Override
+				public void completed(String result) {
+					results[index] = result;
+					inFlight.release();
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					results[index] = ex instanceof AbstractCosException ? ex.toString()
+							: new UnknownException(ex.toString()).toString();
+					inFlight.release();
+				}
+
+				@Override
+				public void cancelled() {
+					failed(new UnknownException("batch request cancelled"));
+				}
+			};
+			try {
+				sendAsync(requests.get(i), callback);
+			} catch (AbstractCosException e) {
+				LOG.error("batch request {} failed, request:{}, exception:{}", i, requests.get(i), e.toString());
+				callback.failed(e);
+			} catch (Exception e) {
+				LOG.error("batch request {} failed, request:{}, exception:{}", i, requests.get(i), e.toString());
+				callback.failed(new UnknownException(e.toString()));
+			}
+		}
+		// 等待所有已发出的请求完成, 信号量同时保证结果对调用线程可见
+		inFlight.acquireUninterruptibly(taskNum);
+		return Arrays.asList(results);
+	}
+
+	private void sendAsync(AbstractBaseRequest request, FutureCallback<String> callback) throws AbstractCosException {
+		if (request instanceof StatFileRequest) {
+			fileOp.statFileAsync((StatFileRequest) request, callback);
+		} else if (request instanceof StatFolderRequest) {
+			folderOp.statFolderAsync((StatFolderRequest) request, callback);
+		} else if (request instanceof UpdateFileRequest) {
+			fileOp.updateFileAsync((UpdateFileRequest) request, callback);
+		} else if (request instanceof UpdateFolderRequest) {
+			folderOp.updateFolderAsync((UpdateFolderRequest) request, callback);
+		} else if (request instanceof MoveFileRequest) {
+			fileOp.moveFileAsync((MoveFileRequest) request, callback);
+		} else if (request instanceof DelFileRequest) {
+			fileOp.delFileAsync((DelFileRequest) request, callback);
+		} else if (request instanceof DelFolderRequest) {
+			folderOp.delFolderAsync((DelFolderRequest) request, callback);
+		} else if (request instanceof CreateFolderRequest) {
+			folderOp.createFolderAsync((CreateFolderRequest) request, callback);
+		} else {
+			String requestType = request == null ? "null" : request.getClass().getSimpleName();
+			throw new ParamException("unsupported batch request type " + requestType);
+		}
+	}
+}
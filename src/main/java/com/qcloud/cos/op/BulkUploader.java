@@ -0,0 +1,203 @@
+package com.qcloud.cos.op;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
+import com.qcloud.cos.common_utils.CommonFileUtils;
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.request.BulkUploadRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+
+/**
+ * @author chengwu
+ * 批量上传小文件的流水线. 读取线程依次取出文件, 一次读入内存并在内存中计算sha, 文件只读取一次;
+ * 上传请求通过异步客户端发出, 由连接池和IO线程完成, 吞吐量取决于同时进行的请求数而不是调用线程数.
+ * 已读入内存的文件总大小受readAheadSize限制, 上传跟不上读取时读取线程等待. 异步发送时multipart包体在内存中再缓冲一份,
+ * 每个文件按两倍大小计入readAheadSize, 直到请求完成. 8MB以上的文件在读取线程中按uploadFile上传
+ */
+class BulkUploader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BulkUploader.class);
+	// 小于此大小的文件读入内存上传, 与uploadFile选择单文件上传的界限相同
+	private static final long SMALL_FILE_MAX_SIZE = 8 * 1024 * 1024;
+	// 读取预算的单位
+	private static final int READ_AHEAD_UNIT = 4096;
+	// 文件内容和异步发送时缓冲的请求包体各占一份内存
+	private static final int BUFFER_COPIES = 2;
+
+	private final FileOp fileOp;
+	private final BulkUploadRequest request;
+	private final List<UploadFileRequest> requests;
+	private final String[] results;
+	// 下一个要读取的文件序号
+	private final AtomicInteger nextIndex = new AtomicInteger(0);
+	private Semaphore inFlight;
+	private Semaphore readAhead;
+	private int readAheadPermits;
+
+	BulkUploader(FileOp fileOp, BulkUploadRequest request) {
+		this.fileOp = fileOp;
+		this.request = request;
+		this.requests = request.getRequests();
+		this.results = new String[requests.size()];
+	}
+
+	/**
+	 * 上传全部文件, 所有上传完成后返回
+	 *
+	 * @return 每个文件的上传结果, 顺序与请求相同
+	 * @throws AbstractCosException
+	 *             批量上传请求本身的参数有误
+	 */
+	List<String> upload() throws AbstractCosException {
+		request.check_param();
+		inFlight = new Semaphore(request.getTaskNum());
+		readAheadPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, request.getReadAheadSize() / READ_AHEAD_UNIT));
+		readAhead = new Semaphore(readAheadPermits);
+
+		int readThreadNum = Math.max(1, Math.min(request.getReadThreadNum(), requests.size()));
+		ExecutorService readExecutor = CommonExecutorUtils.newDaemonThreadPool(readThreadNum, "cos-bulk-upload-");
+		for (int i = 0; i < readThreadNum; ++i) {
+			readExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					readAndUpload();
+				}
+			});
+		}
+		readExecutor.shutdown();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				readExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				break;
+			} catch (InterruptedException e) {
+				// 停止读取新的文件, 等待已经开始的上传结束
+				interrupted = true;
+				readExecutor.shutdownNow();
+			}
+		}
+		// 等待所有已发出的请求完成, 信号量同时保证结果对调用线程可见
+		inFlight.acquireUninterruptibly(request.getTaskNum());
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		String unfinished = new UnknownException("bulk upload interrupted").toString();
+		for (int i = 0; i < results.length; ++i) {
+			if (results[i] == null) {
+				results[i] = unfinished;
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	// 读取线程的主循环
+	private void readAndUpload() {
+		int index;
+		while ((index = nextIndex.getAndIncrement()) < requests.size()) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			UploadFileRequest uploadRequest = requests.get(index);
+			try {
+				uploadOne(index, uploadRequest);
+			} catch (InterruptedException e) {
+				return;
+			} catch (AbstractCosException e) {
+				LOG.error("bulk upload failed, request:{}, exception:{}", uploadRequest, e.toString());
+				results[index] = e.toString();
+			} catch (Exception e) {
+				LOG.error("bulk upload failed, request:{}, exception:{}", uploadRequest, e.toString());
+				results[index] = new UnknownException(e.toString()).toString();
+			}
+		}
+	}
+
+	private void uploadOne(final int index, UploadFileRequest uploadRequest) throws Exception {
+		uploadRequest.check_param();
+		// 内容已在内存或者流中, 不需要读取线程预读
+		if (uploadRequest.hasContentSource()) {
+			results[index] = fileOp.uploadFile(uploadRequest);
+			return;
+		}
+		long fileSize = CommonFileUtils.getFileLength(uploadRequest.getLocalPath());
+		if (fileSize >= SMALL_FILE_MAX_SIZE) {
+			results[index] = fileOp.uploadFile(uploadRequest);
+			return;
+		}
+
+		final int permits = (int) Math.min(readAheadPermits, BUFFER_COPIES * (fileSize / READ_AHEAD_UNIT + 1));
+		readAhead.acquire(permits);
+		boolean sent = false;
+		try {
+			byte[] content = readFile(uploadRequest.getLocalPath(), fileSize);
+			String shaDigest = uploadRequest.getShaDigest();
+			if (shaDigest.isEmpty()) {
+				shaDigest = DigestUtils.sha1Hex(content);
+			}
+			inFlight.acquire();
+			FutureCallback<String> callback = new FutureCallback<String>() {
+				@Override
+				public void completed(String result) {
+					results[index] = result;
+					release();
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					results[index] = ex instanceof AbstractCosException ? ex.toString()
+							: new UnknownException(ex.toString()).toString();
+					release();
+				}
+
+				@Override
+				public void cancelled() {
+					failed(new UnknownException("upload request cancelled"));
+				}
+
+				private void release() {
+					inFlight.release();
+					readAhead.release(permits);
+				}
+			};
+			try {
+				fileOp.uploadSingleFileAsync(uploadRequest, content, shaDigest, callback);
+			} catch (AbstractCosException e) {
+				callback.failed(e);
+			}
+			sent = true;
+		} finally {
+			if (!sent) {
+				readAhead.release(permits);
+			}
+		}
+	}
+
+	// 一次读入整个文件, 读取过程中文件大小变化时报错
+	private static byte[] readFile(String localPath, long fileSize) throws IOException {
+		FileInputStream inputStream = new FileInputStream(localPath);
+		try {
+			byte[] content = new byte[(int) fileSize];
+			int readLen = CommonFileUtils.readFully(inputStream, content, 0, content.length);
+			if (readLen != fileSize || inputStream.read() >= 0) {
+				throw new IOException("file size changed while reading, file:" + localPath);
+			}
+			return content;
+		} finally {
+			CommonFileUtils.closeFileStream(inputStream, localPath);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.qcloud.cos.op;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @author chengwu
+ * 从ByteBuffer读取数据的输入流, 读取ByteBuffer的副本, 不修改原ByteBuffer的position
+ */
+class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer data;
+
+	ByteBufferInputStream(ByteBuffer data) {
+		this.data = data.duplicate();
+	}
+
+	@Override
+	public int read() {
+		return data.hasRemaining() ? data.get() & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) {
+		if (length == 0) {
+			return 0;
+		}
+		if (!data.hasRemaining()) {
+			return -1;
+		}
+		int readLen = Math.min(length, data.remaining());
+		data.get(buffer, offset, readLen);
+		return readLen;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipLen = (int) Math.max(0, Math.min(n, data.remaining()));
+		data.position(data.position() + skipLen);
+		return skipLen;
+	}
+
+	@Override
+	public int available() {
+		return data.remaining();
+	}
+}
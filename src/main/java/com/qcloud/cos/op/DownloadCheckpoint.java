@@ -0,0 +1,136 @@
+package com.qcloud.cos.op;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author chengwu
+ * 分块下载的断点记录, 与下载的本地文件放在同一目录, 下载完成后删除. 文件内容为若干行:
+ * 第一行 object\t$objectKey 标识下载的对象(大小, sha, 修改时间, 分块大小), 对象变化后断点失效;
+ * 之后的 range\t$offset 表示该偏移的分块已经写入本地文件. 读取时忽略没有换行结尾的行
+ */
+class DownloadCheckpoint {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DownloadCheckpoint.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String OBJECT_RECORD = "object";
+	private static final String RANGE_RECORD = "range";
+
+	private final File checkpointFile;
+	private final String objectKey;
+	private FileOutputStream outputStream;
+
+	private final Set<Long> finishedOffsets = Collections.synchronizedSet(new HashSet<Long>());
+
+	private DownloadCheckpoint(File checkpointFile, String objectKey) {
+		this.checkpointFile = checkpointFile;
+		this.objectKey = objectKey;
+	}
+
+	/**
+	 * 打开下载对应的断点记录, 记录的对象与objectKey一致时加载已完成的分块, 否则清空记录
+	 *
+	 * @param checkpointPath
+	 *            断点文件路径
+	 * @param objectKey
+	 *            标识下载对象的字符串, 不能包含换行
+	 * @return 断点记录
+	 * @throws IOException
+	 */
+	static DownloadCheckpoint open(String checkpointPath, String objectKey) throws IOException {
+		File checkpointFile = new File(checkpointPath);
+		DownloadCheckpoint checkpoint = new DownloadCheckpoint(checkpointFile, objectKey);
+		boolean loaded = checkpointFile.isFile() && checkpoint.load();
+		checkpoint.outputStream = new FileOutputStream(checkpointFile, loaded);
+		if (!loaded) {
+			checkpoint.append(OBJECT_RECORD + "\t" + objectKey + "\n");
+		}
+		return checkpoint;
+	}
+
+	// 加载断点记录, 记录的对象与当前对象不一致时返回false
+	private boolean load() throws IOException {
+		byte[] content = Files.readAllBytes(checkpointFile.toPath());
+		String[] lines = new String(content, UTF8).split("\n", -1);
+		if (lines.length < 2 || !lines[0].equals(OBJECT_RECORD + "\t" + objectKey)) {
+			return false;
+		}
+		// 最后一个换行之后的内容是进程退出时未写完的记录, 忽略
+		for (int i = 1; i < lines.length - 1; ++i) {
+			String[] fields = lines[i].split("\t");
+			try {
+				if (fields.length == 2 && fields[0].equals(RANGE_RECORD)) {
+					this.finishedOffsets.add(Long.parseLong(fields[1]));
+				}
+			} catch (NumberFormatException e) {
+				LOG.warn("ignore illegal checkpoint record {}, file:{}", lines[i], checkpointFile);
+			}
+		}
+		return true;
+	}
+
+	int getFinishedRangeCount() {
+		return finishedOffsets.size();
+	}
+
+	boolean isRangeFinished(long offset) {
+		return finishedOffsets.contains(offset);
+	}
+
+	// 记录已写入本地文件的分块, 并发下载时由多个线程调用
+	synchronized void recordRange(long offset) {
+		if (this.finishedOffsets.add(offset)) {
+			append(RANGE_RECORD + "\t" + offset + "\n");
+		}
+	}
+
+	// 清空已完成的分块, 用于本地文件已经被修改的情况
+	synchronized void reset() throws IOException {
+		this.finishedOffsets.clear();
+		this.outputStream.getChannel().truncate(0);
+		append(OBJECT_RECORD + "\t" + objectKey + "\n");
+	}
+
+	// 下载完成后删除断点记录
+	synchronized void remove() {
+		close();
+		if (checkpointFile.exists() && !checkpointFile.delete()) {
+			LOG.warn("delete checkpoint file {} failed", checkpointFile);
+		}
+	}
+
+	synchronized void close() {
+		if (this.outputStream == null) {
+			return;
+		}
+		try {
+			this.outputStream.close();
+		} catch (IOException e) {
+			LOG.error("close checkpoint file {} occur an IOExcpetion {}", checkpointFile, e);
+		}
+		this.outputStream = null;
+	}
+
+	// 记录失败不影响下载, 只是进程重启后需要重新下载对应的分块
+	private void append(String record) {
+		if (this.outputStream == null) {
+			LOG.warn("checkpoint file {} is closed, ignore record {}", checkpointFile, record);
+			return;
+		}
+		try {
+			this.outputStream.write(record.getBytes(UTF8));
+		} catch (IOException e) {
+			LOG.warn("write checkpoint file {} occur an IOExcpetion {}", checkpointFile, e);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.qcloud.cos.op;
+
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.ServerException;
+import com.qcloud.cos.request.DownloadFileRequest;
+
+/**
+ * @author chengwu
+ * 下载单个分块的任务, 用于并发分块下载. 分块写入本地文件的固定区域, 失败时整块重新下载并覆盖
+ */
+class DownloadRangeTask implements Callable<Long> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DownloadRangeTask.class);
+
+	private final FileOp fileOp;
+	private final DownloadFileRequest request;
+	private final String downloadUrl;
+	private final FileChannel fileChannel;
+	private final long offset;
+	private final long length;
+	private final int maxRetry;
+	// 分块写入本地文件后记录断点
+	private final DownloadCheckpoint checkpoint;
+
+	DownloadRangeTask(FileOp fileOp, DownloadFileRequest request, String downloadUrl, FileChannel fileChannel,
+			long offset, long length, int maxRetry, DownloadCheckpoint checkpoint) {
+		this.fileOp = fileOp;
+		this.request = request;
+		this.downloadUrl = downloadUrl;
+		this.fileChannel = fileChannel;
+		this.offset = offset;
+		this.length = length;
+		this.maxRetry = maxRetry;
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * 下载分块, 发生异常或者数据不完整时重试, 直到成功或者达到最大重试次数
+	 *
+	 * @return 分块的字节数
+	 * @throws AbstractCosException
+	 *             重试次数用完时最后一次发生的异常
+	 */
+	@Override
+	public Long call() throws AbstractCosException {
+		int retry = 0;
+		while (true) {
+			AbstractCosException lastException = null;
+			FileRangeWriteChannel target = new FileRangeWriteChannel(fileChannel, offset, length);
+			try {
+				fileOp.downloadRange(request, downloadUrl, offset, length, target);
+				if (target.getWritten() == length) {
+					checkpoint.recordRange(offset);
+					return length;
+				}
+				lastException = new ServerException("range is incomplete, offset:" + offset + ", length:" + length
+						+ ", received:" + target.getWritten());
+			} catch (AbstractCosException e) {
+				lastException = e;
+			}
+			// 本地文件已关闭说明下载已经结束(其他分块失败), 不再重试
+			if (++retry >= maxRetry || !fileChannel.isOpen()) {
+				throw lastException;
+			}
+			LOG.warn("download range failed, retry {}, request:{}, offset:{}, exception:{}", retry, request, offset,
+					lastException.toString());
+		}
+	}
+}
@@ -1,16 +1,51 @@
 package com.qcloud.cos.op;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.json.JSONArray;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.common_utils.CommonCodecUtils;
 import com.qcloud.cos.common_utils.CommonFileUtils;
 import com.qcloud.cos.exception.AbstractCosException;
 import com.qcloud.cos.exception.ParamException;
+import com.qcloud.cos.exception.ServerException;
 import com.qcloud.cos.exception.UnknownException;
 import com.qcloud.cos.http.AbstractCosHttpClient;
+import com.qcloud.cos.http.ByteArrayRangeBody;
+import com.qcloud.cos.http.ByteBufferBody;
+import com.qcloud.cos.http.FileRegionBody;
 import com.qcloud.cos.http.HttpContentType;
 import com.qcloud.cos.http.HttpMethod;
 import com.qcloud.cos.http.HttpRequest;
@@ -19,12 +54,21 @@ import com.qcloud.cos.http.RequestBodyValue;
 import com.qcloud.cos.http.RequestHeaderKey;
 import com.qcloud.cos.http.RequestHeaderValue;
 import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.meta.InsertOnly;
+import com.qcloud.cos.request.AbstractBaseRequest;
+import com.qcloud.cos.request.BulkUploadRequest;
 import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.DownloadFileStreamRequest;
 import com.qcloud.cos.request.MoveFileRequest;
 import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.SyncFolderRequest;
 import com.qcloud.cos.request.UpdateFileRequest;
 import com.qcloud.cos.request.UploadFileRequest;
 import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.response.ObjectInfo;
+import com.qcloud.cos.response.StatResult;
+import com.qcloud.cos.response.UploadResult;
 import com.qcloud.cos.sign.Credentials;
 import com.qcloud.cos.sign.Sign;
 
@@ -34,10 +78,31 @@ import com.qcloud.cos.sign.Sign;
  */
 public class FileOp extends BaseOp {
 
+	private static final Logger LOG = LoggerFactory.getLogger(FileOp.class);
+
+	// 小于此大小的文件使用单文件上传接口, 否则使用分片上传接口
+	private static final int SUIT_SINGLE_FILE_SIZE = 8 * 1024 * 1024;
+
+	// 分块下载的断点文件后缀, 断点文件与下载的本地文件放在同一目录
+	private static final String DOWNLOAD_CHECKPOINT_SUFFIX = ".cosdownload";
+
+	// 执行并发分片任务的共享执行器, 为null时每次并发上传创建独立的线程池
+	private ExecutorService taskExecutor;
+
 	public FileOp(ClientConfig config, Credentials cred, AbstractCosHttpClient client) {
 		super(config, cred, client);
 	}
 
+	/**
+	 * 设置执行并发分片任务的共享执行器, 通常为虚拟线程执行器. 每次上传的并发数仍由request.getTaskNum()限制
+	 * 
+	 * @param taskExecutor
+	 *            共享执行器, 为null时每次并发上传创建独立的线程池
+	 */
+	public void setTaskExecutor(ExecutorService taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
 	/**
 	 * 更新文件属性请求
 	 * 
@@ -49,6 +114,26 @@ public class FileOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
 	public String updateFile(final UpdateFileRequest request) throws AbstractCosException {
+		return httpClient.sendHttpRequest(buildUpdateFileHttpRequest(request));
+	}
+
+	/**
+	 * 异步更新文件属性请求
+	 * 
+	 * @param request
+	 *            更新文件属性请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与updateFile的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	public Future<String> updateFileAsync(final UpdateFileRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return httpClient.sendHttpRequestAsync(buildUpdateFileHttpRequest(request), callback);
+	}
+
+	private HttpRequest buildUpdateFileHttpRequest(final UpdateFileRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
@@ -74,7 +159,9 @@ public class FileOp extends BaseOp {
 		}
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.APPLICATION_JSON);
-		return httpClient.sendHttpRequest(httpRequest);
+		// 重复更新属性的结果相同
+		httpRequest.setIdempotent(true);
+		return httpRequest;
 	}
 
 	/**
@@ -90,6 +177,22 @@ public class FileOp extends BaseOp {
 	public String delFile(DelFileRequest request) throws AbstractCosException {
 		return super.delBase(request);
 	}
+
+	/**
+	 * 异步删除文件请求
+	 * 
+	 * @param request
+	 *            删除文件请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与delFile的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	public Future<String> delFileAsync(DelFileRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return super.delBaseAsync(request, callback);
+	}
 	
 	/**
 	 * 移动文件请求(重命名)
@@ -102,11 +205,30 @@ public class FileOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
 	public String moveFile(MoveFileRequest request) throws AbstractCosException {
+		return httpClient.sendHttpRequest(buildMoveFileHttpRequest(request));
+	}
+
+	/**
+	 * 异步移动文件请求
+	 * 
+	 * @param request
+	 *            移动文件请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与moveFile的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	public Future<String> moveFileAsync(MoveFileRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return httpClient.sendHttpRequestAsync(buildMoveFileHttpRequest(request), callback);
+	}
+
+	private HttpRequest buildMoveFileHttpRequest(MoveFileRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -118,7 +240,7 @@ public class FileOp extends BaseOp {
 		httpRequest.addParam(RequestBodyKey.TO_OVER_WRITE, String.valueOf(request.getOverWrite().ordinal()));
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.APPLICATION_JSON);
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
 	}
 	
 	/**
@@ -136,7 +258,24 @@ public class FileOp extends BaseOp {
 	}
 
 	/**
-	 * 上传文件请求, 对小文件(8MB以下使用单文件上传接口）, 大文件使用分片上传接口
+	 * 异步获取文件属性请求
+	 * 
+	 * @param request
+	 *            获取文件属性请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与statFile的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	public Future<String> statFileAsync(StatFileRequest request, FutureCallback<String> callback)
+			throws AbstractCosException {
+		return super.statBaseAsync(request, callback);
+	}
+
+	/**
+	 * 上传文件请求, 对小文件(8MB以下使用单文件上传接口）, 大文件使用分片上传接口.
+	 * 上传内容来自byte[], ByteBuffer或InputStream时不经过本地磁盘, 见uploadFromSource
 	 * 
 	 * @param request
 	 *            上传文件请求
@@ -147,6 +286,9 @@ public class FileOp extends BaseOp {
 	 */
 	public String uploadFile(UploadFileRequest request) throws AbstractCosException {
 		request.check_param();
+		if (request.hasContentSource()) {
+			return uploadFromSource(request);
+		}
 
 		String localPath = request.getLocalPath();
 		long fileSize = 0;
@@ -156,8 +298,7 @@ public class FileOp extends BaseOp {
 			throw new UnknownException(e.toString());
 		}
 
-		long suitSingleFileSize = 8 * 1024 * 1024;
-		if (fileSize < suitSingleFileSize) {
+		if (fileSize < SUIT_SINGLE_FILE_SIZE) {
 			return uploadSingleFile(request);
 		} else {
 			UploadSliceFileRequest sliceRequest = new UploadSliceFileRequest(request);
@@ -167,7 +308,23 @@ public class FileOp extends BaseOp {
 	}
 
 	/**
-	 * 上传单文件请求, 不分片
+	 * 把本地目录同步到cos目录, 多个文件同时上传. 大小和修改时间与上次同步相同的文件直接跳过,
+	 * 上传成功的文件记录到request指定的清单文件中
+	 * 
+	 * @param request
+	 *            同步目录请求
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"uploaded_count":$count,
+	 *         "skipped_count":$count, "failed_count":$count, "failed_list":[...]}}, 全部同步成功时code为0,
+	 *         否则为第一个失败的结果
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	public String syncFolder(SyncFolderRequest request) throws AbstractCosException {
+		return new FolderSyncer(this, request).sync();
+	}
+
+	/**
+	 * 上传单文件请求, 不分片. 上传内容来自byte[], ByteBuffer或InputStream时与uploadFile相同, 按大小选择上传接口
 	 * 
 	 * @param request
 	 *            上传文件请求
@@ -178,6 +335,9 @@ public class FileOp extends BaseOp {
 	 */
 	public String uploadSingleFile(UploadFileRequest request) throws AbstractCosException {
 		request.check_param();
+		if (request.hasContentSource()) {
+			return uploadFromSource(request);
+		}
 
 		String localPath = request.getLocalPath();
 		long fileSize = 0;
@@ -191,19 +351,198 @@ public class FileOp extends BaseOp {
 			throw new ParamException("file is to big, please use uploadFile interface!");
 		}
 
-		String fileContent = "";
-		String shaDigest = "";
-		try {
+		String shaDigest = request.getShaDigest();
+		if (shaDigest.isEmpty()) {
+			try {
+				shaDigest = CommonCodecUtils.getEntireFileSha1(localPath);
+			} catch (Exception e) {
+				throw new UnknownException(e.toString());
+			}
+		}
 
-			fileContent = CommonFileUtils.getFileContent(localPath);
-			shaDigest = CommonCodecUtils.getEntireFileSha1(localPath);
+		HttpRequest httpRequest = buildUploadSingleFileHttpRequest(request, shaDigest);
+		// 文件内容通过FileRegionBody直接从文件发送到连接, 不读入JAVA堆中
+		FileInputStream inputStream = null;
+		try {
+			inputStream = CommonFileUtils.getFileInputStream(localPath);
 		} catch (Exception e) {
 			throw new UnknownException(e.toString());
 		}
+		try {
+			httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT,
+					new FileRegionBody(inputStream.getChannel(), 0, fileSize));
+			return httpClient.sendHttpRequest(httpRequest);
+		} finally {
+			CommonFileUtils.closeFileStream(inputStream, localPath);
+		}
+	}
+
+	/**
+	 * 异步上传单文件, 文件内容已由调用方读入内存, 请求通过异步客户端发出, 调用线程不等待上传完成
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @param content
+	 *            文件内容, 上传完成前不能修改
+	 * @param shaDigest
+	 *            文件内容的sha1(16进制小写)
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与uploadSingleFile的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+	public Future<String> uploadSingleFileAsync(UploadFileRequest request, byte[] content, String shaDigest,
+			FutureCallback<String> callback) throws AbstractCosException {
+		request.check_param();
+		if (content.length > 20 * 1024 * 1024) {
+			throw new ParamException("file is to big, please use uploadFile interface!");
+		}
+		HttpRequest httpRequest = buildUploadSingleFileHttpRequest(request, shaDigest);
+		httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT, new ByteArrayRangeBody(content));
+		return httpClient.sendHttpRequestAsync(httpRequest, callback);
+	}
+
+	/**
+	 * 批量上传文件, 小文件在读取线程中一次读入内存并计算sha, 通过异步客户端上传, 同时进行的上传请求数受request限制
+	 * 
+	 * @param request
+	 *            批量上传请求
+	 * @return 每个文件的上传结果, 顺序与请求相同, 格式与uploadFile的返回值相同
+	 * @throws AbstractCosException
+	 *             批量上传请求本身的参数有误
+	 */
+	public List<String> uploadFiles(BulkUploadRequest request) throws AbstractCosException {
+		return new BulkUploader(this, request).upload();
+	}
+
+	/**
+	 * 上传来自byte[], ByteBuffer或InputStream的内容, 数据不经过本地磁盘.
+	 * 8MB以下的内容使用单文件上传接口. 更大的内容使用分片上传接口, 数据只顺序读取一次, 整个文件的sha在读取分片时计算,
+	 * 随最后一个分片发送. 分片上传的初始化请求需要文件大小, 因此长度未知且超过8MB的流先按分片大小读入内存得到长度再上传,
+	 * 内存占用与流的长度相同, 已知长度的流应当在请求中指定长度
+	 * 
+	 * @param request
+	 *            上传文件请求, 已通过参数检查
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess"}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private String uploadFromSource(UploadFileRequest request) throws AbstractCosException {
+		ByteBuffer contentBuffer = request.getContentBuffer();
+		if (contentBuffer != null) {
+			ByteBuffer content = contentBuffer.duplicate();
+			if (content.remaining() < SUIT_SINGLE_FILE_SIZE) {
+				String shaDigest = request.getShaDigest();
+				if (shaDigest.isEmpty()) {
+					shaDigest = sha1Hex(content.duplicate());
+				}
+				HttpRequest httpRequest = buildUploadSingleFileHttpRequest(request, shaDigest);
+				httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT, new ByteBufferBody(content));
+				return httpClient.sendHttpRequest(httpRequest);
+			}
+			return uploadSliceFromStream(request, new ByteBufferInputStream(content), content.remaining());
+		}
+
+		InputStream contentStream = request.getContentStream();
+		long contentLength = request.getContentLength();
+		try {
+			if (contentLength >= SUIT_SINGLE_FILE_SIZE) {
+				return uploadSliceFromStream(request, contentStream, contentLength);
+			}
+			// 长度小于8MB或者未知时, 先读取至多8MB, 未知长度的流在此之前结束时同样使用单文件上传
+			byte[] head = new byte[contentLength < 0 ? SUIT_SINGLE_FILE_SIZE : (int) contentLength];
+			int headLen = CommonFileUtils.readFully(contentStream, head, 0, head.length);
+			if (contentLength >= 0 || headLen < head.length) {
+				if (headLen < contentLength) {
+					throw new UnknownException("content is shorter than expected size " + contentLength);
+				}
+				String shaDigest = request.getShaDigest();
+				if (shaDigest.isEmpty()) {
+					shaDigest = DigestUtils.sha1Hex(new ByteArrayInputStream(head, 0, headLen));
+				}
+				HttpRequest httpRequest = buildUploadSingleFileHttpRequest(request, shaDigest);
+				httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT, new ByteArrayRangeBody(head, 0, headLen));
+				return httpClient.sendHttpRequest(httpRequest);
+			}
 
+			// 长度未知的大流, 按分片大小读入内存直到流结束, 总大小不超过maxStreamBufferSize
+			int chunkSize = toSliceRequest(request).getSliceSize();
+			long maxBufferSize = this.config.getMaxStreamBufferSize();
+			List<InputStream> chunks = new ArrayList<>();
+			chunks.add(new ByteArrayInputStream(head));
+			long totalLength = head.length;
+			while (true) {
+				byte[] chunk = new byte[chunkSize];
+				int chunkLen = CommonFileUtils.readFully(contentStream, chunk, 0, chunkSize);
+				if (totalLength + chunkLen > maxBufferSize) {
+					throw new ParamException("content length is unknown and the stream exceeds max buffer size "
+							+ maxBufferSize + ", please set the content length of the stream");
+				}
+				if (chunkLen > 0) {
+					chunks.add(new ByteArrayInputStream(chunk, 0, chunkLen));
+					totalLength += chunkLen;
+				}
+				if (chunkLen < chunkSize) {
+					break;
+				}
+			}
+			return uploadSliceFromStream(request, new SequenceInputStream(Collections.enumeration(chunks)),
+					totalLength);
+		} catch (IOException e) {
+			throw new UnknownException(e.toString());
+		}
+	}
+
+	/**
+	 * 分片上传流中的数据, 边读边算sha
+	 * 
+	 * @param request
+	 *            上传文件请求
+	 * @param inputStream
+	 *            待上传数据的输入流
+	 * @param fileSize
+	 *            待上传数据的总长度
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess"}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private String uploadSliceFromStream(UploadFileRequest request, InputStream inputStream, long fileSize)
+			throws AbstractCosException {
+		UploadSliceFileRequest sliceRequest = toSliceRequest(request);
+		UploadResult controlRet = new UploadResult(sendUploadSliceControl(sliceRequest, fileSize,
+				sliceRequest.getSliceSize(), request.getShaDigest(), null));
+		// 如果控制分片已经出错, 或者命中秒传, 则返回
+		if (isSliceUploadEnd(controlRet)) {
+			return controlRet.getRawResult();
+		}
+		return uploadSliceDataPipelined(sliceRequest, inputStream, fileSize, controlRet.getSession(),
+				controlRet.getOffset(), controlRet.getSliceSize(), null).getRawResult();
+	}
+
+	private UploadSliceFileRequest toSliceRequest(UploadFileRequest request) {
+		if (request instanceof UploadSliceFileRequest) {
+			return (UploadSliceFileRequest) request;
+		}
+		return new UploadSliceFileRequest(request);
+	}
+
+	private String sha1Hex(ByteBuffer content) throws AbstractCosException {
+		try {
+			MessageDigest sha1Digest = MessageDigest.getInstance("SHA-1");
+			sha1Digest.update(content);
+			return Hex.encodeHexString(sha1Digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new UnknownException(e.toString());
+		}
+	}
+
+	private HttpRequest buildUploadSingleFileHttpRequest(UploadFileRequest request, String shaDigest)
+			throws AbstractCosException {
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -213,17 +552,17 @@ public class FileOp extends BaseOp {
 		httpRequest.addParam(RequestBodyKey.OP, RequestBodyValue.OP.UPLOAD);
 		httpRequest.addParam(RequestBodyKey.SHA, shaDigest);
 		httpRequest.addParam(RequestBodyKey.BIZ_ATTR, request.getBizAttr());
-		httpRequest.addParam(RequestBodyKey.FILE_CONTENT, fileContent);
 		httpRequest.addParam(RequestBodyKey.INSERT_ONLY, String.valueOf(request.getInsertOnly().ordinal()));
+		// 不覆盖时, 重复上传会因为文件已存在而失败
+		httpRequest.setIdempotent(request.getInsertOnly() == InsertOnly.OVER_WRITE);
 
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.MULTIPART_FORM_DATA);
-
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
 	}
 
 	/**
-	 * 分片上传文件
+	 * 分片上传文件. 上传内容来自byte[], ByteBuffer或InputStream时与uploadFile相同, 按大小选择上传接口, 不使用断点续传
 	 * 
 	 * @param request
 	 *            分片上传请求
@@ -234,45 +573,468 @@ public class FileOp extends BaseOp {
 	 */
 	public String uploadSliceFile(UploadSliceFileRequest request) throws AbstractCosException {
 		request.check_param();
-		String controlRet = uploadSliceControl(request);
-		JSONObject controlRetJson = new JSONObject(controlRet);
-		// 如果控制分片已经出错, 则返回
-		if (controlRetJson.getInt(ResponseBodyKey.CODE) != 0) {
-			return controlRet;
+		if (request.hasContentSource()) {
+			return uploadFromSource(request);
 		}
-		// 命中秒传
-		if (controlRetJson.getJSONObject(ResponseBodyKey.DATA).has(ResponseBodyKey.Data.ACCESS_URL)) {
-			return controlRet;
+		UploadCheckpoint checkpoint = openUploadCheckpoint(request);
+		try {
+			if (checkpoint != null && checkpoint.hasSession()) {
+				LOG.info("resume slice upload from checkpoint, request:{}, finished slice count:{}", request,
+						checkpoint.getFinishedSliceCount());
+				UploadResult uploadDataRet = uploadSliceFileData(request, checkpoint.getSession(), 0,
+						checkpoint.getSliceSize(), checkpoint);
+				if (isSliceUploadSuccess(uploadDataRet)) {
+					checkpoint.remove();
+					return uploadDataRet.getRawResult();
+				}
+				// 断点中记录的session可能已经过期, 清除断点后重新上传
+				LOG.warn("resume slice upload failed, upload again, request:{}, ret:{}", request, uploadDataRet);
+				resetUploadCheckpoint(checkpoint);
+			}
+
+			UploadResult controlRet = new UploadResult(uploadSliceControl(request));
+			// 如果控制分片已经出错, 或者命中秒传, 则返回
+			if (isSliceUploadEnd(controlRet)) {
+				return controlRet.getRawResult();
+			}
+			int sliceSize = controlRet.getSliceSize();
+			long offset = controlRet.getOffset();
+			String session = controlRet.getSession();
+			if (checkpoint != null) {
+				checkpoint.recordSession(session, sliceSize);
+			}
+			UploadResult uploadDataRet = uploadSliceFileData(request, session, offset, sliceSize, checkpoint);
+			if (checkpoint != null && isSliceUploadSuccess(uploadDataRet)) {
+				checkpoint.remove();
+			}
+			return uploadDataRet.getRawResult();
+		} finally {
+			if (checkpoint != null) {
+				checkpoint.close();
+			}
+		}
+	}
+
+	/**
+	 * 打开分片上传的断点记录, 断点由bucket, cos路径, 本地文件大小, 修改时间以及用户指定的sha共同确定
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @return 断点记录, 未开启断点续传或者打开失败时返回null
+	 */
+	private UploadCheckpoint openUploadCheckpoint(UploadSliceFileRequest request) {
+		String checkpointDir = this.config.getUploadCheckpointDir();
+		if (checkpointDir == null) {
+			return null;
+		}
+		File localFile = new File(request.getLocalPath());
+		String uploadKey = new StringBuilder().append(this.cred.getAppId()).append("\t")
+				.append(request.getBucketName()).append("\t").append(request.getCosPath()).append("\t")
+				.append(localFile.length()).append("\t").append(localFile.lastModified()).append("\t")
+				.append(request.getShaDigest()).toString();
+		try {
+			return UploadCheckpoint.open(checkpointDir, uploadKey);
+		} catch (IOException e) {
+			LOG.warn("open upload checkpoint failed, upload without checkpoint, request:{}, exception:{}", request,
+					e.toString());
+			return null;
 		}
-		int sliceSize = controlRetJson.getJSONObject(ResponseBodyKey.DATA).getInt(ResponseBodyKey.Data.SLICE_SIZE);
-		long offset = controlRetJson.getJSONObject(ResponseBodyKey.DATA).getLong(ResponseBodyKey.Data.OFFSET);
-		String session = controlRetJson.getJSONObject(ResponseBodyKey.DATA).getString(ResponseBodyKey.Data.SESSION);
+	}
+
+	private void resetUploadCheckpoint(UploadCheckpoint checkpoint) throws AbstractCosException {
+		try {
+			checkpoint.reset();
+		} catch (IOException e) {
+			throw new UnknownException(e.toString());
+		}
+	}
+
+	/**
+	 * 根据请求的上传方式上传数据分片
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param session
+	 *            session会话值
+	 * @param offset
+	 *            开始上传的偏移量
+	 * @param sliceSize
+	 *            分片大小
+	 * @param checkpoint
+	 *            断点记录, 已记录上传成功的分片不再上传, 未开启断点续传时为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":$mess}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private UploadResult uploadSliceFileData(UploadSliceFileRequest request, String session, long offset, int sliceSize,
+			UploadCheckpoint checkpoint) throws AbstractCosException {
 		String localPath = request.getLocalPath();
-		InputStream inputStream = null;
+		FileInputStream inputStream = null;
 		try {
-			long fileSize = CommonFileUtils.getFileLength(localPath);
 			inputStream = CommonFileUtils.getFileInputStream(localPath);
-			inputStream.skip(offset);
-			String uploadDataRet = "";
+		} catch (Exception e) {
+			throw new UnknownException(e.toString());
+		}
+		try {
+			// 分片内容通过FileRegionBody直接从文件发送到连接, 不读入JAVA堆中
+			FileChannel fileChannel = inputStream.getChannel();
+			if (request.isEnablePipelineSha() && request.getShaDigest().isEmpty()) {
+				long fileSize = 0;
+				try {
+					fileSize = fileChannel.size();
+				} catch (IOException e) {
+					throw new UnknownException(e.toString());
+				}
+				return uploadSliceDataPipelined(request, inputStream, fileSize, session, offset, sliceSize,
+						checkpoint);
+			}
+			if (request.getTaskNum() > 1) {
+				return uploadSliceDataParallel(request, fileChannel, session, offset, sliceSize, checkpoint);
+			}
+			return uploadSliceDataSerial(request, fileChannel, session, offset, sliceSize, checkpoint);
+		} finally {
+			CommonFileUtils.closeFileStream(inputStream, localPath);
+		}
+	}
+
+	/**
+	 * 串行上传数据分片, 一个分片上传成功后再上传下一个分片
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param fileChannel
+	 *            待上传文件的channel
+	 * @param session
+	 *            session会话值
+	 * @param offset
+	 *            服务端返回的开始上传的偏移量
+	 * @param sliceSize
+	 *            服务端返回的分片大小
+	 * @param checkpoint
+	 *            断点记录, 已记录上传成功的分片不再上传, 未开启断点续传时为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":$mess}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private UploadResult uploadSliceDataSerial(UploadSliceFileRequest request, FileChannel fileChannel, String session,
+			long offset, int sliceSize, UploadCheckpoint checkpoint) throws AbstractCosException {
+		try {
+			long fileSize = fileChannel.size();
+			UploadResult uploadDataRet = new UploadResult("");
 			while (offset < fileSize) {
-				String sliceContent = CommonFileUtils.getFileContent(inputStream, 0, sliceSize);
-				uploadDataRet = uploadSliceData(request, sliceContent, session, offset);
-				JSONObject dataRetJson = new JSONObject(uploadDataRet);
-				if (dataRetJson.getInt(ResponseBodyKey.CODE) != 0) {
+				long sliceLength = Math.min(sliceSize, fileSize - offset);
+				if (checkpoint != null && offset + sliceLength < fileSize && checkpoint.isSliceFinished(offset)) {
+					offset += sliceSize;
+					continue;
+				}
+				ContentBody sliceContent = new FileRegionBody(fileChannel, offset, sliceLength);
+				uploadDataRet = new UploadResult(uploadSliceData(request, sliceContent, session, offset, null));
+				if (isSliceUploadEnd(uploadDataRet)) {
 					return uploadDataRet;
-				} else {
-					if (dataRetJson.getJSONObject(ResponseBodyKey.DATA).has(ResponseBodyKey.Data.ACCESS_URL)) {
-						return uploadDataRet;
-					}
+				}
+				if (checkpoint != null && offset + sliceLength < fileSize) {
+					checkpoint.recordSlice(offset);
 				}
 				offset += sliceSize;
 			}
 			return uploadDataRet;
 		} catch (Exception e) {
 			throw new UnknownException(e.getMessage());
+		}
+	}
+
+	/**
+	 * 并发上传数据分片, 除最后一个分片外的分片按request.getTaskNum()的并发数同时上传,
+	 * 全部成功后再上传最后一个分片, 以便服务端在收到最后一个分片时完成文件
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param fileChannel
+	 *            待上传文件的channel, 各分片共享
+	 * @param session
+	 *            session会话值
+	 * @param offset
+	 *            服务端返回的开始上传的偏移量
+	 * @param sliceSize
+	 *            服务端返回的分片大小
+	 * @param checkpoint
+	 *            断点记录, 已记录上传成功的分片不再上传, 未开启断点续传时为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":$mess}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private UploadResult uploadSliceDataParallel(UploadSliceFileRequest request, FileChannel fileChannel, String session,
+			long offset, int sliceSize, UploadCheckpoint checkpoint) throws AbstractCosException {
+		long fileSize = 0;
+		try {
+			fileSize = fileChannel.size();
+		} catch (Exception e) {
+			throw new UnknownException(e.toString());
+		}
+		// 与串行上传保持一致, 服务端已收到全部数据时不再发送分片
+		if (offset >= fileSize) {
+			return new UploadResult("");
+		}
+		long lastSliceOffset = offset + (fileSize - offset - 1) / sliceSize * sliceSize;
+
+		ExecutorService executor = getSliceTaskExecutor(request.getTaskNum());
+		List<Future<UploadResult>> sliceFutures = new ArrayList<>();
+		try {
+			CompletionService<UploadResult> completionService = new ExecutorCompletionService<>(executor);
+			// 共享执行器不限制任务数, 每个分片提交前获取本次上传的一个许可, 分片完成后释放,
+			// 因此同一文件同时进行的分片数不超过taskNum
+			final Semaphore sliceSlots = new Semaphore(request.getTaskNum());
+			int finishCount = 0;
+			for (long sliceOffset = offset; sliceOffset < lastSliceOffset; sliceOffset += sliceSize) {
+				if (checkpoint != null && checkpoint.isSliceFinished(sliceOffset)) {
+					continue;
+				}
+				sliceSlots.acquire();
+				// 尽早发现失败的分片, 不再继续提交
+				Future<UploadResult> finishedTask = null;
+				while ((finishedTask = completionService.poll()) != null) {
+					++finishCount;
+					UploadResult uploadDataRet = finishedTask.get();
+					if (isSliceUploadEnd(uploadDataRet)) {
+						return uploadDataRet;
+					}
+				}
+				final SliceFileDataTask task = new SliceFileDataTask(this, request, session, sliceOffset,
+						new FileRegionBody(fileChannel, sliceOffset, sliceSize), config.getMaxFailedRetry(),
+						checkpoint);
+				sliceFutures.add(completionService.submit(new Callable<UploadResult>() {
+					@Override
+					public UploadResult call() throws Exception {
+						try {
+							return task.call();
+						} finally {
+							sliceSlots.release();
+						}
+					}
+				}));
+			}
+			for (; finishCount < sliceFutures.size(); ++finishCount) {
+				UploadResult uploadDataRet = completionService.take().get();
+				if (isSliceUploadEnd(uploadDataRet)) {
+					return uploadDataRet;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnknownException(e.toString());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof AbstractCosException) {
+				throw (AbstractCosException) cause;
+			}
+			throw new UnknownException(cause.toString());
 		} finally {
-			CommonFileUtils.closeFileStream(inputStream, localPath);
+			releaseSliceTaskExecutor(executor, sliceFutures);
 		}
+
+		ContentBody lastSliceContent = new FileRegionBody(fileChannel, lastSliceOffset, fileSize - lastSliceOffset);
+		return new SliceFileDataTask(this, request, session, lastSliceOffset, lastSliceContent,
+				config.getMaxFailedRetry(), null).call();
+	}
+
+	/**
+	 * 边读边算sha的分片上传, 数据只顺序读取一次: 每个分片读入缓冲区后先更新整个文件的sha, 再交给上传线程发送.
+	 * 缓冲区的数量为request.getTaskNum() + 1, 限制了读入内存尚未发送完成的分片数.
+	 * 除最后一个分片外的分片全部成功后, 最后一个分片携带整个文件的sha发送, 文件完成后再与服务端记录的sha比对.
+	 * 读到的数据少于fileSize时失败, 不上传残缺的分片
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param inputStream
+	 *            待上传数据的输入流, 位于数据开头
+	 * @param fileSize
+	 *            待上传数据的总长度
+	 * @param session
+	 *            session会话值
+	 * @param offset
+	 *            服务端返回的开始上传的偏移量
+	 * @param sliceSize
+	 *            服务端返回的分片大小
+	 * @param checkpoint
+	 *            断点记录, 已记录上传成功的分片不再上传, 未开启断点续传时为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":$mess}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private UploadResult uploadSliceDataPipelined(UploadSliceFileRequest request, InputStream inputStream,
+			long fileSize, String session, long offset, int sliceSize, UploadCheckpoint checkpoint)
+			throws AbstractCosException {
+		int bufferCount = request.getTaskNum() + 1;
+		final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+		for (int i = 0; i < bufferCount; ++i) {
+			freeBuffers.add(new byte[sliceSize]);
+		}
+
+		// 读取文件的线程最多持有一个缓冲区, 因此同时进行的分片数不超过request.getTaskNum()
+		ExecutorService executor = getSliceTaskExecutor(request.getTaskNum());
+		List<Future<UploadResult>> sliceFutures = new ArrayList<>();
+		try {
+			// 与串行上传保持一致, 服务端已收到全部数据时不再发送分片
+			if (offset >= fileSize) {
+				return new UploadResult("");
+			}
+			long lastSliceOffset = offset + (fileSize - offset - 1) / sliceSize * sliceSize;
+			MessageDigest sha1Digest = MessageDigest.getInstance("SHA-1");
+
+			// 服务端已经收到的数据只参与计算sha, 不再发送
+			byte[] skipBuffer = freeBuffers.take();
+			for (long readOffset = 0; readOffset < offset; readOffset += sliceSize) {
+				int skipLen = (int) Math.min(sliceSize, offset - readOffset);
+				int readLen = CommonFileUtils.readFully(inputStream, skipBuffer, 0, skipLen);
+				if (readLen < skipLen) {
+					throw new UnknownException("content is shorter than expected size " + fileSize);
+				}
+				sha1Digest.update(skipBuffer, 0, readLen);
+			}
+			freeBuffers.add(skipBuffer);
+
+			CompletionService<UploadResult> completionService = new ExecutorCompletionService<>(executor);
+			int finishCount = 0;
+			for (long sliceOffset = offset; sliceOffset < lastSliceOffset; sliceOffset += sliceSize) {
+				final byte[] sliceBuffer = freeBuffers.take();
+				int sliceLength = CommonFileUtils.readFully(inputStream, sliceBuffer, 0, sliceSize);
+				// 最后一个分片之前的分片必须是完整的分片, 内容变短时不能把残缺的分片当作完整分片上传
+				if (sliceLength < sliceSize) {
+					freeBuffers.add(sliceBuffer);
+					throw new UnknownException("content is shorter than expected size " + fileSize);
+				}
+				sha1Digest.update(sliceBuffer, 0, sliceLength);
+				// 已上传成功的分片只参与计算sha
+				if (checkpoint != null && checkpoint.isSliceFinished(sliceOffset)) {
+					freeBuffers.add(sliceBuffer);
+					continue;
+				}
+				final SliceFileDataTask task = new SliceFileDataTask(this, request, session, sliceOffset,
+						new ByteArrayRangeBody(sliceBuffer, 0, sliceLength), config.getMaxFailedRetry(), checkpoint);
+				sliceFutures.add(completionService.submit(new Callable<UploadResult>() {
+					@Override
+					public UploadResult call() throws Exception {
+						try {
+							return task.call();
+						} finally {
+							freeBuffers.add(sliceBuffer);
+						}
+					}
+				}));
+
+				// 尽早发现失败的分片, 不再继续读取文件
+				Future<UploadResult> finishedTask = null;
+				while ((finishedTask = completionService.poll()) != null) {
+					++finishCount;
+					UploadResult uploadDataRet = finishedTask.get();
+					if (isSliceUploadEnd(uploadDataRet)) {
+						return uploadDataRet;
+					}
+				}
+			}
+
+			byte[] lastSliceBuffer = freeBuffers.take();
+			int lastSliceLength = CommonFileUtils.readFully(inputStream, lastSliceBuffer, 0,
+					(int) (fileSize - lastSliceOffset));
+			if (lastSliceLength < fileSize - lastSliceOffset) {
+				throw new UnknownException("content is shorter than expected size " + fileSize);
+			}
+			sha1Digest.update(lastSliceBuffer, 0, lastSliceLength);
+			String shaDigest = Hex.encodeHexString(sha1Digest.digest());
+
+			for (; finishCount < sliceFutures.size(); ++finishCount) {
+				UploadResult uploadDataRet = completionService.take().get();
+				if (isSliceUploadEnd(uploadDataRet)) {
+					return uploadDataRet;
+				}
+			}
+
+			UploadResult uploadDataRet = new SliceFileDataTask(this, request, session, lastSliceOffset,
+					new ByteArrayRangeBody(lastSliceBuffer, 0, lastSliceLength), config.getMaxFailedRetry(),
+					shaDigest, null).call();
+			if (isSliceUploadSuccess(uploadDataRet) && uploadDataRet.isFinished()) {
+				verifyUploadedSha(request, shaDigest);
+			}
+			return uploadDataRet;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnknownException(e.toString());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof AbstractCosException) {
+				throw (AbstractCosException) cause;
+			}
+			throw new UnknownException(cause.toString());
+		} catch (IOException | NoSuchAlgorithmException e) {
+			throw new UnknownException(e.toString());
+		} finally {
+			releaseSliceTaskExecutor(executor, sliceFutures);
+		}
+	}
+
+	/**
+	 * 边读边算sha时控制分片不携带sha, 服务端是否按最后一个分片携带的sha校验文件没有保证,
+	 * 因此文件完成后获取服务端记录的sha与本地计算的sha比对
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param shaDigest
+	 *            本地计算的整个文件的sha
+	 * @throws AbstractCosException
+	 *             获取文件属性失败或者sha不一致时抛出
+	 */
+	private void verifyUploadedSha(UploadSliceFileRequest request, String shaDigest) throws AbstractCosException {
+		StatResult statRet = new StatResult(
+				statBase(new StatFileRequest(request.getBucketName(), request.getCosPath())));
+		if (!statRet.isSuccess()) {
+			throw new ServerException("stat uploaded file failed, ret:" + statRet.getRawResult());
+		}
+		if (!shaDigest.equals(statRet.getInfo().getSha())) {
+			throw new ServerException("sha of uploaded file " + statRet.getInfo().getSha()
+					+ " is different from local sha " + shaDigest);
+		}
+	}
+
+	// 获取执行分片任务的执行器, 未设置共享执行器时创建taskNum个线程的线程池
+	private ExecutorService getSliceTaskExecutor(int taskNum) {
+		if (this.taskExecutor != null) {
+			return this.taskExecutor;
+		}
+		return Executors.newFixedThreadPool(taskNum);
+	}
+
+	// 上传下载结束(包括提前失败)时取消尚未开始的分片任务, 并关闭本次独立创建的线程池.
+	// 不中断正在执行的任务: 中断阻塞在FileChannel读写上的线程会关闭所有任务共享的FileChannel
+	private void releaseSliceTaskExecutor(ExecutorService executor, List<? extends Future<?>> sliceFutures) {
+		for (Future<?> sliceFuture : sliceFutures) {
+			sliceFuture.cancel(false);
+		}
+		if (executor != this.taskExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	// 判断分片上传是否成功完成, 没有发送分片时结果为空
+	private boolean isSliceUploadSuccess(UploadResult uploadDataRet) {
+		if (uploadDataRet.getRawResult().isEmpty()) {
+			return false;
+		}
+		return uploadDataRet.isSuccess();
+	}
+
+	/**
+	 * 判断分片上传是否已经结束, 即分片上传失败或者服务端已经完成文件
+	 * 
+	 * @param uploadDataRet
+	 *            上传分片的返回结果
+	 * @return 已结束返回true, 否则返回false
+	 */
+	private boolean isSliceUploadEnd(UploadResult uploadDataRet) {
+		return !uploadDataRet.isSuccess() || uploadDataRet.isFinished();
 	}
 
 	/**
@@ -286,19 +1048,74 @@ public class FileOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
 	private String uploadSliceControl(UploadSliceFileRequest request) throws AbstractCosException {
-		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
-
 		long fileSize = 0;
-		String shaDigest = "";
+		String shaDigest = request.getShaDigest();
+		String[] sliceSha1 = null;
+		String localPath = request.getLocalPath();
 		try {
-			String localPath = request.getLocalPath();
 			fileSize = CommonFileUtils.getFileLength(localPath);
-			shaDigest = CommonCodecUtils.getEntireFileSha1(localPath);
+			if (request.isEnableUploadParts()) {
+				sliceSha1 = CommonCodecUtils.getSliceSha1(localPath, request.getSliceSize());
+				// 清单的最后一项即整个文件的sha, 与清单在同一遍读取中得到
+				if (shaDigest.isEmpty() && sliceSha1.length > 0) {
+					shaDigest = sliceSha1[sliceSha1.length - 1];
+				}
+			}
+			// 边读边算sha时, sha随最后一个分片发送
+			if (shaDigest.isEmpty() && !request.isEnablePipelineSha()) {
+				shaDigest = CommonCodecUtils.getEntireFileSha1(localPath);
+			}
 		} catch (Exception e) {
 			throw new UnknownException(e.toString());
 		}
+		String controlRet = sendUploadSliceControl(request, fileSize, request.getSliceSize(), shaDigest, sliceSha1);
+		if (sliceSha1 == null) {
+			return controlRet;
+		}
+		// 分片清单按请求的分片大小生成, 服务端使用其他分片大小时按服务端的分片大小重新生成清单并重新初始化
+		UploadResult uploadRet = new UploadResult(controlRet);
+		if (isSliceUploadEnd(uploadRet) || uploadRet.getSliceSize() == request.getSliceSize()) {
+			return controlRet;
+		}
+		LOG.info("server slice size {} is different from request, init again, request:{}", uploadRet.getSliceSize(),
+				request);
+		if (uploadRet.getSliceSize() % CommonCodecUtils.SHA1_BLOCK_SIZE != 0) {
+			// 分片边界不在SHA1的块边界上时没有中间状态, 不携带清单, 只按整个文件的sha校验
+			LOG.warn("server slice size {} is not sha1 block aligned, init without uploadparts, request:{}",
+					uploadRet.getSliceSize(), request);
+			sliceSha1 = null;
+		} else {
+			try {
+				sliceSha1 = CommonCodecUtils.getSliceSha1(localPath, uploadRet.getSliceSize());
+			} catch (Exception e) {
+				throw new UnknownException(e.toString());
+			}
+		}
+		return sendUploadSliceControl(request, fileSize, uploadRet.getSliceSize(), shaDigest, sliceSha1);
+	}
+
+	/**
+	 * 发送控制分片
+	 * 
+	 * @param request
+	 *            分片上传请求
+	 * @param fileSize
+	 *            文件大小
+	 * @param sliceSize
+	 *            分片大小
+	 * @param shaDigest
+	 *            整个文件的sha, 为空时不发送
+	 * @param sliceSha1
+	 *            按sliceSize生成的分片清单的sha1, 为null时不发送分片清单
+	 * @return JSON格式的字符串, 格式为{"code":$code, "data":{}}, code为0表示成功,
+	 *         data为一个JSON结构体,详情请参见WIKI
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	private String sendUploadSliceControl(UploadSliceFileRequest request, long fileSize, int sliceSize,
+			String shaDigest, String[] sliceSha1) throws AbstractCosException {
+		String url = buildUrl(request);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -306,15 +1123,46 @@ public class FileOp extends BaseOp {
 		httpRequest.addHeader(RequestHeaderKey.USER_AGENT, this.config.getUserAgent());
 
 		httpRequest.addParam(RequestBodyKey.OP, RequestBodyValue.OP.UPLOAD_SLICE);
-		httpRequest.addParam(RequestBodyKey.SHA, shaDigest);
+		// 重复初始化只会得到新的session, 服务端完成文件前不影响已有的文件
+		httpRequest.setIdempotent(true);
+		if (!shaDigest.isEmpty()) {
+			httpRequest.addParam(RequestBodyKey.SHA, shaDigest);
+		}
 		httpRequest.addParam(RequestBodyKey.FILE_SIZE, String.valueOf(fileSize));
-		httpRequest.addParam(RequestBodyKey.SLICE_SIZE, String.valueOf(request.getSliceSize()));
+		httpRequest.addParam(RequestBodyKey.SLICE_SIZE, String.valueOf(sliceSize));
 		httpRequest.addParam(RequestBodyKey.BIZ_ATTR, request.getBizAttr());
 		httpRequest.addParam(RequestBodyKey.INSERT_ONLY, String.valueOf(request.getInsertOnly().ordinal()));
+		if (sliceSha1 != null) {
+			httpRequest.addParam(RequestBodyKey.UPLOAD_PARTS, buildUploadParts(fileSize, sliceSize, sliceSha1));
+		}
 
 		return httpClient.sendHttpRequest(httpRequest);
 	}
 
+	/**
+	 * 生成分片清单, 格式为[{"offset":$offset, "datalen":$datalen, "datasha":"$datasha"}, ...]
+	 * 
+	 * @param fileSize
+	 *            文件大小
+	 * @param sliceSize
+	 *            分片大小
+	 * @param sliceSha1
+	 *            从文件开头到各分片末尾的sha1中间状态, 下标为分片序号, 最后一项为整个文件的sha1
+	 * @return JSON格式的分片清单字符串
+	 */
+	private String buildUploadParts(long fileSize, int sliceSize, String[] sliceSha1) {
+		JSONArray uploadParts = new JSONArray();
+		for (int sliceIndex = 0; sliceIndex < sliceSha1.length; ++sliceIndex) {
+			long sliceOffset = (long) sliceIndex * sliceSize;
+			JSONObject part = new JSONObject();
+			part.put(RequestBodyKey.UploadParts.OFFSET, sliceOffset);
+			part.put(RequestBodyKey.UploadParts.DATA_LEN, Math.min(sliceSize, fileSize - sliceOffset));
+			part.put(RequestBodyKey.UploadParts.DATA_SHA, sliceSha1[sliceIndex]);
+			uploadParts.put(part);
+		}
+		return uploadParts.toString();
+	}
+
 	/**
 	 * 上传分片数据
 	 * 
@@ -326,16 +1174,17 @@ public class FileOp extends BaseOp {
 	 *            session会话值
 	 * @param offset
 	 *            分片偏移量
+	 * @param shaDigest
+	 *            整个文件的sha, 边读边算sha时随最后一个分片发送, 其他情况为null
 	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess"}, code为0表示成功,
 	 *         其他为失败, message为success或者失败原因
 	 * @throws AbstractCosException
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
-	private String uploadSliceData(UploadSliceFileRequest request, String sliceContent, String session, long offset)
-			throws AbstractCosException {
+	String uploadSliceData(UploadSliceFileRequest request, ContentBody sliceContent, String session, long offset,
+			String shaDigest) throws AbstractCosException {
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -343,10 +1192,241 @@ public class FileOp extends BaseOp {
 		httpRequest.addHeader(RequestHeaderKey.USER_AGENT, this.config.getUserAgent());
 
 		httpRequest.addParam(RequestBodyKey.OP, RequestBodyValue.OP.UPLOAD_SLICE);
-		httpRequest.addParam(RequestBodyKey.FILE_CONTENT, sliceContent);
 		httpRequest.addParam(RequestBodyKey.SESSION, session);
 		httpRequest.addParam(RequestBodyKey.OFFSET, String.valueOf(offset));
+		// 同一session同一偏移量的分片可以重复上传
+		httpRequest.setIdempotent(true);
+		if (shaDigest != null) {
+			httpRequest.addParam(RequestBodyKey.SHA, shaDigest);
+		}
+		httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT, sliceContent);
 
 		return httpClient.sendHttpRequest(httpRequest);
 	}
+
+	// 获取下载需要的文件属性, 成功时返回结果中必须包含下载地址access_url和文件大小
+	private StatResult statDownloadFile(AbstractBaseRequest request) throws AbstractCosException {
+		StatResult statRet = new StatResult(
+				statBase(new StatFileRequest(request.getBucketName(), request.getCosPath())));
+		if (statRet.isSuccess()
+				&& (statRet.getInfo().getAccessUrl() == null || statRet.getInfo().getFileSize() < 0)) {
+			throw new ServerException("stat file result has no access_url or filesize, ret:" + statRet);
+		}
+		return statRet;
+	}
+
+	/**
+	 * 下载文件请求, 文件按分块通过Range请求下载, 分块直接写入预先分配好大小的本地文件.
+	 * 已写入的分块记录在本地文件旁的断点文件中, 下载中断后再次下载同一文件时跳过已完成的分块
+	 * 
+	 * @param request
+	 *            下载文件请求
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess"}, code为0表示成功,
+	 *         其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	public String downloadFile(DownloadFileRequest request) throws AbstractCosException {
+		request.check_param();
+
+		StatResult statRet = statDownloadFile(request);
+		if (!statRet.isSuccess()) {
+			return statRet.getRawResult();
+		}
+		ObjectInfo statInfo = statRet.getInfo();
+		String downloadUrl = statInfo.getAccessUrl();
+		long fileSize = statInfo.getFileSize();
+		String objectKey = new StringBuilder().append(fileSize).append("\t")
+				.append(statInfo.getSha() != null ? statInfo.getSha() : "").append("\t")
+				.append(statInfo.getMtime()).append("\t").append(request.getRangeSize())
+				.toString();
+
+		String localPath = request.getLocalPath();
+		DownloadCheckpoint checkpoint = null;
+		RandomAccessFile localFile = null;
+		try {
+			checkpoint = DownloadCheckpoint.open(localPath + DOWNLOAD_CHECKPOINT_SUFFIX, objectKey);
+			localFile = new RandomAccessFile(localPath, "rw");
+			// 本地文件在中断后被修改过, 已记录的分块不再可信
+			if (checkpoint.getFinishedRangeCount() > 0 && localFile.length() != fileSize) {
+				checkpoint.reset();
+			}
+			localFile.setLength(fileSize);
+			downloadRanges(request, downloadUrl, localFile.getChannel(), fileSize, checkpoint);
+		} catch (IOException e) {
+			throw new UnknownException(e.toString());
+		} finally {
+			if (localFile != null) {
+				try {
+					localFile.close();
+				} catch (IOException e) {
+					LOG.error("close file {} occur an IOExcpetion {}", localPath, e);
+				}
+			}
+			if (checkpoint != null) {
+				checkpoint.close();
+			}
+		}
+		checkpoint.remove();
+
+		JSONObject downloadRet = new JSONObject();
+		downloadRet.put(ResponseBodyKey.CODE, 0);
+		downloadRet.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+		JSONObject downloadData = new JSONObject();
+		downloadData.put(ResponseBodyKey.Data.FILESIZE, fileSize);
+		downloadRet.put(ResponseBodyKey.DATA, downloadData);
+		return downloadRet.toString();
+	}
+
+	/**
+	 * 按request.getTaskNum()的并发数下载尚未完成的分块, 任一分块重试后仍然失败时抛出异常
+	 * 
+	 * @param request
+	 *            下载文件请求
+	 * @param downloadUrl
+	 *            文件的下载地址
+	 * @param fileChannel
+	 *            本地文件的channel, 各分块共享
+	 * @param fileSize
+	 *            文件大小
+	 * @param checkpoint
+	 *            断点记录, 已记录的分块不再下载
+	 * @throws AbstractCosException
+	 */
+	private void downloadRanges(DownloadFileRequest request, String downloadUrl, FileChannel fileChannel,
+			long fileSize, DownloadCheckpoint checkpoint) throws AbstractCosException {
+		int rangeSize = request.getRangeSize();
+		ExecutorService executor = getSliceTaskExecutor(request.getTaskNum());
+		List<Future<Long>> rangeFutures = new ArrayList<>();
+		try {
+			CompletionService<Long> completionService = new ExecutorCompletionService<>(executor);
+			int finishCount = 0;
+			for (long rangeOffset = 0; rangeOffset < fileSize; rangeOffset += rangeSize) {
+				if (checkpoint.isRangeFinished(rangeOffset)) {
+					continue;
+				}
+				// 同时进行的分块数达到上限时等待一个分块完成后再提交, 分块失败时get抛出异常, 不再继续提交
+				Future<Long> finishedTask = null;
+				while ((finishedTask = rangeFutures.size() - finishCount >= request.getTaskNum()
+						? completionService.take() : completionService.poll()) != null) {
+					++finishCount;
+					finishedTask.get();
+				}
+				rangeFutures.add(completionService.submit(new DownloadRangeTask(this, request, downloadUrl,
+						fileChannel, rangeOffset, Math.min(rangeSize, fileSize - rangeOffset),
+						config.getMaxFailedRetry(), checkpoint)));
+			}
+			for (; finishCount < rangeFutures.size(); ++finishCount) {
+				completionService.take().get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UnknownException(e.toString());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof AbstractCosException) {
+				throw (AbstractCosException) cause;
+			}
+			throw new UnknownException(cause.toString());
+		} finally {
+			releaseSliceTaskExecutor(executor, rangeFutures);
+		}
+	}
+
+	/**
+	 * 下载文件的一个分块, 下载签名剩余有效期不足一半时重新生成, 避免长时间的下载中签名过期
+	 * 
+	 * @param request
+	 *            下载请求
+	 * @param downloadUrl
+	 *            文件的下载地址
+	 * @param offset
+	 *            分块偏移量
+	 * @param length
+	 *            分块长度
+	 * @param target
+	 *            分块数据写入的目标
+	 * @return 写入target的字节数
+	 * @throws AbstractCosException
+	 */
+	long downloadRange(AbstractBaseRequest request, String downloadUrl, long offset, long length,
+			WritableByteChannel target) throws AbstractCosException {
+		String sign = getDownLoadSign(request);
+
+		HttpRequest httpRequest = new HttpRequest();
+		httpRequest.setUrl(downloadUrl);
+		httpRequest.addHeader(RequestHeaderKey.USER_AGENT, this.config.getUserAgent());
+		httpRequest.addHeader(RequestHeaderKey.RANGE, "bytes=" + offset + "-" + (offset + length - 1));
+		httpRequest.addParam(RequestBodyKey.SIGN, sign);
+		httpRequest.setMethod(HttpMethod.GET);
+
+		return httpClient.sendDownloadRequest(httpRequest, target);
+	}
+
+	/**
+	 * 流式下载文件请求, 文件内容(或request指定的范围)边接收边写入target, 使用固定大小的缓冲区,
+	 * 内存占用与文件大小无关. 连接中途断开时从已写入的位置继续请求剩余的范围, 写入target失败时不再重试
+	 * 
+	 * @param request
+	 *            流式下载请求
+	 * @param target
+	 *            文件内容写入的目标, 由调用者关闭
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"filesize":$filesize,
+	 *         "length":$length}}, code为0表示成功, filesize为文件大小, length为写入target的字节数
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+	public String downloadFileStream(DownloadFileStreamRequest request, WritableByteChannel target)
+			throws AbstractCosException {
+		request.check_param();
+
+		StatResult statRet = statDownloadFile(request);
+		if (!statRet.isSuccess()) {
+			return statRet.getRawResult();
+		}
+		ObjectInfo statInfo = statRet.getInfo();
+		String downloadUrl = statInfo.getAccessUrl();
+		long fileSize = statInfo.getFileSize();
+
+		long rangeStart = request.getRangeStart();
+		long rangeEnd = request.getRangeEnd();
+		if (rangeEnd == -1 || rangeEnd >= fileSize) {
+			rangeEnd = fileSize - 1;
+		}
+		if (rangeStart > rangeEnd && !(rangeStart == 0 && fileSize == 0)) {
+			throw new ParamException("range start " + rangeStart + " exceeds file size " + fileSize);
+		}
+		long length = rangeEnd - rangeStart + 1;
+
+		StreamRangeWriteChannel rangeChannel = new StreamRangeWriteChannel(target, length);
+		int retryIndex = 0;
+		while (rangeChannel.getWritten() < length) {
+			long written = rangeChannel.getWritten();
+			try {
+				downloadRange(request, downloadUrl, rangeStart + written, length - written, rangeChannel);
+			} catch (AbstractCosException e) {
+				// 调用者的流已经不可写(如代理的客户端断开), 重新请求没有意义
+				if (rangeChannel.isTargetFailed() || retryIndex >= config.getMaxFailedRetry()) {
+					throw e;
+				}
+				LOG.warn("download stream {} at offset {} failed, retry. exception:{}", request.getCosPath(),
+						rangeStart + written, e.toString());
+			}
+			// 有进展时重新计算重试次数
+			retryIndex = rangeChannel.getWritten() > written ? 0 : retryIndex + 1;
+			if (retryIndex > config.getMaxFailedRetry()) {
+				throw new ServerException("download stream " + request.getCosPath() + " short read at offset "
+						+ (rangeStart + rangeChannel.getWritten()));
+			}
+		}
+
+		JSONObject downloadRet = new JSONObject();
+		downloadRet.put(ResponseBodyKey.CODE, 0);
+		downloadRet.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+		JSONObject downloadData = new JSONObject();
+		downloadData.put(ResponseBodyKey.Data.FILESIZE, fileSize);
+		downloadData.put(ResponseBodyKey.Data.LENGTH, length);
+		downloadRet.put(ResponseBodyKey.DATA, downloadData);
+		return downloadRet.toString();
+	}
 }
@@ -0,0 +1,51 @@
+package com.qcloud.cos.op;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author chengwu
+ * 把写入的数据通过带位置参数的write写到文件的指定区域, 多个分块可以共享同一个FileChannel并发写入.
+ * 写入的数据超过区域长度时抛出IOException, 防止服务端忽略Range返回整个文件时覆盖其他分块
+ */
+class FileRangeWriteChannel implements WritableByteChannel {
+
+	private final FileChannel fileChannel;
+	private final long position;
+	private final long length;
+	private long written = 0;
+
+	FileRangeWriteChannel(FileChannel fileChannel, long position, long length) {
+		this.fileChannel = fileChannel;
+		this.position = position;
+		this.length = length;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		if (this.written + src.remaining() > this.length) {
+			throw new IOException("response body exceeds range, position:" + this.position + ", length:"
+					+ this.length);
+		}
+		int count = this.fileChannel.write(src, this.position + this.written);
+		this.written += count;
+		return count;
+	}
+
+	// 已经写入的字节数
+	long getWritten() {
+		return written;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return true;
+	}
+
+	// 文件由下载任务统一关闭
+	@Override
+	public void close() {
+	}
+}
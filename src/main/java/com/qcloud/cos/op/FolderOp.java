@@ -1,5 +1,9 @@
 package com.qcloud.cos.op;
 
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.FutureCallback;
+
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.exception.AbstractCosException;
 import com.qcloud.cos.http.AbstractCosHttpClient;
@@ -11,10 +15,14 @@ import com.qcloud.cos.http.RequestBodyValue;
 import com.qcloud.cos.http.RequestHeaderKey;
 import com.qcloud.cos.http.RequestHeaderValue;
 import com.qcloud.cos.request.CreateFolderRequest;
+import com.qcloud.cos.request.DelFolderRecursiveRequest;
 import com.qcloud.cos.request.DelFolderRequest;
 import com.qcloud.cos.request.ListFolderRequest;
 import com.qcloud.cos.request.StatFolderRequest;
 import com.qcloud.cos.request.UpdateFolderRequest;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.DelProgressListener;
+import com.qcloud.cos.response.ObjectInfoConsumer;
 import com.qcloud.cos.sign.Credentials;
 import com.qcloud.cos.sign.Sign;
 
@@ -39,6 +47,26 @@ public class FolderOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
     public String updateFolder(UpdateFolderRequest request) throws AbstractCosException {
+    	return httpClient.sendHttpRequest(buildUpdateFolderHttpRequest(request));
+    }
+
+	/**
+	 * 异步更新目录属性请求
+	 * 
+	 * @param request
+	 *            更新目录属性请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与updateFolder的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+    public Future<String> updateFolderAsync(UpdateFolderRequest request, FutureCallback<String> callback)
+    		throws AbstractCosException {
+    	return httpClient.sendHttpRequestAsync(buildUpdateFolderHttpRequest(request), callback);
+    }
+
+    private HttpRequest buildUpdateFolderHttpRequest(UpdateFolderRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
@@ -54,7 +82,9 @@ public class FolderOp extends BaseOp {
 
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.APPLICATION_JSON);
-		return httpClient.sendHttpRequest(httpRequest);
+		// 重复更新属性的结果相同
+		httpRequest.setIdempotent(true);
+		return httpRequest;
     }
 
 	/**
@@ -71,6 +101,22 @@ public class FolderOp extends BaseOp {
     	return super.delBase(request);
     }
 
+	/**
+	 * 异步删除目录请求
+	 * 
+	 * @param request
+	 *            删除目录请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与delFolder的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+    public Future<String> delFolderAsync(DelFolderRequest request, FutureCallback<String> callback)
+    		throws AbstractCosException {
+    	return super.delBaseAsync(request, callback);
+    }
+
 	/**
 	 * 获取目录属性请求
 	 * 
@@ -85,6 +131,22 @@ public class FolderOp extends BaseOp {
     	return super.statBase(request);
     }
 
+	/**
+	 * 异步获取目录属性请求
+	 * 
+	 * @param request
+	 *            获取目录属性请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与statFolder的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+    public Future<String> statFolderAsync(StatFolderRequest request, FutureCallback<String> callback)
+    		throws AbstractCosException {
+    	return super.statBaseAsync(request, callback);
+    }
+
 	/**
 	 * 创建目录请求
 	 * 
@@ -96,11 +158,30 @@ public class FolderOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
     public String createFolder(CreateFolderRequest request) throws AbstractCosException {
+    	return httpClient.sendHttpRequest(buildCreateFolderHttpRequest(request));
+    }
+
+	/**
+	 * 异步创建目录请求
+	 * 
+	 * @param request
+	 *            创建目录请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与createFolder的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+    public Future<String> createFolderAsync(CreateFolderRequest request, FutureCallback<String> callback)
+    		throws AbstractCosException {
+    	return httpClient.sendHttpRequestAsync(buildCreateFolderHttpRequest(request), callback);
+    }
+
+    private HttpRequest buildCreateFolderHttpRequest(CreateFolderRequest request) throws AbstractCosException {
 		request.check_param();
 
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -112,7 +193,7 @@ public class FolderOp extends BaseOp {
 
 		httpRequest.setMethod(HttpMethod.POST);
 		httpRequest.setContentType(HttpContentType.APPLICATION_JSON);
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
     }
 
 	/**
@@ -126,12 +207,76 @@ public class FolderOp extends BaseOp {
 	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
 	 */
     public String listFolder(ListFolderRequest request) throws AbstractCosException {
+    	return httpClient.sendHttpRequest(buildListFolderHttpRequest(request));
+    }
+
+	/**
+	 * 异步获取目录列表请求
+	 * 
+	 * @param request
+	 *            获取目录列表请求
+	 * @param callback
+	 *            请求完成时的回调, 可以为null
+	 * @return 请求结果的Future, 结果与listFolder的返回值相同
+	 * @throws AbstractCosException
+	 *             输入参数有误时直接抛出
+	 */
+    public Future<String> listFolderAsync(ListFolderRequest request, FutureCallback<String> callback)
+    		throws AbstractCosException {
+    	return httpClient.sendHttpRequestAsync(buildListFolderHttpRequest(request), callback);
+    }
+
+	/**
+	 * 遍历目录下的全部成员, 按context自动翻页, 处理当前页时预取下一页
+	 * 
+	 * @param request
+	 *            获取目录列表请求, 从request的context开始遍历, num为每页的成员数
+	 * @return 目录成员的迭代器, 请求失败时迭代结束, 失败原因通过迭代器的getFailedResult获取
+	 */
+    public ListFolderIterator listFolderAll(ListFolderRequest request) {
+    	return new ListFolderIterator(this, request);
+    }
+
+	/**
+	 * 递归遍历目录树, 多个目录同时列出, 同时进行的列表请求数为request.getTaskNum()
+	 * 
+	 * @param request
+	 *            遍历目录树请求
+	 * @param consumer
+	 *            接收遍历到的文件和目录, 在多个线程中同时被调用
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"folder_count":$folder_count,
+	 *         "file_count":$file_count}}, code为0表示成功, 其他为失败, message为success或者失败原因
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+    public String walkFolder(WalkFolderRequest request, ObjectInfoConsumer consumer) throws AbstractCosException {
+    	return new FolderTreeWalker(this, request, consumer).walk();
+    }
+
+	/**
+	 * 递归删除目录, 遍历目录树的同时删除文件, 文件全部删除后按深度从深到浅删除目录
+	 * 
+	 * @param request
+	 *            递归删除目录请求
+	 * @param listener
+	 *            接收每个文件和目录的删除结果, 可以为null
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"deleted_file_count":$count,
+	 *         "deleted_folder_count":$count, "failed_count":$count, "failed_list":[...]}}, 全部删除时code为0,
+	 *         否则为第一个失败的请求的结果
+	 * @throws AbstractCosException
+	 *             SDK定义的COS异常, 通常是输入参数有误或者环境问题(如网络不通)
+	 */
+    public String delFolderRecursive(DelFolderRecursiveRequest request, DelProgressListener listener)
+    		throws AbstractCosException {
+    	return new RecursiveDeleter(this, request, listener).delete();
+    }
+
+    private HttpRequest buildListFolderHttpRequest(ListFolderRequest request) throws AbstractCosException {
 
 		request.check_param();
 		request.setCosPath(request.getCosPath() + request.getPrefix());
 		String url = buildUrl(request);
-		long signExpired = System.currentTimeMillis() / 1000 + this.config.getSignExpired();
-		String sign = Sign.getPeriodEffectiveSign(request.getBucketName(), request.getCosPath(), this.cred, signExpired);
+		String sign = getPeriodEffectiveSign(request);
 
 		HttpRequest httpRequest = new HttpRequest();
 		httpRequest.setUrl(url);
@@ -143,8 +288,7 @@ public class FolderOp extends BaseOp {
 		httpRequest.addParam(RequestBodyKey.ORDER, String.valueOf(request.getOrder().ordinal()));
 		httpRequest.addParam(RequestBodyKey.PATTERN, request.getPattern().toString());
 		httpRequest.setMethod(HttpMethod.GET);
-
-		return httpClient.sendHttpRequest(httpRequest);
+		return httpRequest;
     }
 
 }
@@ -0,0 +1,236 @@
+package com.qcloud.cos.op;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.ErrorCode;
+import com.qcloud.cos.common_utils.CommonCodecUtils;
+import com.qcloud.cos.common_utils.CommonExecutorUtils;
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.SyncFolderRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.response.CosResult;
+
+/**
+ * @author chengwu
+ * 把本地目录同步到cos目录. 遍历本地目录时, 大小和修改时间与清单记录相同的文件直接跳过, 不读取文件内容;
+ * 其他文件交给上传线程, 计算sha后与清单比较, 内容没有变化的只更新清单, 变化的文件携带sha上传.
+ * 1MB以上的文件先发送携带sha的控制分片, cos上已有相同内容时直接秒传完成, 小文件单次上传的开销小于一次控制请求
+ */
+class FolderSyncer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FolderSyncer.class);
+	// 使用控制分片尝试秒传的最小文件大小
+	private static final long INSTANT_UPLOAD_MIN_SIZE = 1024 * 1024;
+	// 结果中最多列出的失败路径数
+	private static final int MAX_FAILED_LIST_SIZE = 100;
+
+	private final FileOp fileOp;
+	private final SyncFolderRequest request;
+	private SyncManifest manifest;
+	private Semaphore pendingTasks;
+
+	private final AtomicLong uploadedCount = new AtomicLong(0);
+	private final AtomicLong skippedCount = new AtomicLong(0);
+	private final AtomicLong failedCount = new AtomicLong(0);
+	private final Queue<JSONObject> failedList = new ConcurrentLinkedQueue<JSONObject>();
+	// 第一个失败的结果
+	private final AtomicReference<String> failedResult = new AtomicReference<String>();
+
+	FolderSyncer(FileOp fileOp, SyncFolderRequest request) {
+		this.fileOp = fileOp;
+		this.request = request;
+	}
+
+	/**
+	 * 同步目录, 所有文件处理完成后返回
+	 *
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"uploaded_count":$count,
+	 *         "skipped_count":$count, "failed_count":$count, "failed_list":[{"cos_path":$path, "code":$code,
+	 *         "message":$mess}]}}, 全部同步成功时code为0, 否则为第一个失败的结果
+	 * @throws AbstractCosException
+	 */
+	String sync() throws AbstractCosException {
+		request.check_param();
+		try {
+			manifest = SyncManifest.open(request.getManifestPath(), request.getBucketName(),
+					request.getCosPath());
+		} catch (IOException e) {
+			throw new UnknownException("open manifest failed, " + e.toString());
+		}
+		// 等待上传的文件数不超过上传线程数的2倍, 遍历速度跟随上传速度
+		final int maxPendingTasks = request.getTaskNum() * 2;
+		pendingTasks = new Semaphore(maxPendingTasks);
+		final ExecutorService executor = CommonExecutorUtils.newDaemonThreadPool(request.getTaskNum(),
+				"cos-sync-folder-");
+		try {
+			final Path root = new File(request.getLocalPath()).getAbsoluteFile().toPath();
+			final Path manifestFile = manifest.getManifestFile().toPath();
+			final Path manifestTmpFile = manifest.getTmpFile().toPath();
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (!attrs.isRegularFile() || file.equals(manifestFile) || file.equals(manifestTmpFile)) {
+						return FileVisitResult.CONTINUE;
+					}
+					String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+					long size = attrs.size();
+					long mtime = attrs.lastModifiedTime().toMillis();
+					SyncManifest.Entry entry = manifest.get(relativePath);
+					if (entry != null && entry.size == size && entry.mtime == mtime) {
+						manifest.keep(entry);
+						skippedCount.incrementAndGet();
+						return FileVisitResult.CONTINUE;
+					}
+					try {
+						pendingTasks.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return FileVisitResult.TERMINATE;
+					}
+					executor.execute(new SyncFileTask(file.toString(), relativePath, size, mtime, entry));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) {
+					String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+					onFailed(relativePath, new UnknownException(exc.toString()).toString());
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			pendingTasks.acquireUninterruptibly(maxPendingTasks);
+			if (Thread.currentThread().isInterrupted()) {
+				failedResult.compareAndSet(null, new UnknownException("sync folder interrupted").toString());
+			}
+			manifest.compact();
+		} catch (IOException e) {
+			LOG.error("sync folder occur a exception, request:{}, exception:{}", request, e.toString());
+			failedResult.compareAndSet(null, new UnknownException(e.toString()).toString());
+		} finally {
+			executor.shutdown();
+			manifest.close();
+		}
+		return buildResult();
+	}
+
+	private class SyncFileTask implements Runnable {
+		private final String localPath;
+		private final String relativePath;
+		private final long size;
+		private final long mtime;
+		private final SyncManifest.Entry entry;
+
+		SyncFileTask(String localPath, String relativePath, long size, long mtime, SyncManifest.Entry entry) {
+			this.localPath = localPath;
+			this.relativePath = relativePath;
+			this.size = size;
+			this.mtime = mtime;
+			this.entry = entry;
+		}
+
+		@Override
+		public void run() {
+			try {
+				syncFile();
+			} catch (AbstractCosException e) {
+				onFailed(relativePath, e.toString());
+			} catch (Exception e) {
+				onFailed(relativePath, new UnknownException(e.toString()).toString());
+			} finally {
+				pendingTasks.release();
+			}
+		}
+
+		private void syncFile() throws Exception {
+			String shaDigest = CommonCodecUtils.getEntireFileSha1(localPath);
+			if (entry != null && Arrays.equals(entry.sha, SyncManifest.hexToBytes(shaDigest))) {
+				// 只有修改时间变化, 内容与上次同步的相同
+				manifest.record(relativePath, size, mtime, shaDigest);
+				skippedCount.incrementAndGet();
+				return;
+			}
+			UploadFileRequest uploadRequest = new UploadFileRequest(request.getBucketName(),
+					request.getCosPath() + relativePath, localPath);
+			uploadRequest.setInsertOnly(request.getInsertOnly());
+			uploadRequest.setShaDigest(shaDigest);
+			String uploadRet;
+			if (size >= INSTANT_UPLOAD_MIN_SIZE) {
+				uploadRet = fileOp.uploadSliceFile(new UploadSliceFileRequest(uploadRequest));
+			} else {
+				uploadRet = fileOp.uploadFile(uploadRequest);
+			}
+			if (!new CosResult(uploadRet).isSuccess()) {
+				onFailed(relativePath, uploadRet);
+				return;
+			}
+			manifest.record(relativePath, size, mtime, shaDigest);
+			uploadedCount.incrementAndGet();
+		}
+	}
+
+	private void onFailed(String relativePath, String result) {
+		String cosPath = request.getCosPath() + relativePath;
+		LOG.error("sync folder failed to upload {}, ret:{}", cosPath, result);
+		failedResult.compareAndSet(null, result);
+		if (failedCount.incrementAndGet() <= MAX_FAILED_LIST_SIZE) {
+			JSONObject failedItem = new JSONObject();
+			failedItem.put(ResponseBodyKey.Data.COS_PATH, cosPath);
+			try {
+				CosResult failedRet = new CosResult(result);
+				failedItem.put(ResponseBodyKey.CODE, failedRet.getCode());
+				failedItem.put(ResponseBodyKey.MESSAGE, failedRet.getMessage());
+			} catch (JSONException e) {
+				failedItem.put(ResponseBodyKey.CODE, ErrorCode.UNKNOWN_ERROR);
+				failedItem.put(ResponseBodyKey.MESSAGE, result);
+			}
+			failedList.add(failedItem);
+		}
+	}
+
+	private String buildResult() {
+		JSONObject syncRet = new JSONObject();
+		String failed = failedResult.get();
+		if (failed == null) {
+			syncRet.put(ResponseBodyKey.CODE, 0);
+			syncRet.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+		} else {
+			try {
+				CosResult failedRet = new CosResult(failed);
+				syncRet.put(ResponseBodyKey.CODE, failedRet.getCode());
+				syncRet.put(ResponseBodyKey.MESSAGE, failedRet.getMessage());
+			} catch (JSONException e) {
+				syncRet.put(ResponseBodyKey.CODE, ErrorCode.UNKNOWN_ERROR);
+				syncRet.put(ResponseBodyKey.MESSAGE, failed);
+			}
+		}
+		JSONObject syncData = new JSONObject();
+		syncData.put(ResponseBodyKey.Data.UPLOADED_COUNT, uploadedCount.get());
+		syncData.put(ResponseBodyKey.Data.SKIPPED_COUNT, skippedCount.get());
+		syncData.put(ResponseBodyKey.Data.FAILED_COUNT, failedCount.get());
+		syncData.put(ResponseBodyKey.Data.FAILED_LIST, new JSONArray(failedList));
+		syncRet.put(ResponseBodyKey.DATA, syncData);
+		return syncRet.toString();
+	}
+}
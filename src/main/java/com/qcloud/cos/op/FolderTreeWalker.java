@@ -0,0 +1,183 @@
+package com.qcloud.cos.op;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.meta.ListPattern;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.ListResult;
+import com.qcloud.cos.response.ObjectInfo;
+import com.qcloud.cos.response.ObjectInfoConsumer;
+
+/**
+ * @author chengwu
+ * 并发遍历目录树. 每个目录是一个fork-join任务, 列出目录时发现的子目录作为新任务放入当前线程的队列,
+ * 空闲线程从其他线程的队列中窃取任务. 任务之间不join, 线程数即同时进行的列表请求数的上限.
+ * 同一目录的各页按顺序列出, 任一列表请求失败时不再开始新的目录
+ */
+class FolderTreeWalker {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FolderTreeWalker.class);
+
+	private final FolderOp folderOp;
+	private final WalkFolderRequest request;
+	private final ObjectInfoConsumer consumer;
+	private ForkJoinPool pool;
+
+	// 已提交尚未完成的目录数, 减为0时遍历结束
+	private final AtomicLong pendingFolders = new AtomicLong(0);
+	private final CountDownLatch finished = new CountDownLatch(1);
+	private final AtomicLong folderCount = new AtomicLong(0);
+	private final AtomicLong fileCount = new AtomicLong(0);
+	// 第一个失败的结果
+	private final AtomicReference<String> failedResult = new AtomicReference<String>();
+
+	FolderTreeWalker(FolderOp folderOp, WalkFolderRequest request, ObjectInfoConsumer consumer) {
+		this.folderOp = folderOp;
+		this.request = request;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * 遍历目录树, 所有目录列出后返回
+	 *
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"folder_count":$folder_count,
+	 *         "file_count":$file_count}}, code为0表示成功, 失败时为第一个失败的列表请求的结果
+	 * @throws AbstractCosException
+	 */
+	String walk() throws AbstractCosException {
+		request.check_param();
+		pool = new ForkJoinPool(request.getTaskNum());
+		try {
+			submitFolder(request.getCosPath(), 0);
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failedResult.compareAndSet(null, new UnknownException(e.toString()).toString());
+		} finally {
+			pool.shutdownNow();
+		}
+		// 失败时正在进行的目录在当前页结束后停止, 等待它们结束, 保证返回后consumer不再被调用
+		try {
+			pool.awaitTermination(folderOp.config.getSocketTimeout() * 2L, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failedResult.get() != null) {
+			return failedResult.get();
+		}
+
+		JSONObject walkRet = new JSONObject();
+		walkRet.put(ResponseBodyKey.CODE, 0);
+		walkRet.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+		JSONObject walkData = new JSONObject();
+		walkData.put(ResponseBodyKey.Data.FOLDER_COUNT, folderCount.get());
+		walkData.put(ResponseBodyKey.Data.FILE_COUNT, fileCount.get());
+		walkRet.put(ResponseBodyKey.DATA, walkData);
+		return walkRet.toString();
+	}
+
+	private void submitFolder(String folderPath, int depth) {
+		pendingFolders.incrementAndGet();
+		ListFolderTask task = new ListFolderTask(folderPath, depth);
+		// 工作线程发现的子目录放入本线程的队列, 优先深度遍历
+		if (ForkJoinTask.getPool() == pool) {
+			task.fork();
+		} else {
+			pool.execute(task);
+		}
+	}
+
+	private class ListFolderTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final String folderPath;
+		private final int depth;
+
+		ListFolderTask(String folderPath, int depth) {
+			this.folderPath = folderPath;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (failedResult.get() == null) {
+					listFolder(folderPath, depth);
+				}
+			} catch (AbstractCosException e) {
+				failedResult.compareAndSet(null, e.toString());
+			} catch (Exception e) {
+				LOG.error("walk folder {} occur a exception {}", folderPath, e.toString());
+				failedResult.compareAndSet(null, new UnknownException(e.toString()).toString());
+			} finally {
+				if (pendingFolders.decrementAndGet() == 0 || failedResult.get() != null) {
+					finished.countDown();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 按页列出一个目录, 把成员交给consumer, 并为需要继续遍历的子目录提交任务
+	 *
+	 * @param folderPath
+	 *            目录路径, 以/结尾
+	 * @param depth
+	 *            目录的深度, 根目录为0
+	 * @throws AbstractCosException
+	 */
+	private void listFolder(String folderPath, int depth) throws AbstractCosException {
+		int maxDepth = request.getMaxDepth();
+		boolean descend = maxDepth < 0 || depth + 1 < maxDepth;
+		ListPattern pattern = request.getPattern();
+		// 需要继续遍历时必须列出子目录
+		ListPattern listPattern = descend ? (pattern == ListPattern.DIR_ONLY ? pattern : ListPattern.BOTH) : pattern;
+
+		String context = "";
+		while (true) {
+			ListFolderRequest pageRequest = new ListFolderRequest(request.getBucketName(), folderPath);
+			pageRequest.setNum(request.getNum());
+			pageRequest.setPattern(listPattern);
+			pageRequest.setContext(context);
+			ListResult page = new ListResult(folderOp.listFolder(pageRequest));
+			if (!page.isSuccess()) {
+				LOG.error("walk folder failed, request:{}, folder:{}, ret:{}", request, folderPath, page);
+				failedResult.compareAndSet(null, page.getRawResult());
+				return;
+			}
+			for (ObjectInfo info : page.getInfos()) {
+				boolean isFolder = info.isFolder();
+				String name = info.getName();
+				String cosPath = folderPath + name;
+				if (isFolder && !name.endsWith("/")) {
+					cosPath += "/";
+				}
+				if (isFolder ? pattern != ListPattern.FILE_ONLY : pattern != ListPattern.DIR_ONLY) {
+					(isFolder ? folderCount : fileCount).incrementAndGet();
+					consumer.accept(cosPath, info);
+				}
+				if (isFolder && descend && failedResult.get() == null) {
+					submitFolder(cosPath, depth + 1);
+				}
+			}
+			if (page.isListOver() || failedResult.get() != null) {
+				return;
+			}
+			context = page.getContext();
+		}
+	}
+}
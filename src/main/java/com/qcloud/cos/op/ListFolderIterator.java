@@ -0,0 +1,141 @@
+package com.qcloud.cos.op;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.json.JSONException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.response.ListResult;
+import com.qcloud.cos.response.ObjectInfo;
+
+/**
+ * @author chengwu
+ * 遍历目录下全部成员的迭代器, 按context自动翻页. 处理当前页的同时通过异步客户端预取下一页,
+ * 任何时候最多持有两页数据, 内存占用与目录大小无关.
+ * 某一页请求失败时迭代结束, 通过isSuccess和getFailedResult获取失败原因, 从getContext继续遍历
+ */
+public class ListFolderIterator implements Iterator<ObjectInfo> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ListFolderIterator.class);
+
+	private final FolderOp folderOp;
+	private final ListFolderRequest request;
+
+	// 当前页中尚未返回的成员
+	private Iterator<ObjectInfo> pageInfos;
+	// 当前页的context, 即已返回的成员之后的位置
+	private String context;
+	// 正在预取的下一页, 没有下一页时为null
+	private Future<String> nextPage;
+	// 请求失败的结果, 成功时为null
+	private ListResult failedResult;
+
+	ListFolderIterator(FolderOp folderOp, ListFolderRequest request) {
+		this.folderOp = folderOp;
+		this.request = request;
+		this.context = request.getContext();
+		this.nextPage = requestPage(this.context);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (pageInfos == null || !pageInfos.hasNext()) {
+			if (nextPage == null) {
+				return false;
+			}
+			ListResult page = new ListResult(waitPage(nextPage));
+			nextPage = null;
+			try {
+				if (!page.isSuccess()) {
+					LOG.error("list folder failed, request:{}, context:{}, ret:{}", request, context, page);
+					failedResult = page;
+					return false;
+				}
+				pageInfos = page.getInfos().iterator();
+				if (!page.isListOver()) {
+					nextPage = requestPage(page.getContext());
+				}
+			} catch (JSONException e) {
+				failedResult = new ListResult(new UnknownException(e.toString()).toString());
+				return false;
+			}
+			context = page.getContext();
+		}
+		return true;
+	}
+
+	@Override
+	public ObjectInfo next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return pageInfos.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	/**
+	 * @return 遍历是否没有出错, 遍历结束后为false时表示没有列出全部成员
+	 */
+	public boolean isSuccess() {
+		return failedResult == null;
+	}
+
+	/**
+	 * @return 失败的列表请求的结果, 没有失败时为null
+	 */
+	public ListResult getFailedResult() {
+		return failedResult;
+	}
+
+	/**
+	 * @return 最近一页的context, 失败后作为ListFolderRequest的context可以从这一页之后继续遍历
+	 */
+	public String getContext() {
+		return context;
+	}
+
+	// 异步请求一页, 参数错误时返回已完成的Future
+	private Future<String> requestPage(String pageContext) {
+		// 构造请求时会修改cosPath, 每一页使用新的请求
+		ListFolderRequest pageRequest = new ListFolderRequest(request.getBucketName(), request.getCosPath());
+		pageRequest.setNum(request.getNum());
+		pageRequest.setPrefix(request.getPrefix());
+		pageRequest.setPattern(request.getPattern());
+		pageRequest.setOrder(request.getOrder());
+		pageRequest.setContext(pageContext);
+		try {
+			return folderOp.listFolderAsync(pageRequest, null);
+		} catch (AbstractCosException e) {
+			BasicFuture<String> failedPage = new BasicFuture<String>(null);
+			failedPage.completed(e.toString());
+			return failedPage;
+		}
+	}
+
+	private String waitPage(Future<String> page) {
+		try {
+			return page.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new UnknownException(e.toString()).toString();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof AbstractCosException) {
+				return cause.toString();
+			}
+			return new UnknownException(cause.toString()).toString();
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package com.qcloud.cos.op;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.ErrorCode;
+import com.qcloud.cos.common_utils.RateLimiter;
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.exception.UnknownException;
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.AbstractDelRequest;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.DelFolderRecursiveRequest;
+import com.qcloud.cos.request.DelFolderRequest;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.CosResult;
+import com.qcloud.cos.response.DelProgressListener;
+import com.qcloud.cos.response.ObjectInfo;
+import com.qcloud.cos.response.ObjectInfoConsumer;
+
+/**
+ * @author chengwu
+ * 递归删除目录. 遍历目录树的同时异步删除遍历到的文件, 同时进行的删除请求数和每秒的删除请求数受request限制,
+ * 删除请求满时遍历线程阻塞, 遍历速度跟随删除速度. 文件全部删除后按深度从深到浅逐层删除目录,
+ * 含有删除失败的成员的目录及其上级目录不再删除
+ */
+class RecursiveDeleter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(RecursiveDeleter.class);
+	// 结果中最多列出的失败路径数
+	private static final int MAX_FAILED_LIST_SIZE = 100;
+
+	private final FolderOp folderOp;
+	private final DelFolderRecursiveRequest request;
+	private final DelProgressListener listener;
+	private Semaphore inFlight;
+	private RateLimiter rateLimiter;
+
+	// 遍历到的子目录, 以/结尾
+	private final Queue<String> folders = new ConcurrentLinkedQueue<String>();
+	// 含有删除失败的成员, 不能删除的目录
+	private final Set<String> keptFolders = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final AtomicLong deletedFileCount = new AtomicLong(0);
+	private final AtomicLong deletedFolderCount = new AtomicLong(0);
+	private final AtomicLong failedCount = new AtomicLong(0);
+	private final Queue<JSONObject> failedList = new ConcurrentLinkedQueue<JSONObject>();
+	// 第一个失败的结果
+	private final AtomicReference<String> failedResult = new AtomicReference<String>();
+
+	RecursiveDeleter(FolderOp folderOp, DelFolderRecursiveRequest request, DelProgressListener listener) {
+		this.folderOp = folderOp;
+		this.request = request;
+		this.listener = listener;
+	}
+
+	/**
+	 * 删除目录下的全部文件和子目录, 最后删除目录本身
+	 *
+	 * @return JSON格式的字符串, 格式为{"code":$code, "message":"$mess", "data":{"deleted_file_count":$count,
+	 *         "deleted_folder_count":$count, "failed_count":$count, "failed_list":[{"cos_path":$path, "code":$code,
+	 *         "message":$mess}]}}, 全部删除时code为0, 否则为第一个失败的请求的结果
+	 * @throws AbstractCosException
+	 */
+	String delete() throws AbstractCosException {
+		request.check_param();
+		inFlight = new Semaphore(request.getTaskNum());
+		rateLimiter = new RateLimiter(request.getQps());
+
+		WalkFolderRequest walkRequest = new WalkFolderRequest(request.getBucketName(), request.getCosPath());
+		walkRequest.setNum(request.getNum());
+		walkRequest.setTaskNum(request.getListTaskNum());
+		String walkResult = folderOp.walkFolder(walkRequest, new ObjectInfoConsumer() {
+			@Override
+			public void accept(String cosPath, ObjectInfo info) {
+				if (info.isFolder()) {
+					folders.add(cosPath);
+					return;
+				}
+				try {
+					deleteAsync(cosPath, false);
+				} catch (InterruptedException e) {
+					// 遍历失败时遍历线程被中断, 不再删除
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+
+		try {
+			waitInFlight();
+			if (!new CosResult(walkResult).isSuccess()) {
+				LOG.error("delete folder recursive failed to walk folder, request:{}, ret:{}", request, walkResult);
+				failedResult.compareAndSet(null, walkResult);
+			} else {
+				deleteFolders();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failedResult.compareAndSet(null, new UnknownException(e.toString()).toString());
+		}
+		return buildResult();
+	}
+
+	// 按深度从深到浅删除目录, 同一深度的目录同时删除
+	private void deleteFolders() throws InterruptedException {
+		List<String> sortedFolders = new ArrayList<String>(folders);
+		sortedFolders.add(request.getCosPath());
+		Collections.sort(sortedFolders, new Comparator<String>() {
+			@Override
+			public int compare(String left, String right) {
+				return depth(right) - depth(left);
+			}
+		});
+		int currentDepth = -1;
+		for (String folder : sortedFolders) {
+			if (depth(folder) != currentDepth) {
+				waitInFlight();
+				currentDepth = depth(folder);
+			}
+			if (!keptFolders.contains(folder)) {
+				deleteAsync(folder, true);
+			}
+		}
+		waitInFlight();
+	}
+
+	private void deleteAsync(final String cosPath, final boolean isFolder) throws InterruptedException {
+		rateLimiter.acquire();
+		inFlight.acquire();
+		FutureCallback<String> callback = new FutureCallback<String>() {
+			@Override
+			public void completed(String result) {
+				try {
+					onResult(cosPath, isFolder, result);
+				} finally {
+					inFlight.release();
+				}
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				try {
+					String result = ex instanceof AbstractCosException ? ex.toString()
+							: new UnknownException(ex.toString()).toString();
+					onResult(cosPath, isFolder, result);
+				} finally {
+					inFlight.release();
+				}
+			}
+
+			@Override
+			public void cancelled() {
+				failed(new UnknownException("delete request cancelled"));
+			}
+		};
+		try {
+			AbstractDelRequest delRequest = isFolder ? new DelFolderRequest(request.getBucketName(), cosPath)
+					: new DelFileRequest(request.getBucketName(), cosPath);
+			folderOp.delBaseAsync(delRequest, callback);
+		} catch (AbstractCosException e) {
+			callback.failed(e);
+		}
+	}
+
+	private void onResult(String cosPath, boolean isFolder, String result) {
+		int code;
+		String message;
+		try {
+			CosResult delResult = new CosResult(result);
+			code = delResult.getCode();
+			message = delResult.getMessage();
+		} catch (JSONException e) {
+			code = ErrorCode.UNKNOWN_ERROR;
+			message = e.toString();
+		}
+		if (code == 0) {
+			(isFolder ? deletedFolderCount : deletedFileCount).incrementAndGet();
+			if (listener != null) {
+				listener.onDeleted(cosPath);
+			}
+			return;
+		}
+
+		LOG.error("delete folder recursive failed to delete {}, ret:{}", cosPath, result);
+		failedResult.compareAndSet(null, result);
+		if (failedCount.incrementAndGet() <= MAX_FAILED_LIST_SIZE) {
+			JSONObject failedItem = new JSONObject();
+			failedItem.put(ResponseBodyKey.Data.COS_PATH, cosPath);
+			failedItem.put(ResponseBodyKey.CODE, code);
+			failedItem.put(ResponseBodyKey.MESSAGE, message);
+			failedList.add(failedItem);
+		}
+		keepParentFolders(cosPath);
+		if (listener != null) {
+			listener.onFailed(cosPath, result);
+		}
+	}
+
+	// 标记路径的各级上级目录, 直到被删除的目录本身
+	private void keepParentFolders(String cosPath) {
+		String rootPath = request.getCosPath();
+		String path = cosPath;
+		while (path.length() > rootPath.length()) {
+			int end = path.endsWith("/") ? path.length() - 1 : path.length();
+			path = path.substring(0, path.lastIndexOf('/', end - 1) + 1);
+			if (!keptFolders.add(path)) {
+				// 更上级的目录已经被标记过
+				return;
+			}
+		}
+	}
+
+	// 等待所有已发出的删除请求完成
+	private void waitInFlight() throws InterruptedException {
+		inFlight.acquire(request.getTaskNum());
+		inFlight.release(request.getTaskNum());
+	}
+
+	private static int depth(String cosPath) {
+		int depth = 0;
+		for (int i = 0; i < cosPath.length(); ++i) {
+			if (cosPath.charAt(i) == '/') {
+				++depth;
+			}
+		}
+		return depth;
+	}
+
+	private String buildResult() {
+		JSONObject delRet = new JSONObject();
+		String failed = failedResult.get();
+		if (failed == null) {
+			delRet.put(ResponseBodyKey.CODE, 0);
+			delRet.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+		} else {
+			CosResult failedRet = new CosResult(failed);
+			try {
+				delRet.put(ResponseBodyKey.CODE, failedRet.getCode());
+				delRet.put(ResponseBodyKey.MESSAGE, failedRet.getMessage());
+			} catch (JSONException e) {
+				delRet.put(ResponseBodyKey.CODE, ErrorCode.UNKNOWN_ERROR);
+				delRet.put(ResponseBodyKey.MESSAGE, failed);
+			}
+		}
+		JSONObject delData = new JSONObject();
+		delData.put(ResponseBodyKey.Data.DELETED_FILE_COUNT, deletedFileCount.get());
+		delData.put(ResponseBodyKey.Data.DELETED_FOLDER_COUNT, deletedFolderCount.get());
+		delData.put(ResponseBodyKey.Data.FAILED_COUNT, failedCount.get());
+		delData.put(ResponseBodyKey.Data.FAILED_LIST, new JSONArray(failedList));
+		delRet.put(ResponseBodyKey.DATA, delData);
+		return delRet.toString();
+	}
+}
@@ -0,0 +1,81 @@
+package com.qcloud.cos.op;
+
+import java.util.concurrent.Callable;
+
+import org.apache.http.entity.mime.content.ContentBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qcloud.cos.exception.AbstractCosException;
+import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.response.UploadResult;
+
+/**
+ * @author chengwu
+ * 上传单个数据分片的任务, 用于并发分片上传, 分片内容需要可以重复发送.
+ * 网络错误和服务端5xx等失败已经由http客户端按RetryPolicy重试(包括退避和重试预算), 这里不再重试异常,
+ * 只重试服务端返回码非0的结果, 这类结果http客户端看不到
+ */
+class SliceFileDataTask implements Callable<UploadResult> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SliceFileDataTask.class);
+
+	private final FileOp fileOp;
+	private final UploadSliceFileRequest request;
+	private final String session;
+	private final long offset;
+	private final ContentBody sliceContent;
+	private final int maxRetry;
+	// 随分片发送的整个文件的sha, 仅在边读边算sha时随最后一个分片发送, 其他情况为null
+	private final String shaDigest;
+	// 上传成功后记录分片的断点, 未开启断点续传时为null
+	private final UploadCheckpoint checkpoint;
+
+	SliceFileDataTask(FileOp fileOp, UploadSliceFileRequest request, String session, long offset,
+			ContentBody sliceContent, int maxRetry, UploadCheckpoint checkpoint) {
+		this(fileOp, request, session, offset, sliceContent, maxRetry, null, checkpoint);
+	}
+
+	SliceFileDataTask(FileOp fileOp, UploadSliceFileRequest request, String session, long offset,
+			ContentBody sliceContent, int maxRetry, String shaDigest, UploadCheckpoint checkpoint) {
+		this.fileOp = fileOp;
+		this.request = request;
+		this.session = session;
+		this.offset = offset;
+		this.sliceContent = sliceContent;
+		this.maxRetry = maxRetry;
+		this.shaDigest = shaDigest;
+		this.checkpoint = checkpoint;
+	}
+
+	long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * 上传分片, 返回码非0时重试, 直到成功或者达到最大重试次数
+	 *
+	 * @return 最后一次上传分片的返回结果
+	 * @throws AbstractCosException
+	 *             http客户端重试后仍然失败时的异常, 直接抛出
+	 */
+	@Override
+	public UploadResult call() throws AbstractCosException {
+		int retry = 0;
+		while (true) {
+			UploadResult uploadDataRet = new UploadResult(
+					fileOp.uploadSliceData(request, sliceContent, session, offset, shaDigest));
+			if (uploadDataRet.isSuccess()) {
+				if (checkpoint != null) {
+					checkpoint.recordSlice(offset);
+				}
+				return uploadDataRet;
+			}
+			if (++retry >= maxRetry) {
+				return uploadDataRet;
+			}
+			LOG.warn("upload slice failed, retry {}, request:{}, offset:{}, ret:{}", retry, request, offset,
+					uploadDataRet);
+		}
+	}
+}
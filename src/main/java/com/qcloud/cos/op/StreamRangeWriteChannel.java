@@ -0,0 +1,58 @@
+package com.qcloud.cos.op;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author chengwu
+ * 流式下载时包装调用者提供的channel, 记录已写入的字节数, 以便连接中断后从中断的位置继续下载.
+ * 写入的数据超过下载范围时抛出IOException; 写入调用者的channel失败时记录下来, 此时重新下载没有意义
+ */
+class StreamRangeWriteChannel implements WritableByteChannel {
+
+	private final WritableByteChannel target;
+	private final long length;
+	private long written = 0;
+	private boolean targetFailed = false;
+
+	StreamRangeWriteChannel(WritableByteChannel target, long length) {
+		this.target = target;
+		this.length = length;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		if (this.written + src.remaining() > this.length) {
+			throw new IOException("response body exceeds range, length:" + this.length);
+		}
+		try {
+			int count = this.target.write(src);
+			this.written += count;
+			return count;
+		} catch (IOException e) {
+			this.targetFailed = true;
+			throw e;
+		}
+	}
+
+	// 已经写入的字节数
+	long getWritten() {
+		return written;
+	}
+
+	// 写入调用者的channel是否失败过
+	boolean isTargetFailed() {
+		return targetFailed;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.target.isOpen();
+	}
+
+	// 调用者的channel由调用者关闭
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,281 @@
+package com.qcloud.cos.op;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author chengwu
+ * 目录同步的本地清单, 记录上次同步成功的每个文件的(相对路径, 大小, 修改时间, sha1).
+ * 清单文件的每行为 $path\t$size\t$mtime\t$sha, 路径中的反斜杠, 制表符和换行符分别转义为\\, \t, \n.
+ * 同步过程中上传成功的文件追加到清单末尾, 进程中途退出时已上传的文件不会丢失,
+ * 读取时后面的记录覆盖前面的记录, 并忽略没有换行结尾的行. 同步结束后只保留本次仍然存在的文件, 重写为紧凑的清单.
+ * 清单的第一行为 #cos-sync\t$bucket\t$cosPath, 记录清单对应的同步目标, 目标不同或者没有该行的清单被丢弃,
+ * 避免同一本地目录同步到其他目标时跳过目标上并不存在的文件. sha1在内存中以20字节保存
+ */
+class SyncManifest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SyncManifest.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String TMP_SUFFIX = ".tmp";
+	private static final String HEADER_PREFIX = "#cos-sync\t";
+
+	static class Entry {
+		final long size;
+		final long mtime;
+		final byte[] sha;
+		// 本次同步中文件是否仍然存在
+		volatile boolean seen;
+
+		Entry(long size, long mtime, byte[] sha) {
+			this.size = size;
+			this.mtime = mtime;
+			this.sha = sha;
+		}
+	}
+
+	private final File manifestFile;
+	// 清单的第一行, 不含换行符
+	private final String header;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private FileOutputStream outputStream;
+
+	private SyncManifest(File manifestFile, String bucketName, String cosPath) {
+		this.manifestFile = manifestFile;
+		this.header = HEADER_PREFIX + escape(bucketName) + "\t" + escape(cosPath);
+	}
+
+	/**
+	 * 打开清单文件, 文件不存在时创建空清单
+	 *
+	 * @param manifestPath
+	 *            清单文件路径
+	 * @param bucketName
+	 *            同步的目标bucket
+	 * @param cosPath
+	 *            同步的目标目录
+	 * @return 清单
+	 * @throws IOException
+	 */
+	static SyncManifest open(String manifestPath, String bucketName, String cosPath) throws IOException {
+		File manifestFile = new File(manifestPath).getAbsoluteFile();
+		File dir = manifestFile.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("create manifest dir failed, dir:" + dir);
+		}
+		SyncManifest manifest = new SyncManifest(manifestFile, bucketName, cosPath);
+		if (manifestFile.isFile() && manifest.load()) {
+			manifest.outputStream = new FileOutputStream(manifestFile, true);
+		} else {
+			// 清单不存在或者属于其他同步目标, 重新开始记录
+			manifest.outputStream = new FileOutputStream(manifestFile, false);
+			manifest.outputStream.write((manifest.header + "\n").getBytes(UTF8));
+		}
+		return manifest;
+	}
+
+	File getManifestFile() {
+		return manifestFile;
+	}
+
+	File getTmpFile() {
+		return new File(manifestFile.getPath() + TMP_SUFFIX);
+	}
+
+	// 读取清单中的记录, 清单的同步目标与本次不同时返回false, 不读取任何记录
+	private boolean load() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), UTF8));
+		try {
+			StringBuilder line = new StringBuilder();
+			boolean headerMatched = false;
+			int ch;
+			while ((ch = reader.read()) >= 0) {
+				if (ch != '\n') {
+					line.append((char) ch);
+					continue;
+				}
+				if (headerMatched) {
+					parseLine(line.toString());
+				} else if (line.toString().equals(header)) {
+					headerMatched = true;
+				} else {
+					LOG.warn("discard manifest of other sync target {}, expected {}, file:{}", line, header,
+							manifestFile);
+					return false;
+				}
+				line.setLength(0);
+			}
+			// 最后一个换行之后的内容是进程退出时未写完的记录, 忽略
+			return headerMatched;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void parseLine(String line) {
+		String[] fields = line.split("\t");
+		if (fields.length != 4) {
+			LOG.warn("ignore illegal manifest record {}, file:{}", line, manifestFile);
+			return;
+		}
+		try {
+			Entry entry = new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+					Hex.decodeHex(fields[3].toCharArray()));
+			entries.put(unescape(fields[0]), entry);
+		} catch (NumberFormatException | DecoderException e) {
+			LOG.warn("ignore illegal manifest record {}, file:{}", line, manifestFile);
+		}
+	}
+
+	/**
+	 * @param path
+	 *            文件相对于同步目录的路径
+	 * @return 上次同步时的记录, 没有记录时返回null
+	 */
+	Entry get(String path) {
+		return entries.get(path);
+	}
+
+	// 文件没有变化, 保留上次的记录
+	void keep(Entry entry) {
+		entry.seen = true;
+	}
+
+	// 记录同步成功的文件, 由多个上传线程调用
+	void record(String path, long size, long mtime, String shaHex) {
+		Entry entry = new Entry(size, mtime, hexToBytes(shaHex));
+		entry.seen = true;
+		entries.put(path, entry);
+		append(escape(path) + "\t" + size + "\t" + mtime + "\t" + shaHex + "\n");
+	}
+
+	/**
+	 * 重写清单, 只保留本次同步中仍然存在的文件. 先写入临时文件再替换, 重写失败时原清单仍然可用
+	 *
+	 * @throws IOException
+	 */
+	synchronized void compact() throws IOException {
+		close();
+		File tmpFile = getTmpFile();
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), UTF8));
+		try {
+			writer.write(header);
+			writer.write('\n');
+			for (Map.Entry<String, Entry> item : entries.entrySet()) {
+				String path = item.getKey();
+				Entry entry = item.getValue();
+				if (!entry.seen) {
+					continue;
+				}
+				writer.write(escape(path));
+				writer.write('\t');
+				writer.write(String.valueOf(entry.size));
+				writer.write('\t');
+				writer.write(String.valueOf(entry.mtime));
+				writer.write('\t');
+				writer.write(Hex.encodeHex(entry.sha));
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		Files.move(tmpFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	synchronized void close() {
+		if (this.outputStream == null) {
+			return;
+		}
+		try {
+			this.outputStream.close();
+		} catch (IOException e) {
+			LOG.error("close manifest file {} occur an IOExcpetion {}", manifestFile, e);
+		}
+		this.outputStream = null;
+	}
+
+	// 转义路径中的反斜杠, 制表符和换行符, 使路径不会被拆分为多个字段或者多行
+	static String escape(String path) {
+		if (path.indexOf('\\') < 0 && path.indexOf('\t') < 0 && path.indexOf('\n') < 0) {
+			return path;
+		}
+		StringBuilder sb = new StringBuilder(path.length() + 8);
+		for (int i = 0; i < path.length(); ++i) {
+			char ch = path.charAt(i);
+			if (ch == '\\') {
+				sb.append("\\\\");
+			} else if (ch == '\t') {
+				sb.append("\\t");
+			} else if (ch == '\n') {
+				sb.append("\\n");
+			} else {
+				sb.append(ch);
+			}
+		}
+		return sb.toString();
+	}
+
+	// escape的逆过程, 无法识别的转义保持原样
+	static String unescape(String field) {
+		if (field.indexOf('\\') < 0) {
+			return field;
+		}
+		StringBuilder sb = new StringBuilder(field.length());
+		for (int i = 0; i < field.length(); ++i) {
+			char ch = field.charAt(i);
+			if (ch != '\\' || i + 1 == field.length()) {
+				sb.append(ch);
+				continue;
+			}
+			char next = field.charAt(++i);
+			if (next == 't') {
+				sb.append('\t');
+			} else if (next == 'n') {
+				sb.append('\n');
+			} else if (next == '\\') {
+				sb.append('\\');
+			} else {
+				sb.append(ch).append(next);
+			}
+		}
+		return sb.toString();
+	}
+
+	static byte[] hexToBytes(String shaHex) {
+		try {
+			return Hex.decodeHex(shaHex.toCharArray());
+		} catch (DecoderException e) {
+			throw new IllegalArgumentException("illegal sha " + shaHex);
+		}
+	}
+
+	// 每条记录直接写入文件, 记录失败不影响同步, 只是下次需要重新检查对应的文件
+	private synchronized void append(String record) {
+		if (this.outputStream == null) {
+			LOG.warn("manifest file {} is closed, ignore record {}", manifestFile, record);
+			return;
+		}
+		try {
+			this.outputStream.write(record.getBytes(UTF8));
+		} catch (IOException e) {
+			LOG.warn("write manifest file {} occur an IOExcpetion {}", manifestFile, e);
+		}
+	}
+}
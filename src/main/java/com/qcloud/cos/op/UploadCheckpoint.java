@@ -0,0 +1,166 @@
+package com.qcloud.cos.op;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author chengwu
+ * 分片上传的本地断点记录, 用于进程重启后跳过已经上传成功的分片.
+ * 每个上传对应断点目录下的一个只追加写的文件, 文件名由(appId, bucket, cosPath, 文件大小, 修改时间, sha)计算得到,
+ * 本地文件发生变化后自然不会再命中旧的断点. 文件内容为若干行:
+ * session\t$session\t$sliceSize 表示一次分片上传的会话, 之后的 slice\t$offset 表示该偏移的分片已经上传成功.
+ * 进程在写入过程中退出时最后一行可能不完整, 读取时忽略没有换行结尾的行
+ */
+class UploadCheckpoint {
+
+	private static final Logger LOG = LoggerFactory.getLogger(UploadCheckpoint.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String CHECKPOINT_SUFFIX = ".upload";
+	private static final String SESSION_RECORD = "session";
+	private static final String SLICE_RECORD = "slice";
+
+	private final File checkpointFile;
+	private FileOutputStream outputStream;
+
+	private String session;
+	private int sliceSize;
+	private final Set<Long> finishedOffsets = Collections.synchronizedSet(new HashSet<Long>());
+
+	private UploadCheckpoint(File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	/**
+	 * 打开上传对应的断点记录, 如果已有记录则加载之前的会话以及上传成功的分片
+	 *
+	 * @param checkpointDir
+	 *            断点目录
+	 * @param uploadKey
+	 *            标识一次上传的字符串, 包含目的路径和本地文件的大小, 修改时间等信息
+	 * @return 断点记录
+	 * @throws IOException
+	 */
+	static UploadCheckpoint open(String checkpointDir, String uploadKey) throws IOException {
+		File dir = new File(checkpointDir);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("create checkpoint dir failed, dir:" + checkpointDir);
+		}
+		File checkpointFile = new File(dir, DigestUtils.sha1Hex(uploadKey) + CHECKPOINT_SUFFIX);
+		UploadCheckpoint checkpoint = new UploadCheckpoint(checkpointFile);
+		if (checkpointFile.isFile()) {
+			checkpoint.load();
+		}
+		checkpoint.outputStream = new FileOutputStream(checkpointFile, true);
+		return checkpoint;
+	}
+
+	private void load() throws IOException {
+		byte[] content = Files.readAllBytes(checkpointFile.toPath());
+		String[] lines = new String(content, UTF8).split("\n", -1);
+		// 最后一个换行之后的内容是进程退出时未写完的记录, 忽略
+		for (int i = 0; i < lines.length - 1; ++i) {
+			String[] fields = lines[i].split("\t");
+			try {
+				if (fields.length == 3 && fields[0].equals(SESSION_RECORD)) {
+					// 新的会话使之前会话的分片记录失效
+					this.session = fields[1];
+					this.sliceSize = Integer.parseInt(fields[2]);
+					this.finishedOffsets.clear();
+				} else if (fields.length == 2 && fields[0].equals(SLICE_RECORD) && this.session != null) {
+					this.finishedOffsets.add(Long.parseLong(fields[1]));
+				}
+			} catch (NumberFormatException e) {
+				LOG.warn("ignore illegal checkpoint record {}, file:{}", lines[i], checkpointFile);
+			}
+		}
+	}
+
+	// 是否有可以继续的会话
+	boolean hasSession() {
+		return this.session != null;
+	}
+
+	String getSession() {
+		return session;
+	}
+
+	int getSliceSize() {
+		return sliceSize;
+	}
+
+	int getFinishedSliceCount() {
+		return finishedOffsets.size();
+	}
+
+	boolean isSliceFinished(long offset) {
+		return finishedOffsets.contains(offset);
+	}
+
+	// 记录新的上传会话, 之前的分片记录失效
+	synchronized void recordSession(String session, int sliceSize) {
+		this.session = session;
+		this.sliceSize = sliceSize;
+		this.finishedOffsets.clear();
+		append(SESSION_RECORD + "\t" + session + "\t" + sliceSize + "\n");
+	}
+
+	// 记录上传成功的分片, 并发上传时由多个线程调用
+	synchronized void recordSlice(long offset) {
+		if (this.finishedOffsets.add(offset)) {
+			append(SLICE_RECORD + "\t" + offset + "\n");
+		}
+	}
+
+	// 清空断点记录, 用于记录的会话已经失效的情况
+	synchronized void reset() throws IOException {
+		this.session = null;
+		this.sliceSize = 0;
+		this.finishedOffsets.clear();
+		this.outputStream.getChannel().truncate(0);
+	}
+
+	// 上传完成后删除断点记录
+	synchronized void remove() {
+		close();
+		if (checkpointFile.exists() && !checkpointFile.delete()) {
+			LOG.warn("delete checkpoint file {} failed", checkpointFile);
+		}
+	}
+
+	synchronized void close() {
+		if (this.outputStream == null) {
+			return;
+		}
+		try {
+			this.outputStream.close();
+		} catch (IOException e) {
+			LOG.error("close checkpoint file {} occur an IOExcpetion {}", checkpointFile, e);
+		}
+		this.outputStream = null;
+	}
+
+	// 每条记录直接写入文件, 不在JAVA中缓冲, 进程退出时已写入的记录不会丢失.
+	// 记录失败不影响上传, 只是进程重启后需要重新上传对应的分片
+	private void append(String record) {
+		if (this.outputStream == null) {
+			LOG.warn("checkpoint file {} is closed, ignore record {}", checkpointFile, record);
+			return;
+		}
+		try {
+			this.outputStream.write(record.getBytes(UTF8));
+		} catch (IOException e) {
+			LOG.warn("write checkpoint file {} occur an IOExcpetion {}", checkpointFile, e);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.qcloud.cos.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+
+/**
+ * @author chengwu
+ * 批量请求, 包含多个文件或目录的属性查询, 更新, 移动, 删除和创建目录请求, 多个请求同时执行.
+ * 支持的请求类型为StatFileRequest, StatFolderRequest, UpdateFileRequest, UpdateFolderRequest, MoveFileRequest,
+ * DelFileRequest, DelFolderRequest和CreateFolderRequest
+ */
+public class BatchRequest {
+
+	// 默认同时进行的请求数
+	private static final int DEFAULT_TASK_NUM = 16;
+
+	private List<AbstractBaseRequest> requests;
+	private int taskNum = DEFAULT_TASK_NUM;
+
+	public BatchRequest() {
+		this.requests = new ArrayList<AbstractBaseRequest>();
+	}
+
+	public BatchRequest(List<? extends AbstractBaseRequest> requests) {
+		this.requests = new ArrayList<AbstractBaseRequest>(requests);
+	}
+
+	// 添加一个请求, 结果与请求的添加顺序相同
+	public BatchRequest add(AbstractBaseRequest request) {
+		this.requests.add(request);
+		return this;
+	}
+
+	public List<AbstractBaseRequest> getRequests() {
+		return requests;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同时进行的请求数
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	// 只检查批量请求本身, 每个请求的参数在执行时检查, 参数错误只影响该请求的结果
+	public void check_param() throws ParamException {
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("requestNum:").append(this.requests.size());
+		sb.append(", taskNum:").append(this.taskNum);
+		return sb.toString();
+	}
+}
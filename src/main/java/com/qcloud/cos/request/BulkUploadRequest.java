@@ -0,0 +1,90 @@
+package com.qcloud.cos.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+
+/**
+ * @author chengwu
+ * 批量上传文件请求, 适合大量小文件. 小文件由读取线程预先读入内存, 通过异步客户端上传
+ */
+public class BulkUploadRequest {
+
+	// 默认同时进行的上传请求数
+	private static final int DEFAULT_TASK_NUM = 32;
+	// 默认读取文件的线程数
+	private static final int DEFAULT_READ_THREAD_NUM = 4;
+	// 默认已读入内存尚未上传完成的文件总大小上限
+	private static final long DEFAULT_READ_AHEAD_SIZE = 32 * 1024 * 1024;
+
+	private List<UploadFileRequest> requests;
+	private int taskNum = DEFAULT_TASK_NUM;
+	private int readThreadNum = DEFAULT_READ_THREAD_NUM;
+	private long readAheadSize = DEFAULT_READ_AHEAD_SIZE;
+
+	public BulkUploadRequest() {
+		this.requests = new ArrayList<UploadFileRequest>();
+	}
+
+	public BulkUploadRequest(List<? extends UploadFileRequest> requests) {
+		this.requests = new ArrayList<UploadFileRequest>(requests);
+	}
+
+	// 添加一个上传请求, 结果与请求的添加顺序相同
+	public BulkUploadRequest add(UploadFileRequest request) {
+		this.requests.add(request);
+		return this;
+	}
+
+	public List<UploadFileRequest> getRequests() {
+		return requests;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同时进行的上传请求数
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	public int getReadThreadNum() {
+		return readThreadNum;
+	}
+
+	// 设置读取文件的线程数, 8MB以上的文件在读取线程中按uploadFile上传
+	public void setReadThreadNum(int readThreadNum) {
+		this.readThreadNum = readThreadNum;
+	}
+
+	public long getReadAheadSize() {
+		return readAheadSize;
+	}
+
+	// 设置已读入内存尚未上传完成的文件占用的内存上限, 单位字节. 每个文件按两倍大小计算, 包括文件内容和缓冲的请求包体
+	public void setReadAheadSize(long readAheadSize) {
+		this.readAheadSize = readAheadSize;
+	}
+
+	// 只检查批量请求本身, 每个文件的参数在上传时检查, 参数错误只影响该文件的结果
+	public void check_param() throws ParamException {
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+		CommonParamCheckUtils.AssertLegalTaskNum(this.readThreadNum);
+		if (this.readAheadSize <= 0) {
+			throw new ParamException("readAheadSize must be positive");
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("requestNum:").append(this.requests.size());
+		sb.append(", taskNum:").append(this.taskNum);
+		sb.append(", readThreadNum:").append(this.readThreadNum);
+		sb.append(", readAheadSize:").append(this.readAheadSize);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,86 @@
+package com.qcloud.cos.request;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+
+/**
+ * @author chengwu
+ * 递归删除目录请求, 删除目录下的全部文件和子目录, 最后删除目录本身
+ */
+public class DelFolderRecursiveRequest extends AbstractBaseRequest {
+
+	// 默认每页获取的最大目录成员数量
+	private static final int DEFAULT_LIST_NUM = 199;
+	// 默认同时进行的列表请求数
+	private static final int DEFAULT_LIST_TASK_NUM = 4;
+	// 默认同时进行的删除请求数
+	private static final int DEFAULT_TASK_NUM = 16;
+
+	private int num = DEFAULT_LIST_NUM;
+	private int listTaskNum = DEFAULT_LIST_TASK_NUM;
+	private int taskNum = DEFAULT_TASK_NUM;
+	// 每秒最多发出的删除请求数, 0表示不限制
+	private int qps = 0;
+
+	public DelFolderRecursiveRequest(String bucketName, String cosPath) {
+		super(bucketName, cosPath);
+	}
+
+	public int getNum() {
+		return num;
+	}
+
+	public void setNum(int num) {
+		this.num = num;
+	}
+
+	public int getListTaskNum() {
+		return listTaskNum;
+	}
+
+	// 设置遍历目录时同时进行的列表请求数
+	public void setListTaskNum(int listTaskNum) {
+		this.listTaskNum = listTaskNum;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同时进行的删除请求数
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	public int getQps() {
+		return qps;
+	}
+
+	// 设置每秒最多发出的删除请求数, 0表示不限制
+	public void setQps(int qps) {
+		this.qps = qps;
+	}
+
+	@Override
+	public void check_param() throws ParamException {
+		super.check_param();
+		CommonParamCheckUtils.AssertLegalCosFolderPath(getCosPath());
+		CommonParamCheckUtils.AssertNotRootCosPath(getCosPath());
+		CommonParamCheckUtils.AssertLegalTaskNum(this.listTaskNum);
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+		if (this.qps < 0) {
+			throw new ParamException("qps must be non-negative");
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString());
+		sb.append(", num:").append(this.num);
+		sb.append(", listTaskNum:").append(this.listTaskNum);
+		sb.append(", taskNum:").append(this.taskNum);
+		sb.append(", qps:").append(this.qps);
+		return sb.toString();
+	}
+}
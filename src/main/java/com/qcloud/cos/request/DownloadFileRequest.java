@@ -0,0 +1,70 @@
+package com.qcloud.cos.request;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+
+/**
+ * @author chengwu 下载文件请求, 文件按分块并发下载, 中断后再次下载时跳过已完成的分块
+ */
+public class DownloadFileRequest extends AbstractBaseRequest {
+	// 默认分块大小4MB
+	private static final int DEFAULT_RANGE_SIZE = 4 * 1024 * 1024;
+	// 默认并发下载的分块数, 1表示串行下载
+	private static final int DEFAULT_TASK_NUM = 1;
+
+	// 下载到的本地路径
+	private String localPath;
+	// 每个Range请求下载的字节数
+	private int rangeSize = DEFAULT_RANGE_SIZE;
+	// 同一文件同时下载的分块数
+	private int taskNum = DEFAULT_TASK_NUM;
+
+	public DownloadFileRequest(String bucketName, String cosPath, String localPath) {
+		super(bucketName, cosPath);
+		this.localPath = localPath;
+	}
+
+	public String getLocalPath() {
+		return localPath;
+	}
+
+	public void setLocalPath(String localPath) {
+		this.localPath = localPath;
+	}
+
+	public int getRangeSize() {
+		return rangeSize;
+	}
+
+	public void setRangeSize(int rangeSize) {
+		this.rangeSize = rangeSize;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同一文件同时下载的分块数, 大于1时多个分块通过不同的连接并发下载
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	@Override
+	public void check_param() throws ParamException {
+		super.check_param();
+		CommonParamCheckUtils.AssertLegalCosFilePath(this.getCosPath());
+		CommonParamCheckUtils.AssertNotNull("localPath", this.localPath);
+		CommonParamCheckUtils.AssertLegalRangeSize(this.rangeSize);
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString());
+		sb.append(", local_path:").append(getMemberStringValue(this.localPath));
+		sb.append(", rangeSize:").append(this.rangeSize);
+		sb.append(", taskNum:").append(this.taskNum);
+		return sb.toString();
+	}
+}
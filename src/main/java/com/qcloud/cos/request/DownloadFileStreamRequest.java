@@ -0,0 +1,57 @@
+package com.qcloud.cos.request;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+
+/**
+ * @author chengwu 流式下载请求, 文件内容(或其中的一段)直接写入调用者提供的流, 不在内存中缓存
+ */
+public class DownloadFileStreamRequest extends AbstractBaseRequest {
+	// 下载范围的起始偏移
+	private long rangeStart = 0;
+	// 下载范围的结束偏移(包含), -1表示到文件结尾
+	private long rangeEnd = -1;
+
+	public DownloadFileStreamRequest(String bucketName, String cosPath) {
+		super(bucketName, cosPath);
+	}
+
+	public DownloadFileStreamRequest(String bucketName, String cosPath, long rangeStart, long rangeEnd) {
+		super(bucketName, cosPath);
+		this.rangeStart = rangeStart;
+		this.rangeEnd = rangeEnd;
+	}
+
+	public long getRangeStart() {
+		return rangeStart;
+	}
+
+	public void setRangeStart(long rangeStart) {
+		this.rangeStart = rangeStart;
+	}
+
+	public long getRangeEnd() {
+		return rangeEnd;
+	}
+
+	// 设置下载范围的结束偏移(包含), 与HTTP Range头的含义一致, 超过文件结尾时下载到文件结尾
+	public void setRangeEnd(long rangeEnd) {
+		this.rangeEnd = rangeEnd;
+	}
+
+	@Override
+	public void check_param() throws ParamException {
+		super.check_param();
+		CommonParamCheckUtils.AssertLegalCosFilePath(this.getCosPath());
+		CommonParamCheckUtils.AssertLegalRange(this.rangeStart, this.rangeEnd);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString());
+		sb.append(", rangeStart:").append(this.rangeStart);
+		sb.append(", rangeEnd:").append(this.rangeEnd);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,88 @@
+package com.qcloud.cos.request;
+
+import java.io.File;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+import com.qcloud.cos.meta.InsertOnly;
+
+/**
+ * @author chengwu
+ * 同步目录请求, 把本地目录下的文件上传到cos目录, 跳过上次同步后没有变化的文件
+ */
+public class SyncFolderRequest extends AbstractBaseRequest {
+
+	// 默认同时上传的文件数
+	private static final int DEFAULT_TASK_NUM = 8;
+
+	// 本地目录
+	private String localPath;
+	// 记录已同步文件的清单文件路径, 不能位于本地目录中
+	private String manifestPath;
+	private int taskNum = DEFAULT_TASK_NUM;
+	// 变化的文件需要覆盖cos上的旧文件, 默认覆盖
+	private InsertOnly insertOnly = InsertOnly.OVER_WRITE;
+
+	public SyncFolderRequest(String bucketName, String cosPath, String localPath, String manifestPath) {
+		super(bucketName, cosPath);
+		this.localPath = localPath;
+		this.manifestPath = manifestPath;
+	}
+
+	public String getLocalPath() {
+		return localPath;
+	}
+
+	public void setLocalPath(String localPath) {
+		this.localPath = localPath;
+	}
+
+	public String getManifestPath() {
+		return manifestPath;
+	}
+
+	public void setManifestPath(String manifestPath) {
+		this.manifestPath = manifestPath;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同时上传的文件数
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	public InsertOnly getInsertOnly() {
+		return insertOnly;
+	}
+
+	public void setInsertOnly(InsertOnly insertOnly) {
+		this.insertOnly = insertOnly;
+	}
+
+	@Override
+	public void check_param() throws ParamException {
+		super.check_param();
+		CommonParamCheckUtils.AssertLegalCosFolderPath(getCosPath());
+		CommonParamCheckUtils.AssertNotNull("localPath", this.localPath);
+		CommonParamCheckUtils.AssertNotNull("manifestPath", this.manifestPath);
+		CommonParamCheckUtils.AssertNotNull("insertOnly", this.insertOnly);
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+		if (!new File(this.localPath).isDirectory()) {
+			throw new ParamException("localPath is not a directory, localPath:" + this.localPath);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString());
+		sb.append(", localPath:").append(getMemberStringValue(this.localPath));
+		sb.append(", manifestPath:").append(getMemberStringValue(this.manifestPath));
+		sb.append(", taskNum:").append(this.taskNum);
+		sb.append(", insertOnly:").append(this.insertOnly);
+		return sb.toString();
+	}
+}
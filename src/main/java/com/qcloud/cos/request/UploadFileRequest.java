@@ -1,11 +1,15 @@
 package com.qcloud.cos.request;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
 import com.qcloud.cos.common_utils.CommonParamCheckUtils;
 import com.qcloud.cos.exception.ParamException;
 import com.qcloud.cos.meta.InsertOnly;
 
 /**
- * @author chengwu 上传文件请求,针对文件整体上传，不分片的操作
+ * @author chengwu 上传文件请求,针对文件整体上传，不分片的操作.
+ * 上传的内容可以是本地文件, 也可以是内存中的byte[], ByteBuffer或者InputStream, 后者不经过本地磁盘
  */
 public class UploadFileRequest extends AbstractBaseRequest {
 	// 需要上传的路径
@@ -14,6 +18,14 @@ public class UploadFileRequest extends AbstractBaseRequest {
 	private String bizAttr;
 
 	private InsertOnly insertOnly = InsertOnly.NO_OVER_WRITE;
+	// 调用方预先计算好的整个文件的sha1(16进制小写), 设置后上传时不再读取文件计算sha
+	private String shaDigest = "";
+	// 内存中的上传内容, 上传position到limit之间的数据, 不修改position
+	private ByteBuffer contentBuffer;
+	// 流式的上传内容, 由调用方关闭
+	private InputStream contentStream;
+	// 流的长度, -1表示未知
+	private long contentLength = -1;
 
 	public UploadFileRequest(String bucketName, String cosPath, String localPath, String bizAttr) {
 		super(bucketName, cosPath);
@@ -25,6 +37,42 @@ public class UploadFileRequest extends AbstractBaseRequest {
 		this(bucketName, cosPath, localPath, "");
 	}
 
+	/**
+	 * 上传内存中的数据
+	 * 
+	 * @param content
+	 *            上传的内容, 上传完成前不能修改
+	 */
+	public UploadFileRequest(String bucketName, String cosPath, byte[] content) {
+		this(bucketName, cosPath, content == null ? null : ByteBuffer.wrap(content));
+	}
+
+	/**
+	 * 上传内存中的数据, 支持堆内和直接内存的ByteBuffer
+	 * 
+	 * @param content
+	 *            上传的内容为position到limit之间的数据, 上传不改变content的position, 上传完成前不能修改
+	 */
+	public UploadFileRequest(String bucketName, String cosPath, ByteBuffer content) {
+		this(bucketName, cosPath, (String) null, "");
+		this.contentBuffer = content;
+	}
+
+	/**
+	 * 上传流中的数据
+	 * 
+	 * @param content
+	 *            上传的内容, 读取到流的末尾, 由调用方关闭
+	 * @param contentLength
+	 *            流的长度, -1表示未知. 长度未知且超过8MB的流在上传前整个读入内存, 内存占用等于流的长度,
+	 *            超过ClientConfig的maxStreamBufferSize(默认64MB)时上传失败
+	 */
+	public UploadFileRequest(String bucketName, String cosPath, InputStream content, long contentLength) {
+		this(bucketName, cosPath, (String) null, "");
+		this.contentStream = content;
+		this.contentLength = contentLength;
+	}
+
 	public String getBizAttr() {
 		return bizAttr;
 	}
@@ -50,20 +98,68 @@ public class UploadFileRequest extends AbstractBaseRequest {
 		this.insertOnly = insertOnly;
 	}
 
+	public String getShaDigest() {
+		return shaDigest;
+	}
+
+	public void setShaDigest(String shaDigest) {
+		this.shaDigest = shaDigest;
+	}
+
+	public ByteBuffer getContentBuffer() {
+		return contentBuffer;
+	}
+
+	public InputStream getContentStream() {
+		return contentStream;
+	}
+
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	// 上传的内容是否来自内存或者流, 而不是本地文件
+	public boolean hasContentSource() {
+		return this.contentBuffer != null || this.contentStream != null;
+	}
+
+	// 复制上传内容的来源
+	void copyContentSource(UploadFileRequest request) {
+		this.contentBuffer = request.contentBuffer;
+		this.contentStream = request.contentStream;
+		this.contentLength = request.contentLength;
+	}
+
 	@Override
 	public void check_param() throws ParamException {
 		super.check_param();
 		CommonParamCheckUtils.AssertLegalCosFilePath(this.getCosPath());
-		CommonParamCheckUtils.AssertLegalLocalFilePath(this.localPath);
+		if (hasContentSource()) {
+			if (this.contentLength < -1) {
+				throw new ParamException("contentLength must be non-negative or -1");
+			}
+		} else {
+			CommonParamCheckUtils.AssertLegalLocalFilePath(this.localPath);
+		}
 		CommonParamCheckUtils.AssertNotNull("biz_attr", this.bizAttr);
 		CommonParamCheckUtils.AssertNotNull("insertOnly", this.insertOnly);
+		CommonParamCheckUtils.AssertNotNull("shaDigest", this.shaDigest);
+		if (!this.shaDigest.isEmpty()) {
+			CommonParamCheckUtils.AssertLegalSha1Digest(this.shaDigest);
+		}
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append(super.toString());
-		sb.append(", local_path:").append(getMemberStringValue(this.localPath));
+		if (this.contentBuffer != null) {
+			sb.append(", contentBuffer:").append(this.contentBuffer.remaining());
+		} else if (this.contentStream != null) {
+			sb.append(", contentStream:").append(this.contentLength);
+		} else {
+			sb.append(", local_path:").append(getMemberStringValue(this.localPath));
+		}
 		sb.append(", bizAttr:").append(getMemberStringValue(this.bizAttr));
 		sb.append(", insertOnly:");
 		if (this.insertOnly == null) {
@@ -71,6 +167,7 @@ public class UploadFileRequest extends AbstractBaseRequest {
 		} else {
 			sb.append(this.insertOnly.ordinal());
 		}
+		sb.append(", shaDigest:").append(getMemberStringValue(this.shaDigest));
 		return sb.toString();
 	}
 }
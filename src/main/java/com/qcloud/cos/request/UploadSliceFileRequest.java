@@ -1,5 +1,6 @@
 package com.qcloud.cos.request;
 
+import com.qcloud.cos.common_utils.CommonCodecUtils;
 import com.qcloud.cos.common_utils.CommonParamCheckUtils;
 import com.qcloud.cos.exception.ParamException;
 
@@ -9,12 +10,22 @@ import com.qcloud.cos.exception.ParamException;
 public class UploadSliceFileRequest extends UploadFileRequest {
 	// 默认分片大小1MB
 	private static final int DEFAULT_SLICE_SIZE = 1024 * 1024;
+	// 默认并发上传的分片数, 1表示串行上传
+	private static final int DEFAULT_TASK_NUM = 1;
 
 	private int sliceSize = DEFAULT_SLICE_SIZE;
+	// 同一文件同时上传的分片数
+	private int taskNum = DEFAULT_TASK_NUM;
+	// 是否在读取分片的同时计算整个文件的sha, 文件只读取一次, sha随最后一个分片发送
+	private boolean enablePipelineSha = false;
+	// 是否在初始化分片上传时携带各分片的sha1清单(uploadparts), 由服务端按分片校验
+	private boolean enableUploadParts = false;
 
 	public UploadSliceFileRequest(UploadFileRequest request) {
 		super(request.getBucketName(), request.getCosPath(), request.getLocalPath(), request.getBizAttr());
 		this.setInsertOnly(request.getInsertOnly());
+		this.setShaDigest(request.getShaDigest());
+		this.copyContentSource(request);
 	}
 
 	public UploadSliceFileRequest(String bucketName, String cosPath, String localPath, int sliceSize) {
@@ -29,11 +40,43 @@ public class UploadSliceFileRequest extends UploadFileRequest {
 	public void setSliceSize(int sliceSize) {
 		this.sliceSize = sliceSize;
 	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同一文件同时上传的分片数, 大于1时启用并发分片上传, 最后一个分片总是在其他分片成功后上传
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
 	
+	public boolean isEnablePipelineSha() {
+		return enablePipelineSha;
+	}
+
+	// 开启后不再在上传前单独读取整个文件计算sha, 文件完成后多一次stat请求校验服务端的sha, 已设置shaDigest时此选项无效
+	public void setEnablePipelineSha(boolean enablePipelineSha) {
+		this.enablePipelineSha = enablePipelineSha;
+	}
+
+	public boolean isEnableUploadParts() {
+		return enableUploadParts;
+	}
+
+	// 开启后初始化请求携带分片清单, 清单与整个文件的sha在同一遍顺序读取中计算, 要求分片大小是64的整数倍
+	public void setEnableUploadParts(boolean enableUploadParts) {
+		this.enableUploadParts = enableUploadParts;
+	}
+
 	@Override
 	public void check_param() throws ParamException {
 		super.check_param();
 		CommonParamCheckUtils.AssertLegalSliceSize(this.sliceSize);
+		if (this.enableUploadParts && this.sliceSize % CommonCodecUtils.SHA1_BLOCK_SIZE != 0) {
+			throw new ParamException("slice size must be a multiple of " + CommonCodecUtils.SHA1_BLOCK_SIZE
+					+ " when uploadparts is enabled");
+		}
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
 	}
 	
 	@Override
@@ -41,6 +84,9 @@ public class UploadSliceFileRequest extends UploadFileRequest {
 		StringBuilder sb = new StringBuilder();
 		sb.append(super.toString());
 		sb.append(", sliceSize:").append(this.sliceSize);
+		sb.append(", taskNum:").append(this.taskNum);
+		sb.append(", enablePipelineSha:").append(this.enablePipelineSha);
+		sb.append(", enableUploadParts:").append(this.enableUploadParts);
 		return sb.toString();
 	}
 		
@@ -0,0 +1,83 @@
+package com.qcloud.cos.request;
+
+import com.qcloud.cos.common_utils.CommonParamCheckUtils;
+import com.qcloud.cos.exception.ParamException;
+import com.qcloud.cos.meta.ListPattern;
+
+/**
+ * @author chengwu
+ * 递归遍历目录树请求, 多个目录同时列出
+ */
+public class WalkFolderRequest extends AbstractBaseRequest {
+
+	// 默认每页获取的最大目录成员数量
+	private static final int DEFAULT_LIST_NUM = 199;
+	// 默认同时进行的列表请求数
+	private static final int DEFAULT_TASK_NUM = 8;
+
+	// 遍历的最大深度, 根目录的成员深度为1, -1表示不限制
+	private int maxDepth = -1;
+	// 返回的成员类型, 不影响对子目录的遍历
+	private ListPattern pattern = ListPattern.BOTH;
+	private int num = DEFAULT_LIST_NUM;
+	private int taskNum = DEFAULT_TASK_NUM;
+
+	public WalkFolderRequest(String bucketName, String cosPath) {
+		super(bucketName, cosPath);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	public ListPattern getPattern() {
+		return pattern;
+	}
+
+	public void setPattern(ListPattern pattern) {
+		this.pattern = pattern;
+	}
+
+	public int getNum() {
+		return num;
+	}
+
+	public void setNum(int num) {
+		this.num = num;
+	}
+
+	public int getTaskNum() {
+		return taskNum;
+	}
+
+	// 设置同时进行的列表请求数, 即遍历使用的线程数
+	public void setTaskNum(int taskNum) {
+		this.taskNum = taskNum;
+	}
+
+	@Override
+	public void check_param() throws ParamException {
+		super.check_param();
+		CommonParamCheckUtils.AssertLegalCosFolderPath(getCosPath());
+		CommonParamCheckUtils.AssertNotNull("pattern", this.pattern);
+		CommonParamCheckUtils.AssertLegalTaskNum(this.taskNum);
+		if (this.maxDepth < -1 || this.maxDepth == 0) {
+			throw new ParamException("maxDepth must be positive or -1");
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(super.toString());
+		sb.append(", maxDepth:").append(this.maxDepth);
+		sb.append(", pattern:").append(this.pattern);
+		sb.append(", num:").append(this.num);
+		sb.append(", taskNum:").append(this.taskNum);
+		return sb.toString();
+	}
+}
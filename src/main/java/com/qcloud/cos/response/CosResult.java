@@ -0,0 +1,71 @@
+package com.qcloud.cos.response;
+
+import org.json.JSONException;
+
+import com.qcloud.cos.ErrorCode;
+import com.qcloud.cos.http.ResponseBodyKey;
+
+/**
+ * @author chengwu
+ * COS接口返回结果的基类, 保留原始的JSON字符串, 字段在第一次访问时才从原始字符串中解码, 不构建JSON对象树
+ */
+public class CosResult {
+
+	private final String rawResult;
+	private LazyJsonObject resultJson;
+	private LazyJsonObject dataJson;
+
+	/**
+	 * @param rawResult
+	 *            COS接口返回的JSON格式的字符串
+	 */
+	public CosResult(String rawResult) {
+		this.rawResult = rawResult;
+	}
+
+	/**
+	 * @return COS接口返回的原始JSON字符串
+	 */
+	public String getRawResult() {
+		return rawResult;
+	}
+
+	/**
+	 * @return 返回码, 0表示成功
+	 * @throws JSONException
+	 *             原始结果不是合法的JSON对象
+	 */
+	public int getCode() {
+		return getResultJson().getInt(ResponseBodyKey.CODE, ErrorCode.UNKNOWN_ERROR);
+	}
+
+	public String getMessage() {
+		return getResultJson().getString(ResponseBodyKey.MESSAGE);
+	}
+
+	public boolean isSuccess() {
+		return getCode() == 0;
+	}
+
+	// 原始结果只校验一次, 并发访问时可能重复校验, 结果相同
+	LazyJsonObject getResultJson() {
+		if (resultJson == null) {
+			resultJson = LazyJsonObject.parse(rawResult);
+		}
+		return resultJson;
+	}
+
+	// 返回data字段, 不存在时返回一个空对象
+	LazyJsonObject getDataJson() {
+		if (dataJson == null) {
+			LazyJsonObject data = getResultJson().getObject(ResponseBodyKey.DATA);
+			dataJson = data != null ? data : LazyJsonObject.parse("{}");
+		}
+		return dataJson;
+	}
+
+	@Override
+	public String toString() {
+		return rawResult;
+	}
+}
@@ -0,0 +1,26 @@
+package com.qcloud.cos.response;
+
+/**
+ * @author chengwu
+ * 接收递归删除的进度, 每个文件或目录的删除请求完成时回调一次. 在多个线程中同时被调用, 不能有耗时操作
+ */
+public interface DelProgressListener {
+
+	/**
+	 * 删除成功
+	 *
+	 * @param cosPath
+	 *            被删除的cos路径, 目录以/结尾
+	 */
+	void onDeleted(String cosPath);
+
+	/**
+	 * 删除失败
+	 *
+	 * @param cosPath
+	 *            删除失败的cos路径, 目录以/结尾
+	 * @param result
+	 *            JSON格式的失败结果, 格式为{"code":$code, "message":"$mess"}
+	 */
+	void onFailed(String cosPath, String result);
+}
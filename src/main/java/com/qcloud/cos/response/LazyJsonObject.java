@@ -0,0 +1,269 @@
+package com.qcloud.cos.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+
+/**
+ * @author chengwu
+ * JSON对象的只读视图, 直接在原始字符串上按需查找字段, 不构建对象树. 只有访问到的字段才会被解码,
+ * 未访问的字段(如列表中不关心的属性)只被跳过. 括号和引号的配对在创建时已校验过, 查找字段时不再检查越界
+ */
+class LazyJsonObject {
+
+	private final String text;
+	// '{'在text中的位置
+	private final int start;
+
+	private LazyJsonObject(String text, int start) {
+		this.text = text;
+		this.start = start;
+	}
+
+	/**
+	 * 校验text是一个完整的JSON对象, 并返回它的视图
+	 *
+	 * @param text
+	 *            JSON字符串
+	 * @return JSON对象的视图
+	 * @throws JSONException
+	 *             text不是合法的JSON对象
+	 */
+	static LazyJsonObject parse(String text) throws JSONException {
+		try {
+			int pos = skipWhitespace(text, 0);
+			if (text.charAt(pos) != '{') {
+				throw new JSONException("result is not a json object: " + text);
+			}
+			if (skipWhitespace(text, skipValue(text, pos)) != text.length()) {
+				throw new JSONException("unexpected content after json object: " + text);
+			}
+			return new LazyJsonObject(text, pos);
+		} catch (IndexOutOfBoundsException e) {
+			throw new JSONException("incomplete json object: " + text);
+		}
+	}
+
+	boolean has(String key) {
+		return findField(key) >= 0;
+	}
+
+	/**
+	 * 获取字段的字符串值, 非字符串类型的值返回其JSON文本
+	 *
+	 * @return 字段不存在或为null时返回null
+	 */
+	String getString(String key) {
+		int pos = findField(key);
+		if (pos < 0) {
+			return null;
+		}
+		if (text.charAt(pos) == '"') {
+			return decodeString(pos);
+		}
+		String literal = text.substring(pos, skipValue(text, pos));
+		return literal.equals("null") ? null : literal;
+	}
+
+	long getLong(String key, long defaultValue) {
+		String value = getString(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			try {
+				return (long) Double.parseDouble(value);
+			} catch (NumberFormatException e1) {
+				throw new JSONException("field " + key + " is not a number: " + value);
+			}
+		}
+	}
+
+	int getInt(String key, int defaultValue) {
+		return (int) getLong(key, defaultValue);
+	}
+
+	boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		return value.equalsIgnoreCase("true");
+	}
+
+	/**
+	 * @return 字段不存在或者不是对象时返回null
+	 */
+	LazyJsonObject getObject(String key) {
+		int pos = findField(key);
+		if (pos < 0 || text.charAt(pos) != '{') {
+			return null;
+		}
+		return new LazyJsonObject(text, pos);
+	}
+
+	/**
+	 * 获取对象数组字段, 只定位每个元素的位置, 不解码元素的字段
+	 *
+	 * @return 字段不存在或者不是数组时返回空列表, 非对象的元素被忽略
+	 */
+	List<LazyJsonObject> getObjectArray(String key) {
+		List<LazyJsonObject> elements = new ArrayList<LazyJsonObject>();
+		int pos = findField(key);
+		if (pos < 0 || text.charAt(pos) != '[') {
+			return elements;
+		}
+		pos = skipWhitespace(text, pos + 1);
+		while (text.charAt(pos) != ']') {
+			if (text.charAt(pos) == '{') {
+				elements.add(new LazyJsonObject(text, pos));
+			}
+			pos = skipWhitespace(text, skipValue(text, pos));
+			if (text.charAt(pos) == ',') {
+				pos = skipWhitespace(text, pos + 1);
+			}
+		}
+		return elements;
+	}
+
+	// 返回字段值在text中的起始位置, 字段不存在时返回-1
+	private int findField(String key) {
+		int pos = skipWhitespace(text, start + 1);
+		while (text.charAt(pos) == '"') {
+			int keyEnd = skipString(text, pos);
+			boolean matched = keyEquals(pos, keyEnd, key);
+			pos = skipWhitespace(text, keyEnd);
+			// 跳过':'
+			pos = skipWhitespace(text, pos + 1);
+			if (matched) {
+				return pos;
+			}
+			pos = skipWhitespace(text, skipValue(text, pos));
+			if (text.charAt(pos) != ',') {
+				break;
+			}
+			pos = skipWhitespace(text, pos + 1);
+		}
+		return -1;
+	}
+
+	private boolean keyEquals(int keyStart, int keyEnd, String key) {
+		if (hasEscape(keyStart + 1, keyEnd - 1)) {
+			return decodeString(keyStart).equals(key);
+		}
+		return keyEnd - keyStart - 2 == key.length() && text.regionMatches(keyStart + 1, key, 0, key.length());
+	}
+
+	private boolean hasEscape(int from, int to) {
+		for (int i = from; i < to; ++i) {
+			if (text.charAt(i) == '\\') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String decodeString(int pos) {
+		int end = skipString(text, pos) - 1;
+		if (!hasEscape(pos + 1, end)) {
+			return text.substring(pos + 1, end);
+		}
+		StringBuilder sb = new StringBuilder(end - pos);
+		for (int i = pos + 1; i < end; ++i) {
+			char ch = text.charAt(i);
+			if (ch != '\\') {
+				sb.append(ch);
+				continue;
+			}
+			ch = text.charAt(++i);
+			switch (ch) {
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				sb.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+				i += 4;
+				break;
+			default:
+				sb.append(ch);
+				break;
+			}
+		}
+		return sb.toString();
+	}
+
+	private static int skipWhitespace(String text, int pos) {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+			++pos;
+		}
+		return pos;
+	}
+
+	// pos为值的起始位置, 返回值结束后的位置
+	private static int skipValue(String text, int pos) {
+		char ch = text.charAt(pos);
+		if (ch == '"') {
+			return skipString(text, pos);
+		}
+		if (ch == '{' || ch == '[') {
+			return skipContainer(text, pos);
+		}
+		int end = pos;
+		while (end < text.length() && ",}] \t\r\n".indexOf(text.charAt(end)) < 0) {
+			++end;
+		}
+		if (end == pos) {
+			throw new JSONException("unexpected character '" + ch + "' at " + pos);
+		}
+		return end;
+	}
+
+	private static int skipString(String text, int pos) {
+		int i = pos + 1;
+		while (true) {
+			char ch = text.charAt(i);
+			if (ch == '\\') {
+				i += 2;
+			} else if (ch == '"') {
+				return i + 1;
+			} else {
+				++i;
+			}
+		}
+	}
+
+	private static int skipContainer(String text, int pos) {
+		int depth = 0;
+		int i = pos;
+		while (true) {
+			char ch = text.charAt(i);
+			if (ch == '"') {
+				i = skipString(text, i);
+				continue;
+			}
+			if (ch == '{' || ch == '[') {
+				++depth;
+			} else if (ch == '}' || ch == ']') {
+				if (--depth == 0) {
+					return i + 1;
+				}
+			}
+			++i;
+		}
+	}
+}
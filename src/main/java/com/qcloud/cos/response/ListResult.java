@@ -0,0 +1,47 @@
+package com.qcloud.cos.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+
+/**
+ * @author chengwu
+ * 获取目录列表的结果. 列表项只定位不解码, 每一项的字段在访问时才解码
+ */
+public class ListResult extends CosResult {
+
+	private List<ObjectInfo> infos;
+
+	public ListResult(String rawResult) {
+		super(rawResult);
+	}
+
+	/**
+	 * @return 翻页的上下文, 作为下一次列表请求的context
+	 */
+	public String getContext() {
+		return getDataJson().getString(ResponseBodyKey.Data.CONTEXT);
+	}
+
+	/**
+	 * @return 是否已经列出全部文件和目录
+	 */
+	public boolean isListOver() {
+		return getDataJson().getBoolean(ResponseBodyKey.Data.LISTOVER, true);
+	}
+
+	/**
+	 * @return 本页的文件和目录, 请求失败时为空列表
+	 */
+	public List<ObjectInfo> getInfos() {
+		if (infos == null) {
+			List<ObjectInfo> pageInfos = new ArrayList<ObjectInfo>();
+			for (LazyJsonObject infoJson : getDataJson().getObjectArray(ResponseBodyKey.Data.INFOS)) {
+				pageInfos.add(new ObjectInfo(infoJson));
+			}
+			infos = pageInfos;
+		}
+		return infos;
+	}
+}
@@ -0,0 +1,65 @@
+package com.qcloud.cos.response;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+
+/**
+ * @author chengwu
+ * 文件或者目录的属性, 来自获取属性的结果或者目录列表中的一项, 字段在访问时才解码
+ */
+public class ObjectInfo {
+
+	private final LazyJsonObject infoJson;
+
+	ObjectInfo(LazyJsonObject infoJson) {
+		this.infoJson = infoJson;
+	}
+
+	public String getName() {
+		return infoJson.getString(ResponseBodyKey.Data.NAME);
+	}
+
+	public String getBizAttr() {
+		return infoJson.getString(ResponseBodyKey.Data.BIZ_ATTR);
+	}
+
+	// 目录没有大小, 返回-1
+	public long getFileSize() {
+		return infoJson.getLong(ResponseBodyKey.Data.FILESIZE, -1);
+	}
+
+	public String getSha() {
+		return infoJson.getString(ResponseBodyKey.Data.SHA);
+	}
+
+	public long getCtime() {
+		return infoJson.getLong(ResponseBodyKey.Data.CTIME, 0);
+	}
+
+	public long getMtime() {
+		return infoJson.getLong(ResponseBodyKey.Data.MTIME, 0);
+	}
+
+	public String getAccessUrl() {
+		return infoJson.getString(ResponseBodyKey.Data.ACCESS_URL);
+	}
+
+	public String getSourceUrl() {
+		return infoJson.getString(ResponseBodyKey.Data.SOURCE_URL);
+	}
+
+	// 目录没有filesize字段
+	public boolean isFolder() {
+		return !infoJson.has(ResponseBodyKey.Data.FILESIZE);
+	}
+
+	/**
+	 * 获取其他字段的字符串值
+	 *
+	 * @param key
+	 *            字段名
+	 * @return 字段不存在时返回null
+	 */
+	public String getString(String key) {
+		return infoJson.getString(key);
+	}
+}
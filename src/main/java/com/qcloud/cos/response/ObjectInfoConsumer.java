@@ -0,0 +1,16 @@
+package com.qcloud.cos.response;
+
+/**
+ * @author chengwu
+ * 接收遍历目录树得到的文件和目录, 会在多个线程中同时被调用, 实现需要线程安全
+ */
+public interface ObjectInfoConsumer {
+
+	/**
+	 * @param cosPath
+	 *            文件或者目录的完整cos路径, 目录以/结尾
+	 * @param info
+	 *            文件或者目录的属性
+	 */
+	void accept(String cosPath, ObjectInfo info);
+}
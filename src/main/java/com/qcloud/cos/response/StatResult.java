@@ -0,0 +1,24 @@
+package com.qcloud.cos.response;
+
+/**
+ * @author chengwu
+ * 获取文件或者目录属性的结果
+ */
+public class StatResult extends CosResult {
+
+	private ObjectInfo info;
+
+	public StatResult(String rawResult) {
+		super(rawResult);
+	}
+
+	/**
+	 * @return 文件或者目录的属性, 请求失败时各字段为空
+	 */
+	public ObjectInfo getInfo() {
+		if (info == null) {
+			info = new ObjectInfo(getDataJson());
+		}
+		return info;
+	}
+}
@@ -0,0 +1,51 @@
+package com.qcloud.cos.response;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+
+/**
+ * @author chengwu
+ * 上传文件的结果, 也用于分片上传的控制分片和数据分片的结果
+ */
+public class UploadResult extends CosResult {
+
+	public UploadResult(String rawResult) {
+		super(rawResult);
+	}
+
+	public String getAccessUrl() {
+		return getDataJson().getString(ResponseBodyKey.Data.ACCESS_URL);
+	}
+
+	public String getUrl() {
+		return getDataJson().getString(ResponseBodyKey.Data.URL);
+	}
+
+	public String getResourcePath() {
+		return getDataJson().getString(ResponseBodyKey.Data.RESOURCE_PATH);
+	}
+
+	public String getSourceUrl() {
+		return getDataJson().getString(ResponseBodyKey.Data.SOURCE_URL);
+	}
+
+	/**
+	 * @return 服务端是否已经完成文件, 包括命中秒传
+	 */
+	public boolean isFinished() {
+		return isSuccess() && getDataJson().has(ResponseBodyKey.Data.ACCESS_URL);
+	}
+
+	// 以下为分片上传控制分片返回的字段
+
+	public String getSession() {
+		return getDataJson().getString(ResponseBodyKey.Data.SESSION);
+	}
+
+	public int getSliceSize() {
+		return getDataJson().getInt(ResponseBodyKey.Data.SLICE_SIZE, 0);
+	}
+
+	public long getOffset() {
+		return getDataJson().getLong(ResponseBodyKey.Data.OFFSET, 0);
+	}
+}
@@ -1,8 +1,7 @@
 package com.qcloud.cos.sign;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
-import com.qcloud.cos.common_utils.CommonCodecUtils;
 import com.qcloud.cos.common_utils.CommonPathUtils;
 import com.qcloud.cos.exception.AbstractCosException;
 import com.qcloud.cos.exception.UnknownException;
@@ -34,28 +33,26 @@ public class Sign {
 		String secretId = cred.getSecretId();
 		String secretKey = cred.getSecretKey();
 		long now = System.currentTimeMillis() / 1000;
-		int rdm = Math.abs(new Random().nextInt());
+		int rdm = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
 		String fileId = null;
 		if (uploadFlag) {
-			fileId = String.format("/%s/%s%s", appId, bucketName, cosPath);
+			fileId = new StringBuilder().append("/").append(appId).append("/").append(bucketName).append(cosPath)
+					.toString();
 		} else {
 			fileId = cosPath;
 		}
 		fileId = CommonPathUtils.encodeRemotePath(fileId);
-		String plainText = String.format("a=%s&k=%s&e=%d&t=%d&r=%d&f=%s&b=%s", appId, secretId, expired, now, rdm,
-				fileId, bucketName);
 
-		byte[] hmacDigest;
+		// 原文格式为a=$appId&k=$secretId&e=$expired&t=$now&r=$rdm&f=$fileId&b=$bucketName
+		SignEngine engine = SignEngine.current();
+		engine.append("a=").append(appId).append("&k=").append(secretId).append("&e=").append(expired)
+				.append("&t=").append(now).append("&r=").append(rdm).append("&f=").append(fileId).append("&b=")
+				.append(bucketName);
 		try {
-			hmacDigest = CommonCodecUtils.HmacSha1(plainText, secretKey);
+			return engine.sign(secretKey);
 		} catch (Exception e) {
 			throw new UnknownException(e.getMessage());
 		}
-		byte[] signContent = new byte[hmacDigest.length + plainText.getBytes().length];
-		System.arraycopy(hmacDigest, 0, signContent, 0, hmacDigest.length);
-		System.arraycopy(plainText.getBytes(), 0, signContent, hmacDigest.length, plainText.getBytes().length);
-
-		return CommonCodecUtils.Base64Encode(signContent);
 	}
 
 	/**
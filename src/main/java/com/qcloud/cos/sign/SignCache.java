@@ -0,0 +1,138 @@
+package com.qcloud.cos.sign;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.qcloud.cos.exception.AbstractCosException;
+
+/**
+ * @author chengwu 多次签名和下载签名的缓存, 同一路径在签名有效期内复用已生成的签名.
+ * 签名的剩余有效期不足一半时重新生成, 保证复用的签名在请求发出后仍有足够的有效期. 单次签名只能使用一次, 不缓存
+ */
+public class SignCache {
+
+	// 签名类型, 不同类型的签名内容不同
+	private static final String KIND_PERIOD = "period";
+	private static final String KIND_DOWNLOAD = "download";
+
+	private final int maxSize;
+	private final ConcurrentHashMap<String, SignEntry> signMap = new ConcurrentHashMap<String, SignEntry>();
+
+	private static class SignEntry {
+		private final String sign;
+		// 签名过期时间, UNIX时间戳
+		private final long expired;
+
+		SignEntry(String sign, long expired) {
+			this.sign = sign;
+			this.expired = expired;
+		}
+	}
+
+	/**
+	 * @param maxSize
+	 *            缓存的最大签名数, 超出时先淘汰需要刷新的签名, 仍然超出时随机淘汰
+	 */
+	public SignCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 获取多次签名, 缓存中的签名剩余有效期超过signExpired的一半时直接返回
+	 *
+	 * @param bucketName
+	 *            bucket名称
+	 * @param cosPath
+	 *            要签名的cos路径
+	 * @param cred
+	 *            用户的身份信息, 包括appid, secret_id和secret_key
+	 * @param signExpired
+	 *            签名有效期, 单位秒
+	 * @return base64编码的字符串
+	 * @throws AbstractCosException
+	 */
+	public String getPeriodEffectiveSign(String bucketName, String cosPath, Credentials cred, long signExpired)
+			throws AbstractCosException {
+		String key = buildKey(KIND_PERIOD, bucketName, cosPath, cred);
+		long now = System.currentTimeMillis() / 1000;
+		SignEntry entry = signMap.get(key);
+		if (entry != null && !needRefresh(entry, now, signExpired)) {
+			return entry.sign;
+		}
+		String sign = Sign.getPeriodEffectiveSign(bucketName, cosPath, cred, now + signExpired);
+		putEntry(key, new SignEntry(sign, now + signExpired), now, signExpired);
+		return sign;
+	}
+
+	/**
+	 * 获取下载签名, 缓存中的签名剩余有效期超过signExpired的一半时直接返回
+	 *
+	 * @param bucketName
+	 *            bucket名称
+	 * @param cosPath
+	 *            要签名的cos路径
+	 * @param cred
+	 *            用户的身份信息, 包括appid, secret_id和secret_key
+	 * @param signExpired
+	 *            签名有效期, 单位秒
+	 * @return base64编码的字符串
+	 * @throws AbstractCosException
+	 */
+	public String getDownLoadSign(String bucketName, String cosPath, Credentials cred, long signExpired)
+			throws AbstractCosException {
+		String key = buildKey(KIND_DOWNLOAD, bucketName, cosPath, cred);
+		long now = System.currentTimeMillis() / 1000;
+		SignEntry entry = signMap.get(key);
+		if (entry != null && !needRefresh(entry, now, signExpired)) {
+			return entry.sign;
+		}
+		String sign = Sign.getDownLoadSign(bucketName, cosPath, cred, now + signExpired);
+		putEntry(key, new SignEntry(sign, now + signExpired), now, signExpired);
+		return sign;
+	}
+
+	// 清空缓存, 更换密钥后已缓存的签名不再有效
+	public void clear() {
+		signMap.clear();
+	}
+
+	public int size() {
+		return signMap.size();
+	}
+
+	private String buildKey(String kind, String bucketName, String cosPath, Credentials cred) {
+		return new StringBuilder().append(kind).append("\t").append(cred.getAppId()).append("\t")
+				.append(cred.getSecretId()).append("\t").append(bucketName).append("\t").append(cosPath)
+				.toString();
+	}
+
+	private boolean needRefresh(SignEntry entry, long now, long signExpired) {
+		return entry.expired - now <= signExpired / 2;
+	}
+
+	private void putEntry(String key, SignEntry entry, long now, long signExpired) {
+		if (maxSize <= 0) {
+			return;
+		}
+		if (signMap.size() >= maxSize && !signMap.containsKey(key)) {
+			evict(now, signExpired);
+		}
+		signMap.put(key, entry);
+	}
+
+	// 淘汰需要刷新的签名, 仍然没有空间时淘汰任意签名, 直到低于上限
+	private void evict(long now, long signExpired) {
+		Iterator<Map.Entry<String, SignEntry>> iter = signMap.entrySet().iterator();
+		while (iter.hasNext()) {
+			if (needRefresh(iter.next().getValue(), now, signExpired)) {
+				iter.remove();
+			}
+		}
+		iter = signMap.entrySet().iterator();
+		while (signMap.size() >= maxSize && iter.hasNext()) {
+			iter.next();
+			iter.remove();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.qcloud.cos.sign;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * @author chengwu 生成签名的引擎, 每个线程一个实例.
+ * 复用已初始化的Mac(秘钥不变时不重新初始化), 签名原文直接拼接到可复用的字节数组中, BASE64编码到可复用的字符数组中,
+ * 生成一次签名除了结果字符串外几乎不产生临时对象
+ */
+final class SignEngine {
+
+	private static final String HMAC_SHA1 = "HmacSHA1";
+	private static final int HMAC_SHA1_LENGTH = 20;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final char[] BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+
+	private static final ThreadLocal<SignEngine> ENGINES = new ThreadLocal<SignEngine>() {
+		@Override
+		protected SignEngine initialValue() {
+			return new SignEngine();
+		}
+	};
+
+	private Mac mac;
+	// mac当前使用的秘钥
+	private String macKey;
+	// 前20字节为HMAC结果, 之后为签名原文
+	private byte[] content = new byte[256];
+	private int length = HMAC_SHA1_LENGTH;
+	private char[] encoded = new char[344];
+
+	private SignEngine() {
+	}
+
+	/**
+	 * 获取当前线程的签名引擎, 并清空上一次的签名原文
+	 *
+	 * @return 当前线程的签名引擎
+	 */
+	static SignEngine current() {
+		SignEngine engine = ENGINES.get();
+		engine.length = HMAC_SHA1_LENGTH;
+		return engine;
+	}
+
+	/**
+	 * 向签名原文追加字符串, 非ASCII字符按UTF-8编码
+	 *
+	 * @param str
+	 *            追加的字符串
+	 * @return 签名引擎本身
+	 */
+	SignEngine append(String str) {
+		int strLength = str.length();
+		ensureCapacity(strLength);
+		for (int i = 0; i < strLength; ++i) {
+			char ch = str.charAt(i);
+			if (ch >= 0x80) {
+				// 含有非ASCII字符的部分整体按UTF-8编码
+				byte[] bytes = str.substring(i).getBytes(UTF8);
+				ensureCapacity(bytes.length);
+				System.arraycopy(bytes, 0, content, length, bytes.length);
+				length += bytes.length;
+				return this;
+			}
+			content[length++] = (byte) ch;
+		}
+		return this;
+	}
+
+	/**
+	 * 向签名原文追加十进制整数
+	 *
+	 * @param value
+	 *            追加的整数
+	 * @return 签名引擎本身
+	 */
+	SignEngine append(long value) {
+		// long的十进制表示最多20个字符(含负号)
+		ensureCapacity(20);
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				return append(String.valueOf(value));
+			}
+			content[length++] = '-';
+			value = -value;
+		}
+		int start = length;
+		do {
+			content[length++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		for (int left = start, right = length - 1; left < right; ++left, --right) {
+			byte tmp = content[left];
+			content[left] = content[right];
+			content[right] = tmp;
+		}
+		return this;
+	}
+
+	/**
+	 * 生成签名, 结果为BASE64(HMAC-SHA1(原文) + 原文)
+	 *
+	 * @param secretKey
+	 *            秘钥
+	 * @return base64编码的签名
+	 * @throws GeneralSecurityException
+	 */
+	String sign(String secretKey) throws GeneralSecurityException {
+		Mac signMac = getMac(secretKey);
+		signMac.update(content, HMAC_SHA1_LENGTH, length - HMAC_SHA1_LENGTH);
+		signMac.doFinal(content, 0);
+		return base64Encode(content, length);
+	}
+
+	private Mac getMac(String secretKey) throws GeneralSecurityException {
+		if (mac == null) {
+			mac = Mac.getInstance(HMAC_SHA1);
+		}
+		if (!secretKey.equals(macKey)) {
+			// 初始化失败时mac不可用, 下次重新初始化
+			macKey = null;
+			mac.init(new SecretKeySpec(secretKey.getBytes(UTF8), HMAC_SHA1));
+			macKey = secretKey;
+		}
+		return mac;
+	}
+
+	private void ensureCapacity(int appendLength) {
+		if (length + appendLength > content.length) {
+			byte[] newContent = new byte[Math.max(content.length * 2, length + appendLength)];
+			System.arraycopy(content, 0, newContent, 0, length);
+			content = newContent;
+		}
+	}
+
+	// 标准BASE64编码, 带填充, 不换行, 与commons-codec的encodeBase64String结果一致
+	private String base64Encode(byte[] data, int dataLength) {
+		int encodedLength = (dataLength + 2) / 3 * 4;
+		if (encoded.length < encodedLength) {
+			encoded = new char[encodedLength];
+		}
+		int src = 0;
+		int dst = 0;
+		for (; src + 3 <= dataLength; src += 3) {
+			int bits = (data[src] & 0xff) << 16 | (data[src + 1] & 0xff) << 8 | (data[src + 2] & 0xff);
+			encoded[dst++] = BASE64_CHARS[bits >>> 18];
+			encoded[dst++] = BASE64_CHARS[(bits >>> 12) & 0x3f];
+			encoded[dst++] = BASE64_CHARS[(bits >>> 6) & 0x3f];
+			encoded[dst++] = BASE64_CHARS[bits & 0x3f];
+		}
+		int remain = dataLength - src;
+		if (remain > 0) {
+			int bits = (data[src] & 0xff) << 16;
+			if (remain == 2) {
+				bits |= (data[src + 1] & 0xff) << 8;
+			}
+			encoded[dst++] = BASE64_CHARS[bits >>> 18];
+			encoded[dst++] = BASE64_CHARS[(bits >>> 12) & 0x3f];
+			encoded[dst++] = remain == 2 ? BASE64_CHARS[(bits >>> 6) & 0x3f] : '=';
+			encoded[dst++] = '=';
+		}
+		return new String(encoded, 0, dst);
+	}
+}
@@ -0,0 +1,109 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.sign.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class AsyncCOSClientTest {
+
+    private static final String STAT_RESPONSE = "{\"code\":0,\"message\":\"SUCCESS\",\"data\":{\"filesize\":100}}";
+
+    private Credentials cred = new Credentials(10022105, "xxx", "xxx");
+
+    private AsyncCOSClient buildClient(String endPoint) {
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint(endPoint);
+        config.setAsyncIoThreadCount(1);
+        return new AsyncCOSClient(config, cred);
+    }
+
+    @Test
+    public void testConcurrentStatFile() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = STAT_RESPONSE.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        AsyncCOSClient asyncClient = buildClient("http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1");
+        try {
+            int requestCount = 50;
+            final CountDownLatch latch = new CountDownLatch(requestCount);
+            FutureCallback<String> callback = new FutureCallback<String>() {
+                @Override
+                public void completed(String result) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                }
+
+                @Override
+                public void cancelled() {
+                }
+            };
+            // 单个IO线程同时处理所有请求
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < requestCount; ++i) {
+                futures.add(asyncClient.statFile(new StatFileRequest("chengwu", "/file_" + i + ".txt"), callback));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(STAT_RESPONSE, future.get(10, TimeUnit.SECONDS));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            asyncClient.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testStatFileFailed() throws Exception {
+        // 获取一个没有监听的端口
+        ServerSocket serverSocket = new ServerSocket(0);
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+
+        AsyncCOSClient asyncClient = buildClient("http://127.0.0.1:" + port + "/files/v1");
+        try {
+            // 参数错误时不发送请求, 直接返回错误信息
+            Future<String> future = asyncClient.statFile(new StatFileRequest("chengwu", "/folder/"));
+            assertTrue(future.isDone());
+            JSONObject ret = new JSONObject(future.get());
+            assertEquals(ErrorCode.PARAMS_ERROR, ret.getInt(ResponseBodyKey.CODE));
+
+            // 连接失败重试后返回错误信息, 不抛出异常
+            future = asyncClient.statFile(new StatFileRequest("chengwu", "/sample_file.txt"));
+            ret = new JSONObject(future.get(30, TimeUnit.SECONDS));
+            assertEquals(ErrorCode.SERVER_ERROR, ret.getInt(ResponseBodyKey.CODE));
+        } finally {
+            asyncClient.shutdown();
+        }
+    }
+}
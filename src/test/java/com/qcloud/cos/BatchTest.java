@@ -0,0 +1,98 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.BatchRequest;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.UpdateFileRequest;
+
+public class BatchTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+
+    @Before
+    public void setUp() throws Exception {
+        FakeCosServer.OpHandler handler = new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                String path = request.getCosPath();
+                // 序号小的请求处理得更慢, 完成顺序与请求顺序不同
+                int index = Integer.parseInt(path.replaceAll("[^0-9]", ""));
+                Thread.sleep(20 - index % 20);
+                JSONObject ret = FakeCosServer.success(null);
+                ret.put(ResponseBodyKey.MESSAGE, request.getMethod() + " " + path);
+                return ret;
+            }
+        };
+        server = new FakeCosServer().on("stat", handler).on("update", handler).on("delete", handler);
+        server.start();
+        cosClient = server.newClient();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testBatch() {
+        BatchRequest request = new BatchRequest();
+        request.setTaskNum(5);
+        for (int i = 0; i < 60; ++i) {
+            String cosPath = "/batch/file_" + i + ".txt";
+            if (i % 3 == 0) {
+                request.add(new StatFileRequest("chengwu", cosPath));
+            } else if (i % 3 == 1) {
+                UpdateFileRequest updateRequest = new UpdateFileRequest("chengwu", cosPath);
+                updateRequest.setBizAttr("attr_" + i);
+                request.add(updateRequest);
+            } else {
+                request.add(new DelFileRequest("chengwu", cosPath));
+            }
+        }
+        List<String> results = cosClient.batch(request);
+        assertEquals(60, results.size());
+        for (int i = 0; i < 60; ++i) {
+            JSONObject ret = new JSONObject(results.get(i));
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            String method = i % 3 == 0 ? "GET" : "POST";
+            assertEquals(method + " /batch/file_" + i + ".txt", ret.getString(ResponseBodyKey.MESSAGE));
+        }
+        assertTrue(server.getMaxInFlight() > 1);
+        assertTrue(server.getMaxInFlight() <= 5);
+    }
+
+    @Test
+    public void testBatchParamError() {
+        BatchRequest request = new BatchRequest();
+        request.add(new StatFileRequest("chengwu", "/batch/file_1.txt"));
+        // 文件路径不能以/结尾
+        request.add(new StatFileRequest("chengwu", "/batch/file_2/"));
+        request.add(new ListFolderRequest("chengwu", "/batch/"));
+        request.add(new DelFileRequest("chengwu", "/batch/file_3.txt"));
+        List<String> results = cosClient.batch(request);
+        assertEquals(0, new JSONObject(results.get(0)).getInt(ResponseBodyKey.CODE));
+        assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(results.get(1)).getInt(ResponseBodyKey.CODE));
+        assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(results.get(2)).getInt(ResponseBodyKey.CODE));
+        assertEquals(0, new JSONObject(results.get(3)).getInt(ResponseBodyKey.CODE));
+
+        request.setTaskNum(0);
+        results = cosClient.batch(request);
+        assertEquals(4, results.size());
+        for (String result : results) {
+            assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(result).getInt(ResponseBodyKey.CODE));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.BulkUploadRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+
+public class BulkUploadTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+    private File localDir;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeCosServer().on("upload", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                Thread.sleep(5);
+                if (!DigestUtils.sha1Hex(request.getBytes("fileContent")).equals(request.getParam("sha"))) {
+                    return FakeCosServer.error(-181, "ERROR_CMD_COS_SHA_NOT_MATCH");
+                }
+                JSONObject data = new JSONObject();
+                data.put(ResponseBodyKey.Data.ACCESS_URL, "http://chengwu.cos.test" + request.getCosPath());
+                return FakeCosServer.success(data);
+            }
+        });
+        server.start();
+        cosClient = server.newClient();
+        localDir = Files.createTempDirectory("cos_bulk_upload").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+        File[] files = localDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        localDir.delete();
+    }
+
+    @Test
+    public void testUploadFiles() {
+        try {
+            Random random = new Random(17);
+            BulkUploadRequest request = new BulkUploadRequest();
+            request.setTaskNum(6);
+            // 读取预算只够同时持有少量文件
+            request.setReadAheadSize(64 * 1024);
+            for (int i = 0; i < 120; ++i) {
+                byte[] content = new byte[random.nextInt(10 * 1024)];
+                random.nextBytes(content);
+                File file = new File(localDir, "thumb_" + i + ".jpg");
+                FileOutputStream outputStream = new FileOutputStream(file);
+                outputStream.write(content);
+                outputStream.close();
+                request.add(new UploadFileRequest("chengwu", "/thumbs/thumb_" + i + ".jpg", file.getPath()));
+            }
+            request.add(new UploadFileRequest("chengwu", "/thumbs/missing.jpg",
+                    new File(localDir, "missing.jpg").getPath()));
+
+            List<String> results = cosClient.uploadFiles(request);
+            assertEquals(121, results.size());
+            for (int i = 0; i < 120; ++i) {
+                JSONObject ret = new JSONObject(results.get(i));
+                assertEquals(results.get(i), 0, ret.getInt(ResponseBodyKey.CODE));
+                assertEquals("http://chengwu.cos.test/thumbs/thumb_" + i + ".jpg",
+                        ret.getJSONObject(ResponseBodyKey.DATA).getString(ResponseBodyKey.Data.ACCESS_URL));
+            }
+            assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(results.get(120)).getInt(ResponseBodyKey.CODE));
+            assertTrue(server.getMaxInFlight() > 1);
+            assertTrue(server.getMaxInFlight() <= 6);
+
+            request.setTaskNum(0);
+            results = cosClient.uploadFiles(request);
+            assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(results.get(0)).getInt(ResponseBodyKey.CODE));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.toString());
+        }
+    }
+}
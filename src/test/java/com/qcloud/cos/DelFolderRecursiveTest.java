@@ -0,0 +1,189 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.DelFolderRecursiveRequest;
+import com.qcloud.cos.response.DelProgressListener;
+
+public class DelFolderRecursiveTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+    // 服务端现存的路径, 目录以/结尾
+    private NavigableSet<String> existPaths = new ConcurrentSkipListSet<String>();
+    private volatile String failPath = null;
+
+    private void buildTree(String folder, int depth) {
+        existPaths.add(folder);
+        for (int i = 0; i < 4; ++i) {
+            existPaths.add(folder + "file_" + i + ".txt");
+        }
+        if (depth < 2) {
+            for (int i = 0; i < 3; ++i) {
+                buildTree(folder + "dir_" + i + "/", depth + 1);
+            }
+        }
+    }
+
+    // 目录中位于after之后的直接成员, 最多num个
+    private List<String> children(String folder, String after, int num) {
+        List<String> children = new ArrayList<String>();
+        for (String path : existPaths.tailSet(after, false)) {
+            if (!path.startsWith(folder) || children.size() >= num) {
+                break;
+            }
+            String name = path.substring(folder.length());
+            int slash = name.indexOf('/');
+            if (slash < 0 || slash == name.length() - 1) {
+                children.add(path);
+            }
+        }
+        return children;
+    }
+
+    // context为上一页最后一个成员的路径, 与删除同时进行时不会跳过成员
+    private JSONObject handleList(String folder, String context) {
+        String after = context.isEmpty() ? folder : context;
+        List<String> children = children(folder, after, 5);
+        JSONArray infos = new JSONArray();
+        for (String child : children) {
+            JSONObject info = new JSONObject();
+            String name = child.substring(folder.length());
+            if (child.endsWith("/")) {
+                info.put("name", name.substring(0, name.length() - 1));
+            } else {
+                info.put("name", name);
+                info.put("filesize", 100);
+            }
+            infos.put(info);
+        }
+        JSONObject data = new JSONObject();
+        data.put("context", children.isEmpty() ? after : children.get(children.size() - 1));
+        data.put("listover", children.size() < 5);
+        data.put("infos", infos);
+        return FakeCosServer.success(data);
+    }
+
+    private JSONObject handleDelete(String path) {
+        if (path.equals(failPath)) {
+            return FakeCosServer.error(-71, "ERROR_CMD_COS_FREQUENCY_LIMIT");
+        } else if (path.endsWith("/") && !children(path, path, 1).isEmpty()) {
+            return FakeCosServer.error(-173, "ERROR_CMD_DIR_NOT_EMPTY");
+        } else if (!existPaths.remove(path)) {
+            return FakeCosServer.error(-197, "ERROR_RESOURCE_NOT_EXISTS");
+        }
+        return FakeCosServer.success(null);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        buildTree("/root/", 0);
+        server = new FakeCosServer();
+        server.on("list", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                return handleList(request.getCosPath(), request.getParam("context"));
+            }
+        });
+        server.on("delete", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                return handleDelete(request.getCosPath());
+            }
+        });
+        server.start();
+        cosClient = server.newClient();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    private static class CountListener implements DelProgressListener {
+        private Set<String> deleted = new ConcurrentSkipListSet<String>();
+        private Set<String> failed = new ConcurrentSkipListSet<String>();
+
+        @Override
+        public void onDeleted(String cosPath) {
+            assertTrue(deleted.add(cosPath));
+        }
+
+        @Override
+        public void onFailed(String cosPath, String result) {
+            assertTrue(failed.add(cosPath));
+        }
+    }
+
+    @Test
+    public void testDelFolderRecursive() {
+        existPaths.add("/other/");
+        int total = existPaths.size() - 1;
+        DelFolderRecursiveRequest request = new DelFolderRecursiveRequest("chengwu", "/root/");
+        request.setTaskNum(8);
+        CountListener listener = new CountListener();
+        JSONObject ret = new JSONObject(cosClient.delFolderRecursive(request, listener));
+        assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+        JSONObject data = ret.getJSONObject(ResponseBodyKey.DATA);
+        // 1 + 3 + 9个目录, 每个目录4个文件
+        assertEquals(52, data.getLong(ResponseBodyKey.Data.DELETED_FILE_COUNT));
+        assertEquals(13, data.getLong(ResponseBodyKey.Data.DELETED_FOLDER_COUNT));
+        assertEquals(0, data.getLong(ResponseBodyKey.Data.FAILED_COUNT));
+        assertEquals(total, listener.deleted.size());
+        assertEquals(1, existPaths.size());
+        assertTrue(existPaths.contains("/other/"));
+    }
+
+    @Test
+    public void testDelFolderRecursiveFailed() {
+        failPath = "/root/dir_1/dir_2/file_3.txt";
+        DelFolderRecursiveRequest request = new DelFolderRecursiveRequest("chengwu", "/root/");
+        CountListener listener = new CountListener();
+        JSONObject ret = new JSONObject(cosClient.delFolderRecursive(request, listener));
+        assertEquals(-71, ret.getInt(ResponseBodyKey.CODE));
+        JSONObject data = ret.getJSONObject(ResponseBodyKey.DATA);
+        assertEquals(1, data.getLong(ResponseBodyKey.Data.FAILED_COUNT));
+        assertEquals(failPath, data.getJSONArray(ResponseBodyKey.Data.FAILED_LIST).getJSONObject(0)
+                .getString(ResponseBodyKey.Data.COS_PATH));
+        assertEquals(1, listener.failed.size());
+        // 含有失败文件的目录及其上级目录保留, 不产生目录非空的失败
+        assertEquals(10, data.getLong(ResponseBodyKey.Data.DELETED_FOLDER_COUNT));
+        assertEquals(4, existPaths.size());
+        assertTrue(existPaths.contains("/root/dir_1/dir_2/"));
+        assertTrue(existPaths.contains("/root/dir_1/"));
+        assertTrue(existPaths.contains("/root/"));
+    }
+
+    @Test
+    public void testDelFolderRecursiveQps() {
+        DelFolderRecursiveRequest request = new DelFolderRecursiveRequest("chengwu", "/root/dir_0/");
+        request.setQps(50);
+        long start = System.currentTimeMillis();
+        JSONObject ret = new JSONObject(cosClient.delFolderRecursive(request, null));
+        long used = System.currentTimeMillis() - start;
+        assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+        // 16个文件和4个目录共20个删除请求, 每秒最多50个
+        assertTrue("used " + used + "ms", used >= 19 * 1000 / 50);
+    }
+
+    @Test
+    public void testDelRootFolder() {
+        DelFolderRecursiveRequest request = new DelFolderRecursiveRequest("chengwu", "/");
+        JSONObject ret = new JSONObject(cosClient.delFolderRecursive(request, null));
+        assertEquals(ErrorCode.PARAMS_ERROR, ret.getInt(ResponseBodyKey.CODE));
+    }
+}
@@ -0,0 +1,207 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.DownloadFileRequest;
+import com.qcloud.cos.request.DownloadFileStreamRequest;
+import com.qcloud.cos.sign.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class DownloadFileTest {
+
+    private static final int RANGE_SIZE = 64 * 1024;
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private HttpServer server;
+    private byte[] content;
+    private File localFile;
+    // 下载请求数, 下载偏移为failOffset的分块时返回错误
+    private AtomicInteger downloadCount = new AtomicInteger(0);
+    private volatile long failOffset = -1;
+    // 为true时下一个下载请求只返回一半的包体后断开连接
+    private volatile boolean truncateOnce = false;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[RANGE_SIZE * 5 + 1000];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) (i * 31);
+        }
+        localFile = File.createTempFile("cos_download", ".dat");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        final String downloadUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/download/bigfile.txt";
+        server.createContext("/files/v1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                JSONObject data = new JSONObject();
+                data.put(ResponseBodyKey.Data.ACCESS_URL, downloadUrl);
+                data.put(ResponseBodyKey.Data.FILESIZE, content.length);
+                data.put(ResponseBodyKey.Data.MTIME, 1476700000);
+                JSONObject ret = new JSONObject();
+                ret.put(ResponseBodyKey.CODE, 0);
+                ret.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+                ret.put(ResponseBodyKey.DATA, data);
+                sendResponse(exchange, 200, ret.toString().getBytes("UTF-8"));
+            }
+        });
+        server.createContext("/download", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                downloadCount.incrementAndGet();
+                Matcher matcher = RANGE_PATTERN.matcher(exchange.getRequestHeaders().getFirst("Range"));
+                assertTrue(matcher.matches());
+                assertTrue(exchange.getRequestURI().getQuery().startsWith("sign="));
+                int start = Integer.parseInt(matcher.group(1));
+                int end = Integer.parseInt(matcher.group(2));
+                if (start == failOffset) {
+                    sendResponse(exchange, 503, "Service Unavailable".getBytes("UTF-8"));
+                    return;
+                }
+                byte[] body = Arrays.copyOfRange(content, start, end + 1);
+                if (truncateOnce) {
+                    truncateOnce = false;
+                    exchange.sendResponseHeaders(206, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body, 0, body.length / 2);
+                    out.flush();
+                    exchange.close();
+                    return;
+                }
+                sendResponse(exchange, 206, body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        localFile.delete();
+        new File(localFile.getPath() + ".cosdownload").delete();
+    }
+
+    private static void sendResponse(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private COSClient buildClient() {
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint("http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1");
+        return new COSClient(config, new Credentials(10022105, "xxx", "xxx"));
+    }
+
+    @Test
+    public void testParallelDownload() {
+        COSClient cosClient = buildClient();
+        try {
+            DownloadFileRequest request = new DownloadFileRequest("chengwu", "/bigfile.txt", localFile.getPath());
+            request.setRangeSize(RANGE_SIZE);
+            request.setTaskNum(4);
+            JSONObject ret = new JSONObject(cosClient.downloadFile(request));
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            assertEquals(6, downloadCount.get());
+            assertArrayEquals(content, Files.readAllBytes(localFile.toPath()));
+            assertFalse(new File(localFile.getPath() + ".cosdownload").exists());
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testResumeDownload() {
+        COSClient cosClient = buildClient();
+        try {
+            DownloadFileRequest request = new DownloadFileRequest("chengwu", "/bigfile.txt", localFile.getPath());
+            request.setRangeSize(RANGE_SIZE);
+
+            // 第三个分块一直失败, 前两个分块下载完成并记录断点
+            failOffset = RANGE_SIZE * 2;
+            JSONObject ret = new JSONObject(cosClient.downloadFile(request));
+            assertTrue(ret.getInt(ResponseBodyKey.CODE) != 0);
+            assertTrue(new File(localFile.getPath() + ".cosdownload").exists());
+
+            // 再次下载时跳过已完成的分块
+            failOffset = -1;
+            downloadCount.set(0);
+            ret = new JSONObject(cosClient.downloadFile(request));
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            assertEquals(4, downloadCount.get());
+            assertArrayEquals(content, Files.readAllBytes(localFile.toPath()));
+            assertFalse(new File(localFile.getPath() + ".cosdownload").exists());
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testDownloadStreamRange() {
+        COSClient cosClient = buildClient();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DownloadFileStreamRequest request = new DownloadFileStreamRequest("chengwu", "/bigfile.txt", 1000,
+                    content.length + 1000);
+            JSONObject ret = new JSONObject(cosClient.downloadFileStream(request, out));
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            // 结束偏移超过文件结尾时下载到文件结尾
+            assertEquals(content.length - 1000, ret.getJSONObject(ResponseBodyKey.DATA).getLong("length"));
+            assertArrayEquals(Arrays.copyOfRange(content, 1000, content.length), out.toByteArray());
+            assertEquals(1, downloadCount.get());
+
+            request = new DownloadFileStreamRequest("chengwu", "/bigfile.txt", content.length, -1);
+            ret = new JSONObject(cosClient.downloadFileStream(request, new ByteArrayOutputStream()));
+            assertEquals(ErrorCode.PARAMS_ERROR, ret.getInt(ResponseBodyKey.CODE));
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testDownloadStreamResume() {
+        COSClient cosClient = buildClient();
+        try {
+            // 第一次请求中途断开, 从已写入的位置继续请求剩余部分
+            truncateOnce = true;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JSONObject ret = new JSONObject(
+                    cosClient.downloadFileStream(new DownloadFileStreamRequest("chengwu", "/bigfile.txt"), out));
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            assertEquals(2, downloadCount.get());
+            assertArrayEquals(content, out.toByteArray());
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            cosClient.shutdown();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.qcloud.cos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.sign.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 测试使用的本地COS服务端, 按请求的op把请求交给注册的处理器, 处理器返回响应的json.
+ * GET请求的参数来自url, POST请求的参数来自multipart或json请求体, 同时统计同时处理的请求数
+ */
+public class FakeCosServer {
+
+    public static final int APP_ID = 10022105;
+    public static final String BUCKET = "chengwu";
+    public static final String URL_PREFIX = "/files/v1/" + APP_ID + "/" + BUCKET;
+
+    /**
+     * 处理一种op的请求
+     */
+    public interface OpHandler {
+        JSONObject handle(Request request) throws Exception;
+    }
+
+    /**
+     * 处理器抛出该异常时, 服务端返回对应的http状态码
+     */
+    public static class HttpStatusException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        public HttpStatusException(int status) {
+            super("http status " + status);
+            this.status = status;
+        }
+    }
+
+    /**
+     * 服务端收到的请求
+     */
+    public static class Request {
+        private final String method;
+        private final String cosPath;
+        // multipart请求体的字段值按ISO-8859-1解码, 每个字符对应一个字节
+        private final Map<String, String> params;
+
+        Request(String method, String cosPath, Map<String, String> params) {
+            this.method = method;
+            this.cosPath = cosPath;
+            this.params = params;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getCosPath() {
+            return cosPath;
+        }
+
+        public String getOp() {
+            return params.get("op");
+        }
+
+        /**
+         * @return 参数的值, 没有该参数时返回null
+         */
+        public String getParam(String name) {
+            return params.get(name);
+        }
+
+        public byte[] getBytes(String name) {
+            String value = params.get(name);
+            try {
+                return value == null ? null : value.getBytes("ISO-8859-1");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private HttpServer server;
+    private final Map<String, OpHandler> handlers = new ConcurrentHashMap<String, OpHandler>();
+    // 收到的请求, 按到达顺序排列
+    private final List<Request> requests = new CopyOnWriteArrayList<Request>();
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger maxInFlight = new AtomicInteger(0);
+
+    public FakeCosServer on(String op, OpHandler handler) {
+        handlers.put(op, handler);
+        return this;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/v1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int current = inFlight.incrementAndGet();
+                while (true) {
+                    int max = maxInFlight.get();
+                    if (current <= max || maxInFlight.compareAndSet(max, current)) {
+                        break;
+                    }
+                }
+                JSONObject ret;
+                int status = 200;
+                try {
+                    Request request = parseRequest(exchange);
+                    requests.add(request);
+                    OpHandler handler = handlers.get(String.valueOf(request.getOp()));
+                    if (handler == null) {
+                        ret = error(-1, "op " + request.getOp() + " is not supported by this server");
+                    } else {
+                        ret = handler.handle(request);
+                    }
+                } catch (HttpStatusException e) {
+                    status = e.status;
+                    ret = error(-1, e.getMessage());
+                } catch (Exception e) {
+                    ret = error(-1, e.toString());
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                byte[] body = ret.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String getEndPoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1";
+    }
+
+    public COSClient newClient() {
+        return newClient(new ClientConfig());
+    }
+
+    public COSClient newClient(ClientConfig config) {
+        config.setCosEndPoint(getEndPoint());
+        return new COSClient(config, new Credentials(APP_ID, "xxx", "xxx"));
+    }
+
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return 同时处理的最大请求数
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public static JSONObject success(JSONObject data) {
+        JSONObject ret = new JSONObject();
+        ret.put(ResponseBodyKey.CODE, 0);
+        ret.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+        if (data != null) {
+            ret.put(ResponseBodyKey.DATA, data);
+        }
+        return ret;
+    }
+
+    public static JSONObject error(int code, String message) {
+        JSONObject ret = new JSONObject();
+        ret.put(ResponseBodyKey.CODE, code);
+        ret.put(ResponseBodyKey.MESSAGE, message);
+        return ret;
+    }
+
+    private static Request parseRequest(HttpExchange exchange) throws IOException {
+        String cosPath = URLDecoder.decode(exchange.getRequestURI().getRawPath(), "UTF-8")
+                .substring(URL_PREFIX.length());
+        Map<String, String> params = new HashMap<String, String>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] kv = param.split("=", 2);
+                params.put(kv[0], kv.length > 1 ? URLDecoder.decode(kv[1], "UTF-8") : "");
+            }
+        }
+        String body = readBody(exchange.getRequestBody());
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("multipart/form-data")) {
+            params.putAll(parseMultipart(body));
+        } else if (contentType != null && contentType.startsWith("application/json") && !body.isEmpty()) {
+            JSONObject json = new JSONObject(new String(body.getBytes("ISO-8859-1"), "UTF-8"));
+            for (Object key : json.keySet()) {
+                params.put(key.toString(), json.get(key.toString()).toString());
+            }
+        }
+        return new Request(exchange.getRequestMethod(), cosPath, params);
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream bodyStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = in.read(buffer)) >= 0) {
+            bodyStream.write(buffer, 0, len);
+        }
+        return bodyStream.toString("ISO-8859-1");
+    }
+
+    // 请求体的第一行是分隔符, 每个字段的值位于头部后的空行与下一个分隔符之间
+    private static Map<String, String> parseMultipart(String body) {
+        Map<String, String> fields = new HashMap<String, String>();
+        String boundary = "\r\n" + body.substring(0, body.indexOf("\r\n"));
+        int pos = boundary.length() - 2;
+        while (!body.startsWith("--", pos)) {
+            int headerEnd = body.indexOf("\r\n\r\n", pos);
+            String headers = body.substring(pos, headerEnd);
+            int nameStart = headers.indexOf(" name=\"") + 7;
+            String name = headers.substring(nameStart, headers.indexOf('"', nameStart));
+            int valueEnd = body.indexOf(boundary, headerEnd + 4);
+            fields.put(name, body.substring(headerEnd + 4, valueEnd));
+            pos = valueEnd + boundary.length();
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,117 @@
+package com.qcloud.cos;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONObject;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+
+/**
+ * FakeCosServer上处理upload, upload_slice和stat的处理器, 在内存中保存上传完成的文件.
+ * 完整上传时校验请求的sha, 分片上传在收到最后一个分片时用最后一个分片或者控制分片携带的sha校验文件内容
+ */
+public class FakeUploadHandler implements FakeCosServer.OpHandler {
+
+    private volatile int sliceSize;
+    // 上传完成的文件内容, key为cosPath
+    private final Map<String, byte[]> uploadedFiles = new ConcurrentHashMap<String, byte[]>();
+    // 分片上传中的文件, key为session
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<String, UploadSession>();
+    private final AtomicInteger sliceCount = new AtomicInteger(0);
+
+    private static class UploadSession {
+        private final byte[] content;
+        private final String sha;
+
+        UploadSession(int fileSize, String sha) {
+            this.content = new byte[fileSize];
+            this.sha = sha;
+        }
+    }
+
+    /**
+     * @param sliceSize
+     *            控制分片返回的分片大小
+     */
+    public FakeUploadHandler(int sliceSize) {
+        this.sliceSize = sliceSize;
+    }
+
+    public void setSliceSize(int sliceSize) {
+        this.sliceSize = sliceSize;
+    }
+
+    public FakeUploadHandler register(FakeCosServer server) {
+        server.on("upload", this).on("upload_slice", this).on("stat", this);
+        return this;
+    }
+
+    public byte[] getUploadedFile(String cosPath) {
+        return uploadedFiles.get(cosPath);
+    }
+
+    /**
+     * @return 收到的数据分片数, 不包括控制分片
+     */
+    public int getSliceCount() {
+        return sliceCount.get();
+    }
+
+    @Override
+    public JSONObject handle(FakeCosServer.Request request) {
+        String cosPath = request.getCosPath();
+        String op = request.getOp();
+        if (op.equals("stat")) {
+            byte[] content = uploadedFiles.get(cosPath);
+            if (content == null) {
+                return FakeCosServer.error(-197, "ERROR_RESOURCE_NOT_EXISTS");
+            }
+            JSONObject data = new JSONObject();
+            data.put(ResponseBodyKey.Data.FILESIZE, content.length);
+            data.put(ResponseBodyKey.Data.SHA, DigestUtils.sha1Hex(content));
+            return FakeCosServer.success(data);
+        }
+        String sha = request.getParam("sha");
+        if (op.equals("upload")) {
+            byte[] content = request.getBytes("fileContent");
+            if (!DigestUtils.sha1Hex(content).equals(sha)) {
+                return FakeCosServer.error(-181, "ERROR_CMD_COS_SHA_NOT_MATCH");
+            }
+            return finish(cosPath, content);
+        }
+        String session = request.getParam("session");
+        if (session == null) {
+            session = cosPath + "#" + System.nanoTime();
+            sessions.put(session, new UploadSession(Integer.parseInt(request.getParam("filesize")), sha));
+            JSONObject data = new JSONObject();
+            data.put(ResponseBodyKey.Data.SESSION, session);
+            data.put(ResponseBodyKey.Data.SLICE_SIZE, sliceSize);
+            data.put(ResponseBodyKey.Data.OFFSET, 0);
+            return FakeCosServer.success(data);
+        }
+        sliceCount.incrementAndGet();
+        UploadSession uploadSession = sessions.get(session);
+        byte[] slice = request.getBytes("fileContent");
+        int offset = Integer.parseInt(request.getParam("offset"));
+        System.arraycopy(slice, 0, uploadSession.content, offset, slice.length);
+        if (offset + slice.length < uploadSession.content.length) {
+            return FakeCosServer.success(new JSONObject());
+        }
+        String expectSha = sha != null && !sha.isEmpty() ? sha : uploadSession.sha;
+        if (!DigestUtils.sha1Hex(uploadSession.content).equals(expectSha)) {
+            return FakeCosServer.error(-181, "ERROR_CMD_COS_SHA_NOT_MATCH");
+        }
+        sessions.remove(session);
+        return finish(cosPath, uploadSession.content);
+    }
+
+    private JSONObject finish(String cosPath, byte[] content) {
+        uploadedFiles.put(cosPath, content);
+        JSONObject data = new JSONObject();
+        data.put(ResponseBodyKey.Data.ACCESS_URL, "http://chengwu.cos.test" + cosPath);
+        return FakeCosServer.success(data);
+    }
+}
@@ -0,0 +1,149 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.op.ListFolderIterator;
+import com.qcloud.cos.request.ListFolderRequest;
+import com.qcloud.cos.response.ObjectInfo;
+import com.qcloud.cos.sign.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ListFolderIteratorTest {
+
+    private static final int TOTAL_COUNT = 450;
+    private static final int PAGE_SIZE = 100;
+
+    private HttpServer server;
+    private COSClient cosClient;
+    // 每收到一个列表请求释放一个许可
+    private Semaphore listRequests = new Semaphore(0);
+    // 从该context开始的请求返回错误
+    private volatile String failContext = null;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/v1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                listRequests.release();
+                String context = "";
+                for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+                    if (param.startsWith("context=")) {
+                        context = URLDecoder.decode(param.substring("context=".length()), "UTF-8");
+                    }
+                }
+                JSONObject ret = new JSONObject();
+                if (context.equals(failContext)) {
+                    ret.put(ResponseBodyKey.CODE, -71);
+                    ret.put(ResponseBodyKey.MESSAGE, "ERROR_CMD_COS_INDEX_ERROR");
+                } else {
+                    int start = context.isEmpty() ? 0 : Integer.parseInt(context);
+                    int end = Math.min(start + PAGE_SIZE, TOTAL_COUNT);
+                    JSONArray infos = new JSONArray();
+                    for (int i = start; i < end; ++i) {
+                        infos.put(new JSONObject().put("name", "file_" + i).put("filesize", i));
+                    }
+                    JSONObject data = new JSONObject();
+                    data.put("context", String.valueOf(end));
+                    data.put("listover", end >= TOTAL_COUNT);
+                    data.put("infos", infos);
+                    ret.put(ResponseBodyKey.CODE, 0);
+                    ret.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+                    ret.put(ResponseBodyKey.DATA, data);
+                }
+                byte[] body = ret.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint("http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1");
+        config.setAsyncIoThreadCount(1);
+        cosClient = new COSClient(config, new Credentials(10022105, "xxx", "xxx"));
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop(0);
+    }
+
+    private ListFolderRequest buildRequest() {
+        ListFolderRequest request = new ListFolderRequest("chengwu", "/folder/");
+        request.setNum(PAGE_SIZE);
+        return request;
+    }
+
+    @Test
+    public void testListAll() throws Exception {
+        ListFolderIterator iterator = cosClient.listFolderAll(buildRequest());
+        assertTrue(iterator.hasNext());
+        // 返回第一页时已经开始请求第二页
+        assertTrue(listRequests.tryAcquire(2, 10, TimeUnit.SECONDS));
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            ObjectInfo info = iterator.next();
+            assertEquals("file_" + count, info.getName());
+            assertEquals(count, info.getFileSize());
+            ++count;
+        }
+        assertEquals(TOTAL_COUNT, count);
+        assertTrue(iterator.isSuccess());
+        assertEquals(3, listRequests.availablePermits());
+    }
+
+    @Test
+    public void testListFailed() throws Exception {
+        failContext = "200";
+        ListFolderIterator iterator = cosClient.listFolderAll(buildRequest());
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            ++count;
+        }
+        assertEquals(200, count);
+        assertFalse(iterator.isSuccess());
+        assertEquals(-71, iterator.getFailedResult().getCode());
+
+        // 从失败的位置继续遍历
+        failContext = null;
+        ListFolderRequest request = buildRequest();
+        request.setContext(iterator.getContext());
+        iterator = cosClient.listFolderAll(request);
+        while (iterator.hasNext()) {
+            assertEquals("file_" + count, iterator.next().getName());
+            ++count;
+        }
+        assertEquals(TOTAL_COUNT, count);
+        assertTrue(iterator.isSuccess());
+
+        // 参数错误时不发送请求
+        iterator = cosClient.listFolderAll(new ListFolderRequest("chengwu", "/file.txt"));
+        assertFalse(iterator.hasNext());
+        assertEquals(ErrorCode.PARAMS_ERROR, iterator.getFailedResult().getCode());
+    }
+}
@@ -0,0 +1,141 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.DefaultRetryPolicy;
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.DelFileRequest;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.sign.Credentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RetryTest {
+
+    private HttpServer server;
+    private ClientConfig config;
+    private COSClient cosClient;
+    private AsyncCOSClient asyncCosClient;
+    private AtomicInteger requestCount = new AtomicInteger(0);
+    // 前failCount个请求返回failStatus
+    private volatile int failCount = 0;
+    private volatile int failStatus = 503;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/v1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                }
+                if (requestCount.incrementAndGet() <= failCount) {
+                    exchange.sendResponseHeaders(failStatus, -1);
+                    exchange.close();
+                    return;
+                }
+                JSONObject ret = new JSONObject();
+                ret.put(ResponseBodyKey.CODE, 0);
+                ret.put(ResponseBodyKey.MESSAGE, "SUCCESS");
+                ret.put(ResponseBodyKey.DATA, new JSONObject());
+                byte[] respBody = ret.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, respBody.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(respBody);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        config = new ClientConfig();
+        config.setCosEndPoint("http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1");
+        config.setMaxFailedRetry(4);
+        config.setRetryPolicy(new DefaultRetryPolicy(1, 20));
+        cosClient = new COSClient(config, new Credentials(10022105, "xxx", "xxx"));
+        asyncCosClient = new AsyncCOSClient(config, new Credentials(10022105, "xxx", "xxx"));
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        asyncCosClient.shutdown();
+        server.stop(0);
+    }
+
+    private static int getCode(String ret) {
+        return new JSONObject(ret).getInt(ResponseBodyKey.CODE);
+    }
+
+    @Test
+    public void testRetryIdempotentRequest() throws Exception {
+        failCount = 2;
+        String ret = cosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(ret, 0, getCode(ret));
+        assertEquals(3, requestCount.get());
+
+        requestCount.set(0);
+        ret = asyncCosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt")).get();
+        assertEquals(ret, 0, getCode(ret));
+        assertEquals(3, requestCount.get());
+
+        // 超过最大尝试次数
+        requestCount.set(0);
+        failCount = 10;
+        ret = cosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(ErrorCode.NETWORK_ERROR, getCode(ret));
+        assertEquals(4, requestCount.get());
+    }
+
+    @Test
+    public void testRetryClassification() {
+        // 删除不是幂等的, 5xx时服务端可能已经删除, 不重试
+        failCount = 2;
+        String ret = cosClient.delFile(new DelFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(ErrorCode.NETWORK_ERROR, getCode(ret));
+        assertEquals(1, requestCount.get());
+
+        // 限流的请求没有被处理, 可以重试
+        requestCount.set(0);
+        failStatus = 429;
+        ret = cosClient.delFile(new DelFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(ret, 0, getCode(ret));
+        assertEquals(3, requestCount.get());
+
+        // 4xx重试不会改变结果
+        requestCount.set(0);
+        failStatus = 404;
+        ret = cosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(ErrorCode.NETWORK_ERROR, getCode(ret));
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testRetryBudget() {
+        cosClient.shutdown();
+        config.setRetryBudgetCapacity(2);
+        config.setRetryBudgetRatio(0);
+        cosClient = new COSClient(config, new Credentials(10022105, "xxx", "xxx"));
+        failCount = 100;
+        cosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(3, requestCount.get());
+        // 预算耗尽后不再重试
+        cosClient.statFile(new StatFileRequest("chengwu", "/retry/a.txt"));
+        assertEquals(4, requestCount.get());
+    }
+}
@@ -0,0 +1,348 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.common_utils.CommonCodecUtils;
+import com.qcloud.cos.http.DefaultCosHttpClient;
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.op.FileOp;
+import com.qcloud.cos.request.UploadFileRequest;
+import com.qcloud.cos.request.UploadSliceFileRequest;
+import com.qcloud.cos.sign.Credentials;
+
+public class SliceUploadTest {
+
+    private static final int SLICE_SIZE = 512 * 1024;
+    // 6个分片, 最后一个分片1000字节
+    private static final int FILE_SIZE = 5 * SLICE_SIZE + 1000;
+
+    private FakeCosServer server;
+    private FakeUploadHandler uploadHandler;
+    private COSClient cosClient;
+    private File localFile;
+    private byte[] content;
+    // 按到达顺序记录的数据分片, 每项为{offset, length}
+    private List<long[]> slices = new CopyOnWriteArrayList<long[]>();
+    private volatile long failOffset = -1;
+    // 该偏移的分片返回http 503
+    private volatile long unavailableOffset = -1;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeCosServer();
+        uploadHandler = new FakeUploadHandler(SLICE_SIZE).register(server);
+        server.on("upload_slice", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                if (request.getParam("session") == null) {
+                    return uploadHandler.handle(request);
+                }
+                long offset = Long.parseLong(request.getParam("offset"));
+                slices.add(new long[] { offset, request.getBytes("fileContent").length });
+                if (offset == unavailableOffset) {
+                    throw new FakeCosServer.HttpStatusException(503);
+                }
+                if (offset == failOffset) {
+                    return FakeCosServer.error(-4018, "ERROR_PROXY_SLICE_UPLOAD_FAILED");
+                }
+                // 处理较慢, 使分片可以同时进行
+                Thread.sleep(50);
+                return uploadHandler.handle(request);
+            }
+        });
+        server.start();
+        cosClient = server.newClient();
+
+        content = new byte[FILE_SIZE];
+        new Random(7).nextBytes(content);
+        localFile = File.createTempFile("cos_slice", ".bin");
+        FileOutputStream outputStream = new FileOutputStream(localFile);
+        outputStream.write(content);
+        outputStream.close();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+        localFile.delete();
+    }
+
+    private UploadSliceFileRequest newRequest(String cosPath, int taskNum) throws IOException {
+        UploadSliceFileRequest request = new UploadSliceFileRequest("chengwu", cosPath, localFile.getPath(),
+                SLICE_SIZE);
+        request.setTaskNum(taskNum);
+        return request;
+    }
+
+    @Test
+    public void testParallelSlices() throws Exception {
+        String ret = cosClient.uploadSliceFile(newRequest("/slice/parallel.bin", 3));
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertArrayEquals(content, uploadHandler.getUploadedFile("/slice/parallel.bin"));
+
+        // 每个分片只发送一次, 偏移和长度按分片大小切分
+        assertEquals(6, slices.size());
+        List<Long> offsets = new ArrayList<Long>();
+        for (long[] slice : slices) {
+            long expectLength = slice[0] == 5L * SLICE_SIZE ? 1000 : SLICE_SIZE;
+            assertEquals(expectLength, slice[1]);
+            assertFalse(offsets.contains(slice[0]));
+            offsets.add(slice[0]);
+        }
+        for (int i = 0; i < 6; ++i) {
+            assertTrue(offsets.contains((long) i * SLICE_SIZE));
+        }
+        // 最后一个分片在其他分片全部完成后发送
+        assertEquals(5L * SLICE_SIZE, slices.get(5)[0]);
+        assertTrue(server.getMaxInFlight() > 1);
+        assertTrue(server.getMaxInFlight() <= 3);
+    }
+
+    @Test
+    public void testParallelSlicesOnSharedExecutor() throws Exception {
+        // 共享执行器的线程数不限制同一文件的分片数, 由每次上传的许可数限制
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint(server.getEndPoint());
+        DefaultCosHttpClient httpClient = new DefaultCosHttpClient(config);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            FileOp fileOp = new FileOp(config, new Credentials(FakeCosServer.APP_ID, "xxx", "xxx"), httpClient);
+            fileOp.setTaskExecutor(executor);
+            String ret = fileOp.uploadSliceFile(newRequest("/slice/shared.bin", 2));
+            assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+            assertArrayEquals(content, uploadHandler.getUploadedFile("/slice/shared.bin"));
+            assertEquals(2, server.getMaxInFlight());
+        } finally {
+            executor.shutdown();
+            httpClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelSliceFailed() throws Exception {
+        failOffset = 0;
+        String ret = cosClient.uploadSliceFile(newRequest("/slice/failed.bin", 2));
+        assertEquals(ret, -4018, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertNull(uploadHandler.getUploadedFile("/slice/failed.bin"));
+        // 发现失败的分片后不再提交新的分片, 也不发送最后一个分片
+        for (long[] slice : slices) {
+            assertTrue(slice[0] < 5L * SLICE_SIZE);
+        }
+        List<Long> offsets = new ArrayList<Long>();
+        for (long[] slice : slices) {
+            offsets.add(slice[0]);
+        }
+        assertFalse(offsets.contains(4L * SLICE_SIZE));
+    }
+
+    @Test
+    public void testParallelSliceUnavailable() throws Exception {
+        // http失败只由http客户端重试, 分片任务不再叠加重试
+        unavailableOffset = 0;
+        String ret = cosClient.uploadSliceFile(newRequest("/slice/unavailable.bin", 2));
+        assertNotEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertNull(uploadHandler.getUploadedFile("/slice/unavailable.bin"));
+        int attempts = 0;
+        for (long[] slice : slices) {
+            if (slice[0] == 0) {
+                ++attempts;
+            }
+        }
+        assertTrue(String.valueOf(attempts), attempts >= 1);
+        assertTrue(String.valueOf(attempts), attempts <= new ClientConfig().getMaxFailedRetry());
+    }
+
+    private FakeCosServer.Request findRequest(String op, String cosPath, long offset) {
+        for (FakeCosServer.Request request : server.getRequests()) {
+            if (request.getOp().equals(op) && request.getCosPath().equals(cosPath)
+                    && (offset < 0 ? request.getParam("offset") == null
+                            : String.valueOf(offset).equals(request.getParam("offset")))) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testShaDigest() throws Exception {
+        // 控制分片携带调用方给出的sha, 不同于文件内容时由服务端发现
+        UploadSliceFileRequest request = newRequest("/slice/given_sha.bin", 2);
+        request.setShaDigest(DigestUtils.sha1Hex(content));
+        String ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertEquals(DigestUtils.sha1Hex(content), findRequest("upload_slice", "/slice/given_sha.bin", -1)
+                .getParam("sha"));
+
+        String wrongSha = DigestUtils.sha1Hex("other content");
+        request = newRequest("/slice/wrong_sha.bin", 2);
+        request.setShaDigest(wrongSha);
+        ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, -181, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertEquals(wrongSha, findRequest("upload_slice", "/slice/wrong_sha.bin", -1).getParam("sha"));
+
+        UploadFileRequest singleRequest = new UploadFileRequest("chengwu", "/slice/single.bin", localFile.getPath());
+        singleRequest.setShaDigest(wrongSha);
+        ret = cosClient.uploadFile(singleRequest);
+        assertEquals(ret, -181, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertEquals(wrongSha, findRequest("upload", "/slice/single.bin", -1).getParam("sha"));
+    }
+
+    @Test
+    public void testPipelinedSha() throws Exception {
+        UploadSliceFileRequest request = newRequest("/slice/pipelined.bin", 3);
+        request.setEnablePipelineSha(true);
+        String ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertArrayEquals(content, uploadHandler.getUploadedFile("/slice/pipelined.bin"));
+
+        // 控制分片和中间的分片不携带sha, 最后一个分片携带整个文件的sha, 完成后通过stat校验
+        assertNull(findRequest("upload_slice", "/slice/pipelined.bin", -1).getParam("sha"));
+        assertEquals(6, slices.size());
+        for (int i = 0; i < 5; ++i) {
+            assertNull(findRequest("upload_slice", "/slice/pipelined.bin", (long) i * SLICE_SIZE).getParam("sha"));
+        }
+        assertEquals(5L * SLICE_SIZE, slices.get(5)[0]);
+        assertEquals(DigestUtils.sha1Hex(content),
+                findRequest("upload_slice", "/slice/pipelined.bin", 5L * SLICE_SIZE).getParam("sha"));
+        List<FakeCosServer.Request> requests = server.getRequests();
+        assertEquals("stat", requests.get(requests.size() - 1).getOp());
+    }
+
+    @Test
+    public void testPipelinedShaMismatch() throws Exception {
+        // 服务端完成的文件与本地计算的sha不一致
+        server.on("stat", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                JSONObject data = new JSONObject();
+                data.put(ResponseBodyKey.Data.FILESIZE, FILE_SIZE);
+                data.put(ResponseBodyKey.Data.SHA, DigestUtils.sha1Hex("other content"));
+                return FakeCosServer.success(data);
+            }
+        });
+        UploadSliceFileRequest request = newRequest("/slice/mismatch.bin", 3);
+        request.setEnablePipelineSha(true);
+        String ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, ErrorCode.SERVER_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+    }
+
+    @Test
+    public void testPipelinedShortStream() throws Exception {
+        // 声明9MB的流只有2个半分片, 第3个分片读取不完整时失败, 不上传残缺的分片
+        byte[] shortContent = Arrays.copyOf(content, 2 * SLICE_SIZE + 100);
+        String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/slice/short.bin",
+                new ByteArrayInputStream(shortContent), 9 * 1024 * 1024));
+        assertEquals(ret, ErrorCode.UNKNOWN_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertNull(uploadHandler.getUploadedFile("/slice/short.bin"));
+        for (long[] slice : slices) {
+            assertTrue(slice[0] < 2L * SLICE_SIZE);
+            assertEquals(SLICE_SIZE, slice[1]);
+        }
+    }
+
+    @Test
+    public void testUploadParts() throws Exception {
+        // 请求的分片大小与服务端返回的一致时只初始化一次
+        UploadSliceFileRequest request = newRequest("/slice/parts.bin", 2);
+        request.setEnableUploadParts(true);
+        String ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        FakeCosServer.Request initRequest = findRequest("upload_slice", "/slice/parts.bin", -1);
+        assertEquals(DigestUtils.sha1Hex(content), initRequest.getParam("sha"));
+        assertUploadParts(initRequest, SLICE_SIZE);
+        assertEquals(1, countRequests("upload_slice", "/slice/parts.bin", -1));
+
+        // 服务端使用其他分片大小时, 按服务端的分片大小重新生成清单并重新初始化
+        request = newRequest("/slice/parts_resized.bin", 2);
+        request.setSliceSize(1024 * 1024);
+        request.setEnableUploadParts(true);
+        ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertArrayEquals(content, uploadHandler.getUploadedFile("/slice/parts_resized.bin"));
+        assertEquals(2, countRequests("upload_slice", "/slice/parts_resized.bin", -1));
+        FakeCosServer.Request lastInitRequest = null;
+        for (FakeCosServer.Request sent : server.getRequests()) {
+            if (sent.getCosPath().equals("/slice/parts_resized.bin") && sent.getParam("session") == null) {
+                lastInitRequest = sent;
+            }
+        }
+        assertEquals(String.valueOf(SLICE_SIZE), lastInitRequest.getParam("slice_size"));
+        assertUploadParts(lastInitRequest, SLICE_SIZE);
+    }
+
+    @Test
+    public void testUploadPartsUnalignedServerSliceSize() throws Exception {
+        // 服务端的分片大小不是64的整数倍时, 重新初始化且不携带清单
+        uploadHandler.setSliceSize(SLICE_SIZE + 1000);
+        UploadSliceFileRequest request = newRequest("/slice/parts_unaligned.bin", 2);
+        request.setEnableUploadParts(true);
+        String ret = cosClient.uploadSliceFile(request);
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertArrayEquals(content, uploadHandler.getUploadedFile("/slice/parts_unaligned.bin"));
+        assertEquals(2, countRequests("upload_slice", "/slice/parts_unaligned.bin", -1));
+        FakeCosServer.Request lastInitRequest = null;
+        for (FakeCosServer.Request sent : server.getRequests()) {
+            if (sent.getCosPath().equals("/slice/parts_unaligned.bin") && sent.getParam("session") == null) {
+                lastInitRequest = sent;
+            }
+        }
+        assertNull(lastInitRequest.getParam("uploadparts"));
+        assertEquals(DigestUtils.sha1Hex(content), lastInitRequest.getParam("sha"));
+    }
+
+    private int countRequests(String op, String cosPath, long offset) {
+        int count = 0;
+        for (FakeCosServer.Request request : server.getRequests()) {
+            if (request.getOp().equals(op) && request.getCosPath().equals(cosPath)
+                    && (offset < 0) == (request.getParam("offset") == null)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    // 清单的每一项对应一个分片, datasha为从文件开头到分片末尾的中间状态, 最后一项为整个文件的sha
+    private void assertUploadParts(FakeCosServer.Request initRequest, int sliceSize) throws Exception {
+        JSONArray parts = new JSONArray(initRequest.getParam("uploadparts"));
+        String[] expectSha = CommonCodecUtils.getSliceSha1(localFile.getPath(), sliceSize);
+        assertEquals((FILE_SIZE + sliceSize - 1) / sliceSize, parts.length());
+        for (int i = 0; i < parts.length(); ++i) {
+            JSONObject part = parts.getJSONObject(i);
+            assertEquals((long) i * sliceSize, part.getLong("offset"));
+            assertEquals(Math.min(sliceSize, FILE_SIZE - (long) i * sliceSize), part.getLong("datalen"));
+            assertEquals(expectSha[i], part.getString("datasha"));
+        }
+        assertEquals(DigestUtils.sha1Hex(content), parts.getJSONObject(parts.length() - 1).getString("datasha"));
+    }
+
+    @Test
+    public void testIllegalTaskNum() throws Exception {
+        for (int taskNum : new int[] { 0, -1, 101 }) {
+            String ret = cosClient.uploadSliceFile(newRequest("/slice/illegal.bin", taskNum));
+            assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        }
+        assertEquals(0, server.getRequests().size());
+        String ret = cosClient.uploadSliceFile(newRequest("/slice/max_task.bin", 100));
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+    }
+}
@@ -0,0 +1,212 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.SyncFolderRequest;
+
+public class SyncFolderTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+    private File localDir;
+    private File manifestFile;
+    // 服务端已有内容的sha, 控制分片携带这些sha时秒传
+    private Set<String> existShas = new ConcurrentSkipListSet<String>();
+    // 收到的请求, 格式为"$op $cosPath"
+    private List<String> requests = new CopyOnWriteArrayList<String>();
+
+    @Before
+    public void setUp() throws Exception {
+        FakeCosServer.OpHandler handler = new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                String cosPath = request.getCosPath();
+                requests.add(request.getOp() + " " + cosPath);
+                if (request.getOp().equals("upload_slice") && !existShas.contains(request.getParam("sha"))) {
+                    return FakeCosServer.error(-1, "slice upload is not supported by this server");
+                }
+                JSONObject data = new JSONObject();
+                data.put(ResponseBodyKey.Data.ACCESS_URL, "http://chengwu.cos.test" + cosPath);
+                return FakeCosServer.success(data);
+            }
+        };
+        server = new FakeCosServer().on("upload", handler).on("upload_slice", handler);
+        server.start();
+        cosClient = server.newClient();
+
+        localDir = Files.createTempDirectory("cos_sync").toFile();
+        manifestFile = new File(localDir.getPath() + ".manifest");
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+        removeAll(localDir);
+        manifestFile.delete();
+    }
+
+    private static void removeAll(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                removeAll(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static File writeFile(File dir, String path, byte[] content) throws IOException {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(content);
+        outputStream.close();
+        return file;
+    }
+
+    private JSONObject sync() {
+        return sync("/sync/");
+    }
+
+    private JSONObject sync(String cosPath) {
+        SyncFolderRequest request = new SyncFolderRequest("chengwu", cosPath, localDir.getPath(),
+                manifestFile.getPath());
+        request.setTaskNum(4);
+        return new JSONObject(cosClient.syncFolder(request));
+    }
+
+    @Test
+    public void testSyncFolder() {
+        try {
+            for (int i = 0; i < 10; ++i) {
+                writeFile(localDir, "dir_" + (i % 3) + "/file_" + i + ".txt", ("content " + i).getBytes("UTF-8"));
+            }
+            byte[] bigContent = new byte[1536 * 1024];
+            bigContent[100] = 1;
+            writeFile(localDir, "big.bin", bigContent);
+            existShas.add(DigestUtils.sha1Hex(bigContent));
+
+            JSONObject ret = sync();
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            JSONObject data = ret.getJSONObject(ResponseBodyKey.DATA);
+            assertEquals(11, data.getLong(ResponseBodyKey.Data.UPLOADED_COUNT));
+            assertEquals(0, data.getLong(ResponseBodyKey.Data.SKIPPED_COUNT));
+            assertEquals(11, requests.size());
+            // 大文件只发送控制分片, 命中秒传
+            assertTrue(requests.contains("upload_slice /sync/big.bin"));
+            assertTrue(requests.contains("upload /sync/dir_1/file_4.txt"));
+
+            // 没有变化的文件不读取内容, 也不发送请求
+            requests.clear();
+            ret = sync();
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            assertEquals(11, ret.getJSONObject(ResponseBodyKey.DATA).getLong(ResponseBodyKey.Data.SKIPPED_COUNT));
+            assertEquals(0, requests.size());
+
+            // 修改一个文件, 只修改另一个文件的修改时间, 删除一个文件
+            writeFile(localDir, "dir_0/file_3.txt", "new content 3".getBytes("UTF-8"));
+            File touchedFile = new File(localDir, "dir_2/file_5.txt");
+            assertTrue(touchedFile.setLastModified(touchedFile.lastModified() - 10000));
+            assertTrue(new File(localDir, "dir_1/file_7.txt").delete());
+            ret = sync();
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            data = ret.getJSONObject(ResponseBodyKey.DATA);
+            assertEquals(1, data.getLong(ResponseBodyKey.Data.UPLOADED_COUNT));
+            assertEquals(9, data.getLong(ResponseBodyKey.Data.SKIPPED_COUNT));
+            assertEquals(1, requests.size());
+            assertEquals("upload /sync/dir_0/file_3.txt", requests.get(0));
+
+            // 清单只保留仍然存在的文件, 第一行记录同步目标
+            List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+            assertEquals(11, lines.size());
+            assertEquals("#cos-sync\tchengwu\t/sync/", lines.get(0));
+            for (String line : lines) {
+                assertFalse(line.startsWith("dir_1/file_7.txt\t"));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testSyncToOtherTarget() {
+        try {
+            for (int i = 0; i < 3; ++i) {
+                writeFile(localDir, "file_" + i + ".txt", ("content " + i).getBytes("UTF-8"));
+            }
+            assertEquals(0, sync().getInt(ResponseBodyKey.CODE));
+            assertEquals(3, requests.size());
+
+            // 同一清单用于其他目标时被丢弃, 所有文件重新上传
+            requests.clear();
+            JSONObject ret = sync("/other/");
+            assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+            assertEquals(3, ret.getJSONObject(ResponseBodyKey.DATA).getLong(ResponseBodyKey.Data.UPLOADED_COUNT));
+            assertEquals(3, requests.size());
+            assertTrue(requests.contains("upload /other/file_0.txt"));
+            List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+            assertEquals("#cos-sync\tchengwu\t/other/", lines.get(0));
+
+            // 没有目标记录的旧清单同样被丢弃
+            Files.write(manifestFile.toPath(), lines.subList(1, lines.size()), StandardCharsets.UTF_8);
+            requests.clear();
+            assertEquals(0, sync("/other/").getInt(ResponseBodyKey.CODE));
+            assertEquals(3, requests.size());
+            requests.clear();
+            assertEquals(0, sync("/other/").getInt(ResponseBodyKey.CODE));
+            assertEquals(0, requests.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testSyncFolderFailed() {
+        try {
+            writeFile(localDir, "small.txt", "small".getBytes("UTF-8"));
+            // 服务端没有相同内容, 且不支持分片上传
+            writeFile(localDir, "big.bin", new byte[1536 * 1024]);
+            JSONObject ret = sync();
+            assertEquals(-1, ret.getInt(ResponseBodyKey.CODE));
+            JSONObject data = ret.getJSONObject(ResponseBodyKey.DATA);
+            assertEquals(1, data.getLong(ResponseBodyKey.Data.UPLOADED_COUNT));
+            assertEquals(1, data.getLong(ResponseBodyKey.Data.FAILED_COUNT));
+            assertEquals("/sync/big.bin", data.getJSONArray(ResponseBodyKey.Data.FAILED_LIST).getJSONObject(0)
+                    .getString(ResponseBodyKey.Data.COS_PATH));
+
+            // 失败的文件下次同步时重新上传
+            requests.clear();
+            ret = sync();
+            assertEquals(1, ret.getJSONObject(ResponseBodyKey.DATA).getLong(ResponseBodyKey.Data.SKIPPED_COUNT));
+            assertEquals(1, requests.size());
+            assertEquals("upload_slice /sync/big.bin", requests.get(0));
+
+            ret = new JSONObject(cosClient.syncFolder(new SyncFolderRequest("chengwu", "/sync/",
+                    new File(localDir, "small.txt").getPath(), manifestFile.getPath())));
+            assertEquals(ErrorCode.PARAMS_ERROR, ret.getInt(ResponseBodyKey.CODE));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.toString());
+        }
+    }
+}
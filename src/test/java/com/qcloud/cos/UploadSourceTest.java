@@ -0,0 +1,133 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.request.UploadFileRequest;
+
+public class UploadSourceTest {
+
+    private static final int SLICE_SIZE = 1024 * 1024;
+
+    private FakeCosServer server;
+    private FakeUploadHandler uploadHandler;
+    private COSClient cosClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeCosServer();
+        uploadHandler = new FakeUploadHandler(SLICE_SIZE).register(server);
+        server.start();
+        cosClient = server.newClient();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private void assertUploaded(String ret, String cosPath, byte[] expected) {
+        assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+        assertArrayEquals(expected, uploadHandler.getUploadedFile(cosPath));
+    }
+
+    @Test
+    public void testUploadBytesAndBuffers() {
+        byte[] content = randomBytes(300 * 1024);
+        String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/mem/bytes.bin", content));
+        assertUploaded(ret, "/mem/bytes.bin", content);
+
+        ByteBuffer heapBuffer = ByteBuffer.wrap(content, 1000, 5000);
+        ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/mem/heap.bin", heapBuffer));
+        byte[] expected = new byte[5000];
+        System.arraycopy(content, 1000, expected, 0, 5000);
+        assertUploaded(ret, "/mem/heap.bin", expected);
+        assertEquals(1000, heapBuffer.position());
+
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(content.length);
+        directBuffer.put(content).flip();
+        ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/mem/direct.bin", directBuffer));
+        assertUploaded(ret, "/mem/direct.bin", content);
+        assertEquals(0, directBuffer.position());
+        assertEquals(0, uploadHandler.getSliceCount());
+    }
+
+    @Test
+    public void testUploadLargeSources() {
+        byte[] content = randomBytes(9 * 1024 * 1024 + 123);
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(content.length);
+        directBuffer.put(content).flip();
+        String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/mem/large_direct.bin", directBuffer));
+        assertUploaded(ret, "/mem/large_direct.bin", content);
+        assertEquals(10, uploadHandler.getSliceCount());
+
+        ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/mem/known.bin",
+                new ByteArrayInputStream(content), content.length));
+        assertUploaded(ret, "/mem/known.bin", content);
+        assertEquals(20, uploadHandler.getSliceCount());
+    }
+
+    @Test
+    public void testUploadStreamOfUnknownLength() {
+        byte[] small = randomBytes(4096);
+        String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/stream/small.bin",
+                new ByteArrayInputStream(small), -1));
+        assertUploaded(ret, "/stream/small.bin", small);
+        assertEquals(0, uploadHandler.getSliceCount());
+
+        byte[] large = randomBytes(8 * 1024 * 1024 + 3 * 1024 * 1024 / 2);
+        ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/stream/large.bin",
+                new ByteArrayInputStream(large), -1));
+        assertUploaded(ret, "/stream/large.bin", large);
+        assertEquals(10, uploadHandler.getSliceCount());
+    }
+
+    @Test
+    public void testStreamOverBufferLimit() {
+        ClientConfig config = new ClientConfig();
+        config.setMaxStreamBufferSize(10 * 1024 * 1024);
+        COSClient limitedClient = server.newClient(config);
+        try {
+            byte[] content = randomBytes(9 * 1024 * 1024);
+            String ret = limitedClient.uploadFile(new UploadFileRequest("chengwu", "/stream/limited.bin",
+                    new ByteArrayInputStream(content), -1));
+            assertUploaded(ret, "/stream/limited.bin", content);
+
+            // 超过缓存上限时不发送任何请求, 直接失败
+            int requestCount = server.getRequests().size();
+            ret = limitedClient.uploadFile(new UploadFileRequest("chengwu", "/stream/huge.bin",
+                    new ByteArrayInputStream(randomBytes(12 * 1024 * 1024)), -1));
+            assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+            assertEquals(requestCount, server.getRequests().size());
+        } finally {
+            limitedClient.shutdown();
+        }
+    }
+
+    @Test
+    public void testShortStream() {
+        String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/stream/short.bin",
+                new ByteArrayInputStream(new byte[100]), 200));
+        assertEquals(ErrorCode.UNKNOWN_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+
+        ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/stream/bad.bin",
+                new ByteArrayInputStream(new byte[100]), -2));
+        assertEquals(ErrorCode.PARAMS_ERROR, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+    }
+}
@@ -0,0 +1,155 @@
+package com.qcloud.cos;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.http.ResponseBodyKey;
+import com.qcloud.cos.meta.ListPattern;
+import com.qcloud.cos.request.WalkFolderRequest;
+import com.qcloud.cos.response.ObjectInfo;
+import com.qcloud.cos.response.ObjectInfoConsumer;
+
+public class WalkFolderTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+    // 目录路径到成员路径的映射, 目录以/结尾
+    private Map<String, List<String>> tree = new HashMap<String, List<String>>();
+    private Set<String> allPaths = new TreeSet<String>();
+    private volatile String failFolder = null;
+
+    private void buildTree(String folder, int depth) {
+        List<String> children = new ArrayList<String>();
+        tree.put(folder, children);
+        for (int i = 0; i < 3; ++i) {
+            children.add(folder + "file_" + i + ".txt");
+        }
+        if (depth < 3) {
+            for (int i = 0; i < 4; ++i) {
+                String subFolder = folder + "dir_" + i + "/";
+                children.add(subFolder);
+                buildTree(subFolder, depth + 1);
+            }
+        }
+        allPaths.addAll(children);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        buildTree("/root/", 0);
+        server = new FakeCosServer().on("list", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                Thread.sleep(5);
+                String folder = request.getCosPath();
+                if (folder.equals(failFolder)) {
+                    return FakeCosServer.error(-197, "ERROR_RESOURCE_NOT_EXISTS");
+                }
+                List<String> children = new ArrayList<String>();
+                for (String child : tree.get(folder)) {
+                    boolean isFolder = child.endsWith("/");
+                    String pattern = request.getParam("pattern");
+                    if ((isFolder && !pattern.equals("eListFileOnly")) || (!isFolder && !pattern.equals("eListDirOnly"))) {
+                        children.add(child);
+                    }
+                }
+                // 每页2个成员, context为下一页的起始下标
+                String context = request.getParam("context");
+                int start = context.isEmpty() ? 0 : Integer.parseInt(context);
+                int end = Math.min(start + 2, children.size());
+                JSONArray infos = new JSONArray();
+                for (String child : children.subList(start, end)) {
+                    JSONObject info = new JSONObject();
+                    String name = child.substring(folder.length());
+                    if (child.endsWith("/")) {
+                        info.put("name", name.substring(0, name.length() - 1));
+                    } else {
+                        info.put("name", name);
+                        info.put("filesize", 100);
+                    }
+                    infos.put(info);
+                }
+                JSONObject data = new JSONObject();
+                data.put("context", String.valueOf(end));
+                data.put("listover", end >= children.size());
+                data.put("infos", infos);
+                return FakeCosServer.success(data);
+            }
+        });
+        server.start();
+        cosClient = server.newClient();
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    private static class PathCollector implements ObjectInfoConsumer {
+        private Set<String> paths = new ConcurrentSkipListSet<String>();
+
+        @Override
+        public void accept(String cosPath, ObjectInfo info) {
+            assertEquals(cosPath.endsWith("/"), info.isFolder());
+            assertTrue(paths.add(cosPath));
+        }
+    }
+
+    @Test
+    public void testWalkAll() {
+        WalkFolderRequest request = new WalkFolderRequest("chengwu", "/root/");
+        request.setTaskNum(4);
+        PathCollector collector = new PathCollector();
+        JSONObject ret = new JSONObject(cosClient.walkFolder(request, collector));
+        assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+        assertEquals(allPaths, collector.paths);
+        assertEquals(84, ret.getJSONObject(ResponseBodyKey.DATA).getLong("folder_count"));
+        // 同时进行的列表请求不超过taskNum
+        assertTrue(server.getMaxInFlight() > 1);
+        assertTrue(server.getMaxInFlight() <= 4);
+    }
+
+    @Test
+    public void testWalkWithDepthAndPattern() {
+        WalkFolderRequest request = new WalkFolderRequest("chengwu", "/root/");
+        request.setMaxDepth(2);
+        request.setPattern(ListPattern.FILE_ONLY);
+        PathCollector collector = new PathCollector();
+        JSONObject ret = new JSONObject(cosClient.walkFolder(request, collector));
+        assertEquals(0, ret.getInt(ResponseBodyKey.CODE));
+        Set<String> expectPaths = new TreeSet<String>();
+        for (String path : allPaths) {
+            if (!path.endsWith("/") && path.split("/").length <= 4) {
+                expectPaths.add(path);
+            }
+        }
+        assertEquals(expectPaths, collector.paths);
+        assertEquals(15, collector.paths.size());
+    }
+
+    @Test
+    public void testWalkFailed() {
+        failFolder = "/root/dir_2/dir_1/";
+        WalkFolderRequest request = new WalkFolderRequest("chengwu", "/root/");
+        JSONObject ret = new JSONObject(cosClient.walkFolder(request, new PathCollector()));
+        assertEquals(-197, ret.getInt(ResponseBodyKey.CODE));
+
+        ret = new JSONObject(cosClient.walkFolder(new WalkFolderRequest("chengwu", "/root/file_0.txt"),
+                new PathCollector()));
+        assertEquals(ErrorCode.PARAMS_ERROR, ret.getInt(ResponseBodyKey.CODE));
+    }
+}
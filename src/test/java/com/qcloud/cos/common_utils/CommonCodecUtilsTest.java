@@ -2,6 +2,11 @@ package com.qcloud.cos.common_utils;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Test;
 
 import com.qcloud.cos.common_utils.CommonCodecUtils;
@@ -42,4 +47,77 @@ public class CommonCodecUtilsTest {
         }
     }
 
+    @Test
+    public void testGetSliceSha1() {
+        int sliceSize = 64 * 1024;
+        byte[] content = new byte[sliceSize * 37 + 1234];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        File file = null;
+        try {
+            file = File.createTempFile("cos_slice_sha", ".dat");
+            FileOutputStream outputStream = new FileOutputStream(file);
+            outputStream.write(content);
+            outputStream.close();
+
+            String[] sliceSha1 = CommonCodecUtils.getSliceSha1(file.getPath(), sliceSize);
+            assertEquals(38, sliceSha1.length);
+            // 每一项是从文件开头到分片末尾的中间状态, 最后一项是整个文件的sha1
+            IncrementalSha1 sha1 = new IncrementalSha1();
+            for (int i = 0; i < 37; ++i) {
+                sha1.update(content, i * sliceSize, sliceSize);
+                assertEquals(sha1.getStateHex(), sliceSha1[i]);
+                assertFalse(sliceSha1[i].equals(DigestUtils.sha1Hex(Arrays.copyOf(content, (i + 1) * sliceSize))));
+            }
+            assertEquals(DigestUtils.sha1Hex(content), sliceSha1[37]);
+
+            try {
+                CommonCodecUtils.getSliceSha1(file.getPath(), 1000);
+                fail("slice size not aligned to 64 should be rejected");
+            } catch (Exception e) {
+            }
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalSha1() {
+        byte[] content = new byte[4096 + 7];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) (i * 13 + 5);
+        }
+        // 各种长度和分段方式的结果与标准实现一致
+        int[] lengths = { 0, 1, 55, 56, 63, 64, 65, 119, 120, 1000, content.length };
+        for (int length : lengths) {
+            IncrementalSha1 sha1 = new IncrementalSha1();
+            for (int pos = 0; pos < length; pos += 37) {
+                sha1.update(content, pos, Math.min(37, length - pos));
+            }
+            assertEquals(DigestUtils.sha1Hex(Arrays.copyOf(content, length)), sha1.digestHex());
+        }
+
+        // 处理完数据和它的填充后的中间状态就是数据的sha1, 以此验证中间状态
+        byte[] data = Arrays.copyOf(content, 100);
+        byte[] padded = new byte[128];
+        System.arraycopy(data, 0, padded, 0, data.length);
+        padded[100] = (byte) 0x80;
+        padded[126] = (byte) ((100 * 8) >>> 8);
+        padded[127] = (byte) (100 * 8);
+        IncrementalSha1 sha1 = new IncrementalSha1();
+        sha1.update(padded, 0, 128);
+        assertEquals(DigestUtils.sha1Hex(data), sha1.getStateHex());
+
+        sha1.update(content, 0, 10);
+        try {
+            sha1.getStateHex();
+            fail("state of length not aligned to 64 should be rejected");
+        } catch (IllegalStateException e) {
+        }
+    }
 }
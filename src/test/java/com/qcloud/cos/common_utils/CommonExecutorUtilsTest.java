@@ -0,0 +1,48 @@
+package com.qcloud.cos.common_utils;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CommonExecutorUtilsTest {
+
+    private static final Callable<Thread> CURRENT_THREAD = new Callable<Thread>() {
+        @Override
+        public Thread call() throws Exception {
+            return Thread.currentThread();
+        }
+    };
+
+    @Test
+    public void testNewVirtualThreadExecutor() {
+        try {
+            ExecutorService executor = CommonExecutorUtils.newVirtualThreadExecutor();
+            // 低版本JDK上返回null, 由调用者退回到线程池
+            assertEquals(CommonExecutorUtils.isVirtualThreadSupported(), executor != null);
+            if (executor != null) {
+                assertNotNull(executor.submit(CURRENT_THREAD).get(10, TimeUnit.SECONDS));
+                executor.shutdown();
+            }
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testNewDaemonThreadPool() {
+        ExecutorService executor = CommonExecutorUtils.newDaemonThreadPool(2, "cos-test-");
+        try {
+            Thread thread = executor.submit(CURRENT_THREAD).get(10, TimeUnit.SECONDS);
+            assertTrue(thread.isDaemon());
+            assertTrue(thread.getName().startsWith("cos-test-"));
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.qcloud.cos.common_utils;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+public class CommonFileUtilsTest {
+
+    // 每次read最多返回3个字节的流
+    private static InputStream slowStream(byte[] content) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    @Test
+    public void testReadFully() throws IOException {
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) (i + 1);
+        }
+        InputStream inputStream = slowStream(content);
+        byte[] buffer = new byte[64];
+        // 多次read拼满期望的长度, 只写入缓冲区的[offset, offset + length)
+        assertEquals(60, CommonFileUtils.readFully(inputStream, buffer, 4, 60));
+        for (int i = 0; i < 4; ++i) {
+            assertEquals(0, buffer[i]);
+        }
+        for (int i = 0; i < 60; ++i) {
+            assertEquals(content[i], buffer[4 + i]);
+        }
+
+        // 流中剩余数据不足时返回实际读取的长度, 之后返回0
+        assertEquals(40, CommonFileUtils.readFully(inputStream, buffer, 0, 64));
+        assertEquals(content[99], buffer[39]);
+        assertEquals(0, CommonFileUtils.readFully(inputStream, buffer, 0, 64));
+        assertEquals(0, CommonFileUtils.readFully(slowStream(content), buffer, 0, 0));
+    }
+}
@@ -0,0 +1,80 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpenAndRecover() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 4, 50);
+        for (int i = 0; i < 2; ++i) {
+            assertTrue(breaker.allowRequest());
+            breaker.onSuccess();
+        }
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(60);
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        // 半开时只放行一个探测请求
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenCount());
+
+        Thread.sleep(60);
+        assertTrue(breaker.allowRequest());
+        breaker.onIgnored();
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testAimdLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 8, 1000);
+        for (int i = 0; i < 8; ++i) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        // 失败时乘性减少, 同一批失败只减少一次
+        limiter.release(false, 0);
+        limiter.release(false, 0);
+        assertEquals(6, limiter.getLimit());
+        assertEquals(6, limiter.getInFlight());
+        assertFalse(limiter.tryAcquire());
+
+        // 慢请求同样视为拥塞
+        Thread.sleep(250);
+        limiter.release(true, TimeUnit.SECONDS.toNanos(2));
+        assertEquals(4, limiter.getLimit());
+
+        // 限制被充分使用时加性增长, 不超过上限
+        while (limiter.getInFlight() > 0) {
+            limiter.release(true, 0);
+        }
+        for (int round = 0; round < 50; ++round) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                ++acquired;
+            }
+            assertEquals(limiter.getLimit(), acquired);
+            for (int i = 0; i < acquired; ++i) {
+                limiter.release(true, 0);
+            }
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+}
@@ -0,0 +1,73 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+import org.junit.Test;
+
+import com.qcloud.cos.ClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ConnectionWarmUpTest {
+
+    @Test
+    public void testWarmUp() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files/v1", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] respBody = "{\"code\":0,\"message\":\"SUCCESS\"}".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, respBody.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(respBody);
+                out.close();
+            }
+        });
+        server.start();
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint("http://127.0.0.1:" + server.getAddress().getPort() + "/files/v1");
+        config.setWarmUpConnections(3);
+        DefaultCosHttpClient httpClient = new DefaultCosHttpClient(config);
+        try {
+            // 连接在创建客户端时已经建立, 空闲在连接池中
+            assertEquals(3, httpClient.connectionManager.getTotalStats().getAvailable());
+
+            HttpRequest httpRequest = new HttpRequest();
+            httpRequest.setUrl(config.getCosEndPoint() + "/a");
+            httpRequest.setMethod(HttpMethod.GET);
+            assertTrue(httpClient.sendHttpRequest(httpRequest).contains("SUCCESS"));
+            // 请求复用了预先建立的连接
+            assertEquals(3, httpClient.connectionManager.getTotalStats().getAvailable());
+        } finally {
+            httpClient.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testDnsCache() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(10);
+        try {
+            InetAddress[] addresses = resolver.resolve("localhost");
+            assertTrue(addresses.length > 0);
+            Thread.sleep(20);
+            // 过期后仍然立即返回缓存的地址, 在后台重新解析
+            assertArrayEquals(addresses, resolver.resolve("localhost"));
+            try {
+                resolver.resolve("cos-no-such-host.invalid");
+                fail("unknown host should not be resolved");
+            } catch (UnknownHostException e) {
+                // 第一次解析失败时直接抛出
+            }
+        } finally {
+            resolver.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.Test;
+
+public class DefaultRetryPolicyTest {
+
+    private static HttpRequest newRequest(HttpMethod method) {
+        HttpRequest httpRequest = new HttpRequest();
+        httpRequest.setMethod(method);
+        return httpRequest;
+    }
+
+    @Test
+    public void testClassification() {
+        assertEquals(RetryCause.POOL_TIMEOUT, RetryCause.fromException(new ConnectionPoolTimeoutException()));
+        assertEquals(RetryCause.POOL_TIMEOUT, RetryCause.fromException(new TimeoutException()));
+        assertEquals(RetryCause.CONNECT_TIMEOUT, RetryCause.fromException(new ConnectTimeoutException()));
+        assertEquals(RetryCause.CONNECT_FAILED, RetryCause.fromException(new ConnectException()));
+        assertEquals(RetryCause.READ_TIMEOUT, RetryCause.fromException(new SocketTimeoutException()));
+        assertEquals(RetryCause.IO_ERROR, RetryCause.fromException(new IOException("connection reset")));
+        assertEquals(RetryCause.THROTTLED, RetryCause.fromStatusCode(429));
+        assertEquals(RetryCause.SERVER_ERROR, RetryCause.fromStatusCode(503));
+        assertEquals(RetryCause.CLIENT_ERROR, RetryCause.fromStatusCode(404));
+    }
+
+    @Test
+    public void testIdempotency() {
+        DefaultRetryPolicy policy = new DefaultRetryPolicy(100, 1000);
+        HttpRequest get = newRequest(HttpMethod.GET);
+        HttpRequest post = newRequest(HttpMethod.POST);
+        assertTrue(policy.getRetryDelay(get, RetryCause.READ_TIMEOUT, 0) >= 0);
+        assertTrue(policy.getRetryDelay(get, RetryCause.SERVER_ERROR, 0) >= 0);
+        assertTrue(policy.getRetryDelay(post, RetryCause.READ_TIMEOUT, 0) < 0);
+        assertTrue(policy.getRetryDelay(post, RetryCause.SERVER_ERROR, 0) < 0);
+        // 服务端没有处理请求时, 非幂等的请求也可以重试
+        assertTrue(policy.getRetryDelay(post, RetryCause.CONNECT_TIMEOUT, 0) >= 0);
+        assertTrue(policy.getRetryDelay(post, RetryCause.THROTTLED, 0) >= 0);
+        assertTrue(policy.getRetryDelay(get, RetryCause.CLIENT_ERROR, 0) < 0);
+        // 连接池已满时重试只会加重排队
+        assertTrue(policy.getRetryDelay(get, RetryCause.POOL_TIMEOUT, 0) < 0);
+        post.setIdempotent(true);
+        assertTrue(policy.getRetryDelay(post, RetryCause.SERVER_ERROR, 0) >= 0);
+    }
+
+    @Test
+    public void testBackoffWithJitter() {
+        DefaultRetryPolicy policy = new DefaultRetryPolicy(100, 1000);
+        HttpRequest get = newRequest(HttpMethod.GET);
+        long maxFirstDelay = 0;
+        long maxLateDelay = 0;
+        boolean jittered = false;
+        for (int i = 0; i < 200; ++i) {
+            long firstDelay = policy.getRetryDelay(get, RetryCause.SERVER_ERROR, 0);
+            assertTrue(firstDelay >= 0 && firstDelay <= 100);
+            maxFirstDelay = Math.max(maxFirstDelay, firstDelay);
+            long lateDelay = policy.getRetryDelay(get, RetryCause.SERVER_ERROR, 40);
+            assertTrue(lateDelay >= 0 && lateDelay <= 1000);
+            maxLateDelay = Math.max(maxLateDelay, lateDelay);
+            jittered |= firstDelay != policy.getRetryDelay(get, RetryCause.SERVER_ERROR, 0);
+        }
+        assertTrue(jittered);
+        assertTrue(maxLateDelay > maxFirstDelay);
+    }
+
+    @Test
+    public void testRetryBudget() {
+        RetryBudget budget = new RetryBudget(2, 0.5);
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        budget.onRequest();
+        assertFalse(budget.tryRetry());
+        budget.onRequest();
+        assertTrue(budget.tryRetry());
+
+        RetryBudget unlimited = new RetryBudget(0, 0.1);
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(unlimited.tryRetry());
+        }
+    }
+}
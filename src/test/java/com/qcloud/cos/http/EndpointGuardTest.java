@@ -0,0 +1,154 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.ErrorCode;
+import com.qcloud.cos.FakeCosServer;
+import com.qcloud.cos.FakeUploadHandler;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.request.UploadFileRequest;
+
+public class EndpointGuardTest {
+
+    private FakeCosServer server;
+    private FakeUploadHandler uploadHandler;
+    private ClientConfig config;
+    private COSClient cosClient;
+    private AtomicInteger statCount = new AtomicInteger(0);
+    // 前failCount个stat请求返回503
+    private volatile int failCount = 0;
+    // 请求处理前的等待时间, 单位ms
+    private volatile long delay = 0;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeCosServer();
+        uploadHandler = new FakeUploadHandler(512 * 1024);
+        server.on("stat", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                if (statCount.incrementAndGet() <= failCount) {
+                    throw new FakeCosServer.HttpStatusException(503);
+                }
+                Thread.sleep(delay);
+                return FakeCosServer.success(new JSONObject());
+            }
+        });
+        server.on("upload", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                Thread.sleep(delay);
+                return uploadHandler.handle(request);
+            }
+        });
+        server.start();
+
+        config = new ClientConfig();
+        config.setRetryPolicy(new DefaultRetryPolicy(1, 20));
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    private static int getCode(String ret) {
+        return new JSONObject(ret).getInt(ResponseBodyKey.CODE);
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        config.setMaxFailedRetry(1);
+        config.setEnableCircuitBreaker(true);
+        config.setEnableConcurrencyLimit(true);
+        config.setCircuitBreakerMinRequests(5);
+        config.setCircuitBreakerOpenTime(100);
+        cosClient = server.newClient(config);
+        failCount = 5;
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(ErrorCode.NETWORK_ERROR, getCode(cosClient.statFile(new StatFileRequest("chengwu", "/a"))));
+        }
+        // 熔断器打开后直接失败, 请求不再发到服务端
+        String ret = cosClient.statFile(new StatFileRequest("chengwu", "/a"));
+        assertEquals(ErrorCode.NETWORK_ERROR, getCode(ret));
+        assertTrue(ret, ret.contains("circuit breaker is open"));
+        assertEquals(5, statCount.get());
+        List<EndpointMetrics> metrics = cosClient.getEndpointMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals(CircuitState.OPEN, metrics.get(0).getCircuitState());
+        assertEquals(5, metrics.get(0).getFailureCount());
+        assertEquals(1, metrics.get(0).getRejectedCount());
+        assertEquals(0, metrics.get(0).getInFlight());
+
+        // 经过打开时间后探测成功, 恢复正常
+        Thread.sleep(150);
+        ret = cosClient.statFile(new StatFileRequest("chengwu", "/a"));
+        assertEquals(ret, 0, getCode(ret));
+        assertEquals(CircuitState.CLOSED, cosClient.getEndpointMetrics().get(0).getCircuitState());
+    }
+
+    @Test
+    public void testPoolTimeoutIgnored() throws Exception {
+        // 连接池超时与服务端无关, 不打开熔断器也不减少并发限制
+        config.setEnableCircuitBreaker(true);
+        config.setEnableConcurrencyLimit(true);
+        config.setCircuitBreakerMinRequests(1);
+        cosClient = server.newClient(config);
+        EndpointGuard guard = new EndpointGuard("a", config);
+        for (int i = 0; i < 5; ++i) {
+            guard.acquire();
+            guard.release(RetryCause.POOL_TIMEOUT, 0);
+        }
+        EndpointMetrics metrics = guard.getMetrics();
+        assertEquals(CircuitState.CLOSED, metrics.getCircuitState());
+        assertEquals(0, metrics.getFailureCount());
+        assertEquals(config.getMaxConnectionsCount(), metrics.getConcurrencyLimit());
+        assertEquals(0, metrics.getInFlight());
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        cosClient = server.newClient(config);
+        failCount = 100;
+        for (int i = 0; i < 30; ++i) {
+            String ret = cosClient.statFile(new StatFileRequest("chengwu", "/a"));
+            assertFalse(ret, ret.contains("circuit breaker is open"));
+        }
+        EndpointMetrics metrics = cosClient.getEndpointMetrics().get(0);
+        assertEquals(CircuitState.CLOSED, metrics.getCircuitState());
+        assertEquals(-1, metrics.getConcurrencyLimit());
+        assertEquals(0, metrics.getRejectedCount());
+    }
+
+    @Test
+    public void testUploadLatencyIgnored() {
+        config.setEnableConcurrencyLimit(true);
+        // 耗时超过200ms视为慢请求
+        config.setSocketTimeout(400);
+        cosClient = server.newClient(config);
+        delay = 300;
+        // 上传的耗时与文件大小有关, 不减少并发限制
+        for (int i = 0; i < 2; ++i) {
+            String ret = cosClient.uploadFile(new UploadFileRequest("chengwu", "/guard/a.txt", new byte[1024]));
+            assertEquals(ret, 0, getCode(ret));
+        }
+        assertEquals(config.getMaxConnectionsCount(),
+                cosClient.getEndpointMetrics().get(0).getConcurrencyLimit());
+
+        // 慢的查询请求说明服务端拥塞
+        String ret = cosClient.statFile(new StatFileRequest("chengwu", "/guard/a.txt"));
+        assertEquals(ret, 0, getCode(ret));
+        assertTrue(cosClient.getEndpointMetrics().get(0).getConcurrencyLimit() < config.getMaxConnectionsCount());
+    }
+}
@@ -0,0 +1,103 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.FakeCosServer;
+import com.qcloud.cos.request.StatFileRequest;
+import com.qcloud.cos.sign.Credentials;
+
+public class EndpointSelectorTest {
+
+    private static ClientConfig newConfig() {
+        ClientConfig config = new ClientConfig();
+        config.setEnableCircuitBreaker(true);
+        config.setCircuitBreakerMinRequests(5);
+        return config;
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        ClientConfig config = newConfig();
+        EndpointGuard guardA = new EndpointGuard("a", config);
+        EndpointGuard guardB = new EndpointGuard("b", config);
+        EndpointSelector selector = new EndpointSelector(Arrays.asList("a", "b"), Arrays.asList(guardA, guardB));
+
+        // 避开上一次使用的地址
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("b", selector.select("a"));
+            assertEquals("a", selector.select("b"));
+        }
+
+        // 选择在途请求最少的地址
+        guardA.acquire();
+        assertEquals("b", selector.select(null));
+        guardA.releaseIgnored();
+
+        // 熔断器打开的地址最后选择
+        for (int i = 0; i < 5; ++i) {
+            guardA.acquire();
+            guardA.release(RetryCause.SERVER_ERROR, 0);
+        }
+        assertEquals(CircuitState.OPEN, guardA.getCircuitState());
+        guardB.acquire();
+        guardB.acquire();
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("b", selector.select(null));
+        }
+    }
+
+    @Test
+    public void testEndpointFailover() throws Exception {
+        final AtomicInteger goodCount = new AtomicInteger(0);
+        FakeCosServer goodServer = new FakeCosServer();
+        goodServer.on("stat", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                goodCount.incrementAndGet();
+                return FakeCosServer.success(new JSONObject());
+            }
+        });
+        // 另一个地址总是返回503
+        final AtomicInteger badCount = new AtomicInteger(0);
+        FakeCosServer badServer = new FakeCosServer();
+        badServer.on("stat", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                badCount.incrementAndGet();
+                throw new FakeCosServer.HttpStatusException(503);
+            }
+        });
+        goodServer.start();
+        badServer.start();
+        COSClient cosClient = null;
+        try {
+            ClientConfig config = newConfig();
+            config.setMaxFailedRetry(2);
+            config.setRetryPolicy(new DefaultRetryPolicy(1, 20));
+            config.setCosEndPoints(Arrays.asList(badServer.getEndPoint(), goodServer.getEndPoint()));
+            cosClient = new COSClient(config, new Credentials(FakeCosServer.APP_ID, "xxx", "xxx"));
+            // 失败的地址在重试时被避开, 熔断后不再被选择
+            for (int i = 0; i < 20; ++i) {
+                String ret = cosClient.statFile(new StatFileRequest("chengwu", "/failover/a.txt"));
+                assertEquals(ret, 0, new JSONObject(ret).getInt(ResponseBodyKey.CODE));
+            }
+            assertEquals(20, goodCount.get());
+            assertTrue(badCount.get() <= 5);
+            assertEquals(2, cosClient.getEndpointMetrics().size());
+        } finally {
+            if (cosClient != null) {
+                cosClient.shutdown();
+            }
+            badServer.stop();
+            goodServer.stop();
+        }
+    }
+}
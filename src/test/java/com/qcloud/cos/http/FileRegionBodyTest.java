@@ -0,0 +1,105 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class FileRegionBodyTest {
+
+    private static byte[] buildContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    @Test
+    public void testFileRegionBodyWriteTo() {
+        byte[] content = buildContent(100 * 1024);
+        File file = null;
+        FileInputStream inputStream = null;
+        try {
+            file = File.createTempFile("cos_region", ".dat");
+            FileOutputStream outputStream = new FileOutputStream(file);
+            outputStream.write(content);
+            outputStream.close();
+
+            inputStream = new FileInputStream(file);
+            FileChannel fileChannel = inputStream.getChannel();
+            FileRegionBody body = new FileRegionBody(fileChannel, 1000, 50000);
+            assertEquals(50000, body.getContentLength());
+            assertNull(body.getFilename());
+
+            // 包体可以重复发送, 且不改变channel的position
+            for (int i = 0; i < 2; ++i) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                body.writeTo(out);
+                byte[] written = out.toByteArray();
+                assertEquals(50000, written.length);
+                for (int j = 0; j < written.length; ++j) {
+                    assertEquals(content[1000 + j], written[j]);
+                }
+            }
+            assertEquals(0, fileChannel.position());
+        } catch (Exception e) {
+            fail(e.toString());
+        } finally {
+            try {
+                if (inputStream != null) {
+                    inputStream.close();
+                }
+            } catch (Exception e) {
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testByteArrayRangeBodyWriteTo() {
+        byte[] content = buildContent(4096);
+        try {
+            ByteArrayRangeBody body = new ByteArrayRangeBody(content, 100, 200);
+            assertEquals(200, body.getContentLength());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.writeTo(out);
+            byte[] written = out.toByteArray();
+            assertEquals(200, written.length);
+            for (int i = 0; i < written.length; ++i) {
+                assertEquals(content[100 + i], written[i]);
+            }
+
+            // 范围位于数组末尾, 以及空的范围
+            out.reset();
+            new ByteArrayRangeBody(content, 4000, 96).writeTo(out);
+            assertArrayEquals(Arrays.copyOfRange(content, 4000, 4096), out.toByteArray());
+            out.reset();
+            new ByteArrayRangeBody(content, 4096, 0).writeTo(out);
+            assertEquals(0, out.size());
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testByteArrayRangeBodyOutOfBounds() {
+        byte[] content = buildContent(100);
+        int[][] ranges = { { -1, 10 }, { 0, -1 }, { 50, 51 }, { 101, 0 } };
+        for (int[] range : ranges) {
+            try {
+                new ByteArrayRangeBody(content, range[0], range[1]);
+                fail("range " + Arrays.toString(range) + " should be rejected");
+            } catch (IndexOutOfBoundsException e) {
+            }
+        }
+    }
+}
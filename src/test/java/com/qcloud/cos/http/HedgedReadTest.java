@@ -0,0 +1,69 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.FakeCosServer;
+import com.qcloud.cos.request.StatFileRequest;
+
+public class HedgedReadTest {
+
+    private FakeCosServer server;
+    private COSClient cosClient;
+    // 路径包含slow的第一个请求延迟返回
+    private AtomicBoolean slowOnce = new AtomicBoolean(false);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeCosServer();
+        server.on("stat", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) throws Exception {
+                if (request.getCosPath().contains("slow") && slowOnce.compareAndSet(false, true)) {
+                    Thread.sleep(3000);
+                }
+                return FakeCosServer.success(new JSONObject());
+            }
+        });
+        server.start();
+
+        ClientConfig config = new ClientConfig();
+        config.setEnableHedgedRead(true);
+        config.setHedgeRatio(1);
+        cosClient = server.newClient(config);
+    }
+
+    @After
+    public void tearDown() {
+        cosClient.shutdown();
+        server.stop();
+    }
+
+    private static int getCode(String ret) {
+        return new JSONObject(ret).getInt(ResponseBodyKey.CODE);
+    }
+
+    @Test
+    public void testHedgedRead() throws Exception {
+        // 积累耗时样本后才有对冲阈值
+        for (int i = 0; i < 40; ++i) {
+            String ret = cosClient.statFile(new StatFileRequest("chengwu", "/hedge/a.txt"));
+            assertEquals(ret, 0, getCode(ret));
+        }
+        int before = server.getRequests().size();
+        long start = System.currentTimeMillis();
+        String ret = cosClient.statFile(new StatFileRequest("chengwu", "/hedge/slow.txt"));
+        assertEquals(ret, 0, getCode(ret));
+        // 对冲请求先返回, 不等待慢的请求
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertTrue(server.getRequests().size() >= before + 2);
+    }
+}
@@ -0,0 +1,59 @@
+package com.qcloud.cos.http;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.FakeCosServer;
+
+public class HttpRequestTest {
+
+    @Test
+    public void testBinaryParamInMultipart() throws Exception {
+        final AtomicReference<FakeCosServer.Request> received = new AtomicReference<FakeCosServer.Request>();
+        FakeCosServer server = new FakeCosServer().on("upload", new FakeCosServer.OpHandler() {
+            @Override
+            public JSONObject handle(FakeCosServer.Request request) {
+                received.set(request);
+                return FakeCosServer.success(null);
+            }
+        });
+        server.start();
+        ClientConfig config = new ClientConfig();
+        config.setCosEndPoint(server.getEndPoint());
+        DefaultCosHttpClient httpClient = new DefaultCosHttpClient(config);
+        try {
+            byte[] content = new byte[1024];
+            for (int i = 0; i < content.length; ++i) {
+                content[i] = (byte) (i * 7);
+            }
+            HttpRequest httpRequest = new HttpRequest();
+            httpRequest.setUrl(server.getEndPoint() + "/" + FakeCosServer.APP_ID + "/" + FakeCosServer.BUCKET
+                    + "/a.bin");
+            httpRequest.setMethod(HttpMethod.POST);
+            httpRequest.setContentType(HttpContentType.MULTIPART_FORM_DATA);
+            httpRequest.addParam(RequestBodyKey.OP, "upload");
+            httpRequest.addParam(RequestBodyKey.BIZ_ATTR, "属性");
+            httpRequest.addBinaryParam(RequestBodyKey.FILE_CONTENT, new ByteArrayRangeBody(content, 100, 300));
+            httpRequest.addBinaryParam("empty", new ByteArrayRangeBody(content, 0, 0));
+            assertEquals(0, new JSONObject(httpClient.sendHttpRequest(httpRequest)).getInt(ResponseBodyKey.CODE));
+
+            // 文本参数和二进制参数都作为multipart的字段发送, 二进制字段只包含指定范围的数据
+            FakeCosServer.Request request = received.get();
+            assertEquals("/a.bin", request.getCosPath());
+            assertEquals("upload", request.getOp());
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 400), request.getBytes(RequestBodyKey.FILE_CONTENT));
+            assertArrayEquals(new byte[0], request.getBytes("empty"));
+            // 文本参数总是按UTF-8编码
+            assertArrayEquals("属性".getBytes("UTF-8"), request.getBytes(RequestBodyKey.BIZ_ATTR));
+        } finally {
+            httpClient.shutdown();
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.qcloud.cos.op;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SyncManifestTest {
+
+    // 路径中含有制表符, 换行符和反斜杠
+    private static final String[] PATHS = { "a.txt", "dir/tab\tname.txt", "line\nbreak.txt", "back\\slash\\t.txt" };
+
+    private File manifestFile;
+
+    @Before
+    public void setUp() throws Exception {
+        manifestFile = File.createTempFile("cos_sync", ".manifest");
+        manifestFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        manifestFile.delete();
+        new File(manifestFile.getPath() + ".tmp").delete();
+    }
+
+    private SyncManifest open() throws Exception {
+        return SyncManifest.open(manifestFile.getPath(), "chengwu", "/sync/");
+    }
+
+    private void assertEntries(SyncManifest manifest) {
+        for (int i = 0; i < PATHS.length; ++i) {
+            SyncManifest.Entry entry = manifest.get(PATHS[i]);
+            assertNotNull(PATHS[i], entry);
+            assertEquals(i, entry.size);
+            assertEquals(1000L + i, entry.mtime);
+            assertEquals(DigestUtils.sha1Hex(PATHS[i]), Hex.encodeHexString(entry.sha));
+        }
+    }
+
+    @Test
+    public void testSpecialCharactersInPath() throws Exception {
+        SyncManifest manifest = open();
+        for (int i = 0; i < PATHS.length; ++i) {
+            manifest.record(PATHS[i], i, 1000L + i, DigestUtils.sha1Hex(PATHS[i]));
+        }
+        manifest.close();
+        // 每个文件只占一行, 每行4个字段
+        List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(PATHS.length + 1, lines.size());
+        for (String line : lines.subList(1, lines.size())) {
+            assertEquals(line, 4, line.split("\t").length);
+        }
+
+        // 追加的记录和重写后的清单都能还原原始路径
+        manifest = open();
+        assertEntries(manifest);
+        for (String path : PATHS) {
+            manifest.keep(manifest.get(path));
+        }
+        manifest.compact();
+        assertEntries(open());
+    }
+
+    @Test
+    public void testEscape() {
+        for (String path : PATHS) {
+            String escaped = SyncManifest.escape(path);
+            assertEquals(-1, escaped.indexOf('\t'));
+            assertEquals(-1, escaped.indexOf('\n'));
+            assertEquals(path, SyncManifest.unescape(escaped));
+        }
+        assertEquals("a.txt", SyncManifest.escape("a.txt"));
+    }
+}
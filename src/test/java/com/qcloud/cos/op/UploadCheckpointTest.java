@@ -0,0 +1,93 @@
+package com.qcloud.cos.op;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UploadCheckpointTest {
+
+    private static final String UPLOAD_KEY = "10022105\tchengwu\t/bigfile.txt\t8388608\t1476700000000\t";
+
+    private File checkpointDir;
+
+    @Before
+    public void setUp() throws Exception {
+        checkpointDir = File.createTempFile("cos_checkpoint", "");
+        checkpointDir.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = checkpointDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        checkpointDir.delete();
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() {
+        try {
+            UploadCheckpoint checkpoint = UploadCheckpoint.open(checkpointDir.getPath(), UPLOAD_KEY);
+            assertFalse(checkpoint.hasSession());
+            checkpoint.recordSession("session_1", 1048576);
+            checkpoint.recordSlice(0);
+            checkpoint.recordSlice(1048576);
+            checkpoint.close();
+
+            // 模拟进程在写入记录的过程中退出
+            File checkpointFile = new File(checkpointDir, DigestUtils.sha1Hex(UPLOAD_KEY) + ".upload");
+            FileOutputStream outputStream = new FileOutputStream(checkpointFile, true);
+            outputStream.write("slice\t20971".getBytes("UTF-8"));
+            outputStream.close();
+
+            checkpoint = UploadCheckpoint.open(checkpointDir.getPath(), UPLOAD_KEY);
+            assertTrue(checkpoint.hasSession());
+            assertEquals("session_1", checkpoint.getSession());
+            assertEquals(1048576, checkpoint.getSliceSize());
+            assertEquals(2, checkpoint.getFinishedSliceCount());
+            assertTrue(checkpoint.isSliceFinished(0));
+            assertTrue(checkpoint.isSliceFinished(1048576));
+            assertFalse(checkpoint.isSliceFinished(20971));
+
+            checkpoint.remove();
+            assertFalse(checkpointFile.exists());
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testNewSessionInvalidatesSlices() {
+        try {
+            UploadCheckpoint checkpoint = UploadCheckpoint.open(checkpointDir.getPath(), UPLOAD_KEY);
+            checkpoint.recordSession("session_1", 1048576);
+            checkpoint.recordSlice(0);
+            checkpoint.recordSession("session_2", 524288);
+            checkpoint.recordSlice(524288);
+            checkpoint.close();
+
+            checkpoint = UploadCheckpoint.open(checkpointDir.getPath(), UPLOAD_KEY);
+            assertEquals("session_2", checkpoint.getSession());
+            assertEquals(524288, checkpoint.getSliceSize());
+            assertFalse(checkpoint.isSliceFinished(0));
+            assertTrue(checkpoint.isSliceFinished(524288));
+
+            checkpoint.reset();
+            checkpoint.close();
+            checkpoint = UploadCheckpoint.open(checkpointDir.getPath(), UPLOAD_KEY);
+            assertFalse(checkpoint.hasSession());
+            checkpoint.close();
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.qcloud.cos.response;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.qcloud.cos.ErrorCode;
+
+public class CosResultTest {
+
+    private static String buildListResult(int count) {
+        JSONArray infos = new JSONArray();
+        for (int i = 0; i < count; ++i) {
+            JSONObject info = new JSONObject();
+            info.put("name", "file_\"" + i + "\"\\文件.txt");
+            info.put("biz_attr", "");
+            info.put("custom_headers", new JSONObject().put("Cache-Control", "max-age=[" + i + "]"));
+            if (i % 2 == 0) {
+                info.put("filesize", 1024L * 1024 * 1024 * 10 + i);
+                info.put("sha", "681805d9f7c6ab988a00c02f1096b1b68a77aaed");
+            }
+            info.put("ctime", 1476700000 + i);
+            info.put("mtime", 1476700000 + i);
+            infos.put(info);
+        }
+        JSONObject data = new JSONObject();
+        data.put("context", "/10022105/chengwu/folder/file_\"199\"");
+        data.put("listover", false);
+        data.put("infos", infos);
+        return new JSONObject().put("code", 0).put("message", "SUCCESS").put("data", data).toString();
+    }
+
+    @Test
+    public void testListResult() {
+        String rawResult = buildListResult(199);
+        ListResult listResult = new ListResult(rawResult);
+        assertEquals(rawResult, listResult.getRawResult());
+        assertTrue(listResult.isSuccess());
+        assertEquals("SUCCESS", listResult.getMessage());
+        assertFalse(listResult.isListOver());
+
+        JSONObject expectData = new JSONObject(rawResult).getJSONObject("data");
+        assertEquals(expectData.getString("context"), listResult.getContext());
+        List<ObjectInfo> infos = listResult.getInfos();
+        JSONArray expectInfos = expectData.getJSONArray("infos");
+        assertEquals(expectInfos.length(), infos.size());
+        for (int i = 0; i < infos.size(); ++i) {
+            JSONObject expectInfo = expectInfos.getJSONObject(i);
+            ObjectInfo info = infos.get(i);
+            assertEquals(expectInfo.getString("name"), info.getName());
+            assertEquals("", info.getBizAttr());
+            assertEquals(expectInfo.optLong("filesize", -1), info.getFileSize());
+            assertEquals(!expectInfo.has("filesize"), info.isFolder());
+            assertEquals(expectInfo.optString("sha", null), info.getSha());
+            assertEquals(expectInfo.getLong("mtime"), info.getMtime());
+            assertEquals(expectInfo.getJSONObject("custom_headers").toString(), info.getString("custom_headers"));
+        }
+    }
+
+    @Test
+    public void testErrorResult() {
+        ListResult listResult = new ListResult("{\"code\":-197,\"message\":\"ERROR_RESOURCE_NOT_EXISTS\"}");
+        assertFalse(listResult.isSuccess());
+        assertEquals(-197, listResult.getCode());
+        assertTrue(listResult.getInfos().isEmpty());
+
+        StatResult statResult = new StatResult("{\"code\": 0, \"message\": \"SUCCESS\", \"data\": {\"filesize\": 100, "
+                + "\"access_url\": \"http:\\/\\/chengwu.file.myqcloud.com\\/a.txt\", \"name\": \"\\u6587\"}}");
+        assertEquals(100, statResult.getInfo().getFileSize());
+        assertEquals("http://chengwu.file.myqcloud.com/a.txt", statResult.getInfo().getAccessUrl());
+        assertEquals("\u6587", statResult.getInfo().getName());
+        assertNull(statResult.getInfo().getSha());
+
+        UploadResult uploadResult = new UploadResult(
+                "{\"code\":0,\"message\":\"SUCCESS\",\"data\":{\"session\":\"abc\",\"slice_size\":1048576,\"offset\":0}}");
+        assertFalse(uploadResult.isFinished());
+        assertEquals("abc", uploadResult.getSession());
+        assertEquals(1048576, uploadResult.getSliceSize());
+
+        String[] illegalResults = { "", "{\"code\":0", "[]", "{\"code\":0}}" };
+        for (String illegalResult : illegalResults) {
+            try {
+                new CosResult(illegalResult).getCode();
+                fail("illegal result: " + illegalResult);
+            } catch (JSONException e) {
+            }
+        }
+        assertEquals(ErrorCode.UNKNOWN_ERROR, new CosResult("{}").getCode());
+    }
+}
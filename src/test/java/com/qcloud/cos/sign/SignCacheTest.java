@@ -0,0 +1,50 @@
+package com.qcloud.cos.sign;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SignCacheTest {
+
+    private Credentials cred = new Credentials(10022105, "xxx", "xxx");
+
+    @Test
+    public void testReuseSign() {
+        try {
+            SignCache signCache = new SignCache(100);
+            String sign = signCache.getPeriodEffectiveSign("chengwu", "/a.txt", cred, 300);
+            assertEquals(sign, signCache.getPeriodEffectiveSign("chengwu", "/a.txt", cred, 300));
+            // 不同路径和不同类型的签名不复用
+            assertNotEquals(sign, signCache.getPeriodEffectiveSign("chengwu", "/b.txt", cred, 300));
+            assertNotEquals(sign, signCache.getDownLoadSign("chengwu", "/a.txt", cred, 300));
+            assertEquals(3, signCache.size());
+
+            // 剩余有效期不足一半时重新生成
+            String expiredSign = signCache.getPeriodEffectiveSign("chengwu", "/c.txt", cred, 0);
+            assertNotEquals(expiredSign, signCache.getPeriodEffectiveSign("chengwu", "/c.txt", cred, 0));
+
+            signCache.clear();
+            assertEquals(0, signCache.size());
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testMaxSize() {
+        try {
+            SignCache signCache = new SignCache(10);
+            for (int i = 0; i < 100; ++i) {
+                signCache.getPeriodEffectiveSign("chengwu", "/file_" + i + ".txt", cred, 300);
+                assertTrue(signCache.size() <= 10);
+            }
+
+            // 上限为0时不缓存
+            signCache = new SignCache(0);
+            signCache.getPeriodEffectiveSign("chengwu", "/a.txt", cred, 300);
+            assertEquals(0, signCache.size());
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+}
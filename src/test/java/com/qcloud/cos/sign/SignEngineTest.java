@@ -0,0 +1,55 @@
+package com.qcloud.cos.sign;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.qcloud.cos.common_utils.CommonCodecUtils;
+
+public class SignEngineTest {
+
+    // 与逐次创建Mac、BASE64编码的实现比较
+    private static String expectSign(String plainText, String secretKey) throws Exception {
+        byte[] plainBytes = plainText.getBytes("UTF-8");
+        byte[] hmacDigest = CommonCodecUtils.HmacSha1(plainBytes, secretKey);
+        byte[] signContent = new byte[hmacDigest.length + plainBytes.length];
+        System.arraycopy(hmacDigest, 0, signContent, 0, hmacDigest.length);
+        System.arraycopy(plainBytes, 0, signContent, hmacDigest.length, plainBytes.length);
+        return CommonCodecUtils.Base64Encode(signContent);
+    }
+
+    @Test
+    public void testSign() {
+        try {
+            // 原文长度覆盖BASE64的三种填充情况
+            for (int i = 0; i < 3; ++i) {
+                String fileId = "/10022105/chengwu/sample" + "xxx".substring(i) + ".txt";
+                String sign = SignEngine.current().append("a=").append(10022105).append("&e=").append(-1476700000L)
+                        .append("&f=").append(fileId).sign("lw7231!2@7g");
+                assertEquals(expectSign("a=10022105&e=-1476700000&f=" + fileId, "lw7231!2@7g"), sign);
+            }
+
+            // 更换秘钥以及非ASCII字符
+            String sign = SignEngine.current().append("b=").append("存储桶").append(0).sign("another_key");
+            assertEquals(expectSign("b=存储桶0", "another_key"), sign);
+            sign = SignEngine.current().append("a=").append(Long.MIN_VALUE).sign("lw7231!2@7g");
+            assertEquals(expectSign("a=" + Long.MIN_VALUE, "lw7231!2@7g"), sign);
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+
+    @Test
+    public void testLongPlainText() {
+        try {
+            StringBuilder fileId = new StringBuilder();
+            for (int i = 0; i < 100; ++i) {
+                fileId.append("/folder_").append(i);
+            }
+            String sign = SignEngine.current().append(fileId.toString()).sign("lw7231!2@7g");
+            assertEquals(expectSign(fileId.toString(), "lw7231!2@7g"), sign);
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
+}